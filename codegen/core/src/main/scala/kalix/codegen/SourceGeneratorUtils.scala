@@ -159,30 +159,49 @@ object SourceGeneratorUtils {
     val allCommands = service.commands.toSeq
       .flatMap(command => Seq(command.inputType, command.outputType))
 
-    val entitySpecificMessages =
-      entity match {
-        case es: ModelBuilder.EventSourcedEntity =>
-          es.events.map(_.messageType).toSeq :+ es.state.messageType
-        case va: ModelBuilder.ValueEntity =>
-          Seq(va.state.messageType)
-        case re: ModelBuilder.ReplicatedEntity =>
-          re.data match {
-            case ReplicatedRegister(MessageTypeArgument(valueFqn))   => Seq(valueFqn)
-            case ReplicatedSet(MessageTypeArgument(valueFqn))        => Seq(valueFqn)
-            case ReplicatedMap(MessageTypeArgument(valueFqn))        => Seq(valueFqn)
-            case ReplicatedCounterMap(MessageTypeArgument(valueFqn)) => Seq(valueFqn)
-
-            case ReplicatedRegisterMap(MessageTypeArgument(keyFqn), MessageTypeArgument(valFqn)) => Seq(keyFqn, valFqn)
-            case ReplicatedRegisterMap(MessageTypeArgument(keyFqn), _)                           => Seq(keyFqn)
-            case ReplicatedRegisterMap(_, MessageTypeArgument(valueFqn))                         => Seq(valueFqn)
-
-            case ReplicatedMultiMap(MessageTypeArgument(keyFqn), MessageTypeArgument(valFqn)) => Seq(keyFqn, valFqn)
-            case ReplicatedMultiMap(MessageTypeArgument(keyFqn), _)                           => Seq(keyFqn)
-            case ReplicatedMultiMap(_, MessageTypeArgument(valueFqn))                         => Seq(valueFqn)
-            case _                                                                            => Seq.empty
-          }
-      }
-    allCommands ++ entitySpecificMessages
+    allCommands ++ entityMessageTypes(entity)
+  }
+
+  /**
+   * Given an Entity, return the MessageType of its state and events, or of the keys and values of its replicated data
+   */
+  def entityMessageTypes(entity: ModelBuilder.Entity): Seq[MessageType] =
+    entity match {
+      case es: ModelBuilder.EventSourcedEntity =>
+        es.events.map(_.messageType).toSeq :+ es.state.messageType
+      case va: ModelBuilder.ValueEntity =>
+        Seq(va.state.messageType)
+      case re: ModelBuilder.ReplicatedEntity =>
+        re.data match {
+          case ReplicatedRegister(MessageTypeArgument(valueFqn))   => Seq(valueFqn)
+          case ReplicatedSet(MessageTypeArgument(valueFqn))        => Seq(valueFqn)
+          case ReplicatedMap(MessageTypeArgument(valueFqn))        => Seq(valueFqn)
+          case ReplicatedCounterMap(MessageTypeArgument(valueFqn)) => Seq(valueFqn)
+
+          case ReplicatedRegisterMap(MessageTypeArgument(keyFqn), MessageTypeArgument(valFqn)) => Seq(keyFqn, valFqn)
+          case ReplicatedRegisterMap(MessageTypeArgument(keyFqn), _)                           => Seq(keyFqn)
+          case ReplicatedRegisterMap(_, MessageTypeArgument(valueFqn))                         => Seq(valueFqn)
+
+          case ReplicatedMultiMap(MessageTypeArgument(keyFqn), MessageTypeArgument(valFqn)) => Seq(keyFqn, valFqn)
+          case ReplicatedMultiMap(MessageTypeArgument(keyFqn), _)                           => Seq(keyFqn)
+          case ReplicatedMultiMap(_, MessageTypeArgument(valueFqn))                         => Seq(valueFqn)
+          case _                                                                            => Seq.empty
+        }
+    }
+
+  /**
+   * All protobuf message types used by the components of the model, without duplicates and sorted by their full proto
+   * name: the commands of all services and the messages of all entities.
+   */
+  def allModelMessageTypes(model: ModelBuilder.Model): Seq[ProtoMessageType] = {
+    val messageTypes =
+      model.services.values.flatMap(_.commandTypes) ++ model.entities.values.flatMap(entityMessageTypes)
+    messageTypes
+      .collect { case proto: ProtoMessageType if proto.descriptorObject.isDefined => proto }
+      .groupBy(_.fullyQualifiedProtoName)
+      .map { case (_, sameTypes) => sameTypes.head }
+      .toSeq
+      .sortBy(_.fullyQualifiedProtoName)
   }
 
   def generateImports(
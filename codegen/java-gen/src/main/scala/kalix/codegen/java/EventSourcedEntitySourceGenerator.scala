@@ -44,22 +44,40 @@ object EventSourcedEntitySourceGenerator {
       otherImports = Seq(
         "kalix.javasdk.eventsourcedentity.CommandContext",
         "kalix.javasdk.eventsourcedentity.EventSourcedEntity",
-        "kalix.javasdk.impl.eventsourcedentity.EventSourcedEntityRouter"))
+        "kalix.javasdk.impl.eventsourcedentity.EventSourcedEntityRouter") ++
+        (if (entity.events.isEmpty) Seq.empty else Seq("kalix.javasdk.impl.TypeIndex")))
 
     val stateType = entity.state.messageType.fullName
 
+    // events are dispatched with a switch on the position of their type, resolved once per class by the TypeIndex,
+    // so that the cost of handling an event does not grow with the number of event types
+    val eventTypesField =
+      if (entity.events.isEmpty) ""
+      else
+        s"""|private static final TypeIndex EVENT_TYPES =
+            |      TypeIndex.of(
+            |          ${entity.events.map(evt => s"${evt.messageType.fullName}.class").mkString(",\n          ")});
+            |
+            |  """.stripMargin
+
     val eventCases = {
       if (entity.events.isEmpty)
-        List(s"throw new EventSourcedEntityRouter.EventHandlerNotFound(event.getClass());")
-      else
-        entity.events.zipWithIndex.map { case (evt, i) =>
+        s"throw new EventSourcedEntityRouter.EventHandlerNotFound(event.getClass());"
+      else {
+        val cases = entity.events.zipWithIndex.map { case (evt, i) =>
           val eventType = evt.messageType.fullName
-          s"""|${if (i == 0) "" else "} else "}if (event instanceof $eventType) {
-              |  return entity().${lowerFirst(evt.messageType.name)}(state, ($eventType) event);""".stripMargin
-        }.toSeq :+
-        s"""|} else {
-              |  throw new EventSourcedEntityRouter.EventHandlerNotFound(event.getClass());
-              |}""".stripMargin
+          s"""|case $i:
+              |  return entity().${lowerFirst(evt.messageType.name)}(state, ($eventType) event);
+              |""".stripMargin
+        }
+        s"""|switch (EVENT_TYPES.indexOf(event)) {
+            |
+            |  ${Format.indent(cases, 2)}
+            |
+            |  default:
+            |    throw new EventSourcedEntityRouter.EventHandlerNotFound(event.getClass());
+            |}""".stripMargin
+      }
     }
 
     val commandCases = service.commands
@@ -83,7 +101,7 @@ object EventSourcedEntitySourceGenerator {
        | */
        |public class ${className}Router extends EventSourcedEntityRouter<$stateType, Object, ${entity.messageType.name}> {
        |
-       |  public ${className}Router(${entity.messageType.name} entity) {
+       |  ${eventTypesField}public ${className}Router(${entity.messageType.name} entity) {
        |    super(entity);
        |  }
        |
@@ -22,7 +22,7 @@ import kalix.codegen.ModelBuilder.Service
 import kalix.codegen._
 
 /**
- * Responsible for generating Main and KalixFactory Java source from an entity model
+ * Responsible for generating Main, KalixFactory and TypeRegistry Java source from an entity model
  */
 object MainSourceGenerator {
   import kalix.codegen.SourceGeneratorUtils._
@@ -31,6 +31,7 @@ object MainSourceGenerator {
   def generate(model: ModelBuilder.Model, mainClassPackage: PackageNaming, mainClassName: String): GeneratedFiles =
     GeneratedFiles.Empty
       .addManaged(File.java(mainClassPackage, "KalixFactory", kalixFactorySource(mainClassPackage.javaPackage, model)))
+      .addManaged(File.java(mainClassPackage, "TypeRegistry", typeRegistrySource(mainClassPackage.javaPackage, model)))
       .addUnmanaged(
         File.java(
           mainClassPackage,
@@ -200,11 +201,36 @@ object MainSourceGenerator {
         |
         |  public static Kalix withComponents(
         |      ${creatorParameters.mkString(",\n      ")}) {
-        |    Kalix kalix = new Kalix();
+        |    Kalix kalix = new Kalix().withTypeRegistry(TypeRegistry.INSTANCE);
         |    return kalix
         |      ${Format.indent(registrations, 6)};
         |  }
         |}
         |""".stripMargin
   }
+
+  private[codegen] def typeRegistrySource(mainClassPackageName: String, model: ModelBuilder.Model): String = {
+    // fully qualified, since message types of different packages may share a name
+    val defaultInstances = allModelMessageTypes(model).map(messageType =>
+      s"${messageType.packageName}.${messageType.fullName}.getDefaultInstance()")
+
+    s"""package $mainClassPackageName;
+        |
+        |import kalix.javasdk.impl.ProtobufTypeRegistry;
+        |
+        |$managedComment
+        |
+        |/**
+        | * The protobuf message types of all components, so that they are resolved without reflection at runtime.
+        | */
+        |public final class TypeRegistry {
+        |
+        |  public static final ProtobufTypeRegistry INSTANCE =
+        |      ProtobufTypeRegistry.empty().withJavaTypes(
+        |          ${defaultInstances.mkString(",\n          ")});
+        |
+        |  private TypeRegistry() {}
+        |}
+        |""".stripMargin
+  }
 }
@@ -16,7 +16,7 @@ public final class KalixFactory {
 
   public static Kalix withComponents(
       Function<ActionCreationContext, MyServiceNamedAction> createMyServiceNamedAction) {
-    Kalix kalix = new Kalix();
+    Kalix kalix = new Kalix().withTypeRegistry(TypeRegistry.INSTANCE);
     return kalix
       .register(MyServiceNamedActionProvider.of(createMyServiceNamedAction));
   }
@@ -16,7 +16,7 @@ public final class KalixFactory {
 
   public static Kalix withComponents(
       Function<ActionCreationContext, MyServiceAction> createMyServiceAction) {
-    Kalix kalix = new Kalix();
+    Kalix kalix = new Kalix().withTypeRegistry(TypeRegistry.INSTANCE);
     return kalix
       .register(MyServiceActionProvider.of(createMyServiceAction));
   }
@@ -0,0 +1,24 @@
+package org.example;
+
+import kalix.javasdk.impl.ProtobufTypeRegistry;
+
+// This code is managed by Kalix tooling.
+// It will be re-generated to reflect any changes to your protobuf definitions.
+// DO NOT EDIT
+
+/**
+ * The protobuf message types of all components, so that they are resolved without reflection at runtime.
+ */
+public final class TypeRegistry {
+
+  public static final ProtobufTypeRegistry INSTANCE =
+      ProtobufTypeRegistry.empty().withJavaTypes(
+          com.google.protobuf.Empty.getDefaultInstance(),
+          org.example.eventsourcedentity.CounterApi.DecreaseValue.getDefaultInstance(),
+          org.example.eventsourcedentity.CounterApi.IncreaseValue.getDefaultInstance(),
+          org.example.eventsourcedentity.domain.CounterDomain.CounterState.getDefaultInstance(),
+          org.example.eventsourcedentity.domain.CounterDomain.Decreased.getDefaultInstance(),
+          org.example.eventsourcedentity.domain.CounterDomain.Increased.getDefaultInstance());
+
+  private TypeRegistry() {}
+}
@@ -3,6 +3,7 @@ package org.example.eventsourcedentity.domain;
 import com.google.protobuf.Empty;
 import kalix.javasdk.eventsourcedentity.CommandContext;
 import kalix.javasdk.eventsourcedentity.EventSourcedEntity;
+import kalix.javasdk.impl.TypeIndex;
 import kalix.javasdk.impl.eventsourcedentity.EventSourcedEntityRouter;
 import org.example.eventsourcedentity.CounterApi;
 import org.example.eventsourcedentity.events.OuterCounterEvents;
@@ -18,18 +19,27 @@ import org.example.eventsourcedentity.state.OuterCounterState;
  */
 public class CounterRouter extends EventSourcedEntityRouter<OuterCounterState.CounterState, Object, Counter> {
 
+  private static final TypeIndex EVENT_TYPES =
+      TypeIndex.of(
+          OuterCounterEvents.Increased.class,
+          OuterCounterEvents.Decreased.class);
+
   public CounterRouter(Counter entity) {
     super(entity);
   }
 
   @Override
   public OuterCounterState.CounterState handleEvent(OuterCounterState.CounterState state, Object event) {
-    if (event instanceof OuterCounterEvents.Increased) {
-      return entity().increased(state, (OuterCounterEvents.Increased) event);
-    } else if (event instanceof OuterCounterEvents.Decreased) {
-      return entity().decreased(state, (OuterCounterEvents.Decreased) event);
-    } else {
-      throw new EventSourcedEntityRouter.EventHandlerNotFound(event.getClass());
+    switch (EVENT_TYPES.indexOf(event)) {
+
+      case 0:
+        return entity().increased(state, (OuterCounterEvents.Increased) event);
+
+      case 1:
+        return entity().decreased(state, (OuterCounterEvents.Decreased) event);
+
+      default:
+        throw new EventSourcedEntityRouter.EventHandlerNotFound(event.getClass());
     }
   }
 
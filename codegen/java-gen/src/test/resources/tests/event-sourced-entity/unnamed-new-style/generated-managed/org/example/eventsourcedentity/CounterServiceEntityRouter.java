@@ -3,6 +3,7 @@ package org.example.eventsourcedentity;
 import com.google.protobuf.Empty;
 import kalix.javasdk.eventsourcedentity.CommandContext;
 import kalix.javasdk.eventsourcedentity.EventSourcedEntity;
+import kalix.javasdk.impl.TypeIndex;
 import kalix.javasdk.impl.eventsourcedentity.EventSourcedEntityRouter;
 import org.example.eventsourcedentity.domain.CounterDomain;
 
@@ -16,18 +17,27 @@ import org.example.eventsourcedentity.domain.CounterDomain;
  */
 public class CounterServiceEntityRouter extends EventSourcedEntityRouter<CounterDomain.CounterState, Object, CounterServiceEntity> {
 
+  private static final TypeIndex EVENT_TYPES =
+      TypeIndex.of(
+          CounterDomain.Increased.class,
+          CounterDomain.Decreased.class);
+
   public CounterServiceEntityRouter(CounterServiceEntity entity) {
     super(entity);
   }
 
   @Override
   public CounterDomain.CounterState handleEvent(CounterDomain.CounterState state, Object event) {
-    if (event instanceof CounterDomain.Increased) {
-      return entity().increased(state, (CounterDomain.Increased) event);
-    } else if (event instanceof CounterDomain.Decreased) {
-      return entity().decreased(state, (CounterDomain.Decreased) event);
-    } else {
-      throw new EventSourcedEntityRouter.EventHandlerNotFound(event.getClass());
+    switch (EVENT_TYPES.indexOf(event)) {
+
+      case 0:
+        return entity().increased(state, (CounterDomain.Increased) event);
+
+      case 1:
+        return entity().decreased(state, (CounterDomain.Decreased) event);
+
+      default:
+        throw new EventSourcedEntityRouter.EventHandlerNotFound(event.getClass());
     }
   }
 
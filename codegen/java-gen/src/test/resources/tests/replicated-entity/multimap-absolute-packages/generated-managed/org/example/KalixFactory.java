@@ -16,7 +16,7 @@ public final class KalixFactory {
 
   public static Kalix withComponents(
       Function<ReplicatedEntityContext, SomeMultiMap> createSomeMultiMap) {
-    Kalix kalix = new Kalix();
+    Kalix kalix = new Kalix().withTypeRegistry(TypeRegistry.INSTANCE);
     return kalix
       .register(SomeMultiMapProvider.of(createSomeMultiMap));
   }
@@ -0,0 +1,21 @@
+package org.example;
+
+import kalix.javasdk.impl.ProtobufTypeRegistry;
+
+// This code is managed by Kalix tooling.
+// It will be re-generated to reflect any changes to your protobuf definitions.
+// DO NOT EDIT
+
+/**
+ * The protobuf message types of all components, so that they are resolved without reflection at runtime.
+ */
+public final class TypeRegistry {
+
+  public static final ProtobufTypeRegistry INSTANCE =
+      ProtobufTypeRegistry.empty().withJavaTypes(
+          org.example.view.UserViewModel.ByNameRequest.getDefaultInstance(),
+          org.example.view.UserViewModel.UserResponse.getDefaultInstance(),
+          org.example.view.UserViewModel.UserState.getDefaultInstance());
+
+  private TypeRegistry() {}
+}
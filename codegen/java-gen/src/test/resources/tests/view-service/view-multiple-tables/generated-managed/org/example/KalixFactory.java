@@ -19,7 +19,7 @@ public final class KalixFactory {
   public static Kalix withComponents(
       Function<ViewCreationContext, AnotherCustomerOrdersViewImpl> createAnotherCustomerOrdersViewImpl,
       Function<ViewCreationContext, CustomerOrdersView> createCustomerOrdersView) {
-    Kalix kalix = new Kalix();
+    Kalix kalix = new Kalix().withTypeRegistry(TypeRegistry.INSTANCE);
     return kalix
       .register(AnotherCustomerOrdersViewProvider.of(createAnotherCustomerOrdersViewImpl))
       .register(CustomerOrdersViewProvider.of(createCustomerOrdersView));
@@ -0,0 +1,26 @@
+package org.example;
+
+import kalix.javasdk.impl.ProtobufTypeRegistry;
+
+// This code is managed by Kalix tooling.
+// It will be re-generated to reflect any changes to your protobuf definitions.
+// DO NOT EDIT
+
+/**
+ * The protobuf message types of all components, so that they are resolved without reflection at runtime.
+ */
+public final class TypeRegistry {
+
+  public static final ProtobufTypeRegistry INSTANCE =
+      ProtobufTypeRegistry.empty().withJavaTypes(
+          org.example.view.CustomerOrdersViewModel.Customer.getDefaultInstance(),
+          org.example.view.CustomerOrdersViewModel.CustomerCreated.getDefaultInstance(),
+          org.example.view.CustomerOrdersViewModel.CustomerNameChanged.getDefaultInstance(),
+          org.example.view.CustomerOrdersViewModel.CustomerOrder.getDefaultInstance(),
+          org.example.view.CustomerOrdersViewModel.CustomerOrdersRequest.getDefaultInstance(),
+          org.example.view.CustomerOrdersViewModel.Order.getDefaultInstance(),
+          org.example.view.CustomerOrdersViewModel.Product.getDefaultInstance(),
+          org.example.view.CustomerOrdersViewModel.ProductCreated.getDefaultInstance());
+
+  private TypeRegistry() {}
+}
@@ -93,12 +93,33 @@ object EventSourcedEntitySourceGenerator {
     val stateType = eventSourcedEntity.state.messageType
     val eventSourcedEntityName = eventSourcedEntity.messageType
 
-    val eventCases = eventSourcedEntity.events.map { evt =>
-      c"""|case evt: ${evt.messageType} =>
-          |  entity.${lowerFirst(evt.messageType.name)}(state, evt)
+    // events are dispatched on the position of their type, resolved once per class by the TypeIndex,
+    // so that the cost of handling an event does not grow with the number of event types
+    val eventCases = eventSourcedEntity.events.zipWithIndex.map { case (evt, i) =>
+      c"""|case ${i.toString} =>
+          |  entity.${lowerFirst(evt.messageType.name)}(state, event.asInstanceOf[${evt.messageType}])
           |"""
     }
 
+    val eventTypes = eventSourcedEntity.events.toSeq.zipWithIndex.map { case (evt, i) =>
+      val separator = if (i == eventSourcedEntity.events.size - 1) "" else ","
+      c"classOf[${evt.messageType}]$separator"
+    }
+
+    val eventDispatch =
+      if (eventSourcedEntity.events.isEmpty) c"event"
+      else c"${eventSourcedEntityName}Router.EventTypes.indexOf(event)"
+
+    val companion =
+      if (eventSourcedEntity.events.isEmpty) c""
+      else
+        c"""|
+            |object ${eventSourcedEntityName}Router {
+            |  private val EventTypes = $TypeIndex.of(
+            |    $eventTypes)
+            |}
+            |"""
+
     val commandCases = service.commands
       .map { cmd =>
         val methodName = cmd.name
@@ -124,14 +145,14 @@ object EventSourcedEntitySourceGenerator {
           |    }
           |  }
           |  def handleEvent(state: $stateType, event: Any): $stateType = {
-          |    event match {
+          |    $eventDispatch match {
           |      $eventCases
           |      case _ =>
           |        throw new $EventHandlerNotFound(event.getClass)
           |    }
           |  }
           |}
-          |""",
+          |$companion""",
       packageImports = Seq(service.messageType.parent))
   }
 
@@ -34,7 +34,7 @@ object MainSourceGenerator {
     Seq(mainSource(model, mainPackageName))
 
   def generateManaged(model: ModelBuilder.Model, mainPackageName: PackageNaming): Iterable[File] =
-    Seq(kalixFactorySource(model, mainPackageName))
+    Seq(kalixFactorySource(model, mainPackageName), typeRegistrySource(model, mainPackageName))
 
   def mainClassName(model: ModelBuilder.Model, mainPackageName: PackageNaming): ProtoMessageType =
     ProtoMessageType.noDescriptor("Main", mainPackageName)
@@ -217,7 +217,7 @@ object MainSourceGenerator {
         |
         |  def withComponents(
         |      ${creatorParameters.mkString(",\n      ")}): Kalix = {
-        |    val kalix = Kalix()
+        |    val kalix = Kalix().withTypeRegistry(TypeRegistry.Instance)
         |    kalix
         |      ${Format.indent(registrations, 6)}
         |  }
@@ -225,4 +225,32 @@ object MainSourceGenerator {
         |""".stripMargin)
   }
 
+  private[codegen] def typeRegistrySource(model: ModelBuilder.Model, mainPackageName: PackageNaming): File = {
+    // the generated file objects know all their message companions, so registering those covers all types
+    val fileObjects = allModelMessageTypes(model)
+      .map(_.descriptorImport.fullyQualifiedName)
+      .distinct
+      .sorted
+
+    File.scala(
+      mainPackageName.javaPackage,
+      "TypeRegistry",
+      s"""|package ${mainPackageName.javaPackage}
+        |
+        |import kalix.javasdk.impl.ProtobufTypeRegistry
+        |
+        |$managedComment
+        |
+        |/**
+        | * The protobuf message types of all components, so that they are resolved without reflection at runtime.
+        | */
+        |object TypeRegistry {
+        |
+        |  val Instance: ProtobufTypeRegistry =
+        |    ProtobufTypeRegistry.empty.withScalaFiles(
+        |      ${fileObjects.mkString(",\n      ")})
+        |}
+        |""".stripMargin)
+  }
+
 }
@@ -42,6 +42,7 @@ object Types {
       "kalix.javasdk.impl.eventsourcedentity.EventSourcedEntityRouter.CommandHandlerNotFound")
     val EventHandlerNotFound = ClassMessageType(
       "kalix.javasdk.impl.eventsourcedentity.EventSourcedEntityRouter.EventHandlerNotFound")
+    val TypeIndex = ClassMessageType("kalix.javasdk.impl.TypeIndex")
   }
 
   object ValueEntity {
@@ -13,7 +13,7 @@ object KalixFactory {
 
   def withComponents(
       createMyServiceNamedAction: ActionCreationContext => MyServiceNamedAction): Kalix = {
-    val kalix = Kalix()
+    val kalix = Kalix().withTypeRegistry(TypeRegistry.Instance)
     kalix
       .register(MyServiceNamedActionProvider(createMyServiceNamedAction))
   }
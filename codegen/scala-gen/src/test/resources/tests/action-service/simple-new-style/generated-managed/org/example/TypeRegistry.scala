@@ -0,0 +1,18 @@
+package org.example
+
+import kalix.javasdk.impl.ProtobufTypeRegistry
+
+// This code is managed by Kalix tooling.
+// It will be re-generated to reflect any changes to your protobuf definitions.
+// DO NOT EDIT
+
+/**
+ * The protobuf message types of all components, so that they are resolved without reflection at runtime.
+ */
+object TypeRegistry {
+
+  val Instance: ProtobufTypeRegistry =
+    ProtobufTypeRegistry.empty.withScalaFiles(
+      org.example.service.ExampleActionProto,
+      org.external.ExternalDomainProto)
+}
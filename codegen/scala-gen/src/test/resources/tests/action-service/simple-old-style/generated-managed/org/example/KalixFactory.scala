@@ -13,7 +13,7 @@ object KalixFactory {
 
   def withComponents(
       createMyServiceAction: ActionCreationContext => MyServiceAction): Kalix = {
-    val kalix = Kalix()
+    val kalix = Kalix().withTypeRegistry(TypeRegistry.Instance)
     kalix
       .register(MyServiceActionProvider(createMyServiceAction))
   }
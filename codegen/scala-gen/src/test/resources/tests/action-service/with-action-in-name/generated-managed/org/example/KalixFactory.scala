@@ -13,7 +13,7 @@ object KalixFactory {
 
   def withComponents(
       createMyServiceActionImpl: ActionCreationContext => MyServiceActionImpl): Kalix = {
-    val kalix = Kalix()
+    val kalix = Kalix().withTypeRegistry(TypeRegistry.Instance)
     kalix
       .register(MyServiceActionProvider(createMyServiceActionImpl))
   }
@@ -0,0 +1,20 @@
+package org.example
+
+import kalix.javasdk.impl.ProtobufTypeRegistry
+
+// This code is managed by Kalix tooling.
+// It will be re-generated to reflect any changes to your protobuf definitions.
+// DO NOT EDIT
+
+/**
+ * The protobuf message types of all components, so that they are resolved without reflection at runtime.
+ */
+object TypeRegistry {
+
+  val Instance: ProtobufTypeRegistry =
+    ProtobufTypeRegistry.empty.withScalaFiles(
+      com.google.protobuf.empty.EmptyProto,
+      org.example.events.CounterEventsProto,
+      org.example.eventsourcedentity.CounterApiProto,
+      org.example.state.CounterStateProto)
+}
@@ -1,5 +1,6 @@
 package org.example.eventsourcedentity.domain
 
+import kalix.javasdk.impl.TypeIndex
 import kalix.javasdk.impl.eventsourcedentity.EventSourcedEntityRouter.CommandHandlerNotFound
 import kalix.javasdk.impl.eventsourcedentity.EventSourcedEntityRouter.EventHandlerNotFound
 import kalix.scalasdk.eventsourcedentity.CommandContext
@@ -29,12 +30,12 @@ class CounterRouter(entity: Counter) extends EventSourcedEntityRouter[CounterSta
     }
   }
   def handleEvent(state: CounterState, event: Any): CounterState = {
-    event match {
-      case evt: Increased =>
-        entity.increased(state, evt)
+    CounterRouter.EventTypes.indexOf(event) match {
+      case 0 =>
+        entity.increased(state, event.asInstanceOf[Increased])
 
-      case evt: Decreased =>
-        entity.decreased(state, evt)
+      case 1 =>
+        entity.decreased(state, event.asInstanceOf[Decreased])
 
       case _ =>
         throw new EventHandlerNotFound(event.getClass)
@@ -42,3 +43,9 @@ class CounterRouter(entity: Counter) extends EventSourcedEntityRouter[CounterSta
   }
 }
 
+object CounterRouter {
+  private val EventTypes = TypeIndex.of(
+    classOf[Increased],
+    classOf[Decreased])
+}
+
@@ -13,7 +13,7 @@ object KalixFactory {
 
   def withComponents(
       createCounterServiceEntity: EventSourcedEntityContext => CounterServiceEntity): Kalix = {
-    val kalix = Kalix()
+    val kalix = Kalix().withTypeRegistry(TypeRegistry.Instance)
     kalix
       .register(CounterServiceEntityProvider(createCounterServiceEntity))
   }
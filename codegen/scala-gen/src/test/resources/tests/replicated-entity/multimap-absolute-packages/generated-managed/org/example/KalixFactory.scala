@@ -13,7 +13,7 @@ object KalixFactory {
 
   def withComponents(
       createSomeMultiMap: ReplicatedEntityContext => SomeMultiMap): Kalix = {
-    val kalix = Kalix()
+    val kalix = Kalix().withTypeRegistry(TypeRegistry.Instance)
     kalix
       .register(SomeMultiMapProvider(createSomeMultiMap))
   }
@@ -13,7 +13,7 @@ object KalixFactory {
 
   def withComponents(
       createMultiMapServiceEntity: ReplicatedEntityContext => MultiMapServiceEntity): Kalix = {
-    val kalix = Kalix()
+    val kalix = Kalix().withTypeRegistry(TypeRegistry.Instance)
     kalix
       .register(MultiMapServiceEntityProvider(createMultiMapServiceEntity))
   }
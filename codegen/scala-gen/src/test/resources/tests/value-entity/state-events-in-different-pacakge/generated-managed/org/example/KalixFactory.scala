@@ -13,7 +13,7 @@ object KalixFactory {
 
   def withComponents(
       createCounter: ValueEntityContext => Counter): Kalix = {
-    val kalix = Kalix()
+    val kalix = Kalix().withTypeRegistry(TypeRegistry.Instance)
     kalix
       .register(CounterProvider(createCounter))
   }
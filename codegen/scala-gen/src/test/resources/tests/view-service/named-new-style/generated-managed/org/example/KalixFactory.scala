@@ -13,7 +13,7 @@ object KalixFactory {
 
   def withComponents(
       createMyUserByNameView: ViewCreationContext => MyUserByNameView): Kalix = {
-    val kalix = Kalix()
+    val kalix = Kalix().withTypeRegistry(TypeRegistry.Instance)
     kalix
       .register(MyUserByNameViewProvider(createMyUserByNameView))
   }
@@ -13,7 +13,7 @@ object KalixFactory {
 
   def withComponents(
       createUserByNameView: ViewCreationContext => UserByNameView): Kalix = {
-    val kalix = Kalix()
+    val kalix = Kalix().withTypeRegistry(TypeRegistry.Instance)
     kalix
       .register(UserByNameViewProvider(createUserByNameView))
   }
@@ -13,7 +13,7 @@ object KalixFactory {
 
   def withComponents(
       createUserByNameViewImpl: ViewCreationContext => UserByNameViewImpl): Kalix = {
-    val kalix = Kalix()
+    val kalix = Kalix().withTypeRegistry(TypeRegistry.Instance)
     kalix
       .register(UserByNameViewProvider(createUserByNameViewImpl))
   }
@@ -16,7 +16,7 @@ object KalixFactory {
   def withComponents(
       createAnotherCustomerOrdersViewImpl: ViewCreationContext => AnotherCustomerOrdersViewImpl,
       createCustomerOrdersView: ViewCreationContext => CustomerOrdersView): Kalix = {
-    val kalix = Kalix()
+    val kalix = Kalix().withTypeRegistry(TypeRegistry.Instance)
     kalix
       .register(AnotherCustomerOrdersViewProvider(createAnotherCustomerOrdersViewImpl))
       .register(CustomerOrdersViewProvider(createCustomerOrdersView))
@@ -33,6 +33,7 @@ object Dependencies {
   val SpringBootVersion = "3.1.0"
 
   val CommonsIoVersion = "2.11.0"
+  val HdrHistogramVersion = "2.1.12"
   val MunitVersion = "0.7.29"
 
   val kalixProxyProtocol = "io.kalix" % "kalix-proxy-protocol" % Kalix.ProxyVersion
@@ -61,10 +62,14 @@ object Dependencies {
   val jacksonParameterNames = "com.fasterxml.jackson.module" % "jackson-module-parameter-names" % JacksonVersion
   val jacksonScala = "com.fasterxml.jackson.module" %% "jackson-module-scala" % JacksonVersion
   val jacksonDataFormatProto = "com.fasterxml.jackson.dataformat" % "jackson-dataformat-protobuf" % JacksonVersion
+  val jacksonDataFormatSmile = "com.fasterxml.jackson.dataformat" % "jackson-dataformat-smile" % JacksonVersion
+  val lz4 = "org.lz4" % "lz4-java" % "1.8.0"
+  val caffeine = "com.github.ben-manes.caffeine" % "caffeine" % "3.1.6"
 
   val scalaTest = "org.scalatest" %% "scalatest" % ScalaTestVersion
   val munit = "org.scalameta" %% "munit" % MunitVersion
   val munitScalaCheck = "org.scalameta" %% "munit-scalacheck" % MunitVersion
+  val hdrHistogram = "org.hdrhistogram" % "HdrHistogram" % HdrHistogramVersion
   val testContainers = "org.testcontainers" % "testcontainers" % TestContainersVersion
   val junit4 = "junit" % "junit" % JUnitVersion
   val junit5 = "org.junit.jupiter" % "junit-jupiter" % JUnitJupiterVersion
@@ -102,7 +107,10 @@ object Dependencies {
     jacksonDatabind,
     jacksonJdk8,
     jacksonJsr310,
-    jacksonParameterNames)
+    jacksonParameterNames,
+    jacksonDataFormatSmile,
+    lz4,
+    caffeine)
 
   val devTools = deps ++= Seq(
     "org.scala-lang.modules" %% "scala-collection-compat" % "2.10.0",
@@ -111,6 +119,8 @@ object Dependencies {
 
   val javaSdk = deps ++= sdkDeps
 
+  val javaSdkLoadTest = deps ++= Seq(hdrHistogram, scalaTest % Test)
+
   val javaSdkTestKit = deps ++= Seq(
     testContainers,
     // Override for security vulnerabilities. Can be removed once testcontainers is updated:
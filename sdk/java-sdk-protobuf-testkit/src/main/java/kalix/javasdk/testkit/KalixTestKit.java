@@ -32,8 +32,10 @@ import kalix.javasdk.Principal;
 import kalix.javasdk.impl.GrpcClients;
 import kalix.javasdk.impl.MessageCodec;
 import kalix.javasdk.impl.ProxyInfoHolder;
+import kalix.javasdk.testkit.impl.InProcessProxy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import scala.compat.java8.FutureConverters;
 
 import java.io.IOException;
 import java.net.ServerSocket;
@@ -50,7 +52,8 @@ import static kalix.javasdk.testkit.KalixProxyContainer.DEFAULT_GOOGLE_PUBSUB_PO
 /**
  * Testkit for running Kalix services locally.
  *
- * <p>Requires Docker for starting a local instance of the Kalix proxy.
+ * <p>Requires Docker for starting a local instance of the Kalix proxy, unless the tests only need
+ * what the in-process stand-in for the proxy supports, see {@link Settings.ProxyMode#IN_PROCESS}.
  *
  * <p>Create a KalixTestkit with an {@link Kalix} service descriptor, and then {@link #start} the
  * testkit before testing the service with gRPC or HTTP clients. Call {@link #stop} after tests are
@@ -85,6 +88,9 @@ public class KalixTestKit {
 
     public final EventingSupport eventingSupport;
 
+    /** How the Kalix proxy is run for the tests. */
+    public final ProxyMode proxyMode;
+
     /**
      * Create new settings for KalixTestkit.
      *
@@ -93,7 +99,7 @@ public class KalixTestKit {
      */
     @Deprecated
     public Settings(final Duration stopTimeout) {
-      this(stopTimeout, "self", false, false, Optional.empty(), Collections.emptyMap(), EventingSupport.TEST_BROKER);
+      this(stopTimeout, "self", false, false, Optional.empty(), Collections.emptyMap(), EventingSupport.TEST_BROKER, ProxyMode.CONTAINER);
     }
 
     public enum EventingSupport {
@@ -111,6 +117,24 @@ public class KalixTestKit {
       GOOGLE_PUBSUB
     }
 
+    public enum ProxyMode {
+      /**
+       * This is the default and runs the Kalix proxy in a Docker container, supporting all Kalix features.
+       */
+      CONTAINER,
+
+      /**
+       * Runs a lightweight stand-in for the Kalix proxy inside the test JVM, keeping entity state in memory. Starts in
+       * milliseconds instead of seconds, but only supports gRPC calls to event sourced entities, value entities and
+       * actions, and timers, which are kept in memory.
+       *
+       * Note: views, workflows, replicated entities, eventing, ACLs and HTTP endpoints are not supported, tests using
+       * those need the {@link #CONTAINER} mode. Starting the testkit fails for a service with views, workflows,
+       * replicated entities or components that subscribe to or publish events.
+       */
+      IN_PROCESS
+    }
+
     private Settings(
       final Duration stopTimeout,
       final String serviceName,
@@ -118,7 +142,8 @@ public class KalixTestKit {
       final boolean advancedViews,
       final Optional<Duration> workflowTickInterval,
       final Map<String, String> servicePortMappings,
-      final EventingSupport eventingSupport) {
+      final EventingSupport eventingSupport,
+      final ProxyMode proxyMode) {
       this.stopTimeout = stopTimeout;
       this.serviceName = serviceName;
       this.aclEnabled = aclEnabled;
@@ -126,6 +151,7 @@ public class KalixTestKit {
       this.workflowTickInterval = workflowTickInterval;
       this.servicePortMappings = servicePortMappings;
       this.eventingSupport = eventingSupport;
+      this.proxyMode = proxyMode;
     }
 
     /**
@@ -135,7 +161,7 @@ public class KalixTestKit {
      * @return updated Settings
      */
     public Settings withStopTimeout(final Duration stopTimeout) {
-      return new Settings(stopTimeout, serviceName, aclEnabled, advancedViews, workflowTickInterval, servicePortMappings, eventingSupport);
+      return new Settings(stopTimeout, serviceName, aclEnabled, advancedViews, workflowTickInterval, servicePortMappings, eventingSupport, proxyMode);
     }
 
     /**
@@ -147,7 +173,7 @@ public class KalixTestKit {
      * @return The updated settings.
      */
     public Settings withServiceName(final String serviceName) {
-      return new Settings(stopTimeout, serviceName, aclEnabled, advancedViews, workflowTickInterval, servicePortMappings, eventingSupport);
+      return new Settings(stopTimeout, serviceName, aclEnabled, advancedViews, workflowTickInterval, servicePortMappings, eventingSupport, proxyMode);
     }
 
     /**
@@ -156,7 +182,7 @@ public class KalixTestKit {
      * @return The updated settings.
      */
     public Settings withAclDisabled() {
-      return new Settings(stopTimeout, serviceName, false, advancedViews, workflowTickInterval, servicePortMappings, eventingSupport);
+      return new Settings(stopTimeout, serviceName, false, advancedViews, workflowTickInterval, servicePortMappings, eventingSupport, proxyMode);
     }
 
     /**
@@ -165,7 +191,7 @@ public class KalixTestKit {
      * @return The updated settings.
      */
     public Settings withAclEnabled() {
-      return new Settings(stopTimeout, serviceName, true, advancedViews, workflowTickInterval, servicePortMappings, eventingSupport);
+      return new Settings(stopTimeout, serviceName, true, advancedViews, workflowTickInterval, servicePortMappings, eventingSupport, proxyMode);
     }
 
     /**
@@ -174,7 +200,7 @@ public class KalixTestKit {
      * @return The updated settings.
      */
     public Settings withAdvancedViews() {
-      return new Settings(stopTimeout, serviceName, aclEnabled, true, workflowTickInterval, servicePortMappings, eventingSupport);
+      return new Settings(stopTimeout, serviceName, aclEnabled, true, workflowTickInterval, servicePortMappings, eventingSupport, proxyMode);
     }
 
     /**
@@ -183,7 +209,7 @@ public class KalixTestKit {
      * @return The updated settings.
      */
     public Settings withWorkflowTickInterval(Duration tickInterval) {
-      return new Settings(stopTimeout, serviceName, aclEnabled, true, Optional.of(tickInterval), servicePortMappings, eventingSupport);
+      return new Settings(stopTimeout, serviceName, aclEnabled, true, Optional.of(tickInterval), servicePortMappings, eventingSupport, proxyMode);
     }
 
     /**
@@ -193,11 +219,21 @@ public class KalixTestKit {
     public Settings withServicePortMapping(String serviceName, String host, int port) {
       var updatedMappings = new HashMap<>(servicePortMappings);
       updatedMappings.put(serviceName, host + ":" + port);
-      return new Settings(stopTimeout, serviceName, aclEnabled, advancedViews, workflowTickInterval, Map.copyOf(updatedMappings), eventingSupport);
+      return new Settings(stopTimeout, serviceName, aclEnabled, advancedViews, workflowTickInterval, Map.copyOf(updatedMappings), eventingSupport, proxyMode);
     }
 
     public Settings withEventingSupport(EventingSupport eventingSupport) {
-      return new Settings(stopTimeout, serviceName, aclEnabled, advancedViews, workflowTickInterval, servicePortMappings, eventingSupport);
+      return new Settings(stopTimeout, serviceName, aclEnabled, advancedViews, workflowTickInterval, servicePortMappings, eventingSupport, proxyMode);
+    }
+
+    /**
+     * Select how the Kalix proxy is run for the tests.
+     *
+     * @param proxyMode The proxy mode to use.
+     * @return The updated settings.
+     */
+    public Settings withProxyMode(ProxyMode proxyMode) {
+      return new Settings(stopTimeout, serviceName, aclEnabled, advancedViews, workflowTickInterval, servicePortMappings, eventingSupport, proxyMode);
     }
 
     @Override
@@ -214,6 +250,7 @@ public class KalixTestKit {
         ", workflowTickInterval=" + workflowTickInterval +
         ", servicePortMappings=[" + String.join(", ", portMappingsRendered) + "]" +
         ", eventingSupport=" + eventingSupport +
+        ", proxyMode=" + proxyMode +
         ')';
     }
   }
@@ -226,7 +263,8 @@ public class KalixTestKit {
   private boolean started = false;
   private String proxyHost;
   private int proxyPort;
-  private Optional<KalixProxyContainer> proxyContainer;
+  private Optional<KalixProxyContainer> proxyContainer = Optional.empty();
+  private Optional<InProcessProxy> inProcessProxy = Optional.empty();
   private KalixRunner runner;
   private ActorSystem testSystem;
   private EventingTestKit eventingTestKit;
@@ -270,8 +308,9 @@ public class KalixTestKit {
     if (started)
       throw new IllegalStateException("KalixTestkit already started");
 
+    boolean inProcess = settings.proxyMode.equals(Settings.ProxyMode.IN_PROCESS);
     Boolean useTestContainers = Optional.ofNullable(System.getenv("KALIX_TESTKIT_USE_TEST_CONTAINERS")).map(Boolean::valueOf).orElse(true);
-    int port = userFunctionPort(useTestContainers);
+    int port = userFunctionPort(useTestContainers || inProcess);
     Map<String, Object> conf = new HashMap<>();
     conf.put("kalix.user-function-port", port);
     // don't kill the test JVM when terminating the KalixRunner
@@ -279,6 +318,8 @@ public class KalixTestKit {
     // integration tests runs the proxy with Testcontainers and therefore
     // we shouldn't load DockerComposeUtils
     conf.put("kalix.dev-mode.docker-compose-file", "none");
+    // only the in-process proxy reassembles value entity states persisted as patches
+    conf.put("kalix.value-entity.state-patches.proxy-support", inProcess);
     Config testConfig = ConfigFactory.parseMap(conf);
 
     runner = kalix.createRunner(testConfig.withFallback(config));
@@ -286,8 +327,12 @@ public class KalixTestKit {
 
     testSystem = ActorSystem.create("KalixTestkit", ConfigFactory.parseString("akka.http.server.preview.enable-http2 = true"));
 
-    int eventingBackendPort = settings.eventingSupport.equals(Settings.EventingSupport.GOOGLE_PUBSUB) ? DEFAULT_GOOGLE_PUBSUB_PORT : startEventingTestkit();
-    runProxy(useTestContainers, port, eventingBackendPort);
+    if (inProcess) {
+      runInProcessProxy(port);
+    } else {
+      int eventingBackendPort = settings.eventingSupport.equals(Settings.EventingSupport.GOOGLE_PUBSUB) ? DEFAULT_GOOGLE_PUBSUB_PORT : startEventingTestkit();
+      runProxy(useTestContainers, port, eventingBackendPort);
+    }
 
     started = true;
 
@@ -360,6 +405,18 @@ public class KalixTestKit {
     // the proxy will announce its host and default port, but to communicate with it,
     // we need to use the port and host that testcontainers will expose
     // therefore, we set a port override in ProxyInfoHolder to allow for inter-component communication
+    overrideProxyInfo();
+  }
+
+  private void runInProcessProxy(int port) {
+    var proxy = InProcessProxy.start(testSystem, "localhost", port);
+    this.inProcessProxy = Optional.of(proxy);
+    proxyPort = proxy.port();
+    proxyHost = "localhost";
+    overrideProxyInfo();
+  }
+
+  private void overrideProxyInfo() {
     ProxyInfoHolder holder = ProxyInfoHolder.get(runner.system());
     holder.overridePort(proxyPort);
     holder.overrideProxyHost(proxyHost);
@@ -475,6 +532,10 @@ public class KalixTestKit {
    * @return mocked topic to read/publish messages from/to
    */
   public EventingTestKit.Topic getTopic(String topic) {
+    if (settings.proxyMode.equals(Settings.ProxyMode.IN_PROCESS)) {
+      throw new IllegalStateException("Eventing is not supported with proxy mode (" + Settings.ProxyMode.IN_PROCESS +
+          "). To use this API, configure it to be (" + Settings.ProxyMode.CONTAINER + ")");
+    }
     if (!settings.eventingSupport.equals(Settings.EventingSupport.TEST_BROKER)) {
       throw new IllegalStateException("Currently configured eventing support is (" + settings.eventingSupport +
           "). To use this API, configure it to be (" + Settings.EventingSupport.TEST_BROKER + ")");
@@ -490,6 +551,15 @@ public class KalixTestKit {
     } catch (Exception e) {
       log.error("KalixTestkit proxy container failed to stop", e);
     }
+    try {
+      if (inProcessProxy.isPresent()) {
+        FutureConverters.toJava(inProcessProxy.get().stop())
+          .toCompletableFuture()
+          .get(settings.stopTimeout.toMillis(), TimeUnit.MILLISECONDS);
+      }
+    } catch (Exception e) {
+      log.error("KalixTestkit in-process proxy failed to stop", e);
+    }
     try {
       testSystem.terminate();
       testSystem
@@ -0,0 +1,668 @@
+/*
+ * Copyright 2021 Lightbend Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package kalix.javasdk.testkit.impl
+
+import java.nio.ByteOrder
+import java.nio.charset.StandardCharsets
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicLong
+
+import scala.collection.immutable
+import scala.concurrent.Await
+import scala.concurrent.ExecutionContext
+import scala.concurrent.Future
+import scala.concurrent.Promise
+import scala.concurrent.duration._
+import scala.jdk.CollectionConverters._
+import scala.util.Success
+import scala.util.Try
+import scala.util.control.NonFatal
+
+import akka.Done
+import akka.actor.ActorSystem
+import akka.actor.Cancellable
+import akka.grpc.GrpcClientSettings
+import akka.http.scaladsl.Http
+import akka.http.scaladsl.model.ContentType
+import akka.http.scaladsl.model.HttpEntity
+import akka.http.scaladsl.model.HttpHeader
+import akka.http.scaladsl.model.HttpRequest
+import akka.http.scaladsl.model.HttpResponse
+import akka.http.scaladsl.model.MediaType
+import akka.http.scaladsl.model.headers.RawHeader
+import akka.stream.scaladsl.Sink
+import akka.stream.scaladsl.Source
+import akka.util.ByteString
+import com.google.protobuf.DescriptorProtos
+import com.google.protobuf.Descriptors
+import com.google.protobuf.DynamicMessage
+import com.google.protobuf.ExtensionRegistry
+import com.google.protobuf.any.{ Any => ScalaPbAny }
+import com.google.protobuf.wrappers.StringValue
+import io.grpc.Status
+import io.grpc.StatusRuntimeException
+import kalix.javasdk.BuildInfo
+import kalix.javasdk.impl.AnySupport
+import kalix.javasdk.impl.StateCompression
+import kalix.javasdk.impl.valueentity.StatePatches
+import kalix.protocol.action.ActionCommand
+import kalix.protocol.action.ActionResponse
+import kalix.protocol.action.Actions
+import kalix.protocol.action.ActionsClient
+import kalix.protocol.component.ClientAction
+import kalix.protocol.component.Failure
+import kalix.protocol.component.Metadata
+import kalix.protocol.component.MetadataEntry
+import kalix.protocol.component.Reply
+import kalix.protocol.component.SideEffect
+import kalix.protocol.discovery.DiscoveryClient
+import kalix.protocol.discovery.ProxyInfo
+import kalix.protocol.discovery.Spec
+import kalix.protocol.entity.Command
+import kalix.protocol.event_sourced_entity._
+import kalix.protocol.value_entity._
+import kalix.timers.timers.Call
+import kalix.timers.timers.SingleTimer
+import kalix.timers.timers.TimerService
+import org.slf4j.LoggerFactory
+
+/**
+ * INTERNAL API
+ */
+private[kalix] object InProcessProxy {
+
+  private val StartTimeout = 10.seconds
+
+  private val TimerRetryDelay = 3.seconds
+
+  private val GrpcContentType = ContentType(MediaType.applicationBinary("grpc+proto", MediaType.NotCompressible))
+
+  // headers that are part of the gRPC/HTTP transport rather than metadata for the component
+  private val TransportHeaders = Set("content-type", "te", "user-agent", "grpc-encoding", "grpc-accept-encoding")
+
+  /**
+   * Start an in-process proxy on a free local port, serving the components of the user function running at the given
+   * host and port.
+   */
+  def start(system: ActorSystem, userFunctionHost: String, userFunctionPort: Int): InProcessProxy = {
+    val proxy = new InProcessProxy(system, userFunctionHost, userFunctionPort)
+    try Await.result(proxy.start(), StartTimeout)
+    catch {
+      case NonFatal(e) =>
+        Await.ready(proxy.stop(), StartTimeout)
+        throw e
+    }
+    proxy
+  }
+
+  private val SupportedComponentTypes = Set(Actions.name, EventSourcedEntities.name, ValueEntities.name)
+
+  /**
+   * Fails for a component that the in-process proxy can't serve: any other type of component than actions, event
+   * sourced entities and value entities, and components that subscribe to or publish events.
+   */
+  private[impl] def requireSupported(componentType: String, service: Descriptors.ServiceDescriptor): Unit = {
+    if (!SupportedComponentTypes.contains(componentType))
+      throw new IllegalStateException(
+        s"Component [${service.getFullName}] of type [$componentType] is not supported by the in-process proxy, " +
+        "use the proxy container instead")
+    val eventing =
+      service.getOptions.getExtension(kalix.Annotations.service).hasEventing ||
+      service.getMethods.asScala.exists(_.getOptions.getExtension(kalix.Annotations.method).hasEventing)
+    if (eventing)
+      throw new IllegalStateException(
+        s"Component [${service.getFullName}] subscribes to or publishes events, eventing is not supported by the " +
+        "in-process proxy, use the proxy container instead")
+  }
+
+  /**
+   * The full state to store for a value entity update, reassembling it when the SDK sent a patch against the stored
+   * state (`kalix.value-entity.state-patches`), so that the next Init gets a full state as from a real proxy.
+   */
+  private[impl] def updatedState(stored: Option[ScalaPbAny], update: ScalaPbAny): ScalaPbAny = {
+    val decompressed = StateCompression.decompress(update)
+    if (!StatePatches.isPatch(decompressed)) update
+    else {
+      val base = stored
+        .map(StateCompression.decompress)
+        .getOrElse(throw new IllegalStateException(s"Received a patched state [${update.typeUrl}] without a state"))
+      StatePatches.applyPatch(base, decompressed)
+    }
+  }
+
+  private[impl] final case class Journal(snapshot: Option[EventSourcedSnapshot], events: Vector[EventSourcedEvent]) {
+    def sequence: Long =
+      events.lastOption.map(_.sequence).orElse(snapshot.map(_.snapshotSequence)).getOrElse(0L)
+
+    def append(newEvents: Seq[ScalaPbAny], newSnapshot: Option[ScalaPbAny]): Journal = {
+      val start = sequence
+      val appended = events ++ newEvents.zipWithIndex.map { case (event, index) =>
+        EventSourcedEvent(start + index + 1, Some(event))
+      }
+      newSnapshot match {
+        case Some(state) =>
+          // events up to the snapshot are not needed for recovery anymore
+          Journal(Some(EventSourcedSnapshot(start + newEvents.size, Some(state))), Vector.empty)
+        case None => Journal(snapshot, appended)
+      }
+    }
+  }
+
+  private[impl] object Journal {
+    val empty: Journal = Journal(None, Vector.empty)
+  }
+
+  private final class ScheduledTimer {
+    @volatile var cancellable: Cancellable = Cancellable.alreadyCancelled
+  }
+
+  private[impl] final case class Route(
+      componentType: String,
+      method: Descriptors.MethodDescriptor,
+      entityKeyFields: Seq[Descriptors.FieldDescriptor]) {
+    def serviceName: String = method.getService.getFullName
+  }
+
+  private[impl] def frame(message: ByteString): ByteString = {
+    implicit val order: ByteOrder = ByteOrder.BIG_ENDIAN
+    ByteString.newBuilder.putByte(0).putInt(message.length).append(message).result()
+  }
+
+  private[impl] def unframe(bytes: ByteString): Seq[ByteString] = {
+    implicit val order: ByteOrder = ByteOrder.BIG_ENDIAN
+    val messages = Vector.newBuilder[ByteString]
+    var remaining = bytes
+    while (remaining.nonEmpty) {
+      if (remaining.length < 5)
+        throw Status.INTERNAL.withDescription("Truncated gRPC frame").asRuntimeException()
+      if (remaining.head != 0)
+        throw Status.UNIMPLEMENTED.withDescription("Compressed requests are not supported").asRuntimeException()
+      val length = remaining.iterator.drop(1).getInt
+      if (remaining.length < length + 5)
+        throw Status.INTERNAL.withDescription("Truncated gRPC frame").asRuntimeException()
+      messages += remaining.slice(5, 5 + length)
+      remaining = remaining.drop(5 + length)
+    }
+    messages.result()
+  }
+
+  private[impl] def statusHeaders(status: Status): immutable.Seq[HttpHeader] = {
+    val code = RawHeader("grpc-status", status.getCode.value.toString)
+    Option(status.getDescription) match {
+      case Some(description) => List(code, RawHeader("grpc-message", percentEncode(description)))
+      case None              => List(code)
+    }
+  }
+
+  // percent encoding as the gRPC spec mandates for grpc-message, which is not the same as url encoding
+  private def percentEncode(text: String): String = {
+    val builder = new java.lang.StringBuilder
+    text.getBytes(StandardCharsets.UTF_8).foreach { byte =>
+      if (byte >= ' ' && byte <= '~' && byte != '%') builder.append(byte.toChar)
+      else builder.append('%').append(f"${byte & 0xff}%02X")
+    }
+    builder.toString
+  }
+
+  private[impl] def statusOf(failure: Failure): Status = {
+    // no status code means an unexpected error in the user function
+    val status = if (failure.grpcStatusCode == 0) Status.UNKNOWN else Status.fromCodeValue(failure.grpcStatusCode)
+    status.withDescription(failure.description)
+  }
+
+  private def statusOf(error: Throwable): Status = error match {
+    case e: StatusRuntimeException => e.getStatus
+    case other                     => Status.INTERNAL.withDescription(other.getMessage)
+  }
+}
+
+/**
+ * INTERNAL API
+ *
+ * A stand-in for the Kalix proxy that runs inside the test JVM, so that integration tests don't have to wait for the
+ * proxy container to start. It discovers the components of the user function and serves their gRPC endpoints, keeping
+ * the state of entities in memory for the lifetime of the proxy.
+ *
+ * Only event sourced entities, value entities and unary or server streamed actions are supported. Starting fails
+ * with an `IllegalStateException` if the service has views, workflows, replicated entities or components that
+ * subscribe to or publish events, and there are no ACLs or HTTP transcoding. Tests that need those should use the
+ * proxy container. Timers are kept in memory, and retried every few seconds when
+ * their call fails.
+ */
+private[kalix] final class InProcessProxy private (
+    system: ActorSystem,
+    userFunctionHost: String,
+    userFunctionPort: Int) {
+  import InProcessProxy._
+
+  private implicit val sys: ActorSystem = system
+  private implicit val ec: ExecutionContext = system.dispatcher
+
+  private val log = LoggerFactory.getLogger(classOf[InProcessProxy])
+
+  private val clientSettings =
+    GrpcClientSettings.connectToServiceAt(userFunctionHost, userFunctionPort).withTls(false)
+  private val discoveryClient = DiscoveryClient(clientSettings)
+  private val actionsClient = ActionsClient(clientSettings)
+  private val eventSourcedClient = EventSourcedEntitiesClient(clientSettings)
+  private val valueEntitiesClient = ValueEntitiesClient(clientSettings)
+
+  private val commandIds = new AtomicLong()
+  private val journals = new ConcurrentHashMap[(String, String), Journal]()
+  private val valueEntityStates = new ConcurrentHashMap[(String, String), ScalaPbAny]()
+  private val entityQueues = new ConcurrentHashMap[(String, String), Future[Done]]()
+  private val timers = new ConcurrentHashMap[String, ScheduledTimer]()
+
+  @volatile private var routes: Map[String, Route] = Map.empty
+  @volatile private var binding: Option[Http.ServerBinding] = None
+
+  def port: Int = binding.map(_.localAddress.getPort).getOrElse(throw new IllegalStateException("Proxy not started"))
+
+  private def start(): Future[Done] =
+    for {
+      serverBinding <- Http(system).newServerAt("localhost", 0).bind(handle)
+      spec <- {
+        binding = Some(serverBinding)
+        // the user function is started concurrently, so it may not accept connections yet
+        akka.pattern.retry(
+          () => discoveryClient.discover(proxyInfo(serverBinding.localAddress.getPort)),
+          attempts = 50,
+          delay = 100.millis)(ec, system.scheduler)
+      }
+    } yield {
+      routes = routesFor(spec)
+      log.info("In-process proxy started at localhost:{}, serving [{}]", port, routes.keys.toSeq.sorted.mkString(", "))
+      Done
+    }
+
+  private def proxyInfo(proxyPort: Int): ProxyInfo =
+    ProxyInfo(
+      protocolMajorVersion = BuildInfo.protocolMajorVersion,
+      protocolMinorVersion = BuildInfo.protocolMinorVersion,
+      proxyName = "kalix-testkit-in-process-proxy",
+      proxyVersion = kalix.javasdk.testkit.BuildInfo.version,
+      supportedEntityTypes = Seq(Actions.name, EventSourcedEntities.name, ValueEntities.name),
+      devMode = true,
+      proxyHostname = "localhost",
+      proxyPort = proxyPort,
+      internalProxyHostname = "localhost")
+
+  private def routesFor(spec: Spec): Map[String, Route] = {
+    val registry = ExtensionRegistry.newInstance()
+    kalix.Annotations.registerAllExtensions(registry)
+    val protos = DescriptorProtos.FileDescriptorSet
+      .parseFrom(spec.proto, registry)
+      .getFileList
+      .asScala
+      .map(proto => proto.getName -> proto)
+      .toMap
+
+    val files = new java.util.HashMap[String, Descriptors.FileDescriptor]()
+    def fileDescriptor(name: String): Descriptors.FileDescriptor =
+      Option(files.get(name)).getOrElse {
+        val proto = protos.getOrElse(name, throw new IllegalStateException(s"Missing descriptor for [$name]"))
+        val file = Descriptors.FileDescriptor.buildFrom(proto, proto.getDependencyList.asScala.map(fileDescriptor).toArray)
+        files.put(name, file)
+        file
+      }
+
+    val services = protos.keys
+      .map(fileDescriptor)
+      .flatMap(_.getServices.asScala)
+      .map(service => service.getFullName -> service)
+      .toMap
+
+    spec.components.flatMap { component =>
+      services.get(component.serviceName).toSeq.flatMap { service =>
+        requireSupported(component.componentType, service)
+        service.getMethods.asScala.map { method =>
+          val keyFields = method.getInputType.getFields.asScala.filter { field =>
+            field.getOptions.getExtension(kalix.Annotations.field).getEntityKey
+          }.toSeq
+          s"${service.getFullName}/${method.getName}" -> Route(component.componentType, method, keyFields)
+        }
+      }
+    }.toMap
+  }
+
+  private def handle(request: HttpRequest): Future[HttpResponse] = {
+    val path = request.uri.path.toString.stripPrefix("/")
+    if (path.startsWith(TimerService.name + "/")) timerRequest(path.substring(TimerService.name.length + 1), request)
+    else componentRequest(path, request)
+  }
+
+  private def componentRequest(path: String, request: HttpRequest): Future[HttpResponse] =
+    routes.get(path) match {
+      case None =>
+        request.discardEntityBytes()
+        Future.successful(
+          errorResponse(Status.UNIMPLEMENTED.withDescription(s"No such method [${request.uri.path}]")))
+
+      case Some(route) if route.method.isClientStreaming =>
+        request.discardEntityBytes()
+        Future.successful(
+          errorResponse(
+            Status.UNIMPLEMENTED.withDescription("Streamed in calls are not supported by the in-process proxy")))
+
+      case Some(route) =>
+        request.entity.dataBytes
+          .runFold(ByteString.empty)(_ ++ _)
+          .map { bytes =>
+            val payload = unframe(bytes).headOption.getOrElse(ByteString.empty)
+            val any = ScalaPbAny(
+              s"${AnySupport.DefaultTypeUrlPrefix}/${route.method.getInputType.getFullName}",
+              com.google.protobuf.ByteString.copyFrom(payload.asByteBuffer))
+            val metadata = Metadata(request.headers.collect {
+              case header if !TransportHeaders(header.lowercaseName) =>
+                MetadataEntry(header.name).withStringValue(header.value)
+            })
+            if (route.method.isServerStreaming) streamedResponse(route, any, metadata)
+            else unaryResponse(route, any, metadata)
+          }
+          .recover { case error => Future.successful(errorResponse(statusOf(error))) }
+          .flatten
+    }
+
+  private def unaryResponse(route: Route, payload: ScalaPbAny, metadata: Metadata): Future[HttpResponse] =
+    call(route, payload, metadata)
+      .map { reply =>
+        val headers = reply.metadata.toSeq.flatMap(_.entries).collect {
+          case entry if entry.value.isStringValue => RawHeader(entry.key, entry.getStringValue)
+        }
+        val message = reply.payload.map(any => HttpEntity.Chunk(frame(ByteString(any.value.asReadOnlyByteBuffer()))))
+        HttpResponse(
+          headers = headers.toList,
+          entity = HttpEntity.Chunked(
+            GrpcContentType,
+            Source(message.toList :+ HttpEntity.LastChunk(trailer = statusHeaders(Status.OK)))))
+      }
+      .recover { case error => errorResponse(statusOf(error)) }
+
+  private def streamedResponse(route: Route, payload: ScalaPbAny, metadata: Metadata): Future[HttpResponse] =
+    if (route.componentType != Actions.name)
+      Future.successful(
+        errorResponse(Status.UNIMPLEMENTED.withDescription(
+          s"Streamed out calls to [${route.componentType}] are not supported by the in-process proxy")))
+    else {
+      val chunks = actionsClient
+        .handleStreamedOut(actionCommand(route.serviceName, route.method.getName, payload, metadata))
+        .mapAsync(1)(response => handleClientAction(actionFor(response), response.sideEffects))
+        .collect {
+          case reply if reply.payload.isDefined =>
+            HttpEntity.Chunk(frame(ByteString(reply.getPayload.value.asReadOnlyByteBuffer()))): HttpEntity.ChunkStreamPart
+        }
+        .concat(Source.single(HttpEntity.LastChunk(trailer = statusHeaders(Status.OK))))
+        .recover { case error => HttpEntity.LastChunk(trailer = statusHeaders(statusOf(error))) }
+      Future.successful(HttpResponse(entity = HttpEntity.Chunked(GrpcContentType, chunks)))
+    }
+
+  private def timerRequest(method: String, request: HttpRequest): Future[HttpResponse] =
+    request.entity.dataBytes
+      .runFold(ByteString.empty)(_ ++ _)
+      .map { bytes =>
+        val payload = unframe(bytes).headOption.getOrElse(ByteString.empty).toArray
+        method match {
+          case "AddSingle" =>
+            addTimer(SingleTimer.parseFrom(payload))
+            emptyResponse
+          case "Remove" =>
+            Option(timers.remove(StringValue.parseFrom(payload).value)).foreach(_.cancellable.cancel())
+            emptyResponse
+          case other =>
+            errorResponse(Status.UNIMPLEMENTED.withDescription(s"No such timer service method [$other]"))
+        }
+      }
+      .recover { case error => errorResponse(statusOf(error)) }
+
+  private def addTimer(singleTimer: SingleTimer): Unit = {
+    val timerCall = singleTimer.call.getOrElse(
+      throw Status.INVALID_ARGUMENT.withDescription(s"No call for timer [${singleTimer.name}]").asRuntimeException())
+    val delay = singleTimer.delay.map(d => d.seconds.seconds + d.nanos.nanos).getOrElse(Duration.Zero)
+    val timer = new ScheduledTimer
+    // a timer replaces a previous one with the same name
+    Option(timers.put(singleTimer.name, timer)).foreach(_.cancellable.cancel())
+    // a max retries of 0 means that the timer is retried until its call succeeds
+    val retries = if (singleTimer.maxRetries > 0) singleTimer.maxRetries else -1
+    scheduleTimer(singleTimer.name, timer, timerCall, delay, retries)
+  }
+
+  /** Negative retries left means unlimited */
+  private def scheduleTimer(
+      name: String,
+      timer: ScheduledTimer,
+      timerCall: Call,
+      delay: FiniteDuration,
+      retriesLeft: Int): Unit =
+    timer.cancellable = system.scheduler.scheduleOnce(delay) {
+      if (timers.get(name) eq timer)
+        call(timerCall.serviceName, timerCall.methodName, timerCall.payload.getOrElse(ScalaPbAny()), Metadata())
+          .onComplete { result =>
+            if (result.isSuccess) timers.remove(name, timer)
+            else if (retriesLeft == 0) {
+              log.warn(s"Call of timer [$name] failed, giving up", result.failed.get)
+              timers.remove(name, timer)
+            } else {
+              log.warn(s"Call of timer [$name] failed, retrying in $TimerRetryDelay", result.failed.get)
+              scheduleTimer(name, timer, timerCall, TimerRetryDelay, if (retriesLeft > 0) retriesLeft - 1 else -1)
+            }
+          }
+    }
+
+  private def emptyResponse: HttpResponse =
+    HttpResponse(entity = HttpEntity.Chunked(
+      GrpcContentType,
+      Source(
+        List(HttpEntity.Chunk(frame(ByteString.empty)), HttpEntity.LastChunk(trailer = statusHeaders(Status.OK))))))
+
+  private def errorResponse(status: Status): HttpResponse =
+    HttpResponse(headers = statusHeaders(status), entity = HttpEntity.Empty.withContentType(GrpcContentType))
+
+  private def call(serviceName: String, commandName: String, payload: ScalaPbAny, metadata: Metadata): Future[Reply] =
+    routes.get(s"$serviceName/$commandName") match {
+      case Some(route) => call(route, payload, metadata)
+      case None =>
+        Future.failed(
+          Status.UNIMPLEMENTED.withDescription(s"No such method [$serviceName/$commandName]").asRuntimeException())
+    }
+
+  private def call(route: Route, payload: ScalaPbAny, metadata: Metadata): Future[Reply] =
+    route.componentType match {
+      case Actions.name =>
+        actionsClient
+          .handleUnary(actionCommand(route.serviceName, route.method.getName, payload, metadata))
+          .flatMap(response => handleClientAction(actionFor(response), response.sideEffects))
+      case EventSourcedEntities.name =>
+        Future
+          .fromTry(Try(entityIdOf(route, payload)))
+          .flatMap { entityId =>
+            serialized((route.serviceName, entityId))(() => eventSourcedCommand(route, entityId, payload, metadata))
+          }
+          .flatMap(reply => handleClientAction(reply.clientAction, reply.sideEffects))
+      case ValueEntities.name =>
+        Future
+          .fromTry(Try(entityIdOf(route, payload)))
+          .flatMap { entityId =>
+            serialized((route.serviceName, entityId))(() => valueEntityCommand(route, entityId, payload, metadata))
+          }
+          .flatMap(reply => handleClientAction(reply.clientAction, reply.sideEffects))
+      case other =>
+        Future.failed(
+          Status.UNIMPLEMENTED
+            .withDescription(s"Components of type [$other] are not supported by the in-process proxy")
+            .asRuntimeException())
+    }
+
+  private def actionCommand(serviceName: String, name: String, payload: ScalaPbAny, metadata: Metadata) =
+    ActionCommand(serviceName = serviceName, name = name, payload = Some(payload), metadata = Some(metadata))
+
+  private def actionFor(response: ActionResponse): Option[ClientAction] =
+    response.response match {
+      case ActionResponse.Response.Reply(reply)     => Some(ClientAction(ClientAction.Action.Reply(reply)))
+      case ActionResponse.Response.Forward(forward) => Some(ClientAction(ClientAction.Action.Forward(forward)))
+      case ActionResponse.Response.Failure(failure) => Some(ClientAction(ClientAction.Action.Failure(failure)))
+      case _                                        => None
+    }
+
+  private def entityIdOf(route: Route, payload: ScalaPbAny): String = {
+    val message = DynamicMessage.parseFrom(route.method.getInputType, payload.value)
+    val entityId = route.entityKeyFields.map(field => message.getField(field).toString).filter(_.nonEmpty)
+    if (entityId.isEmpty)
+      throw Status.INVALID_ARGUMENT
+        .withDescription(s"No entity key in request for [${route.serviceName}/${route.method.getName}]")
+        .asRuntimeException()
+    entityId.mkString("-")
+  }
+
+  /**
+   * Run one command against an entity, replaying its journal into a fresh entity stream. Commands for the same entity
+   * are run one at a time, so that each sees the events of the previous one.
+   */
+  private def eventSourcedCommand(
+      route: Route,
+      entityId: String,
+      payload: ScalaPbAny,
+      metadata: Metadata): Future[EventSourcedReply] = {
+    val key = (route.serviceName, entityId)
+    val journal = journals.getOrDefault(key, Journal.empty)
+    val command = Command(
+      entityId = entityId,
+      id = commandIds.incrementAndGet(),
+      name = route.method.getName,
+      payload = Some(payload),
+      metadata = Some(metadata))
+    val in = (EventSourcedStreamIn.Message.Init(EventSourcedInit(route.serviceName, entityId, journal.snapshot)) +:
+      journal.events.map(EventSourcedStreamIn.Message.Event(_)) :+
+      EventSourcedStreamIn.Message.Command(command)).map(EventSourcedStreamIn(_))
+
+    eventSourcedClient
+      .handle(Source(in).concat(Source.never))
+      .map(_.message)
+      .collect {
+        case EventSourcedStreamOut.Message.Reply(reply)     => Right(reply)
+        case EventSourcedStreamOut.Message.Failure(failure) => Left(failure)
+      }
+      .runWith(Sink.head)
+      .flatMap {
+        case Right(reply) =>
+          if (!reply.clientAction.exists(_.action.isFailure))
+            journals.put(key, journal.append(reply.events, reply.snapshot))
+          Future.successful(reply)
+        case Left(failure) =>
+          Future.failed(statusOf(failure).asRuntimeException())
+      }
+  }
+
+  private def valueEntityCommand(
+      route: Route,
+      entityId: String,
+      payload: ScalaPbAny,
+      metadata: Metadata): Future[ValueEntityReply] = {
+    val key = (route.serviceName, entityId)
+    val state = Option(valueEntityStates.get(key))
+    val command = Command(
+      entityId = entityId,
+      id = commandIds.incrementAndGet(),
+      name = route.method.getName,
+      payload = Some(payload),
+      metadata = Some(metadata))
+    val in = List(
+      ValueEntityStreamIn.Message.Init(ValueEntityInit(route.serviceName, entityId, Some(ValueEntityInitState(state)))),
+      ValueEntityStreamIn.Message.Command(command)).map(ValueEntityStreamIn(_))
+
+    valueEntitiesClient
+      .handle(Source(in).concat(Source.never))
+      .map(_.message)
+      .collect {
+        case ValueEntityStreamOut.Message.Reply(reply)     => Right(reply)
+        case ValueEntityStreamOut.Message.Failure(failure) => Left(failure)
+      }
+      .runWith(Sink.head)
+      .flatMap {
+        case Right(reply) =>
+          reply.stateAction.map(_.action) match {
+            case Some(ValueEntityAction.Action.Update(ValueEntityUpdate(Some(newState), _))) =>
+              valueEntityStates.put(key, updatedState(Option(valueEntityStates.get(key)), newState))
+            case Some(ValueEntityAction.Action.Delete(_)) =>
+              valueEntityStates.remove(key)
+            case _ => // no state change
+          }
+          Future.successful(reply)
+        case Left(failure) =>
+          Future.failed(statusOf(failure).asRuntimeException())
+      }
+  }
+
+  private def serialized[T](key: (String, String))(task: () => Future[T]): Future[T] = {
+    val result = Promise[T]()
+    val queued = entityQueues.compute(
+      key,
+      (_, previous) => {
+        val before = if (previous eq null) Future.successful(Done) else previous
+        before.flatMap { _ =>
+          result.completeWith(Future.delegate(task()))
+          result.future.transform(_ => Success(Done))
+        }
+      })
+    // unless more commands for the entity were queued in the meantime
+    queued.onComplete(_ => entityQueues.remove(key, queued))
+    result.future
+  }
+  private def handleClientAction(action: Option[ClientAction], sideEffects: Seq[SideEffect]): Future[Reply] = {
+    val (synchronous, asynchronous) = sideEffects.partition(_.synchronous)
+    asynchronous.foreach { sideEffect =>
+      runSideEffect(sideEffect).failed.foreach { error =>
+        log.warn(s"Side effect to [${sideEffect.serviceName}/${sideEffect.commandName}] failed", error)
+      }
+    }
+    val synchronousDone = synchronous.foldLeft(Future.successful(Done)) { (done, sideEffect) =>
+      done.flatMap(_ => runSideEffect(sideEffect).map(_ => Done))
+    }
+
+    synchronousDone.flatMap { _ =>
+      action.map(_.action) match {
+        case Some(ClientAction.Action.Reply(reply)) =>
+          Future.successful(reply)
+        case Some(ClientAction.Action.Forward(forward)) =>
+          call(
+            forward.serviceName,
+            forward.commandName,
+            forward.payload.getOrElse(ScalaPbAny()),
+            forward.metadata.getOrElse(Metadata()))
+        case Some(ClientAction.Action.Failure(failure)) =>
+          Future.failed(statusOf(failure).asRuntimeException())
+        case _ =>
+          Future.successful(Reply())
+      }
+    }
+  }
+
+  private def runSideEffect(sideEffect: SideEffect): Future[Reply] =
+    call(
+      sideEffect.serviceName,
+      sideEffect.commandName,
+      sideEffect.payload.getOrElse(ScalaPbAny()),
+      sideEffect.metadata.getOrElse(Metadata()))
+
+  def stop(): Future[Done] = {
+    timers.values().asScala.foreach(_.cancellable.cancel())
+    timers.clear()
+    val unbound = binding.map(_.terminate(5.seconds).map(_ => Done)).getOrElse(Future.successful(Done))
+    val clientsClosed =
+      List(discoveryClient.close(), actionsClient.close(), eventSourcedClient.close(), valueEntitiesClient.close())
+    Future.sequence(unbound :: clientsClosed).map(_ => Done)
+  }
+}
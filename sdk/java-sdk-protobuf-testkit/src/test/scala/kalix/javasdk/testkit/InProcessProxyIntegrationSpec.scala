@@ -0,0 +1,154 @@
+/*
+ * Copyright 2021 Lightbend Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package kalix.javasdk.testkit
+
+import java.time.Duration
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CompletionStage
+
+import scala.concurrent.Await
+import scala.concurrent.Future
+import scala.concurrent.duration._
+import scala.jdk.CollectionConverters._
+import scala.jdk.FutureConverters._
+
+import com.example.shoppingcart.ShoppingCartApi
+import com.example.shoppingcart.shoppingcart_api.AddLineItem
+import com.example.shoppingcart.shoppingcart_api.GetShoppingCart
+import com.example.shoppingcart.shoppingcart_api.LineItem
+import com.example.shoppingcart.shoppingcart_api.ShoppingCartServiceClient
+import io.grpc.Status
+import io.grpc.StatusRuntimeException
+import kalix.javasdk.DeferredCall
+import kalix.javasdk.Kalix
+import kalix.javasdk.Metadata
+import kalix.javasdk.eventsourcedentity.CartEntity
+import kalix.javasdk.eventsourcedentity.CartEntityProvider
+import kalix.javasdk.impl.AnySupport
+import kalix.javasdk.impl.GrpcDeferredCall
+import kalix.javasdk.impl.MetadataImpl
+import kalix.javasdk.impl.timer.TimerSchedulerImpl
+import kalix.javasdk.timer.TimerSpec
+import org.scalatest.BeforeAndAfterAll
+import org.scalatest.concurrent.Eventually
+import org.scalatest.time.Span
+import org.scalatest.matchers.should.Matchers
+import org.scalatest.wordspec.AnyWordSpec
+
+class InProcessProxyIntegrationSpec extends AnyWordSpec with Matchers with BeforeAndAfterAll with Eventually {
+
+  override implicit val patienceConfig: PatienceConfig = PatienceConfig(Span(5, org.scalatest.time.Seconds))
+
+  private val testKit =
+    new KalixTestKit(
+      new Kalix().register(CartEntityProvider.of(new CartEntity(_))),
+      KalixTestKit.Settings.DEFAULT.withProxyMode(KalixTestKit.Settings.ProxyMode.IN_PROCESS)).start()
+
+  private val client = testKit.getGrpcClient(classOf[ShoppingCartServiceClient])
+
+  private def await[T](future: Future[T]): T = Await.result(future, 10.seconds)
+
+  private lazy val timerScheduler =
+    new TimerSchedulerImpl(
+      new AnySupport(Array(ShoppingCartApi.getDescriptor), getClass.getClassLoader),
+      testKit.getRunner.system)
+
+  // the call is made by the proxy when the timer fires
+  private def addItemCall(cartId: String): DeferredCall[AddLineItem, Any] =
+    new GrpcDeferredCall[AddLineItem, Any](
+      AddLineItem(cartId, "abc", "apple", 1),
+      MetadataImpl.Empty,
+      "com.example.shoppingcart.ShoppingCartService",
+      "AddItem",
+      (_: Metadata) => CompletableFuture.failedStage(new IllegalStateException("Not called directly")))
+
+  private def items(cartId: String): Seq[LineItem] =
+    await(client.getCart(GetShoppingCart(cartId))).items
+
+  override def afterAll(): Unit =
+    testKit.stop()
+
+  "The testkit in in-process proxy mode" should {
+
+    "run commands through an event sourced entity" in {
+      await(client.addItem(AddLineItem("cart-1", "abc", "apple", 1)))
+      await(client.addItem(AddLineItem("cart-1", "123", "banana", 4)))
+      await(client.getCart(GetShoppingCart("cart-1"))).items shouldBe
+      Seq(LineItem("123", "banana", 4), LineItem("abc", "apple", 1))
+      await(client.getCart(GetShoppingCart("cart-2"))).items shouldBe empty
+    }
+
+    "run concurrent commands for the same entity one at a time" in {
+      implicit val ec: scala.concurrent.ExecutionContext = testKit.getActorSystem.dispatcher
+      await(Future.traverse(1 to 20)(_ => client.addItem(AddLineItem("cart-3", "abc", "apple", 1))))
+      await(client.getCart(GetShoppingCart("cart-3"))).items shouldBe Seq(LineItem("abc", "apple", 20))
+    }
+
+    "fail commands rejected by the entity with their status code" in {
+      val error = intercept[StatusRuntimeException] {
+        await(client.addItem(AddLineItem("cart-4", "abc", "apple", -1)))
+      }
+      error.getStatus.getCode shouldBe Status.Code.INVALID_ARGUMENT
+    }
+
+    "fire timers started in a batch" in {
+      val timers = (1 to 3).map(n => TimerSpec.of(s"timer-$n", Duration.ofMillis(100), addItemCall(s"timer-cart-$n")))
+      await(timerScheduler.startTimers(timers.asJava).asScala)
+      eventually {
+        (1 to 3).map(n => items(s"timer-cart-$n")) shouldBe Seq.fill(3)(Seq(LineItem("abc", "apple", 1)))
+      }
+    }
+
+    "not fire cancelled timers, and ignore unknown timers when cancelling" in {
+      val timers =
+        (1 to 2).map(n => TimerSpec.of(s"cancelled-$n", Duration.ofSeconds(1), addItemCall("cancelled-cart")))
+      await(timerScheduler.startTimers(timers.asJava).asScala)
+      await(timerScheduler.cancelAll(List("cancelled-1", "unknown", "cancelled-2").asJava).asScala)
+      val probe = addItemCall("after-cancel-cart")
+      await(timerScheduler.startSingleTimer("after-cancel", Duration.ofSeconds(1), probe).asScala)
+      // fires after the cancelled ones would have
+      eventually {
+        items("after-cancel-cart") should not be empty
+      }
+      items("cancelled-cart") shouldBe empty
+    }
+
+    "register none of the timers of a batch with an unsupported call" in {
+      val unsupported = new DeferredCall[String, String] {
+        override def message(): String = "hello"
+        override def metadata(): Metadata = Metadata.EMPTY
+        override def execute(): CompletionStage[String] = CompletableFuture.completedFuture(message())
+        override def withMetadata(metadata: Metadata): DeferredCall[String, String] = this
+      }
+      val timers = List(
+        TimerSpec.of("valid", Duration.ZERO, addItemCall("rejected-batch-cart")),
+        TimerSpec.of("unsupported", Duration.ZERO, unsupported))
+
+      val error = intercept[IllegalArgumentException] {
+        timerScheduler.startTimers(timers.asJava)
+      }
+      error.getMessage should startWith("Timer [unsupported] can only call a Kalix component")
+
+      // a timer started afterwards fires, the one in the rejected batch doesn't
+      await(timerScheduler.startSingleTimer("probe", Duration.ZERO, addItemCall("probe-cart")).asScala)
+      eventually {
+        items("probe-cart") should not be empty
+      }
+      items("rejected-batch-cart") shouldBe empty
+    }
+  }
+}
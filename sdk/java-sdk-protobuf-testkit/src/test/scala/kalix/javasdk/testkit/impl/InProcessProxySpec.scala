@@ -0,0 +1,157 @@
+/*
+ * Copyright 2021 Lightbend Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package kalix.javasdk.testkit.impl
+
+import akka.util.ByteString
+import com.google.protobuf.DescriptorProtos
+import com.google.protobuf.Descriptors
+import com.google.protobuf.EmptyProto
+import com.google.protobuf.any.{ Any => ScalaPbAny }
+import com.typesafe.config.ConfigFactory
+import io.grpc.Status
+import kalix.javasdk.JsonSupport
+import kalix.javasdk.impl.valueentity.StatePatches
+import kalix.javasdk.testkit.impl.InProcessProxy.Journal
+import kalix.protocol.action.Actions
+import kalix.protocol.component.Failure
+import kalix.protocol.view.Views
+import org.scalatest.matchers.should.Matchers
+import org.scalatest.wordspec.AnyWordSpec
+
+class InProcessProxySpec extends AnyWordSpec with Matchers {
+
+  private def event(name: String) =
+    ScalaPbAny("type.googleapis.com/test.Event", com.google.protobuf.ByteString.copyFromUtf8(name))
+
+  private def service(
+      options: DescriptorProtos.ServiceOptions = DescriptorProtos.ServiceOptions.getDefaultInstance,
+      methodOptions: DescriptorProtos.MethodOptions = DescriptorProtos.MethodOptions.getDefaultInstance)
+      : Descriptors.ServiceDescriptor = {
+    val method = DescriptorProtos.MethodDescriptorProto
+      .newBuilder()
+      .setName("Call")
+      .setInputType(".google.protobuf.Empty")
+      .setOutputType(".google.protobuf.Empty")
+      .setOptions(methodOptions)
+    val file = DescriptorProtos.FileDescriptorProto
+      .newBuilder()
+      .setName("test/service.proto")
+      .setPackage("test")
+      .addDependency("google/protobuf/empty.proto")
+      .addService(
+        DescriptorProtos.ServiceDescriptorProto
+          .newBuilder()
+          .setName("TestService")
+          .setOptions(options)
+          .addMethod(method))
+      .build()
+    Descriptors.FileDescriptor.buildFrom(file, Array(EmptyProto.getDescriptor)).findServiceByName("TestService")
+  }
+
+  private val topicIn = kalix.EventSource.newBuilder().setTopic("orders").build()
+
+  "The in-process proxy" should {
+
+    "frame and unframe gRPC messages" in {
+      val messages = List(ByteString("first"), ByteString.empty, ByteString("third"))
+      val framed = messages.map(InProcessProxy.frame).reduce(_ ++ _)
+      framed.take(5) shouldBe ByteString(Array[Byte](0, 0, 0, 0, 5))
+      InProcessProxy.unframe(framed) shouldBe messages
+    }
+
+    "append events to the journal with increasing sequence numbers" in {
+      val journal = Journal.empty.append(Seq(event("a"), event("b")), None).append(Seq(event("c")), None)
+      journal.events.map(_.sequence) shouldBe Seq(1L, 2L, 3L)
+      journal.sequence shouldBe 3L
+    }
+
+    "only keep events after the last snapshot" in {
+      val state = event("state")
+      val journal = Journal.empty
+        .append(Seq(event("a"), event("b")), Some(state))
+        .append(Seq(event("c")), None)
+      journal.snapshot.map(_.snapshotSequence) shouldBe Some(2L)
+      journal.events.map(_.sequence) shouldBe Seq(3L)
+    }
+
+    "reassemble value entity states persisted as patches" in {
+      val patches = StatePatches(
+        ConfigFactory.parseString(
+          "kalix.value-entity.state-patches { enabled = on, checkpoint-every = 10, proxy-support = on }")).get
+      val patcher = patches.newPatcher()
+      def cart(count: Int) =
+        ScalaPbAny.fromJavaProto(
+          JsonSupport.encodeJson(java.util.Map.of("description", "x" * 200, "count", Integer.valueOf(count))))
+
+      // the first update is the full state, the next ones patches against the stored state
+      val stored = InProcessProxy.updatedState(None, patcher.patchOrFull(None, cart(1)))
+      stored shouldBe cart(1)
+      val patch = patcher.patchOrFull(Some(cart(1)), cart(2))
+      StatePatches.isPatch(patch) shouldBe true
+
+      // what the next Init of the entity gets
+      val reloaded = InProcessProxy.updatedState(Some(stored), patch)
+      JsonSupport.decodeJson(classOf[java.util.Map[_, _]], ScalaPbAny.toJavaProto(reloaded)) shouldBe
+      JsonSupport.decodeJson(classOf[java.util.Map[_, _]], ScalaPbAny.toJavaProto(cart(2)))
+    }
+
+    "map failures without a status code to UNKNOWN" in {
+      InProcessProxy.statusOf(Failure(1, "boom")).getCode shouldBe Status.Code.UNKNOWN
+      val notFound = Failure(1, "not here", Status.Code.NOT_FOUND.value())
+      InProcessProxy.statusOf(notFound).getCode shouldBe Status.Code.NOT_FOUND
+    }
+
+    "percent encode the status message" in {
+      val headers = InProcessProxy.statusHeaders(Status.INVALID_ARGUMENT.withDescription("100% wrong\n"))
+      headers.map(header => header.name -> header.value) shouldBe List(
+        "grpc-status" -> "3",
+        "grpc-message" -> "100%25 wrong%0A")
+    }
+
+    "serve actions without eventing" in {
+      noException should be thrownBy InProcessProxy.requireSupported(Actions.name, service())
+    }
+
+    "refuse to serve views" in {
+      val error = intercept[IllegalStateException](InProcessProxy.requireSupported(Views.name, service()))
+      error.getMessage should include(s"of type [${Views.name}] is not supported")
+    }
+
+    "refuse to serve components that subscribe to events" in {
+      val serviceOptions = DescriptorProtos.ServiceOptions
+        .newBuilder()
+        .setExtension(
+          kalix.Annotations.service,
+          kalix.ServiceOptions.newBuilder().setEventing(kalix.ServiceEventing.newBuilder().setIn(topicIn)).build())
+        .build()
+      val error = intercept[IllegalStateException] {
+        InProcessProxy.requireSupported(Actions.name, service(options = serviceOptions))
+      }
+      error.getMessage should include("[test.TestService] subscribes to or publishes events")
+
+      val methodOptions = DescriptorProtos.MethodOptions
+        .newBuilder()
+        .setExtension(
+          kalix.Annotations.method,
+          kalix.MethodOptions.newBuilder().setEventing(kalix.Eventing.newBuilder().setIn(topicIn)).build())
+        .build()
+      intercept[IllegalStateException] {
+        InProcessProxy.requireSupported(Actions.name, service(methodOptions = methodOptions))
+      }
+    }
+  }
+}
@@ -27,6 +27,7 @@ import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.JsonSerializer;
 import com.fasterxml.jackson.databind.SerializerProvider;
 import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import kalix.javasdk.impl.ByteStringEncoding;
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import com.fasterxml.jackson.annotation.JsonCreator;
@@ -45,9 +46,22 @@ public final class JsonSupport {
 
   public static final String KALIX_JSON = "json.kalix.io/";
 
+  /**
+   * Type URL prefix of values encoded as Smile, the binary JSON format, with {@link
+   * #encodeSmile(Object, String)}.
+   */
+  public static final String KALIX_SMILE = "smile.kalix.io/";
+
   private static final ObjectMapper objectMapper = new ObjectMapper();
 
+  private static final ObjectMapper smileObjectMapper = new ObjectMapper(new SmileFactory());
+
   static {
+    configure(objectMapper);
+    configure(smileObjectMapper);
+  }
+
+  private static void configure(ObjectMapper objectMapper) {
     // Date/time in ISO-8601 (rfc3339) yyyy-MM-dd'T'HH:mm:ss.SSSZ format
     // as defined by com.fasterxml.jackson.databind.util.StdDateFormat
     // For interoperability it's better to use the ISO format, i.e. WRITE_DATES_AS_TIMESTAMPS=off,
@@ -83,6 +97,15 @@ public final class JsonSupport {
     return objectMapper;
   }
 
+  /**
+   * The Jackson ObjectMapper that is used for encoding and decoding Smile. It is configured like
+   * {@link #getObjectMapper()}, any adjustment of that configuration must be applied to both, and
+   * only before starting {@link Kalix}
+   */
+  public static ObjectMapper getSmileObjectMapper() {
+    return smileObjectMapper;
+  }
+
   private JsonSupport() {};
 
   /**
@@ -113,21 +136,85 @@ public final class JsonSupport {
    * @throws IllegalArgumentException if the given value cannot be turned into JSON
    */
   public static <T> Any encodeJson(T value, String jsonType) {
+    return encode(objectMapper, KALIX_JSON, value, jsonType);
+  }
+
+  /**
+   * Encode the given value as Smile using Jackson and put the encoded bytes in a protobuf Any with
+   * the type URL {@code "smile.kalix.io/[valueClassName]"}.
+   *
+   * @see {{encodeSmile(T, String}}
+   */
+  public static <T> Any encodeSmile(T value) {
+    return encodeSmile(value, value.getClass().getName());
+  }
+
+  /**
+   * Encode the given value as Smile, the binary JSON format, using Jackson and put the encoded
+   * bytes in a protobuf Any with the type URL {@code "smile.kalix.io/[jsonType]"}.
+   *
+   * <p>Smile is more compact and faster to parse than JSON text, which makes it a good fit for large
+   * entity states and high volume events. It is only understood by the service itself though, so it
+   * must not be used for the state of views, or for messages published to topics or returned to
+   * callers outside the service. The decode methods of this class accept both JSON and Smile, so the
+   * encoding of a type can be changed without breaking previously persisted values.
+   *
+   * @param value the object to encode, must be an instance of a class properly annotated with the
+   *     needed Jackson annotations.
+   * @param jsonType A discriminator making it possible to identify which type of object is encoded.
+   * @throws IllegalArgumentException if the given value cannot be turned into Smile
+   */
+  public static <T> Any encodeSmile(T value, String jsonType) {
+    return encode(smileObjectMapper, KALIX_SMILE, value, jsonType);
+  }
+
+  private static <T> Any encode(ObjectMapper mapper, String typeUrlPrefix, T value, String jsonType) {
     try {
       ByteString bytes =
-          UnsafeByteOperations.unsafeWrap(
-              objectMapper.writerFor(value.getClass()).writeValueAsBytes(value));
+          UnsafeByteOperations.unsafeWrap(mapper.writerFor(value.getClass()).writeValueAsBytes(value));
       ByteString encodedBytes = ByteStringEncoding.encodePrimitiveBytes(bytes);
-      return Any.newBuilder().setTypeUrl(KALIX_JSON + jsonType).setValue(encodedBytes).build();
+      return Any.newBuilder().setTypeUrl(typeUrlPrefix + jsonType).setValue(encodedBytes).build();
     } catch (JsonProcessingException ex) {
+      String format = mapper == smileObjectMapper ? "Smile" : "JSON";
       throw new IllegalArgumentException(
-          "Could not encode [" + value.getClass().getName() + "] as JSON", ex);
+          "Could not encode [" + value.getClass().getName() + "] as " + format, ex);
     }
   }
 
+  /**
+   * @return true if the given type URL is the one of a JSON or Smile encoded value
+   */
+  public static boolean isJson(String typeUrl) {
+    return typeUrl.startsWith(KALIX_JSON) || typeUrl.startsWith(KALIX_SMILE);
+  }
+
+  /**
+   * @return the type URL of a JSON encoded value for the type URL of a JSON or Smile encoded value,
+   *     to look up the type independently of its encoding
+   */
+  public static String toJsonTypeUrl(String typeUrl) {
+    if (typeUrl.startsWith(KALIX_SMILE)) return KALIX_JSON + typeUrl.substring(KALIX_SMILE.length());
+    else return typeUrl;
+  }
+
+  private static ObjectMapper decoderFor(Any any) {
+    if (any.getTypeUrl().startsWith(KALIX_JSON)) return objectMapper;
+    else if (any.getTypeUrl().startsWith(KALIX_SMILE)) return smileObjectMapper;
+    else
+      throw new IllegalArgumentException(
+          "Protobuf bytes with type url ["
+              + any.getTypeUrl()
+              + "] cannot be decoded as JSON, must start with ["
+              + KALIX_JSON
+              + "] or ["
+              + KALIX_SMILE
+              + "]");
+  }
+
   /**
    * Decode the given protobuf Any object to an instance of T using Jackson. The object must have
-   * the JSON string as bytes as value and a type URL starting with "json.kalix.io/".
+   * the JSON string as bytes as value and a type URL starting with "json.kalix.io/", or Smile
+   * encoded bytes and a type URL starting with "smile.kalix.io/".
    *
    * @param valueClass The type of class to deserialize the object to, the class must have the
    *     proper Jackson annotations for deserialization.
@@ -135,51 +222,35 @@ public final class JsonSupport {
    * @throws IllegalArgumentException if the given value cannot be decoded to a T
    */
   public static <T> T decodeJson(Class<T> valueClass, Any any) {
-    if (!any.getTypeUrl().startsWith(KALIX_JSON)) {
+    ObjectMapper mapper = decoderFor(any);
+    try {
+      ByteString decodedBytes = ByteStringEncoding.decodePrimitiveBytes(any.getValue());
+      return mapper.readValue(decodedBytes.toByteArray(), valueClass);
+    } catch (IOException e) {
       throw new IllegalArgumentException(
-          "Protobuf bytes with type url ["
+          "JSON with type url ["
               + any.getTypeUrl()
-              + "] cannot be decoded as JSON, must start with ["
-              + KALIX_JSON
-              + "]");
-    } else {
-      try {
-        ByteString decodedBytes = ByteStringEncoding.decodePrimitiveBytes(any.getValue());
-        return objectMapper.readValue(decodedBytes.toByteArray(), valueClass);
-      } catch (IOException e) {
-        throw new IllegalArgumentException(
-            "JSON with type url ["
-                + any.getTypeUrl()
-                + "] could not be decoded into a ["
-                + valueClass.getName()
-                + "]",
-            e);
-      }
+              + "] could not be decoded into a ["
+              + valueClass.getName()
+              + "]",
+          e);
     }
   }
 
   public static <T, C extends Collection<T>> C decodeJsonCollection(Class<T> valueClass, Class<C> collectionType, Any any) {
-    if (!any.getTypeUrl().startsWith(KALIX_JSON)) {
+    ObjectMapper mapper = decoderFor(any);
+    try {
+      ByteString decodedBytes = ByteStringEncoding.decodePrimitiveBytes(any.getValue());
+      var typeRef = mapper.getTypeFactory().constructCollectionType(collectionType, valueClass);
+      return mapper.readValue(decodedBytes.toByteArray(), typeRef);
+    } catch (IOException e) {
       throw new IllegalArgumentException(
-        "Protobuf bytes with type url ["
+        "JSON with type url ["
           + any.getTypeUrl()
-          + "] cannot be decoded as JSON, must start with ["
-          + KALIX_JSON
-          + "]");
-    } else {
-      try {
-        ByteString decodedBytes = ByteStringEncoding.decodePrimitiveBytes(any.getValue());
-        var typeRef = objectMapper.getTypeFactory().constructCollectionType(collectionType, valueClass);
-        return objectMapper.readValue(decodedBytes.toByteArray(), typeRef);
-      } catch (IOException e) {
-        throw new IllegalArgumentException(
-          "JSON with type url ["
-            + any.getTypeUrl()
-            + "] could not be decoded into a ["
-            + valueClass.getName()
-            + "]",
-          e);
-      }
+          + "] could not be decoded into a ["
+          + valueClass.getName()
+          + "]",
+        e);
     }
   }
 
@@ -71,6 +71,7 @@ public final class Kalix {
   private ClassLoader classLoader = getClass().getClassLoader();
   private String typeUrlPrefix = AnySupport.DefaultTypeUrlPrefix();
   private AnySupport.Prefer prefer = AnySupport.PREFER_JAVA();
+  private ProtobufTypeRegistry typeRegistry = ProtobufTypeRegistry.empty();
   private final LowLevelRegistration lowLevel = new LowLevelRegistration();
   private String sdkName = BuildInfo$.MODULE$.name();
 
@@ -410,6 +411,20 @@ public final class Kalix {
   }
 
 
+  /**
+   * INTERNAL API - subject to change without notice
+   *
+   * @param typeRegistry the protobuf message types of this service, as registered by the generated
+   *                     <code>TypeRegistry</code>, resolved without reflection. Only applies to
+   *                     components registered after it is set.
+   * @return This Kalix instance.
+   */
+  @InternalApi
+  public Kalix withTypeRegistry(ProtobufTypeRegistry typeRegistry) {
+    this.typeRegistry = typeRegistry;
+    return this;
+  }
+
   /**
    * INTERNAL API - subject to change without notice
    *
@@ -638,7 +653,7 @@ public final class Kalix {
   private AnySupport newAnySupport(Descriptors.FileDescriptor[] descriptors) {
     // we are interested in accumulating all descriptors from all registered components for later use in eventing testkit
     allDescriptors.addAll(Arrays.asList(descriptors));
-    return new AnySupport(descriptors, classLoader, typeUrlPrefix, prefer);
+    return new AnySupport(descriptors, classLoader, typeUrlPrefix, prefer, typeRegistry);
   }
 
   /**
@@ -647,7 +662,7 @@ public final class Kalix {
    */
   @InternalApi
   public MessageCodec getMessageCodec() {
-    return new AnySupport(allDescriptors.toArray(new Descriptors.FileDescriptor[0]), classLoader, typeUrlPrefix, prefer);
+    return new AnySupport(allDescriptors.toArray(new Descriptors.FileDescriptor[0]), classLoader, typeUrlPrefix, prefer, typeRegistry);
   }
 
 }
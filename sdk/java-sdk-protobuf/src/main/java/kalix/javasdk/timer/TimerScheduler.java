@@ -20,6 +20,8 @@ import akka.Done;
 import kalix.javasdk.DeferredCall;
 
 import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
 import java.util.concurrent.CompletionStage;
 
 public interface TimerScheduler {
@@ -72,4 +74,29 @@ public interface TimerScheduler {
    * name.
    */
   CompletionStage<Done> cancel(String name);
+
+  /**
+   * Schedule several timers at once, each like {@link #startSingleTimer(String, Duration, int,
+   * DeferredCall)}. The timers are registered concurrently, with a bounded parallelism configured
+   * with {@code kalix.timers.batch-parallelism}, instead of one after the other.
+   *
+   * <p>The registration of each timer is independent: if the returned {@code CompletionStage}
+   * fails, some of the timers may have been registered nonetheless. Registering the same timers
+   * again is safe, since a timer replaces a previous one with the same name.
+   *
+   * @param timers the timers to schedule
+   * @return completes once all timers are registered, or fails with the first failure
+   * @throws IllegalArgumentException if the call of a timer is not a call to a Kalix component, in
+   *     which case none of the timers are registered
+   */
+  CompletionStage<Done> startTimers(List<TimerSpec> timers);
+
+  /**
+   * Cancel several existing timers at once, each like {@link #cancel(String)}, concurrently with a
+   * bounded parallelism.
+   *
+   * @param names the names of the timers to cancel
+   * @return completes once all timers are cancelled, or fails with the first failure
+   */
+  CompletionStage<Done> cancelAll(Collection<String> names);
 }
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2021 Lightbend Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package kalix.javasdk.workflow;
+
+import akka.annotation.ApiMayChange;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * The aggregated result of a parallel workflow step, passed to its transition.
+ *
+ * There is one entry per branch, in the order in which the branches were created. A branch has no result when it
+ * failed, timed out, or was still running when enough branches had completed for the step, e.g. for an any-of step.
+ *
+ * @param <T> The type of the result of the branches.
+ */
+@ApiMayChange
+public final class ParallelResults<T> {
+
+  private final List<Optional<T>> branches;
+
+  public ParallelResults(List<Optional<T>> branches) {
+    this.branches = Collections.unmodifiableList(branches);
+  }
+
+  /**
+   * @return The result of each branch, in the order of the branches.
+   */
+  public List<Optional<T>> branches() {
+    return branches;
+  }
+
+  /**
+   * @return The result of the given branch, if it completed successfully in time.
+   */
+  public Optional<T> result(int branch) {
+    return branches.get(branch);
+  }
+
+  /**
+   * @return The results of the branches that completed successfully in time, in the order of the branches.
+   */
+  public List<T> results() {
+    return branches.stream().flatMap(Optional::stream).collect(Collectors.toList());
+  }
+
+  /**
+   * @return The number of branches of the step.
+   */
+  public int branchCount() {
+    return branches.size();
+  }
+
+  /**
+   * @return The number of branches that completed successfully in time.
+   */
+  public int successCount() {
+    return (int) branches.stream().filter(Optional::isPresent).count();
+  }
+}
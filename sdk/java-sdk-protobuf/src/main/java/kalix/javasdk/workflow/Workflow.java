@@ -514,6 +514,60 @@ public abstract class Workflow<S> {
     }
   }
 
+  public static class ParallelStep<CallInput, BranchOutput, FailoverInput> implements Step<FailoverInput> {
+
+    /**
+     * When a parallel step completes: once all branches succeeded, once any succeeded, or once a quorum succeeded.
+     */
+    public enum Completion { ALL_OF, ANY_OF, QUORUM }
+
+    final private String _name;
+    final public Function<CallInput, List<CompletionStage<BranchOutput>>> branchesFunc;
+    final public Function<ParallelResults<BranchOutput>, Effect.TransitionalEffect<Void>> transitionFunc;
+    final public Class<CallInput> callInputClass;
+    final public Class<BranchOutput> branchOutputClass;
+    final public Completion completion;
+    final public int quorum;
+    final public Optional<Duration> branchTimeout;
+    private Optional<Duration> _timeout = Optional.empty();
+
+    public ParallelStep(String name,
+                        Class<CallInput> callInputClass,
+                        Function<CallInput, List<CompletionStage<BranchOutput>>> branchesFunc,
+                        Completion completion,
+                        int quorum,
+                        Optional<Duration> branchTimeout,
+                        Class<BranchOutput> branchOutputClass,
+                        Function<ParallelResults<BranchOutput>, Effect.TransitionalEffect<Void>> transitionFunc) {
+      _name = name;
+      this.callInputClass = callInputClass;
+      this.branchesFunc = branchesFunc;
+      this.completion = completion;
+      this.quorum = quorum;
+      this.branchTimeout = branchTimeout;
+      this.branchOutputClass = branchOutputClass;
+      this.transitionFunc = transitionFunc;
+    }
+
+    @Override
+    public String name() {
+      return this._name;
+    }
+
+    @Override
+    public Optional<Duration> timeout() {
+      return this._timeout;
+    }
+
+    /**
+     * Define a step timeout.
+     */
+    public ParallelStep<CallInput, BranchOutput, FailoverInput> timeout(Duration timeout) {
+      this._timeout = Optional.of(timeout);
+      return this;
+    }
+  }
+
   /**
    * Start a step definition with a given step name.
    *
@@ -663,6 +717,56 @@ public abstract class Workflow<S> {
       return new AsyncCallStepBuilder<>(name, Void.class, (Void v) -> callSupplier.get());
     }
 
+    /**
+     * Build a step running several async calls concurrently, with their aggregated results passed to a single
+     * transition. The step completes once all branches succeeded, unless configured otherwise with
+     * {@link ParallelStepBuilder#anyOf()} or {@link ParallelStepBuilder#quorum(int)}, and fails as soon as that
+     * can't be reached anymore.
+     *
+     * @param callInputClass  Input class for the branches factory.
+     * @param branchesFactory Factory method for starting the async calls of the branches.
+     * @param <Input>         Input for the branches factory, provided by transition method.
+     * @param <Output>        Output of each branch.
+     * @return Step builder.
+     */
+    @ApiMayChange
+    public <Input, Output> ParallelStepBuilder<Input, Output> parallel(Class<Input> callInputClass, Function<Input, List<CompletionStage<Output>>> branchesFactory) {
+      return new ParallelStepBuilder<>(name, callInputClass, branchesFactory);
+    }
+
+    /**
+     * Build a step running several async calls concurrently, with their aggregated results passed to a single
+     * transition.
+     *
+     * @param branchesSupplier Factory method for starting the async calls of the branches.
+     * @param <Output>         Output of each branch.
+     * @return Step builder.
+     */
+    @ApiMayChange
+    public <Output> ParallelStepBuilder<Void, Output> parallel(Supplier<List<CompletionStage<Output>>> branchesSupplier) {
+      return new ParallelStepBuilder<>(name, Void.class, (Void v) -> branchesSupplier.get());
+    }
+
+    /**
+     * Build a step executing several calls to existing Kalix components via {@link DeferredCall} concurrently, with
+     * their aggregated results passed to a single transition. Differently from {@link #call(Class, Function)}, the
+     * calls are executed by the workflow itself instead of being handed over to the proxy.
+     *
+     * @param callInputClass Input class for the calls factory.
+     * @param callsFactory   Factory method for creating the deferred calls of the branches.
+     * @param <Input>        Input for the calls factory, provided by transition method.
+     * @param <Output>       Output of each deferred call.
+     * @return Step builder.
+     */
+    @ApiMayChange
+    public <Input, Output> ParallelStepBuilder<Input, Output> parallelCalls(Class<Input> callInputClass, Function<Input, List<DeferredCall<?, Output>>> callsFactory) {
+      return new ParallelStepBuilder<>(name, callInputClass, (Input input) -> {
+        List<CompletionStage<Output>> branches = new ArrayList<>();
+        callsFactory.apply(input).forEach(call -> branches.add(call.execute()));
+        return branches;
+      });
+    }
+
 
     public static class CallStepBuilder<Input, DefCallInput, DefCallOutput> {
 
@@ -716,5 +820,69 @@ public abstract class Workflow<S> {
         return new AsyncCallStep<>(name, callInputClass, callFunc, transitionInputClass, transitionFunc);
       }
     }
+
+    public static class ParallelStepBuilder<CallInput, BranchOutput> {
+
+      final private String name;
+
+      final private Class<CallInput> callInputClass;
+      final private Function<CallInput, List<CompletionStage<BranchOutput>>> branchesFunc;
+      private ParallelStep.Completion completion = ParallelStep.Completion.ALL_OF;
+      private int quorum = 0;
+      private Optional<Duration> branchTimeout = Optional.empty();
+
+      public ParallelStepBuilder(String name, Class<CallInput> callInputClass, Function<CallInput, List<CompletionStage<BranchOutput>>> branchesFunc) {
+        this.name = name;
+        this.callInputClass = callInputClass;
+        this.branchesFunc = branchesFunc;
+      }
+
+      /**
+       * Complete the step once all branches succeeded, failing it as soon as one fails. This is the default.
+       */
+      public ParallelStepBuilder<CallInput, BranchOutput> allOf() {
+        this.completion = ParallelStep.Completion.ALL_OF;
+        return this;
+      }
+
+      /**
+       * Complete the step as soon as one branch succeeded, failing it only if all fail.
+       */
+      public ParallelStepBuilder<CallInput, BranchOutput> anyOf() {
+        this.completion = ParallelStep.Completion.ANY_OF;
+        return this;
+      }
+
+      /**
+       * Complete the step as soon as the given number of branches succeeded, failing it once too many failed for
+       * that.
+       */
+      public ParallelStepBuilder<CallInput, BranchOutput> quorum(int successes) {
+        if (successes < 1) throw new IllegalArgumentException("Quorum must be at least 1, but was " + successes);
+        this.completion = ParallelStep.Completion.QUORUM;
+        this.quorum = successes;
+        return this;
+      }
+
+      /**
+       * Define a timeout for each branch, after which the branch counts as failed.
+       */
+      public ParallelStepBuilder<CallInput, BranchOutput> branchTimeout(Duration timeout) {
+        this.branchTimeout = Optional.of(timeout);
+        return this;
+      }
+
+      /**
+       * Transition to the next step based on the aggregated results of the branches.
+       *
+       * @param branchOutputClass Output class of each branch.
+       * @param transitionFunc    Function that transform the aggregated results to a {@link Effect.TransitionalEffect}
+       * @return ParallelStep
+       */
+      @ApiMayChange
+      public ParallelStep<CallInput, BranchOutput, ?> andThen(Class<BranchOutput> branchOutputClass, Function<ParallelResults<BranchOutput>, Effect.TransitionalEffect<Void>> transitionFunc) {
+        return new ParallelStep<>(name, callInputClass, branchesFunc, completion, quorum, branchTimeout, branchOutputClass, transitionFunc);
+      }
+    }
   }
 }
@@ -198,7 +198,8 @@ class AnySupport(
     descriptors: Array[Descriptors.FileDescriptor],
     classLoader: ClassLoader,
     typeUrlPrefix: String = AnySupport.DefaultTypeUrlPrefix,
-    prefer: AnySupport.Prefer = AnySupport.Prefer.Java)
+    prefer: AnySupport.Prefer = AnySupport.Prefer.Java,
+    typeRegistry: ProtobufTypeRegistry = ProtobufTypeRegistry.empty)
     extends MessageCodec {
 
   import AnySupport._
@@ -311,11 +312,14 @@ class AnySupport(
       .getOrElseUpdate(
         typeDescriptor.getFullName,
         Try {
+          // types registered by the generated type registry are resolved without any reflective class lookup
           val maybeResolvedType =
-            if (prefer == Prefer.Java) {
-              tryResolveJavaPbType(typeDescriptor).orElse(tryResolveScalaPbType(typeDescriptor))
-            } else {
-              tryResolveScalaPbType(typeDescriptor).orElse(tryResolveJavaPbType(typeDescriptor))
+            typeRegistry.resolve(typeDescriptor.getFullName, prefer).orElse {
+              if (prefer == Prefer.Java) {
+                tryResolveJavaPbType(typeDescriptor).orElse(tryResolveScalaPbType(typeDescriptor))
+              } else {
+                tryResolveScalaPbType(typeDescriptor).orElse(tryResolveJavaPbType(typeDescriptor))
+              }
             }
 
           maybeResolvedType match {
@@ -431,8 +435,8 @@ class AnySupport(
       else
         com.google.protobuf.wrappers.StringValue.of(string)
 
-    } else if (typeUrl.startsWith(JsonSupport.KALIX_JSON)) {
-      // we do not actually parse JSON here but returns it as is and let the user
+    } else if (JsonSupport.isJson(typeUrl)) {
+      // we do not actually parse JSON (or Smile) here but returns it as is and let the user
       // decide which json type to try decode it into etc. based on the type_url which
       // may have additional detail about what it can be JSON-deserialized into
       if (prefer == PREFER_JAVA)
@@ -0,0 +1,381 @@
+/*
+ * Copyright 2021 Lightbend Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package kalix.javasdk.impl
+
+import java.io.IOException
+import java.util.concurrent.CompletionException
+import java.util.concurrent.CompletionStage
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ThreadLocalRandom
+import java.util.concurrent.TimeoutException
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicLong
+import java.util.concurrent.atomic.AtomicLongArray
+import java.util.concurrent.atomic.LongAdder
+
+import scala.concurrent.ExecutionContext
+import scala.concurrent.Future
+import scala.concurrent.Promise
+import scala.concurrent.duration._
+import scala.jdk.CollectionConverters._
+import scala.jdk.DurationConverters._
+import scala.jdk.FutureConverters._
+import scala.util.Failure
+import scala.util.Success
+import scala.util.control.NonFatal
+
+import akka.actor.ActorSystem
+import akka.actor.Cancellable
+import akka.actor.ClassicActorSystemProvider
+import akka.actor.ExtendedActorSystem
+import akka.actor.Extension
+import akka.actor.ExtensionId
+import akka.actor.ExtensionIdProvider
+import akka.actor.Scheduler
+import com.typesafe.config.Config
+import io.grpc.Status
+import io.grpc.StatusRuntimeException
+import kalix.javasdk.DeferredCallResponseException
+import kalix.javasdk.StatusCode.ErrorCode
+import org.slf4j.LoggerFactory
+
+/**
+ * INTERNAL API
+ *
+ * Decides how a call to a target service is executed.
+ */
+private[kalix] trait CallPolicy {
+
+  /**
+   * @param method
+   *   the name of the called method of the target, as in its protobuf service definition
+   */
+  def execute[O](method: String)(call: () => CompletionStage[O]): CompletionStage[O]
+}
+
+/**
+ * INTERNAL API
+ */
+private[kalix] object CallPolicy {
+
+  /** Runs the call once, as is */
+  object Direct extends CallPolicy {
+    override def execute[O](method: String)(call: () => CompletionStage[O]): CompletionStage[O] = call()
+  }
+
+  /**
+   * @param methods
+   *   the methods that are retried, `*` for all of them, since a failed call may still have had its effect only
+   *   idempotent methods should be retried
+   */
+  final case class RetrySettings(
+      maxRetries: Int,
+      minBackoff: FiniteDuration,
+      maxBackoff: FiniteDuration,
+      randomFactor: Double,
+      methods: Set[String]) {
+
+    def enabled: Boolean = maxRetries > 0 && methods.nonEmpty
+
+    def retried(method: String): Boolean = methods.contains(method) || methods.contains("*")
+
+    def backoff(retry: Int): FiniteDuration = {
+      val exponential =
+        if (retry >= 30) maxBackoff
+        else maxBackoff.min(minBackoff * (1L << retry))
+      val jitter = 1.0 + ThreadLocalRandom.current().nextDouble() * randomFactor
+      (exponential * jitter) match {
+        case f: FiniteDuration => f
+        case _                 => maxBackoff
+      }
+    }
+  }
+
+  final case class HedgingSettings(enabled: Boolean, percentile: Double, minDelay: FiniteDuration, maxHedges: Int)
+
+  final case class Settings(
+      latencyBudget: Option[FiniteDuration],
+      retries: RetrySettings,
+      hedging: HedgingSettings) {
+    def enabled: Boolean = latencyBudget.isDefined || retries.enabled || hedging.enabled
+  }
+
+  object Settings {
+
+    /** @param config the `kalix.cross-service` section for a target service */
+    def apply(config: Config): Settings = {
+      val policyConfig = config.getConfig("call-policy")
+      val latencyBudget =
+        if (policyConfig.getString("latency-budget") == "off") None
+        else Some(policyConfig.getDuration("latency-budget").toScala)
+      val retries = RetrySettings(
+        maxRetries = policyConfig.getInt("retries.max-retries"),
+        minBackoff = policyConfig.getDuration("retries.min-backoff").toScala,
+        maxBackoff = policyConfig.getDuration("retries.max-backoff").toScala,
+        randomFactor = policyConfig.getDouble("retries.random-factor"),
+        methods = policyConfig.getStringList("retries.methods").asScala.toSet)
+      val hedging = HedgingSettings(
+        enabled = policyConfig.getBoolean("hedging.enabled"),
+        percentile = policyConfig.getDouble("hedging.percentile"),
+        minDelay = policyConfig.getDuration("hedging.min-delay").toScala,
+        maxHedges = policyConfig.getInt("hedging.max-hedges"))
+      require(retries.maxRetries >= 0, "call-policy.retries.max-retries must not be negative")
+      require(
+        hedging.percentile > 0 && hedging.percentile < 100,
+        "call-policy.hedging.percentile must be between 0 and 100")
+      Settings(latencyBudget, retries, hedging)
+    }
+  }
+
+  final case class MetricsSnapshot(
+      calls: Long,
+      retries: Long,
+      hedges: Long,
+      hedgeWins: Long,
+      budgetExceeded: Long,
+      hedgeDelay: FiniteDuration) {
+    def retryRate: Double = if (calls == 0) 0.0 else retries.toDouble / calls
+    def hedgeRate: Double = if (calls == 0) 0.0 else hedges.toDouble / calls
+  }
+
+  /**
+   * Errors where trying again may succeed: the target is unavailable, overloaded or did not answer in time.
+   */
+  def isRetryable(error: Throwable): Boolean = error match {
+    case e: CompletionException if e.getCause != null => isRetryable(e.getCause)
+    case e: StatusRuntimeException =>
+      e.getStatus.getCode match {
+        case Status.Code.UNAVAILABLE | Status.Code.DEADLINE_EXCEEDED | Status.Code.RESOURCE_EXHAUSTED => true
+        case _                                                                                         => false
+      }
+    case e: DeferredCallResponseException =>
+      e.errorCode match {
+        case ErrorCode.SERVICE_UNAVAILABLE | ErrorCode.GATEWAY_TIMEOUT | ErrorCode.TOO_MANY_REQUESTS => true
+        case _                                                                                      => false
+      }
+    case _: IOException | _: TimeoutException => true
+    case other if other.getCause != null && (other.getCause ne other) => isRetryable(other.getCause)
+    case _ => false
+  }
+
+  /**
+   * Keeps the latest latencies of successful calls in a ring buffer and periodically recomputes the configured
+   * percentile from them.
+   */
+  final class LatencyTracker(percentile: Double, size: Int = 256, recomputeEvery: Int = 32) {
+    private val samples = new AtomicLongArray(size)
+    private val count = new AtomicLong()
+    @volatile private var cached: Long = -1L
+
+    def record(nanos: Long): Unit = {
+      val n = count.getAndIncrement()
+      samples.set((n % size).toInt, nanos)
+      if (n + 1 >= size / 4 && (n + 1) % recomputeEvery == 0) recompute()
+    }
+
+    /** The observed percentile, once enough samples have been recorded */
+    def current: Option[FiniteDuration] =
+      if (cached < 0) None else Some(cached.nanos)
+
+    private def recompute(): Unit = {
+      val recorded = math.min(count.get(), size.toLong).toInt
+      val copy = new Array[Long](recorded)
+      var i = 0
+      while (i < recorded) {
+        copy(i) = samples.get(i)
+        i += 1
+      }
+      java.util.Arrays.sort(copy)
+      val idx = math.min(recorded - 1, math.ceil(percentile / 100.0 * recorded).toInt - 1).max(0)
+      cached = copy(idx)
+    }
+  }
+}
+
+/**
+ * INTERNAL API
+ *
+ * Executes calls with tail latency controls: hedged attempts after the observed latency percentile of the target,
+ * bounded retries with jittered exponential backoff and an overall latency budget.
+ */
+private[kalix] final class TailLatencyCallPolicy(val target: String, settings: CallPolicy.Settings, scheduler: Scheduler)(
+    implicit ec: ExecutionContext)
+    extends CallPolicy {
+  import CallPolicy._
+
+  private val latencies = new LatencyTracker(settings.hedging.percentile)
+  private val calls = new LongAdder
+  private val retries = new LongAdder
+  private val hedges = new LongAdder
+  private val hedgeWins = new LongAdder
+  private val budgetExceeded = new LongAdder
+
+  def metrics: MetricsSnapshot =
+    MetricsSnapshot(calls.sum(), retries.sum(), hedges.sum(), hedgeWins.sum(), budgetExceeded.sum(), hedgeDelay)
+
+  private def hedgeDelay: FiniteDuration =
+    latencies.current match {
+      case Some(observed) => observed.max(settings.hedging.minDelay)
+      case None           => settings.hedging.minDelay
+    }
+
+  override def execute[O](method: String)(call: () => CompletionStage[O]): CompletionStage[O] = {
+    calls.increment()
+    val retried = settings.retries.retried(method)
+    val startNanos = System.nanoTime()
+    val result = Promise[O]()
+
+    val budgetTimeout = settings.latencyBudget.map { budget =>
+      scheduler.scheduleOnce(budget) {
+        if (result.tryFailure(new TimeoutException(s"Call to [$target] exceeded its latency budget of [$budget]")))
+          budgetExceeded.increment()
+      }
+    }
+
+    def withinBudget(delay: FiniteDuration): Boolean =
+      settings.latencyBudget.forall(budget => (System.nanoTime() - startNanos).nanos + delay < budget)
+
+    def attempt(retry: Int): Unit =
+      hedged(call, result).onComplete {
+        case Success(value) =>
+          result.trySuccess(value)
+        case Failure(error) if !result.isCompleted =>
+          val delay = settings.retries.backoff(retry)
+          if (retried && retry < settings.retries.maxRetries && isRetryable(error) && withinBudget(delay)) {
+            retries.increment()
+            scheduler.scheduleOnce(delay)(if (!result.isCompleted) attempt(retry + 1))
+          } else {
+            result.tryFailure(error)
+          }
+        case Failure(_) => // already completed, by the latency budget
+      }
+
+    attempt(0)
+    budgetTimeout.foreach(timeout => result.future.onComplete(_ => timeout.cancel()))
+    result.future.asJava
+  }
+
+  /** Runs one attempt, plus hedged attempts if it is slower than the observed latencies of the target. */
+  private def hedged[O](call: () => CompletionStage[O], overall: Promise[O]): Future[O] =
+    if (!settings.hedging.enabled) timed(call)
+    else {
+      val attemptResult = Promise[O]()
+      val outstanding = new AtomicInteger(1)
+
+      def launch(isHedge: Boolean): Unit =
+        timed(call).onComplete {
+          case Success(value) =>
+            if (attemptResult.trySuccess(value) && isHedge) hedgeWins.increment()
+          case Failure(error) =>
+            // only fail once all attempts failed
+            if (outstanding.decrementAndGet() == 0) attemptResult.tryFailure(error)
+        }
+
+      launch(isHedge = false)
+
+      val delay = hedgeDelay
+      val scheduledHedges: Seq[Cancellable] = (1 to settings.hedging.maxHedges).map { n =>
+        scheduler.scheduleOnce(delay * n.toLong) {
+          if (!attemptResult.isCompleted && !overall.isCompleted && outstanding.getAndIncrement() > 0) {
+            hedges.increment()
+            launch(isHedge = true)
+          }
+        }
+      }
+      attemptResult.future.onComplete(_ => scheduledHedges.foreach(_.cancel()))
+      attemptResult.future
+    }
+
+  private def timed[O](call: () => CompletionStage[O]): Future[O] = {
+    val start = System.nanoTime()
+    val future =
+      try call().asScala
+      catch {
+        case NonFatal(e) => Future.failed(e)
+      }
+    future.foreach(_ => latencies.record(System.nanoTime() - start))
+    future
+  }
+}
+
+/**
+ * INTERNAL API
+ */
+private[kalix] object CallPolicies extends ExtensionId[CallPolicies] with ExtensionIdProvider {
+  override def get(system: ActorSystem): CallPolicies = super.get(system)
+
+  override def get(system: ClassicActorSystemProvider): CallPolicies = super.get(system)
+
+  override def createExtension(system: ExtendedActorSystem): CallPolicies =
+    new CallPolicies(system)
+  override def lookup: ExtensionId[_ <: Extension] = this
+}
+
+/**
+ * INTERNAL API
+ *
+ * Call policies per target, configured in `kalix.cross-service.call-policy` and
+ * `kalix.cross-service.circuit-breaker` with per target overrides in `kalix.cross-service.services."<target>"`.
+ */
+private[kalix] final class CallPolicies(system: ExtendedActorSystem) extends Extension {
+  private val log = LoggerFactory.getLogger(classOf[CallPolicies])
+  private implicit val ec: ExecutionContext = system.dispatcher
+  private val policies = new ConcurrentHashMap[String, CallPolicy]()
+
+  def policyFor(target: String): CallPolicy =
+    policies.computeIfAbsent(
+      target,
+      _ => {
+        val config = CrossServiceSettings.configFor(system.settings.config, target)
+        val settings = CallPolicy.Settings(config)
+        if (settings.retries.maxRetries > 0 && settings.retries.methods.isEmpty)
+          log.warn(
+            "Retries are configured for [{}] but no methods are listed in call-policy.retries.methods, " +
+            "calls to it are not retried",
+            target)
+        val tailLatencyPolicy =
+          if (settings.enabled) {
+            val policy = new TailLatencyCallPolicy(target, settings, system.scheduler)
+            SdkMetrics(system).register("CallPolicy", target)(() => policy.metrics)
+            policy
+          } else CallPolicy.Direct
+        val circuitBreakerSettings = CircuitBreakerCallPolicy.Settings(config)
+        if (circuitBreakerSettings.enabled) {
+          val breaker = new CircuitBreakerCallPolicy(target, circuitBreakerSettings, tailLatencyPolicy, system)
+          SdkMetrics(system).register("CircuitBreaker", target)(() => breaker.metrics)
+          breaker
+        } else tailLatencyPolicy
+      })
+
+  /** Hedge, retry and latency budget metrics for the targets with an enabled call policy */
+  def metrics: Map[String, CallPolicy.MetricsSnapshot] =
+    policies.asScala.collect {
+      case (target, policy: TailLatencyCallPolicy) => target -> policy.metrics
+      case (target, CircuitBreakerPolicy(policy: TailLatencyCallPolicy)) => target -> policy.metrics
+    }.toMap
+
+  /** Circuit breaker state and metrics for the targets with an enabled circuit breaker */
+  def circuitBreakerMetrics: Map[String, CircuitBreakerCallPolicy.MetricsSnapshot] =
+    policies.asScala.collect { case (target, policy: CircuitBreakerCallPolicy) => target -> policy.metrics }.toMap
+
+  private object CircuitBreakerPolicy {
+    def unapply(policy: CallPolicy): Option[CallPolicy] = policy match {
+      case breaker: CircuitBreakerCallPolicy => Some(breaker.inner)
+      case _                                 => None
+    }
+  }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2021 Lightbend Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package kalix.javasdk.impl
+
+import java.util.concurrent.CompletionStage
+import java.util.concurrent.atomic.AtomicReference
+import java.util.concurrent.atomic.LongAdder
+
+import scala.concurrent.ExecutionContext
+import scala.concurrent.Future
+import scala.concurrent.duration.FiniteDuration
+import scala.jdk.DurationConverters._
+import scala.jdk.FutureConverters._
+import scala.util.Failure
+import scala.util.Try
+import scala.util.control.NonFatal
+
+import akka.actor.ActorSystem
+import akka.pattern.CircuitBreaker
+import com.typesafe.config.Config
+import org.slf4j.LoggerFactory
+
+/**
+ * INTERNAL API
+ */
+private[kalix] object CircuitBreakerCallPolicy {
+
+  final case class Settings(
+      enabled: Boolean,
+      maxFailures: Int,
+      callTimeout: FiniteDuration,
+      resetTimeout: FiniteDuration,
+      maxResetTimeout: FiniteDuration,
+      exponentialBackoffFactor: Double)
+
+  object Settings {
+
+    /** @param config the `kalix.cross-service` section for a target service */
+    def apply(config: Config): Settings = {
+      val breakerConfig = config.getConfig("circuit-breaker")
+      Settings(
+        enabled = breakerConfig.getBoolean("enabled"),
+        maxFailures = breakerConfig.getInt("max-failures"),
+        callTimeout = breakerConfig.getDuration("call-timeout").toScala,
+        resetTimeout = breakerConfig.getDuration("reset-timeout").toScala,
+        maxResetTimeout = breakerConfig.getDuration("max-reset-timeout").toScala,
+        exponentialBackoffFactor = breakerConfig.getDouble("exponential-backoff-factor"))
+    }
+  }
+
+  sealed trait State
+  case object Closed extends State
+  case object Open extends State
+  case object HalfOpen extends State
+
+  /** Published to the actor system event stream whenever the circuit breaker for a target changes state */
+  final case class StateChanged(target: String, state: State)
+
+  final case class MetricsSnapshot(state: State, opened: Long, rejectedCalls: Long, failedCalls: Long)
+
+  /**
+   * Only failures that indicate that the target is unhealthy count towards opening the circuit, not for example
+   * validation errors from the target.
+   */
+  def isTargetFailure(result: Try[_]): Boolean = result match {
+    case Failure(error) => CallPolicy.isRetryable(error)
+    case _              => false
+  }
+}
+
+/**
+ * INTERNAL API
+ *
+ * Guards each attempt of the inner call policy with an Akka circuit breaker for the target, so that calls to an
+ * unhealthy target fail fast once the breaker is open. After the reset timeout a single probe call is let through
+ * (half-open), and the breaker closes again if it succeeds.
+ */
+private[kalix] final class CircuitBreakerCallPolicy(
+    val target: String,
+    settings: CircuitBreakerCallPolicy.Settings,
+    val inner: CallPolicy,
+    system: ActorSystem)
+    extends CallPolicy {
+  import CircuitBreakerCallPolicy._
+
+  private val log = LoggerFactory.getLogger(classOf[CircuitBreakerCallPolicy])
+  private implicit val ec: ExecutionContext = system.dispatcher
+
+  private val state = new AtomicReference[State](Closed)
+  private val opened = new LongAdder
+  private val rejectedCalls = new LongAdder
+  private val failedCalls = new LongAdder
+
+  private val breaker =
+    new CircuitBreaker(
+      system.scheduler,
+      settings.maxFailures,
+      settings.callTimeout,
+      settings.resetTimeout,
+      settings.maxResetTimeout,
+      settings.exponentialBackoffFactor)
+      .onOpen {
+        opened.increment()
+        changeState(Open)
+      }
+      .onHalfOpen(changeState(HalfOpen))
+      .onClose(changeState(Closed))
+      .onCallBreakerOpen(rejectedCalls.increment())
+      .onCallFailure(_ => failedCalls.increment())
+      .onCallTimeout(_ => failedCalls.increment())
+
+  private def changeState(newState: State): Unit = {
+    val previous = state.getAndSet(newState)
+    (previous, newState) match {
+      case (HalfOpen, Open) =>
+        log.warn("Circuit breaker for [{}] opened again, the probe call failed", target)
+      case (_, Open) =>
+        log.warn(
+          "Circuit breaker for [{}] opened after [{}] consecutive failures, calls will fail fast for at least [{}]",
+          target,
+          settings.maxFailures,
+          settings.resetTimeout)
+      case (_, HalfOpen) =>
+        log.info("Circuit breaker for [{}] half-open, letting a probe call through", target)
+      case (_, Closed) =>
+        log.info("Circuit breaker for [{}] closed, the probe call succeeded", target)
+    }
+    system.eventStream.publish(StateChanged(target, newState))
+  }
+
+  def metrics: MetricsSnapshot =
+    MetricsSnapshot(state.get(), opened.sum(), rejectedCalls.sum(), failedCalls.sum())
+
+  override def execute[O](method: String)(call: () => CompletionStage[O]): CompletionStage[O] =
+    inner.execute(method)(() =>
+      breaker
+        .withCircuitBreaker(
+          try call().asScala
+          catch {
+            case NonFatal(e) => Future.failed[O](e)
+          },
+          isTargetFailure)
+        .asJava)
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2021 Lightbend Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package kalix.javasdk.impl
+
+import com.typesafe.config.Config
+import com.typesafe.config.ConfigUtil
+
+/**
+ * INTERNAL API
+ */
+private[kalix] object CrossServiceSettings {
+
+  val ConfigPath = "kalix.cross-service"
+
+  /**
+   * The `kalix.cross-service` section for the given target service, with the overrides defined in
+   * `kalix.cross-service.services."<service>"` (if any) taking precedence over the defaults.
+   */
+  def configFor(config: Config, service: String): Config = {
+    val defaults = config.getConfig(ConfigPath)
+    val overridePath = s"$ConfigPath.services.${ConfigUtil.quoteString(service)}"
+    if (config.hasPath(overridePath)) config.getConfig(overridePath).withFallback(defaults)
+    else defaults
+  }
+
+  def apply(config: Config, service: String): CrossServiceSettings =
+    new CrossServiceSettings(configFor(config, service))
+}
+
+/**
+ * INTERNAL API
+ */
+private[kalix] final class CrossServiceSettings(config: Config) {
+
+  val channelPoolSize: Int = config.getInt("channel-pool.size")
+
+  val channelSelection: GrpcChannelPool.Selection =
+    GrpcChannelPool.Selection(config.getString("channel-pool.selection"))
+
+  require(channelPoolSize > 0, s"channel-pool.size must be greater than 0, was [$channelPoolSize]")
+}
@@ -19,18 +19,25 @@ package kalix.javasdk.impl
 import org.slf4j.MDC
 
 import java.util.UUID
+import java.util.concurrent.ThreadLocalRandom
+
+import scala.util.control.NoStackTrace
 
 /**
  * INTERNAL API
  */
 private[javasdk] object ErrorHandling {
 
-  case class BadRequestException(msg: String) extends RuntimeException(msg)
+  /**
+   * An invalid request from a client, turned into an error reply. Stackless, since it is expected and thrown for every
+   * bad request.
+   */
+  case class BadRequestException(msg: String) extends RuntimeException(msg) with NoStackTrace
 
   val CorrelationIdMdcKey = "correlationID"
 
   def withCorrelationId[T](block: String => T): T = {
-    val correlationId = UUID.randomUUID().toString
+    val correlationId = newCorrelationId()
     MDC.put(CorrelationIdMdcKey, correlationId)
     try {
       block(correlationId)
@@ -39,4 +46,15 @@ private[javasdk] object ErrorHandling {
     }
   }
 
+  /**
+   * A random (version 4) UUID, from a thread local random number generator instead of the shared `SecureRandom` of
+   * `UUID.randomUUID`: correlation ids only need to be unique enough to find a failure in the logs, not unpredictable.
+   */
+  def newCorrelationId(): String = {
+    val random = ThreadLocalRandom.current()
+    val mostSigBits = (random.nextLong() & ~0xf000L) | 0x4000L // version 4
+    val leastSigBits = (random.nextLong() & ~(0x3L << 62)) | (0x2L << 62) // IETF variant
+    new UUID(mostSigBits, leastSigBits).toString
+  }
+
 }
@@ -0,0 +1,218 @@
+/*
+ * Copyright 2021 Lightbend Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package kalix.javasdk.impl
+
+import java.lang.reflect.InvocationHandler
+import java.lang.reflect.InvocationTargetException
+import java.lang.reflect.Method
+import java.lang.reflect.Proxy
+import java.time.Duration
+import java.util.concurrent.CompletionStage
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicLong
+import java.util.concurrent.atomic.LongAdder
+
+import scala.concurrent.ExecutionContext
+import scala.concurrent.Future
+import scala.jdk.FutureConverters._
+
+/**
+ * INTERNAL API
+ */
+private[kalix] object GrpcChannelPool {
+
+  sealed trait Selection
+  case object RoundRobin extends Selection
+  case object LeastOutstandingRequests extends Selection
+
+  object Selection {
+    def apply(name: String): Selection = name match {
+      case "round-robin"                => RoundRobin
+      case "least-outstanding-requests" => LeastOutstandingRequests
+      case other =>
+        throw new IllegalArgumentException(
+          s"Unknown channel selection [$other], expected [round-robin] or [least-outstanding-requests]")
+    }
+  }
+
+  /** Point in time view of the stats of one channel in a pool */
+  final case class ChannelStatsSnapshot(
+      channel: Int,
+      inFlight: Int,
+      completed: Long,
+      failed: Long,
+      meanLatency: Duration,
+      maxLatency: Duration)
+
+  /**
+   * Mutable, thread safe counters for one channel in the pool.
+   */
+  final class ChannelStats {
+    private val _inFlight = new AtomicInteger()
+    private val _completed = new LongAdder
+    private val _failed = new LongAdder
+    private val _totalLatencyNanos = new LongAdder
+    private val _maxLatencyNanos = new AtomicLong()
+
+    def inFlight: Int = _inFlight.get()
+
+    def started(): Long = {
+      _inFlight.incrementAndGet()
+      System.nanoTime()
+    }
+
+    def finished(startNanos: Long, success: Boolean): Unit = {
+      val latency = System.nanoTime() - startNanos
+      _inFlight.decrementAndGet()
+      if (success) _completed.increment() else _failed.increment()
+      _totalLatencyNanos.add(latency)
+      _maxLatencyNanos.accumulateAndGet(latency, (a, b) => Math.max(a, b))
+    }
+
+    /** for calls where we cannot observe completion, for example streamed responses */
+    def untracked(): Unit =
+      _inFlight.decrementAndGet()
+
+    def snapshot(channel: Int): ChannelStatsSnapshot = {
+      val completed = _completed.sum()
+      val failed = _failed.sum()
+      val total = completed + failed
+      val mean = if (total == 0) 0L else _totalLatencyNanos.sum() / total
+      ChannelStatsSnapshot(
+        channel,
+        inFlight,
+        completed,
+        failed,
+        Duration.ofNanos(mean),
+        Duration.ofNanos(_maxLatencyNanos.get()))
+    }
+  }
+
+  /**
+   * Creates a pool with the given underlying clients. A pool with a single channel and no call policy hands out that
+   * client as is, otherwise it hands out a dynamic proxy implementing the service interface which spreads calls over
+   * the channels and runs them through the call policy.
+   */
+  def apply(
+      serviceClass: Class[_],
+      channels: IndexedSeq[AnyRef],
+      selection: Selection,
+      callPolicy: CallPolicy = CallPolicy.Direct): GrpcChannelPool =
+    new GrpcChannelPool(serviceClass, channels, selection, callPolicy)
+}
+
+/**
+ * INTERNAL API
+ *
+ * A fixed size set of gRPC clients, each with its own HTTP/2 connection, for the same target.
+ */
+private[kalix] final class GrpcChannelPool private (
+    serviceClass: Class[_],
+    val channels: IndexedSeq[AnyRef],
+    selection: GrpcChannelPool.Selection,
+    callPolicy: CallPolicy) {
+  import GrpcChannelPool._
+
+  require(channels.nonEmpty, "a channel pool needs at least one channel")
+
+  private val stats: IndexedSeq[ChannelStats] = channels.map(_ => new ChannelStats)
+  private val counter = new AtomicInteger()
+
+  /** The client to hand out to users of the pool */
+  val client: AnyRef =
+    if (channels.size == 1 && (callPolicy eq CallPolicy.Direct)) channels.head
+    else
+      Proxy.newProxyInstance(serviceClass.getClassLoader, Array[Class[_]](serviceClass), new PoolInvocationHandler)
+
+  def channelStats: Seq[ChannelStatsSnapshot] =
+    stats.zipWithIndex.map { case (channelStats, idx) => channelStats.snapshot(idx) }
+
+  private[impl] def selectChannel(): Int = {
+    val start = (counter.getAndIncrement() & Int.MaxValue) % channels.size
+    selection match {
+      case RoundRobin => start
+      case LeastOutstandingRequests =>
+        // start scanning at a rotating index so that ties are spread evenly
+        var best = start
+        var bestInFlight = stats(start).inFlight
+        var i = 1
+        while (i < channels.size && bestInFlight > 0) {
+          val candidate = (start + i) % channels.size
+          val candidateInFlight = stats(candidate).inFlight
+          if (candidateInFlight < bestInFlight) {
+            best = candidate
+            bestInFlight = candidateInFlight
+          }
+          i += 1
+        }
+        best
+    }
+  }
+
+  private final class PoolInvocationHandler extends InvocationHandler {
+    override def invoke(proxy: AnyRef, method: Method, args: Array[AnyRef]): AnyRef =
+      if (method.getDeclaringClass == classOf[Object]) {
+        method.getName match {
+          case "equals"   => java.lang.Boolean.valueOf(proxy eq args(0))
+          case "hashCode" => Integer.valueOf(System.identityHashCode(proxy))
+          case _          => s"GrpcChannelPool(${serviceClass.getName}, ${channels.size} channels)"
+        }
+      } else {
+        val invokeArgs = if (args eq null) Array.empty[AnyRef] else args
+        // client methods are the protobuf method names starting with a lower case letter
+        lazy val grpcMethod = method.getName.capitalize
+        if (classOf[CompletionStage[_]].isAssignableFrom(method.getReturnType))
+          callPolicy
+            .execute(grpcMethod)(() => invokeOnChannel(method, invokeArgs).asInstanceOf[CompletionStage[AnyRef]])
+        else if (classOf[Future[_]].isAssignableFrom(method.getReturnType))
+          callPolicy
+            .execute(grpcMethod)(() => invokeOnChannel(method, invokeArgs).asInstanceOf[Future[AnyRef]].asJava)
+            .asScala
+        else
+          invokeOnChannel(method, invokeArgs)
+      }
+
+    private def invokeOnChannel(method: Method, args: Array[AnyRef]): AnyRef = {
+      val idx = selectChannel()
+      val channelStats = stats(idx)
+      val start = channelStats.started()
+      // until the completion of the call is tracked, any failure must still count the call as finished
+      var tracked = false
+      try {
+        val result =
+          try {
+            method.invoke(channels(idx), args: _*)
+          } catch {
+            case e: InvocationTargetException => throw e.getCause
+          }
+        result match {
+          case cs: CompletionStage[_] =>
+            cs.asInstanceOf[CompletionStage[AnyRef]]
+              .whenComplete((_: AnyRef, error: Throwable) => channelStats.finished(start, success = error == null))
+          case future: Future[_] =>
+            future.onComplete(t => channelStats.finished(start, t.isSuccess))(ExecutionContext.parasitic)
+          case _ =>
+            channelStats.untracked()
+        }
+        tracked = true
+        result
+      } finally {
+        if (!tracked) channelStats.finished(start, success = false)
+      }
+    }
+  }
+}
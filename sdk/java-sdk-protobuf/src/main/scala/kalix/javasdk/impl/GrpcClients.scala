@@ -36,7 +36,16 @@ import akka.grpc.GrpcClientSettings
 import akka.grpc.javadsl.{ AkkaGrpcClient => AkkaGrpcJavaClient }
 import akka.grpc.scaladsl.{ AkkaGrpcClient => AkkaGrpcScalaClient }
 import io.grpc.CallCredentials
+import io.grpc.CallOptions
+import io.grpc.Channel
+import io.grpc.ClientCall
+import io.grpc.ClientInterceptor
+import io.grpc.ClientInterceptors
+import io.grpc.ForwardingClientCall
+import io.grpc.ManagedChannel
+import io.grpc.ManagedChannelBuilder
 import io.grpc.Metadata
+import io.grpc.MethodDescriptor
 import org.slf4j.LoggerFactory
 
 /**
@@ -51,7 +60,12 @@ object GrpcClients extends ExtensionId[GrpcClients] with ExtensionIdProvider {
     new GrpcClients(system)
   override def lookup: ExtensionId[_ <: Extension] = this
 
-  final private case class Key(serviceClass: Class[_], service: String, port: Int, addHeader: Option[(String, String)])
+  final private case class Key(
+      serviceClass: Class[_],
+      service: String,
+      port: Int,
+      addHeader: Option[(String, String)],
+      crossService: Boolean)
 }
 
 /**
@@ -63,17 +77,21 @@ final class GrpcClients(system: ExtendedActorSystem) extends Extension {
 
   private val proxyInfoHolder = ProxyInfoHolder(system)
   private implicit val ec: ExecutionContext = system.dispatcher
-  private val clients = new ConcurrentHashMap[Key, AnyRef]()
+  private val clients = new ConcurrentHashMap[Key, GrpcChannelPool]()
   private val MaxCrossServiceResponseContentLength =
     system.settings.config.getBytes("kalix.cross-service.max-content-length").toInt
 
-  CoordinatedShutdown(system).addTask(CoordinatedShutdown.PhaseServiceStop, "stop-grpc-clients")(() =>
+  CoordinatedShutdown(system).addTask(CoordinatedShutdown.PhaseServiceStop, "stop-grpc-clients") { () =>
+    if (proxyChannelCreated) localProxyChannel.shutdown()
     Future
-      .traverse(clients.values().asScala) {
-        case javaClient: AkkaGrpcJavaClient   => javaClient.close().asScala
-        case scalaClient: AkkaGrpcScalaClient => scalaClient.close()
-      }
-      .map(_ => Done))
+      .traverse(clients.values().asScala.flatMap(_.channels))(closeClient)
+      .map(_ => Done)
+  }
+
+  private def closeClient(client: AnyRef): Future[Done] = client match {
+    case javaClient: AkkaGrpcJavaClient   => javaClient.close().asScala
+    case scalaClient: AkkaGrpcScalaClient => scalaClient.close()
+  }
 
   def getComponentGrpcClient[T](serviceClass: Class[T]): T = {
     getProxyGrpcClient(serviceClass)
@@ -88,29 +106,71 @@ final class GrpcClients(system: ExtendedActorSystem) extends Extension {
    */
   def getGrpcClient[T](serviceClass: Class[T], service: String): T = {
     val remoteAddHeader = proxyInfoHolder.remoteIdentificationHeader
-    getGrpcClient(serviceClass, service, port = 80, remoteAddHeader)
+    getGrpcClient(serviceClass, service, port = 80, remoteAddHeader, crossService = true)
   }
 
   /** gRPC clients point to services (user components or Kalix services) in the same deployable */
   private def getLocalGrpcClient[T](serviceClass: Class[T]): T = {
+    val (host, port) = localProxyAddress
+    getGrpcClient(serviceClass, host, port, proxyInfoHolder.localIdentificationHeader)
+  }
 
-    val localAddHeader = proxyInfoHolder.localIdentificationHeader
-
+  private def localProxyAddress: (String, Int) =
     (proxyInfoHolder.proxyHostname, proxyInfoHolder.proxyPort) match {
       case (Some(internalProxyHostname), Some(port)) =>
-        getGrpcClient(serviceClass, internalProxyHostname, port, localAddHeader)
+        (internalProxyHostname, port)
       case (Some("localhost"), None) =>
         // for backward compatibility with proxy 1.0.14 or older.
         log.warn("you are using an old version of the Kalix proxy")
-        getGrpcClient(serviceClass, "localhost", proxyInfoHolder.proxyPort.getOrElse(9000), localAddHeader)
+        ("localhost", 9000)
       case (Some(proxyHostname), None) =>
         // for backward compatibility with proxy 1.0.14 or older
         log.warn("you are using an old version of the Kalix proxy")
-        getGrpcClient(serviceClass, proxyHostname, 80, localAddHeader)
+        (proxyHostname, 80)
       case _ =>
         throw new IllegalStateException(
           "Service proxy hostname and port are not set by proxy at discovery, too old proxy version?")
     }
+
+  @volatile private var proxyChannelCreated = false
+
+  // created on first use, since the proxy address is only known after discovery
+  private lazy val localProxyChannel: ManagedChannel = {
+    val (host, port) = localProxyAddress
+    log.debug("Creating gRPC channel to the proxy [{}:{}]", host, port)
+    val channel = ManagedChannelBuilder
+      .forAddress(host, port)
+      .usePlaintext()
+      .maxInboundMessageSize(MaxCrossServiceResponseContentLength)
+      .build()
+    proxyChannelCreated = true
+    channel
+  }
+
+  /**
+   * A gRPC channel to the proxy, multiplexing calls over a single HTTP/2 connection, for calls to the components of
+   * this service without a generated client, described by their method descriptors instead.
+   */
+  lazy val proxyChannel: Channel =
+    proxyInfoHolder.localIdentificationHeader match {
+      case Some((key, value)) => ClientInterceptors.intercept(localProxyChannel, addHeaderInterceptor(key, value))
+      case None               => localProxyChannel
+    }
+
+  private def addHeaderInterceptor(name: String, value: String): ClientInterceptor = {
+    val key = Metadata.Key.of(name, Metadata.ASCII_STRING_MARSHALLER)
+    new ClientInterceptor {
+      override def interceptCall[Req, Res](
+          method: MethodDescriptor[Req, Res],
+          callOptions: CallOptions,
+          next: Channel): ClientCall[Req, Res] =
+        new ForwardingClientCall.SimpleForwardingClientCall[Req, Res](next.newCall(method, callOptions)) {
+          override def start(responseListener: ClientCall.Listener[Res], headers: Metadata): Unit = {
+            headers.put(key, value)
+            super.start(responseListener, headers)
+          }
+        }
+    }
   }
 
   /** This gets called by the testkit, so shouldn't add any headers. */
@@ -125,10 +185,83 @@ final class GrpcClients(system: ExtendedActorSystem) extends Extension {
       serviceClass: Class[T],
       service: String,
       port: Int,
-      addHeader: Option[(String, String)]) = {
-    clients.computeIfAbsent(Key(serviceClass, service, port, addHeader), createClient(_)).asInstanceOf[T]
+      addHeader: Option[(String, String)],
+      crossService: Boolean = false) = {
+    clients
+      .computeIfAbsent(Key(serviceClass, service, port, addHeader, crossService), createPool(_))
+      .client
+      .asInstanceOf[T]
+  }
+
+  /**
+   * Per channel in-flight and latency stats for the pooled clients to the given service, keyed by service class. Only
+   * pools with more than one channel track stats.
+   */
+  def channelStats(service: String): Map[Class[_], Seq[GrpcChannelPool.ChannelStatsSnapshot]] =
+    clients.asScala.collect {
+      case (key, pool) if key.service == service && pool.channels.size > 1 => key.serviceClass -> pool.channelStats
+    }.toMap
+
+  private def createPool(key: Key): GrpcChannelPool = {
+    val crossServiceSettings = CrossServiceSettings(system.settings.config, key.service)
+    val poolSize =
+      if (!key.crossService) {
+        // clients to the local proxy are used by generated code that needs the concrete client type
+        1
+      } else if (crossServiceSettings.channelPoolSize > 1 && !key.serviceClass.isInterface) {
+        log.warn(
+          "Cannot pool gRPC channels for [{}] since it is not an interface, using a single channel",
+          key.serviceClass.getName)
+        1
+      } else crossServiceSettings.channelPoolSize
+
+    if (poolSize > 1)
+      log.debug("Creating pool of [{}] gRPC channels for service [{}:{}]", poolSize, key.service, key.port)
+    val callPolicy =
+      if (key.crossService && key.serviceClass.isInterface) CallPolicies(system).policyFor(key.service)
+      else CallPolicy.Direct
+    val pool = GrpcChannelPool(
+      key.serviceClass,
+      Vector.fill(poolSize)(createClient(key)),
+      crossServiceSettings.channelSelection,
+      callPolicy)
+
+    if (pool.channels.size > 1) registerMetrics(key, pool)
+
+    pool.channels.foreach { client =>
+      val closeDone = client match {
+        case javaClient: AkkaGrpcJavaClient =>
+          javaClient.closed().asScala
+        case scalaClient: AkkaGrpcScalaClient =>
+          scalaClient.closed
+      }
+      closeDone.foreach { _ =>
+        // if one of the clients is closed, remove the pool so that a new one is created on next use, and close the
+        // other clients of the pool since they are no longer handed out
+        log.debug("gRPC client for service [{}] was closed", key.service)
+        if (clients.remove(key, pool)) {
+          if (pool.channels.size > 1) unregisterMetrics(key, pool)
+          pool.channels.filterNot(_ eq client).foreach(closeClient)
+        }
+      }
+    }
+
+    pool
   }
 
+  private def metricsName(key: Key, channel: Int): String =
+    s"${key.service}:${key.port}/${key.serviceClass.getName}/$channel"
+
+  private def registerMetrics(key: Key, pool: GrpcChannelPool): Unit =
+    pool.channels.indices.foreach { channel =>
+      SdkMetrics(system).register("GrpcChannelPool", metricsName(key, channel))(() => pool.channelStats(channel))
+    }
+
+  private def unregisterMetrics(key: Key, pool: GrpcChannelPool): Unit =
+    pool.channels.indices.foreach { channel =>
+      SdkMetrics(system).unregister("GrpcChannelPool", metricsName(key, channel))
+    }
+
   private def createClient(key: Key): AnyRef = {
     val settings =
       if (!system.settings.config.hasPath(s"""akka.grpc.client."${key.service}"""")) {
@@ -164,34 +297,19 @@ final class GrpcClients(system: ExtendedActorSystem) extends Extension {
 
     // expected to have a ServiceNameClient generated in the same package, so look that up through reflection
     val clientClass = system.dynamicAccess.getClassFor[AnyRef](key.serviceClass.getName + "Client").get
-    val client =
-      if (classOf[AkkaGrpcJavaClient].isAssignableFrom(clientClass)) {
-        // Java API - static create
-        val create = clientClass.getMethod("create", classOf[GrpcClientSettings], classOf[ClassicActorSystemProvider])
-        create.invoke(null, settingsWithCallCredentials, system)
-      } else if (classOf[AkkaGrpcScalaClient].isAssignableFrom(clientClass)) {
-        // Scala API - companion object apply
-        val companion = system.dynamicAccess.getObjectFor[AnyRef](key.serviceClass.getName + "Client").get
-        val create =
-          companion.getClass.getMethod("apply", classOf[GrpcClientSettings], classOf[ClassicActorSystemProvider])
-        create.invoke(companion, settingsWithCallCredentials, system)
-      } else {
-        throw new IllegalArgumentException(s"Expected an AkkaGrpcClient but was [${clientClass.getName}]")
-      }
-
-    val closeDone = client match {
-      case javaClient: AkkaGrpcJavaClient =>
-        javaClient.closed().asScala
-      case scalaClient: AkkaGrpcScalaClient =>
-        scalaClient.closed
+    if (classOf[AkkaGrpcJavaClient].isAssignableFrom(clientClass)) {
+      // Java API - static create
+      val create = clientClass.getMethod("create", classOf[GrpcClientSettings], classOf[ClassicActorSystemProvider])
+      create.invoke(null, settingsWithCallCredentials, system)
+    } else if (classOf[AkkaGrpcScalaClient].isAssignableFrom(clientClass)) {
+      // Scala API - companion object apply
+      val companion = system.dynamicAccess.getObjectFor[AnyRef](key.serviceClass.getName + "Client").get
+      val create =
+        companion.getClass.getMethod("apply", classOf[GrpcClientSettings], classOf[ClassicActorSystemProvider])
+      create.invoke(companion, settingsWithCallCredentials, system)
+    } else {
+      throw new IllegalArgumentException(s"Expected an AkkaGrpcClient but was [${clientClass.getName}]")
     }
-    closeDone.foreach { _ =>
-      // if the client is closed, remove it from the pool
-      log.debug("gRPC client for service [{}] was closed", key.service)
-      clients.remove(key)
-    }
-
-    client
   }
 
 }
@@ -26,14 +26,43 @@ import java.util.concurrent.CompletionStage
 /**
  * INTERNAL API
  */
+object GrpcDeferredCall {
+
+  // kept for binary compatibility with code compiled before the call policy was added
+  def apply[I, O](
+      message: I,
+      metadata: MetadataImpl,
+      fullServiceName: String,
+      methodName: String,
+      asyncCall: Metadata => CompletionStage[O]): GrpcDeferredCall[I, O] =
+    new GrpcDeferredCall(message, metadata, fullServiceName, methodName, asyncCall, CallPolicy.Direct)
+}
+
+/**
+ * INTERNAL API
+ *
+ * The constructor and `apply` without a call policy are kept for generated code compiled against earlier versions,
+ * `copy`, `unapply` and the product arity changed with the call policy field.
+ */
 final case class GrpcDeferredCall[I, O](
     message: I,
     metadata: MetadataImpl,
     fullServiceName: String,
     methodName: String,
-    asyncCall: Metadata => CompletionStage[O])
+    asyncCall: Metadata => CompletionStage[O],
+    callPolicy: CallPolicy)
     extends DeferredCall[I, O] {
-  override def execute(): CompletionStage[O] = asyncCall(metadata).exceptionally {
+
+  // kept for binary compatibility with code compiled before the call policy was added
+  def this(
+      message: I,
+      metadata: MetadataImpl,
+      fullServiceName: String,
+      methodName: String,
+      asyncCall: Metadata => CompletionStage[O]) =
+    this(message, metadata, fullServiceName, methodName, asyncCall, CallPolicy.Direct)
+
+  override def execute(): CompletionStage[O] = callPolicy.execute(methodName)(() => asyncCall(metadata)).exceptionally {
     case sre: StatusRuntimeException =>
       throw new StatusRuntimeException(
         sre.getStatus
@@ -45,4 +74,8 @@ final case class GrpcDeferredCall[I, O](
   override def withMetadata(metadata: Metadata): GrpcDeferredCall[I, O] = {
     this.copy(metadata = metadata.asInstanceOf[MetadataImpl])
   }
+
+  /** Execute the call with the given policy, for example with retries or hedging for idempotent calls */
+  def withCallPolicy(callPolicy: CallPolicy): GrpcDeferredCall[I, O] =
+    this.copy(callPolicy = callPolicy)
 }
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2021 Lightbend Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package kalix.javasdk.impl
+
+import com.google.protobuf.any.{ Any => ScalaPbAny }
+
+/**
+ * INTERNAL API
+ *
+ * The last state persisted by an entity or workflow instance, to tell state updates that would not change anything
+ * apart from real ones, so that these can be left out of the reply. Not thread safe, one per entity stream.
+ *
+ * A state update with the very same object as the last persisted state is only taken to be unchanged when the state
+ * is immutable, since a mutable state may have been modified in place. Otherwise the new state is encoded and compared
+ * with the encoded last persisted state.
+ */
+private[kalix] final class PersistedState {
+
+  private var lastState: Any = null
+  private var lastEncoded: Option[ScalaPbAny] = None
+
+  /** Track a state loaded from or persisted to the proxy, in its encoded and uncompressed form */
+  def set(state: Any, encoded: ScalaPbAny): Unit = {
+    lastState = state
+    lastEncoded = Some(encoded)
+  }
+
+  /** The last persisted state in its encoded and uncompressed form */
+  def encoded: Option[ScalaPbAny] = lastEncoded
+
+  def clear(): Unit = {
+    lastState = null
+    lastEncoded = None
+  }
+
+  /** The encoded new state, or None if it is the same as the last persisted state */
+  def encodeIfChanged(newState: Any, messageCodec: MessageCodec): Option[ScalaPbAny] =
+    if (lastEncoded.isDefined && isSameImmutable(newState)) None
+    else {
+      val encoded = messageCodec.encodeScala(newState)
+      if (lastEncoded.contains(encoded)) {
+        lastState = newState
+        None
+      } else {
+        set(newState, encoded)
+        Some(encoded)
+      }
+    }
+
+  private def isSameImmutable(newState: Any): Boolean =
+    PersistedState.isImmutable(newState) && (newState.asInstanceOf[AnyRef] eq lastState.asInstanceOf[AnyRef])
+}
+
+/**
+ * INTERNAL API
+ */
+private[kalix] object PersistedState {
+
+  def isImmutable(value: Any): Boolean =
+    value match {
+      case _: com.google.protobuf.MessageLite => true
+      case _: scalapb.GeneratedMessage        => true
+      case _: String                          => true
+      // boxed primitives, but not the atomic numbers
+      case n: java.lang.Number                => n.getClass.getPackageName == "java.lang"
+      case _: java.lang.Boolean               => true
+      case _                                  => false
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2021 Lightbend Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package kalix.javasdk.impl
+
+import scala.annotation.varargs
+
+import com.google.protobuf.{ Message => JavaMessage }
+import scalapb.GeneratedFileObject
+import scalapb.GeneratedMessageCompanion
+
+object ProtobufTypeRegistry {
+
+  val empty: ProtobufTypeRegistry = new ProtobufTypeRegistry(Map.empty, Map.empty)
+
+  private def allCompanions(companions: Seq[GeneratedMessageCompanion[_]]): Seq[GeneratedMessageCompanion[_]] =
+    companions.flatMap(companion => companion +: allCompanions(companion.nestedMessagesCompanions))
+}
+
+/**
+ * INTERNAL API, used by generated code
+ *
+ * The protobuf message types of a service, known at compile time and registered by the generated `TypeRegistry`, so
+ * that [[AnySupport]] can resolve them with a map lookup instead of guessing class names from the file options and
+ * loading them reflectively when they are first seen.
+ */
+final class ProtobufTypeRegistry private (
+    javaTypes: Map[String, ResolvedType[Any]],
+    scalaTypes: Map[String, ResolvedType[Any]]) {
+  import ProtobufTypeRegistry._
+
+  /**
+   * Register Java protobuf message types, given their default instances.
+   */
+  @varargs
+  def withJavaTypes(defaultInstances: JavaMessage*): ProtobufTypeRegistry =
+    new ProtobufTypeRegistry(
+      javaTypes ++ defaultInstances.map { instance =>
+        instance.getDescriptorForType.getFullName ->
+        new JavaPbResolvedType(instance.getParserForType).asInstanceOf[ResolvedType[Any]]
+      },
+      scalaTypes)
+
+  /**
+   * Register all ScalaPB message types, including nested ones, of the given generated file objects.
+   */
+  def withScalaFiles(files: GeneratedFileObject*): ProtobufTypeRegistry =
+    new ProtobufTypeRegistry(
+      javaTypes,
+      scalaTypes ++ allCompanions(files.flatMap(_.messagesCompanions)).map { companion =>
+        companion.scalaDescriptor.fullName -> new ScalaPbResolvedType(companion).asInstanceOf[ResolvedType[Any]]
+      })
+
+  def isEmpty: Boolean = javaTypes.isEmpty && scalaTypes.isEmpty
+
+  /** The registered type for the given protobuf full name, of the preferred flavour if both are registered */
+  def resolve(fullName: String, prefer: AnySupport.Prefer): Option[ResolvedType[Any]] =
+    prefer match {
+      case AnySupport.Prefer.Java  => javaTypes.get(fullName).orElse(scalaTypes.get(fullName))
+      case AnySupport.Prefer.Scala => scalaTypes.get(fullName).orElse(javaTypes.get(fullName))
+    }
+}
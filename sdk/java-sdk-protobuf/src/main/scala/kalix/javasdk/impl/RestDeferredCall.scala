@@ -24,16 +24,49 @@ import java.util.concurrent.CompletionStage
 /**
  * INTERNAL API
  */
+object RestDeferredCall {
+
+  // kept for binary compatibility with code compiled before the call policy was added
+  def apply[I, O](
+      message: I,
+      metadata: MetadataImpl,
+      fullServiceName: String,
+      methodName: String,
+      asyncCall: Metadata => CompletionStage[O]): RestDeferredCall[I, O] =
+    new RestDeferredCall(message, metadata, fullServiceName, methodName, asyncCall, CallPolicy.Direct)
+}
+
+/**
+ * INTERNAL API
+ *
+ * The constructor and `apply` without a call policy are kept for generated code compiled against earlier versions,
+ * `copy`, `unapply` and the product arity changed with the call policy field.
+ */
 final case class RestDeferredCall[I, O](
     message: I,
     metadata: MetadataImpl,
     fullServiceName: String,
     methodName: String,
-    asyncCall: Metadata => CompletionStage[O])
+    asyncCall: Metadata => CompletionStage[O],
+    callPolicy: CallPolicy)
     extends DeferredCall[I, O] {
-  override def execute(): CompletionStage[O] = asyncCall(metadata)
+
+  // kept for binary compatibility with code compiled before the call policy was added
+  def this(
+      message: I,
+      metadata: MetadataImpl,
+      fullServiceName: String,
+      methodName: String,
+      asyncCall: Metadata => CompletionStage[O]) =
+    this(message, metadata, fullServiceName, methodName, asyncCall, CallPolicy.Direct)
+
+  override def execute(): CompletionStage[O] = callPolicy.execute(methodName)(() => asyncCall(metadata))
 
   override def withMetadata(metadata: Metadata): RestDeferredCall[I, O] = {
     this.copy(metadata = metadata.asInstanceOf[MetadataImpl])
   }
+
+  /** Execute the call with the given policy, for example with retries or hedging for idempotent calls */
+  def withCallPolicy(callPolicy: CallPolicy): RestDeferredCall[I, O] =
+    this.copy(callPolicy = callPolicy)
 }
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2021 Lightbend Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package kalix.javasdk.impl
+
+import java.lang.management.ManagementFactory
+import java.util.concurrent.ConcurrentHashMap
+
+import scala.concurrent.Future
+import scala.concurrent.duration.FiniteDuration
+import scala.jdk.CollectionConverters._
+import scala.jdk.DurationConverters._
+import scala.util.control.NonFatal
+
+import akka.Done
+import akka.actor.ActorSystem
+import akka.actor.ClassicActorSystemProvider
+import akka.actor.CoordinatedShutdown
+import akka.actor.ExtendedActorSystem
+import akka.actor.Extension
+import akka.actor.ExtensionId
+import akka.actor.ExtensionIdProvider
+import javax.management.Attribute
+import javax.management.AttributeList
+import javax.management.AttributeNotFoundException
+import javax.management.DynamicMBean
+import javax.management.MBeanAttributeInfo
+import javax.management.MBeanInfo
+import javax.management.ObjectName
+import javax.management.ReflectionException
+import org.slf4j.LoggerFactory
+
+/**
+ * INTERNAL API
+ */
+object SdkMetrics extends ExtensionId[SdkMetrics] with ExtensionIdProvider {
+  override def get(system: ActorSystem): SdkMetrics = super.get(system)
+
+  override def get(system: ClassicActorSystemProvider): SdkMetrics = super.get(system)
+
+  override def createExtension(system: ExtendedActorSystem): SdkMetrics =
+    new SdkMetrics(system)
+  override def lookup: ExtensionId[_ <: Extension] = this
+
+  val JmxDomain = "kalix.sdk"
+
+  def objectName(group: String, name: String): ObjectName =
+    new ObjectName(s"$JmxDomain:type=${ObjectName.quote(group)},name=${ObjectName.quote(name)}")
+
+  /**
+   * The fields of a snapshot case class by name, numbers, strings and booleans as they are, durations in milliseconds,
+   * anything else as its string representation.
+   */
+  def values(snapshot: Product): Map[String, Any] =
+    snapshot.productElementNames.zip(snapshot.productIterator.map(value)).toMap
+
+  private def value(field: Any): Any =
+    field match {
+      case _: java.lang.Number | _: String | _: java.lang.Boolean => field
+      case duration: java.time.Duration                           => duration.toNanos / 1000000.0
+      case duration: FiniteDuration                               => duration.toNanos / 1000000.0
+      case Some(value)                                            => value.toString
+      case None                                                   => ""
+      case other                                                  => String.valueOf(other)
+    }
+
+  private final class SnapshotMBean(group: String, name: String, snapshot: () => Product) extends DynamicMBean {
+
+    override def getAttribute(attribute: String): AnyRef =
+      values(snapshot()).getOrElse(attribute, throw new AttributeNotFoundException(attribute)).asInstanceOf[AnyRef]
+
+    override def getAttributes(attributes: Array[String]): AttributeList = {
+      val current = values(snapshot())
+      val list = new AttributeList
+      attributes.foreach { attribute =>
+        current.get(attribute).foreach(value => list.add(new Attribute(attribute, value)))
+      }
+      list
+    }
+
+    override def setAttribute(attribute: Attribute): Unit =
+      throw new AttributeNotFoundException(s"Read only attribute [${attribute.getName}]")
+
+    override def setAttributes(attributes: AttributeList): AttributeList = new AttributeList
+
+    override def invoke(actionName: String, params: Array[AnyRef], signature: Array[String]): AnyRef =
+      throw new ReflectionException(new NoSuchMethodException(actionName))
+
+    override def getMBeanInfo: MBeanInfo = {
+      val attributes = values(snapshot()).iterator.map { case (attribute, value) =>
+        new MBeanAttributeInfo(attribute, value.getClass.getName, attribute, true, false, false)
+      }
+      new MBeanInfo(getClass.getName, s"$group [$name]", attributes.toArray, null, null, null)
+    }
+  }
+}
+
+/**
+ * INTERNAL API
+ *
+ * Metrics of the SDK runtime, each source a snapshot case class registered by group and name, exposed as a read only
+ * JMX MBean named `kalix.sdk:type=<group>,name=<name>` and optionally logged at a fixed interval, as configured in
+ * `kalix.metrics`. A source registered again under the same group and name replaces the earlier one.
+ */
+final class SdkMetrics(system: ExtendedActorSystem) extends Extension {
+  import SdkMetrics._
+
+  private val log = LoggerFactory.getLogger(classOf[SdkMetrics])
+  private val config = system.settings.config.getConfig("kalix.metrics")
+  private val jmxEnabled = config.getBoolean("jmx")
+  private val sources = new ConcurrentHashMap[ObjectName, () => Product]()
+
+  if (config.getString("log-interval") != "off") {
+    val interval = config.getDuration("log-interval").toScala
+    system.scheduler.scheduleWithFixedDelay(interval, interval)(() => logMetrics())(system.dispatcher)
+  }
+
+  CoordinatedShutdown(system).addTask(CoordinatedShutdown.PhaseServiceStop, "unregister-sdk-metrics") { () =>
+    sources.keySet.asScala.foreach(unregisterMBean)
+    sources.clear()
+    Future.successful(Done)
+  }
+
+  def register(group: String, name: String)(snapshot: () => Product): Unit = {
+    val objectName = SdkMetrics.objectName(group, name)
+    sources.put(objectName, snapshot)
+    if (jmxEnabled) {
+      try {
+        unregisterMBean(objectName)
+        ManagementFactory.getPlatformMBeanServer.registerMBean(new SnapshotMBean(group, name, snapshot), objectName)
+      } catch {
+        case NonFatal(e) => log.warn(s"Failed to register SDK metrics [$objectName] with JMX", e)
+      }
+    }
+  }
+
+  def unregister(group: String, name: String): Unit = {
+    val objectName = SdkMetrics.objectName(group, name)
+    if (sources.remove(objectName) != null) unregisterMBean(objectName)
+  }
+
+  /** The current values of all sources, by object name */
+  def snapshot: Map[ObjectName, Map[String, Any]] =
+    sources.asScala.iterator.map { case (objectName, snapshot) => objectName -> values(snapshot()) }.toMap
+
+  private def unregisterMBean(objectName: ObjectName): Unit =
+    if (jmxEnabled) {
+      val server = ManagementFactory.getPlatformMBeanServer
+      try {
+        if (server.isRegistered(objectName)) server.unregisterMBean(objectName)
+      } catch {
+        case NonFatal(_) => // unregistered concurrently
+      }
+    }
+
+  private def logMetrics(): Unit =
+    snapshot.toSeq.sortBy(_._1.getCanonicalName).foreach { case (objectName, values) =>
+      log.info(
+        s"${objectName.getKeyProperty("type")} [${ObjectName.unquote(objectName.getKeyProperty("name"))}]: " +
+        values.toSeq.sortBy(_._1).map { case (key, value) => s"$key=$value" }.mkString(", "))
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2021 Lightbend Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package kalix.javasdk.impl
+
+import java.util.concurrent.atomic.LongAdder
+
+import akka.actor.ActorSystem
+import org.slf4j.LoggerFactory
+
+/**
+ * INTERNAL API
+ */
+private[kalix] object SkippedStateUpdates {
+  final case class Snapshot(skippedUpdates: Long)
+}
+
+/**
+ * INTERNAL API
+ *
+ * Counts the state updates of one kind of component that were left out since they would not have changed the
+ * persisted state, see [[PersistedState]]. The count is exposed with the SDK metrics.
+ *
+ * @param component
+ *   the kind of component, such as "value entity", in log messages and the metrics name
+ */
+private[kalix] final class SkippedStateUpdates(system: ActorSystem, component: String) {
+  import SkippedStateUpdates._
+
+  private val log = LoggerFactory.getLogger(classOf[SkippedStateUpdates])
+  private val skipped = new LongAdder
+
+  SdkMetrics(system).register("SkippedStateUpdates", component)(() => Snapshot(count))
+
+  def count: Long = skipped.sum()
+
+  def skippedUpdate(id: String): Unit = {
+    skipped.increment()
+    if (log.isDebugEnabled)
+      log.debug(s"Left out unchanged state update of $component [$id], [$count] updates left out in total")
+  }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2021 Lightbend Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package kalix.javasdk.impl
+
+import com.google.protobuf.CodedOutputStream
+import com.google.protobuf.UnsafeByteOperations
+import com.google.protobuf.any.{ Any => ScalaPbAny }
+import com.typesafe.config.Config
+import net.jpountz.lz4.LZ4Factory
+
+/**
+ * INTERNAL API
+ *
+ * LZ4 compression of encoded states. A compressed state keeps its original type url behind the [[TypeUrlPrefix]]
+ * marker, and its value is the uncompressed length as a varint followed by the LZ4 block.
+ *
+ * Decompression does not depend on the configuration, so that states stay readable when compression is disabled
+ * again.
+ */
+private[kalix] final class StateCompression private (threshold: Long) {
+
+  private val compressor = StateCompression.lz4.fastCompressor()
+
+  def compress(any: ScalaPbAny): ScalaPbAny =
+    if (any.value.size < threshold || any.typeUrl.startsWith(StateCompression.TypeUrlPrefix)) any
+    else {
+      val input = any.value.toByteArray
+      val headerLength = CodedOutputStream.computeUInt32SizeNoTag(input.length)
+      val output = new Array[Byte](headerLength + compressor.maxCompressedLength(input.length))
+      val header = CodedOutputStream.newInstance(output, 0, headerLength)
+      header.writeUInt32NoTag(input.length)
+      header.flush()
+      val length =
+        headerLength + compressor.compress(input, 0, input.length, output, headerLength, output.length - headerLength)
+
+      // incompressible, e.g. already compressed binary content
+      if (length >= input.length) any
+      else
+        ScalaPbAny(StateCompression.TypeUrlPrefix + any.typeUrl, UnsafeByteOperations.unsafeWrap(output, 0, length))
+    }
+}
+
+/**
+ * INTERNAL API
+ */
+private[kalix] object StateCompression {
+
+  val TypeUrlPrefix = "lz4.kalix.io/"
+
+  private val lz4 = LZ4Factory.fastestInstance()
+  private val decompressor = lz4.fastDecompressor()
+
+  /** The compression configured in `kalix.state-compression`, if enabled */
+  def apply(config: Config): Option[StateCompression] = {
+    val compressionConfig = config.getConfig("kalix.state-compression")
+    if (compressionConfig.getBoolean("enabled"))
+      Some(new StateCompression(compressionConfig.getBytes("threshold")))
+    else None
+  }
+
+  def isCompressed(any: ScalaPbAny): Boolean =
+    any.typeUrl.startsWith(TypeUrlPrefix)
+
+  /** Restores the original state if compressed, or returns it as is */
+  def decompress(any: ScalaPbAny): ScalaPbAny =
+    if (!isCompressed(any)) any
+    else {
+      val input = any.value.newCodedInput()
+      val length = input.readUInt32()
+      val compressed = input.readRawBytes(any.value.size - input.getTotalBytesRead)
+      val output = new Array[Byte](length)
+      decompressor.decompress(compressed, 0, output, 0, length)
+      ScalaPbAny(any.typeUrl.substring(TypeUrlPrefix.length), UnsafeByteOperations.unsafeWrap(output))
+    }
+}
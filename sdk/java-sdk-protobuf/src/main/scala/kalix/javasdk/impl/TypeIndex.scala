@@ -0,0 +1,54 @@
+/*
+ * Copyright 2021 Lightbend Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package kalix.javasdk.impl
+
+import scala.annotation.varargs
+
+/**
+ * INTERNAL API, used by generated code
+ */
+object TypeIndex {
+
+  /** Returned by [[TypeIndex.indexOf]] for values that are not an instance of any of the indexed types */
+  final val NotFound = -1
+
+  @varargs
+  def of(types: Class[_]*): TypeIndex = new TypeIndex(types.toVector)
+}
+
+/**
+ * INTERNAL API, used by generated code
+ *
+ * Constant time lookup of the position of the type of a value in a fixed list of types, so that generated routers can
+ * dispatch with a `switch` instead of a chain of `instanceof` checks. The position is resolved once per runtime class,
+ * with the first type in the list the value is an instance of winning, just like the chain of checks would.
+ */
+final class TypeIndex private (types: Vector[Class[_]]) {
+
+  private val index = new ClassValue[Integer] {
+    override def computeValue(clazz: Class[_]): Integer =
+      Integer.valueOf(types.indexWhere(_.isAssignableFrom(clazz)))
+  }
+
+  /**
+   * @return
+   *   the position of the first type in the index that the value is an instance of, or [[TypeIndex.NotFound]]
+   */
+  def indexOf(value: Any): Int =
+    if (value == null) TypeIndex.NotFound
+    else index.get(value.getClass).intValue()
+}
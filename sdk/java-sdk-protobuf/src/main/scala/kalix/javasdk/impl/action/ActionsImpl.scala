@@ -193,12 +193,11 @@ private[javasdk] final class ActionsImpl(
       case Some(service) =>
         try {
           val context = createContext(in, service.messageCodec)
-          val decodedPayload = service.messageCodec.decodeMessage(
-            in.payload.getOrElse(throw new IllegalArgumentException("No command payload")))
+          val envelope = lazyEnvelope(in, context.metadata(), service.messageCodec)
           val effect = service.factory
             .create(creationContext)
-            .handleUnary(in.name, MessageEnvelope.of(decodedPayload, context.metadata()), context)
-          effectToResponse(service, in, effect, service.messageCodec)
+            .handleUnary(in.name, envelope, context)
+          effectToResponse(service, in, effect, new PassThroughMessageCodec(service.messageCodec, envelope))
         } catch {
           case NonFatal(ex) =>
             // command handler threw an "unexpected" error
@@ -237,9 +236,7 @@ private[javasdk] final class ActionsImpl(
                     call.name,
                     messages.map { message =>
                       val metadata = new MetadataImpl(message.metadata.map(_.entries.toVector).getOrElse(Nil))
-                      val decodedPayload = service.messageCodec.decodeMessage(
-                        message.payload.getOrElse(throw new IllegalArgumentException("No command payload")))
-                      MessageEnvelope.of(decodedPayload, metadata)
+                      lazyEnvelope(message, metadata, service.messageCodec): MessageEnvelope[Any]
                     }.asJava,
                     createContext(call, service.messageCodec))
                 effectToResponse(service, call, effect, service.messageCodec)
@@ -266,13 +263,13 @@ private[javasdk] final class ActionsImpl(
       case Some(service) =>
         try {
           val context = createContext(in, service.messageCodec)
-          val decodedPayload = service.messageCodec.decodeMessage(
-            in.payload.getOrElse(throw new IllegalArgumentException("No command payload")))
+          val envelope = lazyEnvelope(in, context.metadata(), service.messageCodec)
+          val messageCodec = new PassThroughMessageCodec(service.messageCodec, envelope)
           service.factory
             .create(creationContext)
-            .handleStreamedOut(in.name, MessageEnvelope.of(decodedPayload, context.metadata()), context)
+            .handleStreamedOut(in.name, envelope, context)
             .asScala
-            .mapAsync(1)(effect => effectToResponse(service, in, effect, service.messageCodec))
+            .mapAsync(1)(effect => effectToResponse(service, in, effect, messageCodec))
             .recover { case NonFatal(ex) =>
               // user stream failed with an "unexpected" error
               handleUnexpectedException(service, in, ex)
@@ -316,9 +313,7 @@ private[javasdk] final class ActionsImpl(
                     call.name,
                     messages.map { message =>
                       val metadata = new MetadataImpl(message.metadata.map(_.entries.toVector).getOrElse(Nil))
-                      val decodedPayload = service.messageCodec.decodeMessage(
-                        message.payload.getOrElse(throw new IllegalArgumentException("No command payload")))
-                      MessageEnvelope.of(decodedPayload, metadata)
+                      lazyEnvelope(message, metadata, service.messageCodec): MessageEnvelope[Any]
                     }.asJava,
                     createContext(call, service.messageCodec))
                   .asScala
@@ -341,6 +336,13 @@ private[javasdk] final class ActionsImpl(
           }
       }
 
+  /** The payload is only decompressed and decoded when accessed */
+  private def lazyEnvelope(in: ActionCommand, metadata: Metadata, messageCodec: MessageCodec): LazyMessageEnvelope =
+    new LazyMessageEnvelope(
+      in.payload.getOrElse(throw new IllegalArgumentException("No command payload")),
+      metadata,
+      messageCodec)
+
   private def createContext(in: ActionCommand, messageCodec: MessageCodec): ActionContext = {
     val metadata = new MetadataImpl(in.metadata.map(_.entries.toVector).getOrElse(Nil))
     new ActionContextImpl(metadata, messageCodec, system)
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2021 Lightbend Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package kalix.javasdk.impl.action
+
+import com.google.protobuf.any.{ Any => ScalaPbAny }
+import com.google.protobuf.{ Any => JavaPbAny }
+import kalix.javasdk.Metadata
+import kalix.javasdk.action.MessageEnvelope
+import kalix.javasdk.impl.MessageCodec
+import kalix.javasdk.impl.PersistedState
+import kalix.javasdk.impl.StateCompression
+
+/**
+ * INTERNAL API
+ *
+ * A message envelope decoding its payload on first access only, for actions that only look at the metadata, such as
+ * routers and filters. Subscriptions to value entities may deliver compressed states, those are also only
+ * decompressed on first access.
+ */
+private[kalix] final class LazyMessageEnvelope(
+    receivedPayload: ScalaPbAny,
+    override val metadata: Metadata,
+    messageCodec: MessageCodec)
+    extends MessageEnvelope[Any] {
+
+  @volatile private var decoded = false
+
+  /** The received payload, decompressed if it was compressed */
+  lazy val encodedPayload: ScalaPbAny = StateCompression.decompress(receivedPayload)
+
+  private lazy val decodedPayload: Any = {
+    val payload = messageCodec.decodeMessage(encodedPayload)
+    decoded = true
+    payload
+  }
+
+  override def payload(): Any = decodedPayload
+
+  def isDecoded: Boolean = decoded
+
+  /**
+   * The encoded payload of this envelope if the given message is its decoded payload, unchanged since it is
+   * immutable, so that it can be passed on without encoding it again.
+   */
+  def encodedIfPayload(message: Any): Option[ScalaPbAny] =
+    if (decoded && (message.asInstanceOf[AnyRef] eq decodedPayload.asInstanceOf[AnyRef]) &&
+      PersistedState.isImmutable(message)) Some(encodedPayload)
+    else None
+
+  override def toString: String = s"LazyMessageEnvelope(${receivedPayload.typeUrl}, $metadata)"
+}
+
+/**
+ * INTERNAL API
+ *
+ * Encodes the decoded payload of the incoming message as its original bytes when it is replied or forwarded as is.
+ */
+private[kalix] final class PassThroughMessageCodec(delegate: MessageCodec, envelope: LazyMessageEnvelope)
+    extends MessageCodec {
+
+  override def decodeMessage(any: ScalaPbAny): Any = delegate.decodeMessage(any)
+
+  override def encodeScala(value: Any): ScalaPbAny =
+    envelope.encodedIfPayload(value).getOrElse(delegate.encodeScala(value))
+
+  override def encodeJava(value: Any): JavaPbAny =
+    envelope.encodedIfPayload(value) match {
+      case Some(encoded) => ScalaPbAny.toJavaProto(encoded)
+      case None          => delegate.encodeJava(value)
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2021 Lightbend Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package kalix.javasdk.impl.eventsourcedentity
+
+import java.time.Duration
+import java.util.concurrent.atomic.LongAdder
+
+import scala.util.control.NonFatal
+
+import com.github.benmanes.caffeine.cache.Cache
+import com.github.benmanes.caffeine.cache.Caffeine
+import com.google.protobuf.any.{ Any => ScalaPbAny }
+import com.typesafe.config.Config
+import kalix.javasdk.impl.MessageCodec
+import kalix.javasdk.impl.PersistedState
+
+/**
+ * INTERNAL API
+ */
+private[kalix] object EntityStateCache {
+
+  final case class Entry(sequence: Long, state: Any)
+
+  /** A state that is not known to be immutable, cached in its encoded form */
+  final case class Encoded(state: ScalaPbAny)
+
+  /**
+   * An entry for the given state, which is kept as it is if immutable. Any other state may still be modified in place
+   * by the entity, so it is encoded, or not cached at all if it can't be.
+   */
+  def entry(sequence: Long, state: Any, messageCodec: MessageCodec): Option[Entry] =
+    if (state == null || PersistedState.isImmutable(state)) Some(Entry(sequence, state))
+    else
+      try Some(Entry(sequence, Encoded(messageCodec.encodeScala(state))))
+      catch {
+        case NonFatal(_) => None
+      }
+
+  /** The state of an entry, decoded if it was cached in its encoded form */
+  def state(entry: Entry, messageCodec: MessageCodec): Any =
+    entry.state match {
+      case Encoded(encoded) => messageCodec.decodeMessage(encoded)
+      case state            => state
+    }
+
+  /**
+   * @param hits
+   *   activations that found a cached state
+   * @param misses
+   *   activations that didn't find a cached state
+   * @param stale
+   *   cached states that could not be used, because they were older than the snapshot or because the journal did not
+   *   reach their sequence number
+   */
+  final case class Stats(hits: Long, misses: Long, stale: Long, evictions: Long, size: Long)
+
+  /** The cache configured in `kalix.event-sourced-entity.state-cache`, if enabled */
+  def apply(config: Config): Option[EntityStateCache] = {
+    val cacheConfig = config.getConfig("kalix.event-sourced-entity.state-cache")
+    val maxEntries = cacheConfig.getLong("max-entries")
+    if (maxEntries > 0) Some(new EntityStateCache(maxEntries, cacheConfig.getDuration("expire-after")))
+    else None
+  }
+}
+
+/**
+ * INTERNAL API
+ *
+ * Decoded states of event sourced entities by service and entity id, kept after the stream of an entity ends. An entry
+ * is removed when taken by a new activation of the entity, since its state diverges from there, and put back when that
+ * stream ends.
+ *
+ * Bounded by number of entries with the W-TinyLFU eviction policy of Caffeine, since the size of decoded states is
+ * not known.
+ */
+private[kalix] final class EntityStateCache(maxEntries: Long, expireAfter: Duration) {
+  import EntityStateCache._
+
+  private val cache: Cache[(String, String), Entry] =
+    Caffeine.newBuilder().maximumSize(maxEntries).expireAfterWrite(expireAfter).recordStats().build()
+
+  private val staleCount = new LongAdder
+
+  /**
+   * Remove and return the cached state of an entity, if it is not older than the given snapshot sequence number.
+   */
+  def take(serviceName: String, entityId: String, snapshotSequence: Long): Option[Entry] = {
+    val key = (serviceName, entityId)
+    Option(cache.getIfPresent(key)).flatMap { entry =>
+      cache.invalidate(key)
+      if (entry.sequence >= snapshotSequence) Some(entry)
+      else {
+        staleCount.increment()
+        None
+      }
+    }
+  }
+
+  def put(serviceName: String, entityId: String, sequence: Long, state: Any): Unit =
+    cache.put((serviceName, entityId), Entry(sequence, state))
+
+  /** A cached state was taken but could not be used */
+  def recordStale(): Unit =
+    staleCount.increment()
+
+  def stats: Stats = {
+    val caffeineStats = cache.stats()
+    Stats(
+      caffeineStats.hitCount(),
+      caffeineStats.missCount(),
+      staleCount.sum(),
+      caffeineStats.evictionCount(),
+      cache.estimatedSize())
+  }
+}
@@ -17,6 +17,7 @@
 package kalix.javasdk.impl.eventsourcedentity
 
 import akka.NotUsed
+import akka.dispatch.ExecutionContexts
 import akka.actor.ActorSystem
 import akka.stream.scaladsl.Flow
 import akka.stream.scaladsl.Source
@@ -109,6 +110,17 @@ final class EventSourcedEntitiesImpl(
   private val pbCleanupDeletedEventSourcedEntityAfter =
     Some(com.google.protobuf.duration.Duration(configuration.cleanupDeletedEventSourcedEntityAfter))
 
+  // only snapshots are compressed, events are consumed by views and other services
+  private val stateCompression = StateCompression(system.settings.config)
+
+  private def compressSnapshot(snapshot: ScalaPbAny): ScalaPbAny =
+    stateCompression.fold(snapshot)(_.compress(snapshot))
+
+  private val stateCache = EntityStateCache(system.settings.config)
+  stateCache.foreach { cache =>
+    SdkMetrics(system).register("EntityStateCache", "event-sourced-entities")(() => cache.stats)
+  }
+
   /**
    * The stream. One stream will be established per active entity. Once established, the first message sent will be
    * Init, which contains the entity ID, and, if the entity has previously persisted a snapshot, it will contain that
@@ -149,28 +161,93 @@ final class EventSourcedEntitiesImpl(
       .asInstanceOf[EventSourcedEntityRouter[Any, Any, EventSourcedEntity[Any, Any]]]
     val thisEntityId = init.entityId
 
-    val startingSequenceNumber = (for {
+    val snapshot = for {
       snapshot <- init.snapshot
       any <- snapshot.snapshot
-    } yield {
-      val snapshotSequence = snapshot.snapshotSequence
-      router._internalHandleSnapshot(service.messageCodec.decodeMessage(any))
-      snapshotSequence
-    }).getOrElse(0L)
+    } yield (snapshot.snapshotSequence, any)
+    val startingSequenceNumber = snapshot.map(_._1).getOrElse(0L)
+
+    def decodeSnapshot(): Unit =
+      snapshot.foreach { case (_, any) =>
+        router._internalHandleSnapshot(service.messageCodec.decodeMessage(StateCompression.decompress(any)))
+      }
+
+    def applyEvent(event: EventSourcedEvent): Unit = {
+      val context = new EventContextImpl(thisEntityId, event.sequence)
+      val ev =
+        service.messageCodec
+          .decodeMessage(event.payload.get)
+          .asInstanceOf[AnyRef] // FIXME empty?
+      router._internalHandleEvent(ev, context)
+    }
+
+    // the state of an earlier activation of this entity, only used once the replayed journal reaches its sequence
+    // number, the snapshot and the events until then are kept to fall back to if it doesn't
+    var cachedState = stateCache.flatMap(_.take(init.serviceName, thisEntityId, startingSequenceNumber))
+    var skippedEvents = Vector.empty[EventSourcedEvent]
+
+    def recoverFromCachedState(entry: EntityStateCache.Entry): Unit = {
+      router._internalHandleSnapshot(EntityStateCache.state(entry, service.messageCodec))
+      cachedState = None
+      skippedEvents = Vector.empty
+    }
+
+    def fallBackFromCachedState(): Unit =
+      if (cachedState.isDefined) {
+        if (log.isDebugEnabled)
+          log.debug(
+            s"Cached state of entity [$thisEntityId] at sequence [${cachedState.get.sequence}] not reached by the " +
+            "journal, recovering from the journal")
+        stateCache.foreach(_.recordStale())
+        cachedState = None
+        decodeSnapshot()
+        skippedEvents.foreach(applyEvent)
+        skippedEvents = Vector.empty
+      }
+
+    cachedState match {
+      case Some(entry) if entry.sequence == startingSequenceNumber =>
+        recoverFromCachedState(entry)
+      case Some(_) => // snapshot only decoded if needed
+      case None    => decodeSnapshot()
+    }
+
+    @volatile var lastSequence = startingSequenceNumber
+    @volatile var failed = false
+    // the state once the journal has been replayed, the only state confirmed by the proxy, since events emitted by
+    // commands of this activation may not have been persisted
+    @volatile var replayed = false
+    @volatile var replayedState: Option[EntityStateCache.Entry] = None
+
+    def cacheEntry(sequence: Long): Option[EntityStateCache.Entry] =
+      if (stateCache.isEmpty || sequence == 0) None
+      else EntityStateCache.entry(sequence, router._stateOrEmpty(), service.messageCodec)
+
+    def replayComplete(sequence: Long): Unit =
+      if (!replayed) {
+        fallBackFromCachedState()
+        replayed = true
+        replayedState = cacheEntry(sequence)
+      }
 
     Flow[EventSourcedStreamIn]
       .map(_.message)
       .scan[(Long, Option[EventSourcedStreamOut.Message])]((startingSequenceNumber, None)) {
         case (_, InEvent(event)) =>
           // Note that these only come on replay
-          val context = new EventContextImpl(thisEntityId, event.sequence)
-          val ev =
-            service.messageCodec
-              .decodeMessage(event.payload.get)
-              .asInstanceOf[AnyRef] // FIXME empty?
-          router._internalHandleEvent(ev, context)
+          cachedState match {
+            case Some(entry) if event.sequence < entry.sequence =>
+              skippedEvents :+= event
+            case Some(entry) if event.sequence == entry.sequence =>
+              recoverFromCachedState(entry)
+            case _ =>
+              fallBackFromCachedState()
+              applyEvent(event)
+          }
           (event.sequence, None)
         case ((sequence, _), InCommand(command)) =>
+          // replay is complete when the first command arrives
+          replayComplete(sequence)
           if (thisEntityId != command.entityId)
             throw ProtocolException(command, "Receiving entity is not the intended recipient of command")
 
@@ -224,7 +301,7 @@ final class EventSourcedEntitiesImpl(
               val serializedEvents =
                 events.map(event => ScalaPbAny.fromJavaProto(service.messageCodec.encodeJava(event)))
               val serializedSnapshot =
-                snapshot.map(state => ScalaPbAny.fromJavaProto(service.messageCodec.encodeJava(state)))
+                snapshot.map(state => compressSnapshot(service.messageCodec.encodeScala(state)))
               val delete = if (deleteEntity) pbCleanupDeletedEventSourcedEntityAfter else None
               (
                 endSequenceNumber,
@@ -239,24 +316,49 @@ final class EventSourcedEntitiesImpl(
                       delete))))
           }
         case ((sequence, _), InSnapshotRequest(request)) =>
+          replayComplete(sequence)
           val reply =
-            EventSourcedSnapshotReply(request.requestId, Some(service.messageCodec.encodeScala(router._stateOrEmpty())))
+            EventSourcedSnapshotReply(
+              request.requestId,
+              Some(compressSnapshot(service.messageCodec.encodeScala(router._stateOrEmpty()))))
           (sequence, Some(OutSnapshotReply(reply)))
         case (_, InInit(_)) =>
           throw ProtocolException(init, "Entity already initiated")
         case (_, InEmpty) =>
           throw ProtocolException(init, "Received empty/unknown message")
       }
+      .map { result =>
+        lastSequence = result._1
+        result
+      }
       .collect { case (_, Some(message)) =>
         EventSourcedStreamOut(message)
       }
       .recover { case error =>
+        failed = true
         // only "unexpected" exceptions should end up here
         ErrorHandling.withCorrelationId { correlationId =>
           LoggerFactory.getLogger(router.entityClass).error(failureMessageForLog(error), error)
           EventSourcedStreamOut(OutFailure(Failure(description = s"Unexpected failure [$correlationId]")))
         }
       }
+      .watchTermination() { (mat, done) =>
+        stateCache.foreach { cache =>
+          done.foreach { _ =>
+            // a state not confirmed by the journal, or after a failure, must not be used again
+            val confirmed =
+              if (failed || cachedState.isDefined) None
+              else if (replayed) replayedState
+              else cacheEntry(lastSequence)
+            confirmed.foreach { entry =>
+              cache.put(init.serviceName, thisEntityId, entry.sequence, entry.state)
+              if (log.isDebugEnabled)
+                log.debug(s"Cached state of entity [$thisEntityId] at sequence [${entry.sequence}], ${cache.stats}")
+            }
+          }(ExecutionContexts.parasitic)
+        }
+        mat
+      }
       .async
   }
 
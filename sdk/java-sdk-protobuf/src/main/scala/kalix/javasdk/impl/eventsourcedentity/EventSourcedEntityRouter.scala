@@ -23,6 +23,8 @@ import kalix.javasdk.impl.eventsourcedentity.EventSourcedEntityEffectImpl.{ Emit
 
 import java.util.Optional
 
+import scala.util.control.NoStackTrace
+
 object EventSourcedEntityRouter {
   final case class CommandResult(
       events: Vector[Any],
@@ -31,8 +33,9 @@ object EventSourcedEntityRouter {
       endSequenceNumber: Long,
       deleteEntity: Boolean)
 
-  final case class CommandHandlerNotFound(commandName: String) extends RuntimeException
+  final case class CommandHandlerNotFound(commandName: String) extends RuntimeException with NoStackTrace
 
+  // keeps its stack trace, a missing event handler fails the entity and is logged as an unexpected error
   final case class EventHandlerNotFound(eventClass: Class[_]) extends RuntimeException
 }
 
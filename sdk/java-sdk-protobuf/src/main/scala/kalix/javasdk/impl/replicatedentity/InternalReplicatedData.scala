@@ -27,3 +27,17 @@ private[kalix] trait InternalReplicatedData extends ReplicatedData {
   def resetDelta(): Self
   def applyDelta: PartialFunction[ReplicatedEntityDelta.Delta, Self]
 }
+
+private[replicatedentity] object InternalReplicatedData {
+
+  /**
+   * Reset the deltas of the nested replicated data of a map. Only the entries with a delta are replaced, the unchanged
+   * ones are shared with the given map instead of rebuilding it.
+   */
+  def resetDeltas[K, V](entries: Map[K, V]): Map[K, V] =
+    entries.foldLeft(entries) {
+      case (reset, (key, value: InternalReplicatedData)) if value.hasDelta =>
+        reset.updated(key, value.resetDelta().asInstanceOf[V])
+      case (reset, _) => reset
+    }
+}
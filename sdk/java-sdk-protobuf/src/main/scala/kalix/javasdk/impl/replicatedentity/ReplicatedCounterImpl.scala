@@ -43,7 +43,7 @@ private[kalix] final class ReplicatedCounterImpl(value: Long = 0, delta: Long =
   override def resetDelta(): ReplicatedCounterImpl =
     if (hasDelta) new ReplicatedCounterImpl(value) else this
 
-  override val applyDelta: PartialFunction[ReplicatedEntityDelta.Delta, ReplicatedCounterImpl] = {
+  override def applyDelta: PartialFunction[ReplicatedEntityDelta.Delta, ReplicatedCounterImpl] = {
     case ReplicatedEntityDelta.Delta.Counter(ReplicatedCounterDelta(increment, _)) =>
       new ReplicatedCounterImpl(value + increment)
   }
@@ -90,13 +90,13 @@ private[kalix] final class ReplicatedCounterMapImpl[K](
         }.toSeq))
 
   override def resetDelta(): ReplicatedCounterMapImpl[K] =
-    if (hasDelta) new ReplicatedCounterMapImpl(anySupport, counters.view.mapValues(_.resetDelta()).toMap) else this
+    if (hasDelta) new ReplicatedCounterMapImpl(anySupport, InternalReplicatedData.resetDeltas(counters)) else this
 
-  override val applyDelta: PartialFunction[ReplicatedEntityDelta.Delta, ReplicatedCounterMapImpl[K]] = {
+  override def applyDelta: PartialFunction[ReplicatedEntityDelta.Delta, ReplicatedCounterMapImpl[K]] = {
     case ReplicatedEntityDelta.Delta.ReplicatedCounterMap(ReplicatedCounterMapDelta(cleared, removed, updated, _)) =>
       val reducedCounters =
         if (cleared) Map.empty[K, ReplicatedCounterImpl]
-        else counters -- removed.map(key => anySupport.decodePossiblyPrimitive(key).asInstanceOf[K])
+        else counters.removedAll(removed.iterator.map(key => anySupport.decodePossiblyPrimitive(key).asInstanceOf[K]))
       val updatedCounters = updated.foldLeft(reducedCounters) {
         case (map, ReplicatedCounterMapEntryDelta(Some(encodedKey), Some(delta), _)) =>
           val key = anySupport.decodePossiblyPrimitive(encodedKey).asInstanceOf[K]
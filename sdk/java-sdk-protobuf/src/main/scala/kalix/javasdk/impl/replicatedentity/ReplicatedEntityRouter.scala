@@ -20,6 +20,8 @@ import kalix.javasdk.impl.EntityExceptions.ProtocolException
 import kalix.javasdk.impl.replicatedentity.ReplicatedEntityEffectImpl.UpdateData
 import java.util.Optional
 
+import scala.util.control.NoStackTrace
+
 import kalix.javasdk.replicatedentity.{ CommandContext, ReplicatedEntity }
 import kalix.javasdk.impl.{ AnySupport, EntityExceptions }
 import kalix.protocol.replicated_entity.ReplicatedEntityDelta
@@ -28,7 +30,7 @@ import kalix.replicatedentity.ReplicatedData
 object ReplicatedEntityRouter {
   final case class CommandResult(effect: ReplicatedEntity.Effect[_])
 
-  final case class CommandHandlerNotFound(commandName: String) extends RuntimeException
+  final case class CommandHandlerNotFound(commandName: String) extends RuntimeException with NoStackTrace
 }
 
 /**
@@ -113,8 +113,8 @@ private[kalix] final class ReplicatedMapImpl[K, V <: ReplicatedData](
     }
 
   override def getDelta: ReplicatedEntityDelta.Delta = {
-    val updatedEntries = (entries -- added).collect {
-      case (key, changed) if changed.asInstanceOf[InternalReplicatedData].hasDelta =>
+    val updatedEntries = entries.iterator.collect {
+      case (key, changed) if !added.contains(key) && changed.asInstanceOf[InternalReplicatedData].hasDelta =>
         ReplicatedMapEntryDelta(
           Some(anySupport.encodeScala(key)),
           Some(ReplicatedEntityDelta(changed.asInstanceOf[InternalReplicatedData].getDelta)))
@@ -137,15 +137,13 @@ private[kalix] final class ReplicatedMapImpl[K, V <: ReplicatedData](
   override def resetDelta(): ReplicatedMapImpl[K, V] =
     if (!hasDelta) this
     else
-      new ReplicatedMapImpl(
-        anySupport,
-        entries.view.mapValues(_.asInstanceOf[InternalReplicatedData].resetDelta().asInstanceOf[V]).toMap)
+      new ReplicatedMapImpl(anySupport, InternalReplicatedData.resetDeltas(entries))
 
-  override val applyDelta: PartialFunction[ReplicatedEntityDelta.Delta, ReplicatedMapImpl[K, V]] = {
+  override def applyDelta: PartialFunction[ReplicatedEntityDelta.Delta, ReplicatedMapImpl[K, V]] = {
     case ReplicatedEntityDelta.Delta.ReplicatedMap(ReplicatedMapDelta(cleared, removed, updated, added, _)) =>
       val reducedEntries =
         if (cleared) Map.empty[K, V]
-        else entries -- removed.map(key => anySupport.decodePossiblyPrimitive(key).asInstanceOf[K])
+        else entries.removedAll(removed.iterator.map(key => anySupport.decodePossiblyPrimitive(key).asInstanceOf[K]))
       val updatedEntries = updated.foldLeft(reducedEntries) {
         case (map, ReplicatedMapEntryDelta(Some(encodedKey), Some(ReplicatedEntityDelta(delta, _)), _)) =>
           val key = anySupport.decodePossiblyPrimitive(encodedKey).asInstanceOf[K]
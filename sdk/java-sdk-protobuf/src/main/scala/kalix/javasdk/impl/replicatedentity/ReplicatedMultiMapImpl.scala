@@ -105,13 +105,13 @@ private[kalix] final class ReplicatedMultiMapImpl[K, V](
         }.toSeq))
 
   override def resetDelta(): ReplicatedMultiMapImpl[K, V] =
-    if (hasDelta) new ReplicatedMultiMapImpl(anySupport, entries.view.mapValues(_.resetDelta()).toMap) else this
+    if (hasDelta) new ReplicatedMultiMapImpl(anySupport, InternalReplicatedData.resetDeltas(entries)) else this
 
-  override val applyDelta: PartialFunction[ReplicatedEntityDelta.Delta, ReplicatedMultiMapImpl[K, V]] = {
+  override def applyDelta: PartialFunction[ReplicatedEntityDelta.Delta, ReplicatedMultiMapImpl[K, V]] = {
     case ReplicatedEntityDelta.Delta.ReplicatedMultiMap(ReplicatedMultiMapDelta(cleared, removed, updated, _)) =>
       val reducedEntries =
         if (cleared) Map.empty[K, ReplicatedSetImpl[V]]
-        else entries -- removed.map(key => anySupport.decodePossiblyPrimitive(key).asInstanceOf[K])
+        else entries.removedAll(removed.iterator.map(key => anySupport.decodePossiblyPrimitive(key).asInstanceOf[K]))
       val updatedEntries = updated.foldLeft(reducedEntries) {
         case (map, ReplicatedMultiMapEntryDelta(Some(encodedKey), Some(delta), _)) =>
           val key = anySupport.decodePossiblyPrimitive(encodedKey).asInstanceOf[K]
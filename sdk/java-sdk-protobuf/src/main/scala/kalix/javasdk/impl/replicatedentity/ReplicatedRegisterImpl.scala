@@ -56,7 +56,7 @@ private[kalix] final class ReplicatedRegisterImpl[T](
   override def resetDelta(): ReplicatedRegisterImpl[T] =
     if (hasDelta) new ReplicatedRegisterImpl(anySupport, value) else this
 
-  override val applyDelta: PartialFunction[ReplicatedEntityDelta.Delta, ReplicatedRegisterImpl[T]] = {
+  override def applyDelta: PartialFunction[ReplicatedEntityDelta.Delta, ReplicatedRegisterImpl[T]] = {
     case ReplicatedEntityDelta.Delta.Register(ReplicatedRegisterDelta(Some(any), _, _, _)) =>
       new ReplicatedRegisterImpl(anySupport, anySupport.decodePossiblyPrimitive(any).asInstanceOf[T])
   }
@@ -90,13 +90,13 @@ private[kalix] final class ReplicatedRegisterMapImpl[K, V](
         }.toSeq))
 
   override def resetDelta(): ReplicatedRegisterMapImpl[K, V] =
-    if (hasDelta) new ReplicatedRegisterMapImpl(anySupport, registers.view.mapValues(_.resetDelta()).toMap) else this
+    if (hasDelta) new ReplicatedRegisterMapImpl(anySupport, InternalReplicatedData.resetDeltas(registers)) else this
 
-  override val applyDelta: PartialFunction[ReplicatedEntityDelta.Delta, ReplicatedRegisterMapImpl[K, V]] = {
+  override def applyDelta: PartialFunction[ReplicatedEntityDelta.Delta, ReplicatedRegisterMapImpl[K, V]] = {
     case ReplicatedEntityDelta.Delta.ReplicatedRegisterMap(ReplicatedRegisterMapDelta(cleared, removed, updated, _)) =>
       val reducedRegisters =
         if (cleared) Map.empty[K, ReplicatedRegisterImpl[V]]
-        else registers -- removed.map(key => anySupport.decodePossiblyPrimitive(key).asInstanceOf[K])
+        else registers.removedAll(removed.iterator.map(key => anySupport.decodePossiblyPrimitive(key).asInstanceOf[K]))
       val updatedRegisters = updated.foldLeft(reducedRegisters) {
         case (map, ReplicatedRegisterMapEntryDelta(Some(encodedKey), Some(delta), _)) =>
           val key = anySupport.decodePossiblyPrimitive(encodedKey).asInstanceOf[K]
@@ -18,6 +18,7 @@ package kalix.javasdk.impl.replicatedentity
 
 import scala.jdk.CollectionConverters._
 
+import com.google.protobuf.any.{ Any => ScalaPbAny }
 import kalix.javasdk.impl.AnySupport
 import kalix.javasdk.replicatedentity.ReplicatedSet
 import kalix.protocol.replicated_entity.ReplicatedEntityDelta
@@ -121,16 +122,21 @@ private[kalix] class ReplicatedSetImpl[E](
   override def resetDelta(): ReplicatedSetImpl[E] =
     if (hasDelta) new ReplicatedSetImpl(anySupport, values) else this
 
-  override val applyDelta: PartialFunction[ReplicatedEntityDelta.Delta, ReplicatedSetImpl[E]] = {
+  override def applyDelta: PartialFunction[ReplicatedEntityDelta.Delta, ReplicatedSetImpl[E]] = {
     case ReplicatedEntityDelta.Delta.ReplicatedSet(ReplicatedSetDelta(cleared, removed, added, _)) =>
-      val updatedValue = {
-        (if (cleared) Set.empty[E]
-         else values -- removed.map(element => anySupport.decodePossiblyPrimitive(element).asInstanceOf[E])) ++
-        added.map(element => anySupport.decodePossiblyPrimitive(element).asInstanceOf[E])
+      if (!cleared && removed.isEmpty && added.isEmpty) resetDelta()
+      else {
+        // the elements are decoded while updating, the unchanged part of the set is shared with this one
+        val reducedValues =
+          if (cleared) Set.empty[E]
+          else values.removedAll(removed.iterator.map(decodeElement))
+        new ReplicatedSetImpl(anySupport, reducedValues.concat(added.iterator.map(decodeElement)))
       }
-      new ReplicatedSetImpl(anySupport, updatedValue)
   }
 
+  private def decodeElement(element: ScalaPbAny): E =
+    anySupport.decodePossiblyPrimitive(element).asInstanceOf[E]
+
   override def toString = s"ReplicatedSet(${values.mkString(",")})"
 
 }
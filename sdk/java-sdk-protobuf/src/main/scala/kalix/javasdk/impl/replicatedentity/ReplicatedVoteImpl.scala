@@ -53,7 +53,7 @@ private[kalix] final class ReplicatedVoteImpl(
   override def resetDelta(): ReplicatedVoteImpl =
     new ReplicatedVoteImpl(selfVote, votesFor, voters)
 
-  override val applyDelta: PartialFunction[ReplicatedEntityDelta.Delta, ReplicatedVoteImpl] = {
+  override def applyDelta: PartialFunction[ReplicatedEntityDelta.Delta, ReplicatedVoteImpl] = {
     case ReplicatedEntityDelta.Delta.Vote(VoteDelta(selfVote, votesFor, voters, _)) =>
       new ReplicatedVoteImpl(selfVote, votesFor, voters)
   }
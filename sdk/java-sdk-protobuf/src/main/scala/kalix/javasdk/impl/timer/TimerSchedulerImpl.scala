@@ -17,25 +17,51 @@
 package kalix.javasdk.impl.timer
 
 import java.time.Duration
+import java.util
 import java.util.concurrent.CompletionStage
 
+import scala.concurrent.ExecutionContext
+import scala.concurrent.Future
+import scala.jdk.CollectionConverters._
 import scala.jdk.FutureConverters.FutureOps
 
 import akka.Done
 import akka.actor.ActorSystem
+import akka.actor.ExtendedActorSystem
+import akka.actor.Extension
+import akka.actor.ExtensionId
+import akka.stream.SystemMaterializer
+import akka.stream.scaladsl.Sink
+import akka.stream.scaladsl.Source
 import com.google.protobuf.duration.{ Duration => ProtoDuration }
 import com.google.protobuf.wrappers.StringValue
 import com.google.protobuf.any.{ Any => ScalaPbAny }
 import kalix.javasdk.DeferredCall
 import kalix.javasdk.impl.{ GrpcClients, GrpcDeferredCall, MessageCodec, RestDeferredCall }
 import kalix.javasdk.timer.TimerScheduler
+import kalix.javasdk.timer.TimerSpec
 import kalix.timers.timers.Call
 import kalix.timers.timers.SingleTimer
 import kalix.timers.timers.TimerService
 
+/** INTERNAL API */
+private[kalix] object TimerSchedulerImpl {
+
+  // read once per actor system, since a scheduler is created for each command that uses timers
+  private final class Settings(system: ExtendedActorSystem) extends Extension {
+    val batchParallelism: Int = system.settings.config.getInt("kalix.timers.batch-parallelism")
+  }
+
+  private object Settings extends ExtensionId[Settings] {
+    override def createExtension(system: ExtendedActorSystem): Settings = new Settings(system)
+  }
+}
+
 /** INTERNAL API */
 private[kalix] final class TimerSchedulerImpl(messageCodec: MessageCodec, system: ActorSystem) extends TimerScheduler {
 
+  private def timerServiceClient: TimerService = GrpcClients(system).getProxyGrpcClient(classOf[TimerService])
+
   override def startSingleTimer[I, O](
       name: String,
       delay: Duration,
@@ -46,30 +72,57 @@ private[kalix] final class TimerSchedulerImpl(messageCodec: MessageCodec, system
       name: String,
       delay: Duration,
       maxRetries: Int,
-      deferredCall: DeferredCall[I, O]): CompletionStage[Done] = {
-    val timerServiceClient = GrpcClients(system).getProxyGrpcClient(classOf[TimerService])
+      deferredCall: DeferredCall[I, O]): CompletionStage[Done] =
+    timerServiceClient.addSingle(singleTimer(name, delay, maxRetries, deferredCall)).asJava.thenApply(_ => Done)
 
+  private def singleTimer(
+      name: String,
+      delay: Duration,
+      maxRetries: Int,
+      deferredCall: DeferredCall[_, _]): SingleTimer = {
     val call = deferredCall match {
-      case grpcDeferredCall: GrpcDeferredCall[I, O] =>
+      case grpcDeferredCall: GrpcDeferredCall[_, _] =>
         Call(
           grpcDeferredCall.fullServiceName,
           grpcDeferredCall.methodName,
           Some(messageCodec.encodeScala(grpcDeferredCall.message)))
-      case restDeferredCall: RestDeferredCall[I, O] =>
+      case restDeferredCall: RestDeferredCall[_, _] =>
         Call(
           restDeferredCall.fullServiceName,
           restDeferredCall.methodName,
           Some(restDeferredCall.message.asInstanceOf[ScalaPbAny]))
+      case other =>
+        throw new IllegalArgumentException(
+          s"Timer [$name] can only call a Kalix component, but the call was a [${other.getClass.getName}]")
     }
 
-    val singleTimer = SingleTimer(name, Some(call), Some(ProtoDuration(delay)), maxRetries)
-
-    timerServiceClient.addSingle(singleTimer).asJava.thenApply(_ => Done)
+    SingleTimer(name, Some(call), Some(ProtoDuration(delay)), maxRetries)
   }
 
-  def cancel(name: String): CompletionStage[Done] = {
-    val timerServiceClient = GrpcClients(system).getProxyGrpcClient(classOf[TimerService])
+  def cancel(name: String): CompletionStage[Done] =
     timerServiceClient.remove(StringValue(name)).asJava.thenApply(_ => Done)
+
+  override def startTimers(timers: util.List[TimerSpec]): CompletionStage[Done] = {
+    // encode all calls up front, so that an encoding failure doesn't leave a part of the timers registered
+    val singleTimers = timers.asScala.toVector.map { timer =>
+      singleTimer(timer.name(), timer.delay(), timer.maxRetries(), timer.deferredCall())
+    }
+    val client = timerServiceClient
+    inParallel(singleTimers)(client.addSingle)
+  }
+
+  override def cancelAll(names: util.Collection[String]): CompletionStage[Done] = {
+    val client = timerServiceClient
+    inParallel(names.asScala.toVector)(name => client.remove(StringValue(name)))
   }
 
+  // the proxy timer service has no batch operations, but concurrent calls share one HTTP/2 connection
+  private def inParallel[T](items: Vector[T])(operation: T => Future[_]): CompletionStage[Done] =
+    if (items.isEmpty) Future.successful(Done).asJava
+    else if (items.size == 1) operation(items.head).map(_ => Done)(ExecutionContext.parasitic).asJava
+    else
+      Source(items)
+        .mapAsyncUnordered(TimerSchedulerImpl.Settings(system).batchParallelism)(operation)
+        .runWith(Sink.ignore)(SystemMaterializer(system).materializer)
+        .asJava
 }
@@ -0,0 +1,242 @@
+/*
+ * Copyright 2021 Lightbend Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package kalix.javasdk.impl.valueentity
+
+import java.util.zip.CRC32
+
+import scala.jdk.CollectionConverters._
+
+import com.fasterxml.jackson.databind.JsonNode
+import com.fasterxml.jackson.databind.ObjectMapper
+import com.fasterxml.jackson.databind.node.ObjectNode
+import com.google.protobuf.ByteString
+import com.google.protobuf.CodedOutputStream
+import com.google.protobuf.UnknownFieldSet
+import com.google.protobuf.WireFormat
+import com.google.protobuf.any.{ Any => ScalaPbAny }
+import com.typesafe.config.Config
+import kalix.javasdk.JsonSupport
+import kalix.javasdk.impl.AnySupport
+import kalix.javasdk.impl.ByteStringEncoding
+
+/**
+ * INTERNAL API
+ *
+ * Persisting value entity states as patches against the last persisted state, instead of the full state. See
+ * [[StatePatches$]] for the format.
+ */
+private[kalix] final class StatePatches private (checkpointEvery: Int) {
+
+  /** A patcher keeping track of the patches since the last full state of one entity */
+  def newPatcher(): StatePatches.Patcher = new StatePatches.Patcher(checkpointEvery)
+}
+
+/**
+ * INTERNAL API
+ *
+ * A patched state keeps the type url of the state behind the [[TypeUrlPrefix]] marker, and its value is the CRC32 of
+ * the encoded state it applies to (field 1), the patch (field 2) and, for protobuf states, the numbers of the removed
+ * fields (field 3).
+ *
+ * The patch of a JSON or Smile state is a JSON merge patch (RFC 7396) in the same format. The patch of a protobuf
+ * state holds the top level fields that changed, replacing these fields as a whole, so that no descriptor is needed.
+ *
+ * The proxy, or a stand-in for it, reassembles the full state with [[applyPatch]].
+ */
+private[kalix] object StatePatches {
+
+  val TypeUrlPrefix = "patch.kalix.io/"
+
+  /**
+   * The patches configured in `kalix.value-entity.state-patches`, if enabled
+   *
+   * @throws IllegalStateException
+   *   if enabled while the proxy doesn't reassemble patched states
+   */
+  def apply(config: Config): Option[StatePatches] = {
+    val patchesConfig = config.getConfig("kalix.value-entity.state-patches")
+    if (patchesConfig.getBoolean("enabled")) {
+      if (!patchesConfig.getBoolean("proxy-support"))
+        throw new IllegalStateException(
+          "kalix.value-entity.state-patches is enabled, but only the in-process proxy of the testkit reassembles " +
+          "patched states, the Kalix proxy would store the patches as if they were full states")
+      Some(new StatePatches(patchesConfig.getInt("checkpoint-every")))
+    } else None
+  }
+
+  /**
+   * Not thread safe, one per entity stream.
+   */
+  final class Patcher private[StatePatches] (checkpointEvery: Int) {
+    private var sinceCheckpoint = 0
+
+    /**
+     * The patch from the previously persisted state to the new one, or the new state itself every `checkpointEvery`
+     * updates, when there is no previous state, or when the patch wouldn't be smaller.
+     */
+    def patchOrFull(previous: Option[ScalaPbAny], next: ScalaPbAny): ScalaPbAny = {
+      val patch =
+        if (sinceCheckpoint + 1 >= checkpointEvery) None
+        else previous.flatMap(diff(_, next)).filter(_.value.size < next.value.size)
+
+      patch match {
+        case Some(p) =>
+          sinceCheckpoint += 1
+          p
+        case None =>
+          sinceCheckpoint = 0
+          next
+      }
+    }
+  }
+
+  def isPatch(any: ScalaPbAny): Boolean =
+    any.typeUrl.startsWith(TypeUrlPrefix)
+
+  /** The patch turning the base state into the target state, if it can be expressed as a patch */
+  def diff(base: ScalaPbAny, target: ScalaPbAny): Option[ScalaPbAny] =
+    if (base.typeUrl != target.typeUrl || isPatch(target) || target.typeUrl.startsWith(AnySupport.KalixPrimitive))
+      None
+    else
+      jsonMapper(target.typeUrl) match {
+        case Some(mapper) =>
+          val baseJson = mapper.readTree(ByteStringEncoding.decodePrimitiveBytes(base.value).newInput())
+          val targetJson = mapper.readTree(ByteStringEncoding.decodePrimitiveBytes(target.value).newInput())
+          mergePatch(mapper, baseJson, targetJson).map { patch =>
+            encodePatch(base, target.typeUrl, ByteString.copyFrom(mapper.writeValueAsBytes(patch)), Nil)
+          }
+        case None =>
+          val baseFields = UnknownFieldSet.parseFrom(base.value)
+          val targetFields = UnknownFieldSet.parseFrom(target.value)
+          val changed = UnknownFieldSet.newBuilder()
+          targetFields.asMap().asScala.foreach { case (number, field) =>
+            if (!baseFields.hasField(number) || baseFields.getField(number) != field) changed.addField(number, field)
+          }
+          val removed = baseFields.asMap().keySet().asScala.filterNot(targetFields.hasField).map(_.intValue).toSeq
+          Some(encodePatch(base, target.typeUrl, changed.build().toByteString, removed))
+      }
+
+  /** Reassemble the full state from the state the patch was computed against and the patch */
+  def applyPatch(base: ScalaPbAny, patch: ScalaPbAny): ScalaPbAny = {
+    if (!isPatch(patch)) throw new IllegalArgumentException(s"Not a patched state [${patch.typeUrl}]")
+    val typeUrl = patch.typeUrl.substring(TypeUrlPrefix.length)
+    if (base.typeUrl != typeUrl)
+      throw new IllegalArgumentException(s"Patch for [$typeUrl] cannot be applied to a [${base.typeUrl}]")
+
+    val input = patch.value.newCodedInput()
+    var baseChecksum = 0
+    var body = ByteString.EMPTY
+    val removed = Seq.newBuilder[Int]
+    var tag = input.readTag()
+    while (tag != 0) {
+      WireFormat.getTagFieldNumber(tag) match {
+        case 1 => baseChecksum = input.readFixed32()
+        case 2 => body = input.readBytes()
+        case 3 => removed += input.readUInt32()
+        case _ => input.skipField(tag)
+      }
+      tag = input.readTag()
+    }
+    if (baseChecksum != checksum(base.value))
+      throw new IllegalStateException(s"Patch for [$typeUrl] does not apply to the given base state")
+
+    jsonMapper(typeUrl) match {
+      case Some(mapper) =>
+        val baseJson = mapper.readTree(ByteStringEncoding.decodePrimitiveBytes(base.value).newInput())
+        val patched = applyMergePatch(mapper, baseJson, mapper.readTree(body.newInput()))
+        ScalaPbAny(
+          typeUrl,
+          ByteStringEncoding.encodePrimitiveBytes(ByteString.copyFrom(mapper.writeValueAsBytes(patched))))
+      case None =>
+        val fields = UnknownFieldSet.parseFrom(base.value).toBuilder
+        removed.result().foreach(fields.clearField)
+        UnknownFieldSet.parseFrom(body).asMap().asScala.foreach { case (number, field) =>
+          fields.clearField(number).addField(number, field)
+        }
+        ScalaPbAny(typeUrl, fields.build().toByteString)
+    }
+  }
+
+  private def encodePatch(base: ScalaPbAny, typeUrl: String, body: ByteString, removed: Seq[Int]): ScalaPbAny = {
+    val output = ByteString.newOutput()
+    val coded = CodedOutputStream.newInstance(output)
+    coded.writeFixed32(1, checksum(base.value))
+    coded.writeBytes(2, body)
+    removed.foreach(coded.writeUInt32(3, _))
+    coded.flush()
+    ScalaPbAny(TypeUrlPrefix + typeUrl, output.toByteString)
+  }
+
+  private def checksum(bytes: ByteString): Int = {
+    val crc = new CRC32
+    crc.update(bytes.asReadOnlyByteBuffer())
+    crc.getValue.toInt
+  }
+
+  private def jsonMapper(typeUrl: String): Option[ObjectMapper] =
+    if (typeUrl.startsWith(JsonSupport.KALIX_JSON)) Some(JsonSupport.getObjectMapper)
+    else if (typeUrl.startsWith(JsonSupport.KALIX_SMILE)) Some(JsonSupport.getSmileObjectMapper)
+    else None
+
+  /**
+   * RFC 7396 merge patch from source to target, None if the target can't be reached with one since it has explicit
+   * null values, which a merge patch can only express as removals.
+   */
+  private def mergePatch(mapper: ObjectMapper, source: JsonNode, target: JsonNode): Option[JsonNode] =
+    (source, target) match {
+      case (sourceObject: ObjectNode, targetObject: ObjectNode) =>
+        val patch = mapper.createObjectNode()
+        sourceObject.fieldNames().asScala.filterNot(targetObject.has).foreach(patch.putNull)
+        val fields = targetObject.fields().asScala.map(entry => entry.getKey -> entry.getValue).toSeq
+        val complete = fields.forall { case (name, targetValue) =>
+          val sourceValue = sourceObject.get(name)
+          if (targetValue.isNull) sourceValue != null && sourceValue.isNull
+          else if (sourceValue == targetValue) true
+          else
+            mergePatch(mapper, sourceValue, targetValue) match {
+              case Some(valuePatch) =>
+                patch.set[JsonNode](name, valuePatch)
+                true
+              case None => false
+            }
+        }
+        if (complete) Some(patch) else None
+      case (_, targetObject: ObjectNode) =>
+        // replacing a non-object as a whole, explicit nulls in it would be taken as removals
+        if (hasNullField(targetObject)) None else Some(targetObject)
+      case _ =>
+        Some(target)
+    }
+
+  private def hasNullField(node: JsonNode): Boolean =
+    node.isObject && node.fields().asScala.exists(entry => entry.getValue.isNull || hasNullField(entry.getValue))
+
+  private def applyMergePatch(mapper: ObjectMapper, target: JsonNode, patch: JsonNode): JsonNode =
+    patch match {
+      case patchObject: ObjectNode =>
+        val result = target match {
+          case targetObject: ObjectNode => targetObject.deepCopy()
+          case _                        => mapper.createObjectNode()
+        }
+        patchObject.fields().asScala.foreach { entry =>
+          if (entry.getValue.isNull) result.remove(entry.getKey)
+          else result.set[JsonNode](entry.getKey, applyMergePatch(mapper, result.get(entry.getKey), entry.getValue))
+        }
+        result
+      case _ => patch
+    }
+}
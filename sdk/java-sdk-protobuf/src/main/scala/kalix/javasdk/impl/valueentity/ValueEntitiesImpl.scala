@@ -92,6 +92,12 @@ final class ValueEntitiesImpl(
   private val pbCleanupDeletedValueEntityAfter =
     Some(com.google.protobuf.duration.Duration(configuration.cleanupDeletedValueEntityAfter))
 
+  private val stateCompression = StateCompression(system.settings.config)
+
+  private val statePatches = StatePatches(system.settings.config)
+
+  private val skippedUpdates = new SkippedStateUpdates(system, "value entity")
+
   /**
    * One stream will be established per active entity. Once established, the first message sent will be Init, which
    * contains the entity ID, and, a state if the entity has previously persisted one. Once the Init message is sent, one
@@ -127,13 +133,20 @@ final class ValueEntitiesImpl(
     val router =
       service.factory.create(new ValueEntityContextImpl(init.entityId, system))
     val thisEntityId = init.entityId
+    val persistedState = new PersistedState
+    val statePatcher = statePatches.map(_.newPatcher())
 
     init.state match {
       case Some(ValueEntityInitState(stateOpt, _)) =>
         stateOpt match {
           case Some(state) =>
-            val decoded = service.messageCodec.decodeMessage(state)
+            val decompressed = StateCompression.decompress(state)
+            // patches are reassembled into the full state by the proxy, never handed back
+            if (StatePatches.isPatch(decompressed))
+              throw ProtocolException(init, s"Received patched state [${decompressed.typeUrl}] instead of a full state")
+            val decoded = service.messageCodec.decodeMessage(decompressed)
             router._internalSetInitState(decoded)
+            persistedState.set(decoded, decompressed)
           case None => // no initial state
         }
       case None =>
@@ -186,10 +199,20 @@ final class ValueEntitiesImpl(
             case _ => // non-error
               val action: Option[ValueEntityAction] = effect.primaryEffect match {
                 case DeleteEntity =>
+                  persistedState.clear()
                   Some(ValueEntityAction(Delete(ValueEntityDelete(pbCleanupDeletedValueEntityAfter))))
                 case UpdateState(newState) =>
-                  val newStateScalaPbAny = service.messageCodec.encodeScala(newState)
-                  Some(ValueEntityAction(Update(ValueEntityUpdate(Some(newStateScalaPbAny)))))
+                  val previousState = persistedState.encoded
+                  persistedState.encodeIfChanged(newState, service.messageCodec) match {
+                    case Some(encodedState) =>
+                      val stateOrPatch =
+                        statePatcher.fold(encodedState)(_.patchOrFull(previousState, encodedState))
+                      val newStateScalaPbAny = stateCompression.fold(stateOrPatch)(_.compress(stateOrPatch))
+                      Some(ValueEntityAction(Update(ValueEntityUpdate(Some(newStateScalaPbAny)))))
+                    case None =>
+                      skippedUpdates.skippedUpdate(thisEntityId)
+                      None
+                  }
                 case _ =>
                   None
               }
@@ -18,6 +18,8 @@ package kalix.javasdk.impl.valueentity
 
 import java.util.Optional
 
+import scala.util.control.NoStackTrace
+
 import kalix.javasdk.impl.EntityExceptions
 import kalix.javasdk.impl.valueentity.ValueEntityEffectImpl.DeleteEntity
 import kalix.javasdk.impl.valueentity.ValueEntityEffectImpl.UpdateState
@@ -27,7 +29,7 @@ import kalix.javasdk.valueentity.ValueEntity
 object ValueEntityRouter {
   final case class CommandResult(effect: ValueEntity.Effect[_])
 
-  final case class CommandHandlerNotFound(commandName: String) extends RuntimeException
+  final case class CommandHandlerNotFound(commandName: String) extends RuntimeException with NoStackTrace
 
 }
 
@@ -103,7 +103,8 @@ final class ViewsImpl(system: ActorSystem, _services: Map[String, ViewService],
                   row.value.map(scalaPb => service.messageCodec.decodeMessage(scalaPb)))
 
               val commandName = receiveEvent.commandName
-              val msg = service.messageCodec.decodeMessage(receiveEvent.payload.get)
+              // the state of a value entity of this service may have been compressed
+              val msg = service.messageCodec.decodeMessage(StateCompression.decompress(receiveEvent.payload.get))
               val metadata = new MetadataImpl(receiveEvent.metadata.map(_.entries.toVector).getOrElse(Nil))
               val context = new UpdateContextImpl(service.viewId, commandName, metadata)
 
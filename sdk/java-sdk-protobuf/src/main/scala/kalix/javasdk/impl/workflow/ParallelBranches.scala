@@ -0,0 +1,134 @@
+/*
+ * Copyright 2021 Lightbend Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package kalix.javasdk.impl.workflow
+
+import java.util.concurrent.CompletionStage
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicReferenceArray
+
+import scala.concurrent.Future
+import scala.concurrent.Promise
+import scala.jdk.CollectionConverters._
+import scala.jdk.OptionConverters.RichOption
+
+import com.google.protobuf.ByteString
+import com.google.protobuf.CodedInputStream
+import com.google.protobuf.CodedOutputStream
+import com.google.protobuf.ExtensionRegistryLite
+import com.google.protobuf.{ Any => JavaPbAny }
+import com.google.protobuf.any.{ Any => ScalaPbAny }
+import kalix.javasdk.impl.MessageCodec
+import kalix.javasdk.workflow.ParallelResults
+import kalix.javasdk.workflow.Workflow.ParallelStep
+import kalix.javasdk.workflow.Workflow.ParallelStep.Completion
+
+/**
+ * INTERNAL API
+ *
+ * Runs the branches of a parallel workflow step and carries their results to the transition. The results of all
+ * branches are sent to the proxy as a single step result, a repeated `Any` under the [[TypeUrl]] marker type url, with
+ * an empty `Any` for each branch without a result.
+ */
+private[kalix] object ParallelBranches {
+
+  val TypeUrl = "parallel.kalix.io/results"
+
+  final case class ParallelStepFailed(stepName: String, failures: Int, branches: Int, cause: Throwable)
+      extends RuntimeException(
+        s"Parallel step [$stepName] failed, [$failures] of [$branches] branches failed",
+        cause,
+        false,
+        false)
+
+  /** The number of branches that must succeed for the step to complete */
+  def requiredSuccesses(step: ParallelStep[_, _, _], branches: Int): Int =
+    step.completion match {
+      case Completion.ALL_OF => branches
+      case Completion.ANY_OF => math.min(1, branches)
+      case Completion.QUORUM =>
+        if (step.quorum > branches)
+          throw new IllegalArgumentException(
+            s"Parallel step [${step.name()}] requires a quorum of [${step.quorum}] but only has [$branches] branches")
+        step.quorum
+    }
+
+  /**
+   * Completes with the result of each branch once the required number of branches succeeded, without waiting for the
+   * remaining ones, or fails as soon as that number can't be reached anymore.
+   */
+  def collect(step: ParallelStep[_, _, _], branches: Seq[CompletionStage[Any]]): Future[Seq[Option[Any]]] = {
+    val required = requiredSuccesses(step, branches.size)
+    if (required == 0) Future.successful(Seq.empty)
+    else {
+      val results = new AtomicReferenceArray[Any](branches.size)
+      val successes = new AtomicInteger()
+      val failures = new AtomicInteger()
+      val promise = Promise[Seq[Option[Any]]]()
+      val tolerated = branches.size - required
+
+      branches.zipWithIndex.foreach { case (branch, idx) =>
+        val timed =
+          if (step.branchTimeout.isPresent)
+            branch.toCompletableFuture.copy().orTimeout(step.branchTimeout.get.toMillis, TimeUnit.MILLISECONDS)
+          else branch
+
+        timed.whenComplete { (result, error) =>
+          if (error == null) {
+            results.set(idx, result)
+            if (successes.incrementAndGet() == required)
+              promise.trySuccess((0 until branches.size).map(i => Option(results.get(i))))
+          } else if (failures.incrementAndGet() == tolerated + 1)
+            promise.tryFailure(ParallelStepFailed(step.name(), tolerated + 1, branches.size, error))
+        }
+      }
+      promise.future
+    }
+  }
+
+  def encode(results: Seq[Option[Any]], messageCodec: MessageCodec): ScalaPbAny = {
+    val output = ByteString.newOutput()
+    val coded = CodedOutputStream.newInstance(output)
+    results.foreach { result =>
+      val any = result match {
+        case Some(value) => ScalaPbAny.toJavaProto(messageCodec.encodeScala(value))
+        case None        => JavaPbAny.getDefaultInstance
+      }
+      coded.writeMessage(1, any)
+    }
+    coded.flush()
+    ScalaPbAny(TypeUrl, output.toByteString)
+  }
+
+  def decode(result: ScalaPbAny, messageCodec: MessageCodec): ParallelResults[Any] = {
+    if (result.typeUrl != TypeUrl)
+      throw new IllegalArgumentException(s"Expected parallel step results, but got [${result.typeUrl}]")
+
+    val input: CodedInputStream = result.value.newCodedInput()
+    val branches = Seq.newBuilder[Option[Any]]
+    var tag = input.readTag()
+    while (tag != 0) {
+      if (tag == ((1 << 3) | 2)) {
+        val any = input.readMessage(JavaPbAny.parser(), ExtensionRegistryLite.getEmptyRegistry)
+        branches += (if (any.getTypeUrl.isEmpty) None
+                     else Some(messageCodec.decodeMessage(ScalaPbAny.fromJavaProto(any))))
+      } else input.skipField(tag)
+      tag = input.readTag()
+    }
+    new ParallelResults(branches.result().map(_.toJava).asJava)
+  }
+}
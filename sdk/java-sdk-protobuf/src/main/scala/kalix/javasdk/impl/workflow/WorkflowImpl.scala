@@ -24,6 +24,7 @@ import akka.NotUsed
 import akka.actor.ActorSystem
 import akka.stream.scaladsl.Flow
 import akka.stream.scaladsl.Source
+import com.google.protobuf.any.{ Any => ScalaPbAny }
 import com.google.protobuf.duration
 import com.google.protobuf.duration.Duration
 import io.grpc.Status
@@ -116,6 +117,10 @@ final class WorkflowImpl(system: ActorSystem, val services: Map[String, Workflow
   private implicit val ec: ExecutionContext = system.dispatcher
   private final val log = LoggerFactory.getLogger(this.getClass)
 
+  private val stateCompression = StateCompression(system.settings.config)
+
+  private val skippedUpdates = new SkippedStateUpdates(system, "workflow")
+
   override def handle(in: Source[WorkflowStreamIn, NotUsed]): Source[WorkflowStreamOut, NotUsed] =
     in.prefixAndTail(1)
       .flatMapConcat {
@@ -193,11 +198,18 @@ final class WorkflowImpl(system: ActorSystem, val services: Map[String, Workflow
       WorkflowStreamOut(
         WorkflowStreamOut.Message.Config(toWorkflowConfig(router._getWorkflowDefinition(), service.messageCodec)))
 
+    val persistedState = new PersistedState
+
+    def setPersistedState(state: ScalaPbAny): Unit = {
+      val decompressed = StateCompression.decompress(state)
+      val decoded = service.messageCodec.decodeMessage(decompressed)
+      router._internalSetInitState(decoded)
+      persistedState.set(decoded, decompressed)
+    }
+
     init.userState match {
-      case Some(state) =>
-        val decoded = service.messageCodec.decodeMessage(state)
-        router._internalSetInitState(decoded)
-      case None => // no initial state
+      case Some(state) => setPersistedState(state)
+      case None        => // no initial state
     }
 
     def toProtoEffect(effect: Workflow.Effect[_], commandId: Long) = {
@@ -208,7 +220,14 @@ final class WorkflowImpl(system: ActorSystem, val services: Map[String, Workflow
           persistence match {
             case UpdateState(newState) =>
               router._internalSetInitState(newState)
-              WorkflowEffect.defaultInstance.withUserState(service.messageCodec.encodeScala(newState))
+              persistedState.encodeIfChanged(newState, service.messageCodec) match {
+                case Some(encodedState) =>
+                  val userState = stateCompression.fold(encodedState)(_.compress(encodedState))
+                  WorkflowEffect.defaultInstance.withUserState(userState)
+                case None =>
+                  skippedUpdates.skippedUpdate(workflowId)
+                  WorkflowEffect.defaultInstance
+              }
             // TODO: persistence should be optional, but we must ensure that we don't save it back to null
             // and preferably we should not even send it over the wire.
             case NoPersistence => WorkflowEffect.defaultInstance
@@ -306,8 +325,7 @@ final class WorkflowImpl(system: ActorSystem, val services: Map[String, Workflow
           val timerScheduler = new TimerSchedulerImpl(service.messageCodec, system)
           val stepResponse =
             try {
-              val decoded = service.messageCodec.decodeMessage(executeStep.userState.get)
-              router._internalSetInitState(decoded)
+              setPersistedState(executeStep.userState.get)
               router._internalHandleStep(
                 executeStep.commandId,
                 executeStep.input,
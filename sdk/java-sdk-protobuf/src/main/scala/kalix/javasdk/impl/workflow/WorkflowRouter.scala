@@ -22,7 +22,9 @@ import java.util.function.{ Function => JFunc }
 
 import scala.compat.java8.FutureConverters.CompletionStageOps
 import scala.concurrent.{ ExecutionContext, Future }
+import scala.jdk.CollectionConverters._
 import scala.jdk.OptionConverters.RichOptional
+import scala.util.control.NoStackTrace
 
 import com.google.protobuf.any.{ Any => ScalaPbAny }
 import kalix.javasdk.DeferredCall
@@ -36,10 +38,12 @@ import kalix.javasdk.impl.workflow.WorkflowRouter.WorkflowStepNotFound
 import kalix.javasdk.impl.workflow.WorkflowRouter.WorkflowStepNotSupported
 import kalix.javasdk.timer.TimerScheduler
 import kalix.javasdk.workflow.CommandContext
+import kalix.javasdk.workflow.ParallelResults
 import kalix.javasdk.workflow.Workflow
 import kalix.javasdk.workflow.Workflow.Effect
 import Workflow.AsyncCallStep
 import Workflow.CallStep
+import Workflow.ParallelStep
 import Workflow.WorkflowDef
 import kalix.javasdk.impl.WorkflowExceptions.WorkflowException
 import kalix.protocol.workflow_entity.StepDeferredCall
@@ -49,7 +53,7 @@ import kalix.protocol.workflow_entity.StepResponse
 object WorkflowRouter {
   final case class CommandResult(effect: Workflow.Effect[_])
 
-  final case class CommandHandlerNotFound(commandName: String) extends RuntimeException {
+  final case class CommandHandlerNotFound(commandName: String) extends RuntimeException with NoStackTrace {
     override def getMessage: String = commandName
   }
   final case class WorkflowStepNotFound(stepName: String) extends RuntimeException {
@@ -177,6 +181,24 @@ abstract class WorkflowRouter[S, W <: Workflow[S]](protected val workflow: W) {
 
           StepResponse(commandId, stepName, StepResponse.Response.Executed(executedRes))
         }
+
+      case Some(parallel: ParallelStep[_, _, _]) =>
+        val decodedInput = input match {
+          case Some(inputValue) => messageCodec.decodeMessage(inputValue)
+          case None             => null // to meet a signature of supplier expressed as a function
+        }
+
+        val branches = parallel.branchesFunc
+          .asInstanceOf[JFunc[Any, java.util.List[CompletionStage[Any]]]]
+          .apply(decodedInput)
+          .asScala
+          .toSeq
+
+        ParallelBranches.collect(parallel, branches).map { results =>
+          val executedRes = StepExecuted(Some(ParallelBranches.encode(results, messageCodec)))
+          StepResponse(commandId, stepName, StepResponse.Response.Executed(executedRes))
+        }
+
       case Some(any) => Future.failed(WorkflowStepNotSupported(any.getClass.getSimpleName))
       case None      => Future.failed(WorkflowStepNotFound(stepName))
     }
@@ -205,6 +227,14 @@ abstract class WorkflowRouter[S, W <: Workflow[S]](protected val workflow: W) {
 
         CommandResult(effect)
 
+      case Some(parallel: ParallelStep[_, _, _]) =>
+        val effect =
+          parallel.transitionFunc
+            .asInstanceOf[JFunc[ParallelResults[Any], Effect[Any]]]
+            .apply(ParallelBranches.decode(result, messageCodec))
+
+        CommandResult(effect)
+
       case Some(any) => throw WorkflowStepNotSupported(any.getClass.getSimpleName)
       case None      => throw WorkflowStepNotFound(stepName)
     }
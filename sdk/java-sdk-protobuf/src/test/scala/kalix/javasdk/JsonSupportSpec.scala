@@ -41,6 +41,30 @@ class JsonSupportSpec extends AnyWordSpec with Matchers {
       JsonSupport.decodeJson(classOf[MyJsonable], any).field should ===("foo")
     }
 
+    "serialize and deserialize Smile" in {
+      val any = JsonSupport.encodeSmile(myJsonable)
+      any.getTypeUrl should ===(JsonSupport.KALIX_SMILE + classOf[MyJsonable].getName)
+      JsonSupport.decodeJson(classOf[MyJsonable], any).field should ===("foo")
+    }
+
+    "encode Smile more compactly than JSON" in {
+      val list = new util.ArrayList[MyJsonable]()
+      (1 to 100).foreach { n =>
+        val jsonable = new MyJsonable
+        jsonable.field = s"value-$n"
+        list.add(jsonable)
+      }
+      JsonSupport.encodeSmile(list).getValue.size should be < JsonSupport.encodeJson(list).getValue.size
+    }
+
+    "map Smile type urls to JSON type urls" in {
+      JsonSupport.isJson(JsonSupport.KALIX_SMILE + "foo") shouldBe true
+      JsonSupport.isJson(JsonSupport.KALIX_JSON + "foo") shouldBe true
+      JsonSupport.isJson("type.googleapis.com/foo") shouldBe false
+      JsonSupport.toJsonTypeUrl(JsonSupport.KALIX_SMILE + "foo") shouldBe JsonSupport.KALIX_JSON + "foo"
+      JsonSupport.toJsonTypeUrl("type.googleapis.com/foo") shouldBe "type.googleapis.com/foo"
+    }
+
     "serialize and deserialize Akka Done class" in {
       val done = Done.getInstance()
       val any = JsonSupport.encodeJson(done)
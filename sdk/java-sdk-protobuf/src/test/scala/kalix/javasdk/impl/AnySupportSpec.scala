@@ -216,4 +216,33 @@ class AnySupportSpec extends AnyWordSpec with Matchers with OptionValues {
     }
   }
 
+  "Any support with a type registry" should {
+    // cannot load any of the protobuf classes, so only registered types can be resolved
+    val emptyClassLoader = new ClassLoader(null) {}
+
+    "resolve registered Java protobuf types without loading their classes" in {
+      val anySupportWithRegistry = new AnySupport(
+        Array(ShoppingCartApi.getDescriptor),
+        emptyClassLoader,
+        "com.example",
+        typeRegistry = ProtobufTypeRegistry.empty.withJavaTypes(ShoppingCartApi.AddLineItem.getDefaultInstance))
+
+      val resolved = anySupportWithRegistry.resolveTypeDescriptor(ShoppingCartApi.AddLineItem.getDescriptor)
+      resolved.parseFrom(addLineItem.toByteString) should ===(addLineItem)
+    }
+
+    "resolve registered Scala protobuf types without loading their classes" in {
+      val anySupportWithRegistry = new AnySupport(
+        Array(DiscoveryProto.javaDescriptor),
+        emptyClassLoader,
+        "com.example",
+        AnySupport.PREFER_SCALA,
+        ProtobufTypeRegistry.empty.withScalaFiles(DiscoveryProto))
+
+      val error = UserFunctionError("error")
+      val resolved = anySupportWithRegistry.resolveTypeDescriptor(UserFunctionError.javaDescriptor)
+      resolved.parseFrom(error.toByteString) should ===(error)
+    }
+  }
+
 }
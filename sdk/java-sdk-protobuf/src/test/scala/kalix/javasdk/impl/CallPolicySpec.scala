@@ -0,0 +1,213 @@
+/*
+ * Copyright 2021 Lightbend Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package kalix.javasdk.impl
+
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.TimeoutException
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicInteger
+
+import akka.actor.testkit.typed.scaladsl.LoggingTestKit
+import akka.actor.testkit.typed.scaladsl.ScalaTestWithActorTestKit
+import akka.pattern.CircuitBreakerOpenException
+import com.typesafe.config.ConfigFactory
+import io.grpc.Status
+import org.scalatest.concurrent.Eventually
+import org.scalatest.matchers.should.Matchers
+import org.scalatest.wordspec.AnyWordSpecLike
+
+object CallPolicySpec {
+  def config = ConfigFactory.parseString("""
+     |kalix.cross-service.services {
+     |  retrying.call-policy.retries {
+     |    max-retries = 2
+     |    min-backoff = 10ms
+     |    methods = ["GetCart"]
+     |  }
+     |  hedged.call-policy.hedging {
+     |    enabled = on
+     |    min-delay = 50ms
+     |  }
+     |  budgeted.call-policy.latency-budget = 200ms
+     |  broken.circuit-breaker {
+     |    enabled = on
+     |    max-failures = 2
+     |    reset-timeout = 300ms
+     |  }
+     |}
+     |""".stripMargin)
+}
+
+class CallPolicySpec
+    extends ScalaTestWithActorTestKit(CallPolicySpec.config)
+    with AnyWordSpecLike
+    with Matchers
+    with Eventually {
+
+  private val policies = CallPolicies(system)
+
+  "The call policies" must {
+
+    "run calls directly for targets without tail latency controls" in {
+      policies.policyFor("plain") shouldBe theSameInstanceAs(CallPolicy.Direct)
+    }
+
+    "retry retryable failures" in {
+      val attempts = new AtomicInteger()
+      val result = policies
+        .policyFor("retrying")
+        .execute("GetCart") { () =>
+          if (attempts.incrementAndGet() < 3)
+            CompletableFuture.failedFuture[String](Status.UNAVAILABLE.asRuntimeException())
+          else CompletableFuture.completedFuture("ok")
+        }
+        .toCompletableFuture
+        .get(3, TimeUnit.SECONDS)
+
+      result should ===("ok")
+      attempts.get() should ===(3)
+      policies.metrics("retrying").retries should ===(2L)
+      SdkMetrics(system).snapshot(SdkMetrics.objectName("CallPolicy", "retrying"))("retries") should ===(2L)
+    }
+
+    "only retry the methods listed as idempotent" in {
+      val attempts = new AtomicInteger()
+      val result = policies
+        .policyFor("retrying")
+        .execute("AddItem") { () =>
+          attempts.incrementAndGet()
+          CompletableFuture.failedFuture[String](Status.UNAVAILABLE.asRuntimeException())
+        }
+        .toCompletableFuture
+
+      intercept[ExecutionException](result.get(3, TimeUnit.SECONDS))
+      attempts.get() should ===(1)
+    }
+
+    "not retry failures that will not go away" in {
+      val attempts = new AtomicInteger()
+      val result = policies
+        .policyFor("retrying")
+        .execute("GetCart") { () =>
+          attempts.incrementAndGet()
+          CompletableFuture.failedFuture[String](Status.INVALID_ARGUMENT.asRuntimeException())
+        }
+        .toCompletableFuture
+
+      intercept[ExecutionException](result.get(3, TimeUnit.SECONDS))
+      attempts.get() should ===(1)
+    }
+
+    "send a hedged attempt when the first one is slow" in {
+      val attempts = new AtomicInteger()
+      val result = policies
+        .policyFor("hedged")
+        .execute("GetCart") { () =>
+          if (attempts.incrementAndGet() == 1) new CompletableFuture[String]() // never completes
+          else CompletableFuture.completedFuture("hedged")
+        }
+        .toCompletableFuture
+        .get(3, TimeUnit.SECONDS)
+
+      result should ===("hedged")
+      val metrics = policies.metrics("hedged")
+      metrics.hedges should ===(1L)
+      metrics.hedgeWins should ===(1L)
+    }
+
+    "fail calls that exceed their latency budget" in {
+      val result = policies
+        .policyFor("budgeted")
+        .execute("GetCart")(() => new CompletableFuture[String]())
+        .toCompletableFuture
+
+      val failure = intercept[ExecutionException](result.get(3, TimeUnit.SECONDS))
+      failure.getCause shouldBe a[TimeoutException]
+      policies.metrics("budgeted").budgetExceeded should ===(1L)
+    }
+  }
+
+  "The circuit breaker call policy" must {
+    "fail fast while the target is unhealthy and close again after a successful probe" in {
+      val attempts = new AtomicInteger()
+      val healthy = new AtomicBoolean(false)
+      val policy = policies.policyFor("broken")
+      def call() =
+        policy.execute("GetCart") { () =>
+          attempts.incrementAndGet()
+          if (healthy.get()) CompletableFuture.completedFuture("ok")
+          else CompletableFuture.failedFuture[String](Status.UNAVAILABLE.asRuntimeException())
+        }.toCompletableFuture
+
+      LoggingTestKit.warn("Circuit breaker for [broken] opened after [2] consecutive failures").expect {
+        (1 to 2).foreach(_ => intercept[ExecutionException](call().get(3, TimeUnit.SECONDS)))
+      }
+      attempts.get() should ===(2)
+
+      val attemptsBeforeOpen = attempts.get()
+      val rejected = intercept[ExecutionException](call().get(3, TimeUnit.SECONDS))
+      rejected.getCause shouldBe a[CircuitBreakerOpenException]
+      attempts.get() should ===(attemptsBeforeOpen)
+      eventually {
+        policies.circuitBreakerMetrics("broken").state should ===(CircuitBreakerCallPolicy.Open)
+      }
+
+      healthy.set(true)
+      LoggingTestKit.info("Circuit breaker for [broken] closed, the probe call succeeded").expect {
+        eventually {
+          call().get(3, TimeUnit.SECONDS) should ===("ok")
+        }
+      }
+      eventually {
+        policies.circuitBreakerMetrics("broken").state should ===(CircuitBreakerCallPolicy.Closed)
+      }
+      val metrics = policies.circuitBreakerMetrics("broken")
+      metrics.opened should ===(1L)
+      metrics.rejectedCalls should be >= 1L
+      val exposed = SdkMetrics(system).snapshot(SdkMetrics.objectName("CircuitBreaker", "broken"))
+      exposed("state") should ===("Closed")
+      exposed("opened") should ===(1L)
+    }
+  }
+
+  "A deferred call" must {
+    "run directly unless given a call policy, also after changing its metadata" in {
+      val policy = policies.policyFor("retrying")
+      val call =
+        GrpcDeferredCall[String, String](
+          "message",
+          MetadataImpl.Empty,
+          "com.example.Service",
+          "Method",
+          _ => CompletableFuture.completedFuture("ok"))
+      call.callPolicy shouldBe theSameInstanceAs(CallPolicy.Direct)
+      call.withCallPolicy(policy).withMetadata(MetadataImpl.Empty).callPolicy shouldBe theSameInstanceAs(policy)
+      call.withCallPolicy(policy).execute().toCompletableFuture.get(3, TimeUnit.SECONDS) should ===("ok")
+    }
+  }
+
+  "The latency tracker" must {
+    "compute the configured percentile once enough latencies are recorded" in {
+      val tracker = new CallPolicy.LatencyTracker(percentile = 95, size = 100, recomputeEvery = 10)
+      tracker.current shouldBe None
+      (1 to 100).foreach(n => tracker.record(n.toLong * 1000000))
+      tracker.current.map(_.toMillis) shouldBe Some(95L)
+    }
+  }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2021 Lightbend Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package kalix.javasdk.impl
+
+import java.util.UUID
+
+import org.scalatest.matchers.should.Matchers
+import org.scalatest.wordspec.AnyWordSpec
+import org.slf4j.MDC
+
+class ErrorHandlingSpec extends AnyWordSpec with Matchers {
+
+  "The error handling" should {
+
+    "create correlation ids that are random version 4 UUIDs" in {
+      val ids = (1 to 1000).map(_ => ErrorHandling.newCorrelationId())
+      ids.distinct should have size 1000
+      ids.foreach { id =>
+        id should fullyMatch regex "[0-9a-f]{8}-[0-9a-f]{4}-4[0-9a-f]{3}-[89ab][0-9a-f]{3}-[0-9a-f]{12}"
+        val uuid = UUID.fromString(id)
+        uuid.version() shouldBe 4
+        uuid.variant() shouldBe 2
+        uuid.toString shouldBe id
+      }
+    }
+
+    "put the correlation id in the MDC while running the block" in {
+      val id = ErrorHandling.withCorrelationId { id =>
+        MDC.get(ErrorHandling.CorrelationIdMdcKey) shouldBe id
+        id
+      }
+      UUID.fromString(id).version() shouldBe 4
+      MDC.get(ErrorHandling.CorrelationIdMdcKey) shouldBe null
+    }
+  }
+}
@@ -28,24 +28,38 @@ import org.scalatest.concurrent.ScalaFutures
 import org.scalatest.matchers.should.Matchers
 import org.scalatest.wordspec.AnyWordSpecLike
 
+import java.util.concurrent.CompletableFuture
 import java.util.concurrent.CompletionStage
+import java.util.concurrent.ConcurrentLinkedQueue
+import scala.jdk.CollectionConverters._
 import scala.concurrent.Promise
 import scala.jdk.FutureConverters.FutureOps
 
 // dummy instead of depending on actual generated Akka gRPC client to keep it simple
-trait PretendService {}
+trait PretendService {
+  def hello(name: String): CompletionStage[String]
+}
 object PretendServiceClient {
-  def create(settings: GrpcClientSettings, systemProvider: ClassicActorSystemProvider): PretendServiceClient =
-    new PretendServiceClient(settings)
+  val created = new ConcurrentLinkedQueue[PretendServiceClient]()
+
+  def create(settings: GrpcClientSettings, systemProvider: ClassicActorSystemProvider): PretendServiceClient = {
+    val client = new PretendServiceClient(settings)
+    created.add(client)
+    client
+  }
 }
 class PretendServiceClient(val settings: GrpcClientSettings) extends PretendService with AkkaGrpcClient {
   private val closePromise = Promise[Done]()
   def close(): CompletionStage[Done] = {
-    closePromise.success(Done)
+    closePromise.trySuccess(Done)
     closed()
   }
 
   def closed(): CompletionStage[Done] = closePromise.future.asJava
+
+  def hello(name: String): CompletionStage[String] =
+    if (name.isEmpty) throw new IllegalArgumentException("No name")
+    else CompletableFuture.completedFuture(s"Hello $name")
 }
 
 object GrpcClientsSpec {
@@ -60,6 +74,12 @@ object GrpcClientsSpec {
      |  deadline = 10m
      |  user-agent = "Akka-gRPC"
      |}
+     |kalix.cross-service.services.pooled {
+     |  channel-pool.size = 3
+     |}
+     |kalix.cross-service.services.closed {
+     |  channel-pool.size = 3
+     |}
      |""".stripMargin)
 }
 
@@ -105,6 +125,51 @@ class GrpcClientsSpec
       val client = GrpcClients(system).getGrpcClient(classOf[ActionSpecService], "actual")
       client shouldBe a[ActionSpecServiceClient]
     }
+
+    "spread calls over a pool of channels when configured" in {
+      val pooled = GrpcClients(system).getGrpcClient(classOf[PretendService], "pooled")
+      pooled shouldNot be(a[PretendServiceClient])
+      GrpcClients(system).getGrpcClient(classOf[PretendService], "pooled") shouldBe theSameInstanceAs(pooled)
+
+      (1 to 6).foreach { n =>
+        pooled.hello(s"caller-$n").toCompletableFuture.get() should ===(s"Hello caller-$n")
+      }
+
+      val stats = GrpcClients(system).channelStats("pooled")(classOf[PretendService])
+      stats should have size 3
+      stats.map(_.completed) should ===(Seq(2L, 2L, 2L))
+      stats.map(_.inFlight) should ===(Seq(0, 0, 0))
+
+      // and exposed with the SDK metrics, one source per channel
+      val metrics = SdkMetrics(system).snapshot
+      (0 to 2).map { channel =>
+        metrics(SdkMetrics.objectName("GrpcChannelPool", s"pooled:80/${classOf[PretendService].getName}/$channel"))
+      }.map(_("completed")) should ===(Seq(2L, 2L, 2L))
+
+      // services without overrides use the default single channel
+      GrpcClients(system).channelStats("a") shouldBe empty
+    }
+
+    "not leave a call in flight when the client throws" in {
+      val pooled = GrpcClients(system).getGrpcClient(classOf[PretendService], "pooled")
+      intercept[IllegalArgumentException](pooled.hello(""))
+
+      val stats = GrpcClients(system).channelStats("pooled")(classOf[PretendService])
+      stats.map(_.inFlight) should ===(Seq(0, 0, 0))
+      stats.map(_.failed).sum should ===(1L)
+    }
+
+    "close all channels of a pool when one of them is closed" in {
+      val pooled = GrpcClients(system).getGrpcClient(classOf[PretendService], "closed")
+      val channels = PretendServiceClient.created.asScala.filter(_.settings.serviceName == "closed").toList
+      channels should have size 3
+
+      channels.head.close()
+      eventually {
+        channels.foreach(_.closed().toCompletableFuture.isDone shouldBe true)
+        (GrpcClients(system).getGrpcClient(classOf[PretendService], "closed") shouldNot be).theSameInstanceAs(pooled)
+      }
+    }
   }
 
 }
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2021 Lightbend Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package kalix.javasdk.impl
+
+import java.util.concurrent.atomic.AtomicInteger
+
+import com.google.protobuf.ByteString
+import com.google.protobuf.StringValue
+import com.google.protobuf.any.{ Any => ScalaPbAny }
+import com.google.protobuf.{ Any => JavaPbAny }
+import org.scalatest.matchers.should.Matchers
+import org.scalatest.wordspec.AnyWordSpec
+
+class PersistedStateSpec extends AnyWordSpec with Matchers {
+
+  private final class CountingCodec extends MessageCodec {
+    val encoded = new AtomicInteger()
+    override def decodeMessage(any: ScalaPbAny): Any = ???
+    override def encodeScala(value: Any): ScalaPbAny = {
+      encoded.incrementAndGet()
+      ScalaPbAny("test.kalix.io/state", ByteString.copyFromUtf8(value.toString))
+    }
+    override def encodeJava(value: Any): JavaPbAny = ???
+  }
+
+  "The persisted state" should {
+
+    "skip an update with the same immutable state without encoding it" in {
+      val codec = new CountingCodec
+      val state = StringValue.of("cart")
+      val persisted = new PersistedState
+      persisted.encodeIfChanged(state, codec) shouldBe defined
+      persisted.encodeIfChanged(state, codec) shouldBe None
+      codec.encoded.get shouldBe 1
+    }
+
+    "skip an update with an equal encoded state" in {
+      val codec = new CountingCodec
+      val persisted = new PersistedState
+      persisted.set(new StringBuilder("cart"), codec.encodeScala("cart"))
+      persisted.encodeIfChanged(new StringBuilder("cart"), codec) shouldBe None
+      persisted.encodeIfChanged(new StringBuilder("carts"), codec) shouldBe defined
+    }
+
+    "encode a mutable state again even if it is the same object" in {
+      val codec = new CountingCodec
+      val state = new StringBuilder("cart")
+      val persisted = new PersistedState
+      persisted.encodeIfChanged(state, codec) shouldBe defined
+      state.append("s")
+      persisted.encodeIfChanged(state, codec).map(_.value.toStringUtf8) shouldBe Some("carts")
+    }
+
+    "persist any state once cleared" in {
+      val codec = new CountingCodec
+      val persisted = new PersistedState
+      persisted.set("cart", codec.encodeScala("cart"))
+      persisted.clear()
+      persisted.encodeIfChanged("cart", codec) shouldBe defined
+    }
+  }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2021 Lightbend Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package kalix.javasdk.impl
+
+import java.lang.management.ManagementFactory
+
+import akka.actor.testkit.typed.scaladsl.LoggingTestKit
+import akka.actor.testkit.typed.scaladsl.ScalaTestWithActorTestKit
+import akka.actor.typed.scaladsl.adapter._
+import com.typesafe.config.ConfigFactory
+import org.scalatest.matchers.should.Matchers
+import org.scalatest.wordspec.AnyWordSpecLike
+
+object SdkMetricsSpec {
+  final case class CounterSnapshot(count: Long, state: String, lastFailure: Option[String])
+
+  val config = ConfigFactory
+    .parseString("kalix.metrics.log-interval = 100ms")
+    .withFallback(ConfigFactory.load())
+}
+
+class SdkMetricsSpec extends ScalaTestWithActorTestKit(SdkMetricsSpec.config) with AnyWordSpecLike with Matchers {
+  import SdkMetricsSpec._
+
+  private def metrics = SdkMetrics(system.toClassic)
+  private val server = ManagementFactory.getPlatformMBeanServer
+
+  "The SdkMetrics extension" must {
+
+    "expose the current snapshot of a source as a JMX MBean" in {
+      var count = 1L
+      metrics.register("Counter", "service-a")(() => CounterSnapshot(count, "closed", None))
+      val objectName = SdkMetrics.objectName("Counter", "service-a")
+
+      server.getAttribute(objectName, "count") shouldBe 1L
+      count = 2L
+      server.getAttribute(objectName, "count") shouldBe 2L
+      server.getAttribute(objectName, "state") shouldBe "closed"
+      server.getAttribute(objectName, "lastFailure") shouldBe ""
+      server.getMBeanInfo(objectName).getAttributes.map(_.getName).toSet shouldBe Set("count", "state", "lastFailure")
+
+      metrics.snapshot(objectName) shouldBe Map("count" -> 2L, "state" -> "closed", "lastFailure" -> "")
+    }
+
+    "replace a source registered again under the same name" in {
+      metrics.register("Counter", "service-b")(() => CounterSnapshot(1, "closed", None))
+      metrics.register("Counter", "service-b")(() => CounterSnapshot(2, "open", Some("timeout")))
+      val objectName = SdkMetrics.objectName("Counter", "service-b")
+
+      server.getAttribute(objectName, "state") shouldBe "open"
+      server.getAttribute(objectName, "lastFailure") shouldBe "timeout"
+    }
+
+    "unregister a source" in {
+      metrics.register("Counter", "service-c")(() => CounterSnapshot(1, "closed", None))
+      metrics.unregister("Counter", "service-c")
+
+      server.isRegistered(SdkMetrics.objectName("Counter", "service-c")) shouldBe false
+      metrics.snapshot.keySet should not contain SdkMetrics.objectName("Counter", "service-c")
+    }
+
+    "log the sources at the configured interval" in {
+      metrics.register("Counter", "service-d")(() => CounterSnapshot(3, "closed", None))
+      LoggingTestKit.info("Counter [service-d]: count=3, lastFailure=, state=closed").expect {
+        // logged by the scheduled task
+      }
+    }
+  }
+}
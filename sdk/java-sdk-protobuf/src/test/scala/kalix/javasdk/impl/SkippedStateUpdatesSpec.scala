@@ -0,0 +1,41 @@
+/*
+ * Copyright 2021 Lightbend Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package kalix.javasdk.impl
+
+import akka.actor.testkit.typed.scaladsl.LoggingTestKit
+import akka.actor.testkit.typed.scaladsl.ScalaTestWithActorTestKit
+import akka.actor.typed.scaladsl.adapter._
+import org.scalatest.matchers.should.Matchers
+import org.scalatest.wordspec.AnyWordSpecLike
+
+class SkippedStateUpdatesSpec extends ScalaTestWithActorTestKit with AnyWordSpecLike with Matchers {
+
+  "The skipped state updates" must {
+    "be counted and exposed with the SDK metrics" in {
+      val skippedUpdates = new SkippedStateUpdates(system.toClassic, "value entity")
+
+      skippedUpdates.skippedUpdate("cart-1")
+      LoggingTestKit.debug("Left out unchanged state update of value entity [cart-2], [2] updates left out").expect {
+        skippedUpdates.skippedUpdate("cart-2")
+      }
+
+      skippedUpdates.count shouldBe 2L
+      SdkMetrics(system.toClassic).snapshot(SdkMetrics.objectName("SkippedStateUpdates", "value entity")) shouldBe
+      Map("skippedUpdates" -> 2L)
+    }
+  }
+}
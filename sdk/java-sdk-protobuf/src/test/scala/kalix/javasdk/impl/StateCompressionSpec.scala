@@ -0,0 +1,71 @@
+/*
+ * Copyright 2021 Lightbend Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package kalix.javasdk.impl
+
+import com.google.protobuf.ByteString
+import com.google.protobuf.any.{ Any => ScalaPbAny }
+import com.typesafe.config.ConfigFactory
+import org.scalatest.matchers.should.Matchers
+import org.scalatest.wordspec.AnyWordSpec
+
+class StateCompressionSpec extends AnyWordSpec with Matchers {
+
+  private val compression =
+    StateCompression(ConfigFactory.parseString("""
+      kalix.state-compression {
+        enabled = on
+        threshold = 1 KiB
+      }""").withFallback(ConfigFactory.load())).get
+
+  private def state(json: String) =
+    ScalaPbAny("json.kalix.io/com.example.Cart", ByteString.copyFromUtf8(json))
+
+  private val largeState =
+    state((1 to 200).map(n => s"""{"productId":"product-$n","quantity":$n}""").mkString("""{"items":[""", ",", "]}"""))
+
+  "The state compression" should {
+
+    "be disabled by default" in {
+      StateCompression(ConfigFactory.load()) shouldBe None
+    }
+
+    "compress states above the threshold and restore them" in {
+      val compressed = compression.compress(largeState)
+      compressed.typeUrl shouldBe StateCompression.TypeUrlPrefix + largeState.typeUrl
+      compressed.value.size should be < largeState.value.size / 2
+      StateCompression.decompress(compressed) shouldBe largeState
+    }
+
+    "leave states below the threshold as is" in {
+      val small = state("""{"items":[]}""")
+      compression.compress(small) shouldBe small
+      StateCompression.decompress(small) shouldBe small
+    }
+
+    "leave incompressible states as is" in {
+      val random = new Array[Byte](4096)
+      new scala.util.Random(42).nextBytes(random)
+      val binary = ScalaPbAny("type.googleapis.com/google.protobuf.BytesValue", ByteString.copyFrom(random))
+      compression.compress(binary) shouldBe binary
+    }
+
+    "not compress twice" in {
+      val compressed = compression.compress(largeState)
+      compression.compress(compressed) shouldBe compressed
+    }
+  }
+}
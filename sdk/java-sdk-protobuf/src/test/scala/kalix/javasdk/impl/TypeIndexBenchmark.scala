@@ -0,0 +1,138 @@
+/*
+ * Copyright 2021 Lightbend Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package kalix.javasdk.impl
+
+import java.util.concurrent.ThreadLocalRandom
+
+/**
+ * Micro benchmark of dispatching on the type of a value out of 20 types, with a [[TypeIndex]] and `switch` as the
+ * generated routers do, compared to a chain of `instanceof` checks. Reports the time per dispatch.
+ *
+ * {{{
+ * sbt "javaSdkProtobuf/Test/runMain kalix.javasdk.impl.TypeIndexBenchmark"
+ * }}}
+ */
+object TypeIndexBenchmark {
+
+  private val ValueCount = 100000
+  private val WarmupRounds = 50
+  private val MeasuredRounds = 50
+
+  private val types: Seq[Class[_]] = Seq(
+    classOf[java.lang.Integer],
+    classOf[java.lang.Long],
+    classOf[java.lang.Short],
+    classOf[java.lang.Byte],
+    classOf[java.lang.Double],
+    classOf[java.lang.Float],
+    classOf[java.lang.Character],
+    classOf[java.lang.Boolean],
+    classOf[java.math.BigInteger],
+    classOf[java.math.BigDecimal],
+    classOf[java.time.Instant],
+    classOf[java.time.Duration],
+    classOf[java.time.LocalDate],
+    classOf[java.time.LocalTime],
+    classOf[java.util.UUID],
+    classOf[java.util.ArrayList[_]],
+    classOf[java.util.HashMap[_, _]],
+    classOf[java.util.TreeMap[_, _]],
+    classOf[java.lang.StringBuilder],
+    classOf[String])
+
+  private val typeIndex = TypeIndex.of(types: _*)
+
+  private val samples: Array[Any] = Array(
+    Integer.valueOf(1),
+    java.lang.Long.valueOf(1),
+    java.lang.Short.valueOf(1.toShort),
+    java.lang.Byte.valueOf(1.toByte),
+    java.lang.Double.valueOf(1),
+    java.lang.Float.valueOf(1),
+    Character.valueOf('a'),
+    java.lang.Boolean.TRUE,
+    java.math.BigInteger.ONE,
+    java.math.BigDecimal.ONE,
+    java.time.Instant.EPOCH,
+    java.time.Duration.ZERO,
+    java.time.LocalDate.EPOCH,
+    java.time.LocalTime.MIDNIGHT,
+    new java.util.UUID(0, 0),
+    new java.util.ArrayList[Any](),
+    new java.util.HashMap[Any, Any](),
+    new java.util.TreeMap[Any, Any](),
+    new java.lang.StringBuilder(),
+    "string")
+
+  // the chain of checks generated routers used before, the later types take the most checks
+  private def chainIndexOf(value: Any): Int = value match {
+    case _: java.lang.Integer       => 0
+    case _: java.lang.Long          => 1
+    case _: java.lang.Short         => 2
+    case _: java.lang.Byte          => 3
+    case _: java.lang.Double        => 4
+    case _: java.lang.Float         => 5
+    case _: java.lang.Character     => 6
+    case _: java.lang.Boolean       => 7
+    case _: java.math.BigInteger    => 8
+    case _: java.math.BigDecimal    => 9
+    case _: java.time.Instant       => 10
+    case _: java.time.Duration      => 11
+    case _: java.time.LocalDate     => 12
+    case _: java.time.LocalTime     => 13
+    case _: java.util.UUID          => 14
+    case _: java.util.ArrayList[_]  => 15
+    case _: java.util.HashMap[_, _] => 16
+    case _: java.util.TreeMap[_, _] => 17
+    case _: java.lang.StringBuilder => 18
+    case _: String                  => 19
+    case _                          => TypeIndex.NotFound
+  }
+
+  def main(args: Array[String]): Unit = {
+    val random = ThreadLocalRandom.current()
+    val values = Array.fill[Any](ValueCount)(samples(random.nextInt(samples.length)))
+    values.foreach(value => require(typeIndex.indexOf(value) == chainIndexOf(value)))
+
+    measure("TypeIndex", values, typeIndex.indexOf)
+    measure("instanceof chain", values, chainIndexOf)
+  }
+
+  private def measure(name: String, values: Array[Any], indexOf: Any => Int): Unit = {
+    def round(): Long = {
+      var sum = 0L
+      var i = 0
+      while (i < values.length) {
+        sum += indexOf(values(i))
+        i += 1
+      }
+      sum
+    }
+
+    (1 to WarmupRounds).foreach(_ => round())
+
+    val start = System.nanoTime()
+    var checksum = 0L
+    (1 to MeasuredRounds).foreach(_ => checksum += round())
+    val elapsed = System.nanoTime() - start
+
+    val operations = MeasuredRounds.toLong * ValueCount
+    println(
+      f"$name%-20s dispatched $operations%d values over ${types.size}%d types: " +
+      f"${elapsed.toDouble / operations}%.2f ns/dispatch (checksum $checksum%d)")
+  }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2021 Lightbend Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package kalix.javasdk.impl
+
+import org.scalatest.matchers.should.Matchers
+import org.scalatest.wordspec.AnyWordSpec
+
+class TypeIndexSpec extends AnyWordSpec with Matchers {
+
+  private val index = TypeIndex.of(classOf[String], classOf[java.lang.Integer], classOf[CharSequence])
+
+  "The TypeIndex" should {
+
+    "find the position of the type of a value" in {
+      index.indexOf("text") shouldBe 0
+      index.indexOf(Integer.valueOf(5)) shouldBe 1
+    }
+
+    "match subtypes to the first type they are an instance of" in {
+      index.indexOf(new java.lang.StringBuilder("text")) shouldBe 2
+    }
+
+    "not find values of other types" in {
+      index.indexOf(java.lang.Long.valueOf(5)) shouldBe TypeIndex.NotFound
+      index.indexOf(null) shouldBe TypeIndex.NotFound
+    }
+  }
+}
@@ -32,6 +32,7 @@ import kalix.javasdk.impl.AnySupport
 import kalix.javasdk.impl.GrpcDeferredCall
 import kalix.javasdk.impl.MetadataImpl
 import kalix.javasdk.impl.ResolvedServiceMethod
+import kalix.javasdk.impl.StateCompression
 import kalix.javasdk.impl.effect.SideEffectImpl
 import kalix.protocol.action.ActionCommand
 import kalix.protocol.action.ActionResponse
@@ -69,6 +70,13 @@ class ActionHandlerSpec
   private val serviceName = serviceDescriptor.getFullName
   private val anySupport = new AnySupport(Array(ActionspecApi.getDescriptor), this.getClass.getClassLoader)
 
+  private val compression =
+    StateCompression(ConfigFactory.parseString("""
+      kalix.state-compression {
+        enabled = on
+        threshold = 1 KiB
+      }""").withFallback(ConfigFactory.load())).get
+
   def create(handler: ActionRouter[_]): Actions = {
     val actionFactory: ActionFactory = _ => handler
     val service = new ActionService(actionFactory, serviceDescriptor, Array(), anySupport, None)
@@ -113,6 +121,39 @@ class ActionHandlerSpec
       }
     }
 
+    "not decode the payload of unary commands when the handler doesn't access it" in {
+      val service = create(new AbstractHandler {
+
+        override def handleUnary(commandName: String, message: MessageEnvelope[Any]): Action.Effect[Any] =
+          createReplyEffect("out: " + message.metadata().get("route").orElse("none"))
+      })
+
+      val undecodable = Some(ScalaPbAny("type.googleapis.com/com.example.Unknown", protobuf.ByteString.EMPTY))
+      val metadata = MetadataImpl.toProtocol(MetadataImpl.Empty.add("route", "left"))
+      val reply =
+        Await.result(service.handleUnary(ActionCommand(serviceName, "Unary", undecodable, metadata)), 10.seconds)
+
+      inside(reply.response) { case ActionResponse.Response.Reply(Reply(payload, _, _)) =>
+        extractOutField(payload) should ===("out: left")
+      }
+    }
+
+    "pass an unchanged payload through without encoding it again" in {
+      val service = create(new AbstractHandler {
+
+        override def handleUnary(commandName: String, message: MessageEnvelope[Any]): Action.Effect[Any] =
+          ActionEffectImpl.ReplyEffect(message.payload(), None, Nil)
+      })
+
+      // a type url without the default prefix, which encoding it again would not produce
+      val in = createInPayload("in").map(_.copy(typeUrl = "example.com/kalix.javasdk.actionspec.In"))
+      val reply = Await.result(service.handleUnary(ActionCommand(serviceName, "Unary", in)), 10.seconds)
+
+      inside(reply.response) { case ActionResponse.Response.Reply(Reply(payload, _, _)) =>
+        payload shouldBe in
+      }
+    }
+
     "invoke streamed in commands" in {
       val service = create(new AbstractHandler {
         override def handleStreamedIn(
@@ -138,6 +179,57 @@ class ActionHandlerSpec
       }
     }
 
+    "decompress compressed payloads of streamed in commands" in {
+      val service = create(new AbstractHandler {
+        override def handleStreamedIn(
+            commandName: String,
+            stream: Source[MessageEnvelope[Any], NotUsed]): Action.Effect[Any] =
+          createAsyncReplyEffect(
+            stream.asScala
+              .map(extractInField)
+              .runWith(Sink.seq)
+              .map(ins => createReplyEffect(ins.map(_.length).mkString(", "))))
+      })
+
+      // subscriptions to value entities may deliver compressed states
+      val large = createInPayload("in " * 1000).value
+      val compressed = compression.compress(large)
+      compressed should not be large
+
+      val reply = Await.result(
+        service.handleStreamedIn(
+          akka.stream.scaladsl.Source(
+            List(
+              ActionCommand(serviceName, "StreamedIn"),
+              ActionCommand(payload = Some(compressed)),
+              ActionCommand(payload = Some(large))))),
+        10.seconds)
+
+      inside(reply.response) { case ActionResponse.Response.Reply(Reply(payload, _, _)) =>
+        extractOutField(payload) should ===("3000, 3000")
+      }
+    }
+
+    "not decompress the payload of unary commands when the handler doesn't access it" in {
+      val service = create(new AbstractHandler {
+        override def handleUnary(commandName: String, message: MessageEnvelope[Any]): Action.Effect[Any] =
+          createReplyEffect("out: " + message.metadata().get("route").orElse("none"))
+      })
+
+      // not valid compressed data, so decompressing it would fail
+      val corrupt = Some(
+        ScalaPbAny(
+          StateCompression.TypeUrlPrefix + "type.googleapis.com/kalix.javasdk.actionspec.In",
+          protobuf.ByteString.copyFromUtf8("corrupt")))
+      val metadata = MetadataImpl.toProtocol(MetadataImpl.Empty.add("route", "left"))
+      val reply =
+        Await.result(service.handleUnary(ActionCommand(serviceName, "Unary", corrupt, metadata)), 10.seconds)
+
+      inside(reply.response) { case ActionResponse.Response.Reply(Reply(payload, _, _)) =>
+        extractOutField(payload) should ===("out: left")
+      }
+    }
+
     "invoke streamed out commands" in {
       val service = create(new AbstractHandler {
         override def handleStreamedOut(
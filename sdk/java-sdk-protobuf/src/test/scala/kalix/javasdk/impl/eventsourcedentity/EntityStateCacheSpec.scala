@@ -0,0 +1,112 @@
+/*
+ * Copyright 2021 Lightbend Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package kalix.javasdk.impl.eventsourcedentity
+
+import com.google.protobuf.ByteString
+import com.google.protobuf.any.{ Any => ScalaPbAny }
+import com.google.protobuf.{ Any => JavaPbAny }
+import com.typesafe.config.ConfigFactory
+import kalix.javasdk.impl.MessageCodec
+import org.scalatest.matchers.should.Matchers
+import org.scalatest.wordspec.AnyWordSpec
+
+object EntityStateCacheSpec {
+
+  /** Encodes mutable StringBuilder states, any other state fails to encode */
+  object StringBuilderCodec extends MessageCodec {
+    override def decodeMessage(any: ScalaPbAny): Any =
+      new java.lang.StringBuilder(any.value.toStringUtf8)
+
+    override def encodeScala(value: Any): ScalaPbAny =
+      value match {
+        case builder: java.lang.StringBuilder =>
+          ScalaPbAny("type.kalix.io/string-builder", ByteString.copyFromUtf8(builder.toString))
+        case other => throw new IllegalArgumentException(s"Can't encode [$other]")
+      }
+
+    override def encodeJava(value: Any): JavaPbAny =
+      ScalaPbAny.toJavaProto(encodeScala(value))
+  }
+
+  final class Counter(var count: Int)
+}
+
+class EntityStateCacheSpec extends AnyWordSpec with Matchers {
+  import EntityStateCacheSpec._
+
+  private def newCache() =
+    EntityStateCache(
+      ConfigFactory
+        .parseString("kalix.event-sourced-entity.state-cache.max-entries = 100")
+        .withFallback(ConfigFactory.load())).get
+
+  "The entity state cache" should {
+
+    "be disabled by default" in {
+      EntityStateCache(ConfigFactory.load()) shouldBe None
+    }
+
+    "hand out a cached state once" in {
+      val cache = newCache()
+      cache.put("com.example.CartService", "cart-1", 42, "state")
+      cache.take("com.example.CartService", "cart-1", 40) shouldBe Some(EntityStateCache.Entry(42, "state"))
+      cache.take("com.example.CartService", "cart-1", 40) shouldBe None
+
+      val stats = cache.stats
+      stats.hits shouldBe 1
+      stats.misses shouldBe 1
+      stats.size shouldBe 0
+    }
+
+    "keep states by service and entity id" in {
+      val cache = newCache()
+      cache.put("com.example.CartService", "cart-1", 1, "cart")
+      cache.take("com.example.OrderService", "cart-1", 0) shouldBe None
+      cache.take("com.example.CartService", "cart-2", 0) shouldBe None
+    }
+
+    "not hand out states older than the snapshot" in {
+      val cache = newCache()
+      cache.put("com.example.CartService", "cart-1", 42, "state")
+      cache.take("com.example.CartService", "cart-1", 100) shouldBe None
+      cache.stats.stale shouldBe 1
+    }
+
+    "keep immutable states as they are" in {
+      val entry = EntityStateCache.entry(42, "state", StringBuilderCodec).get
+      entry shouldBe EntityStateCache.Entry(42, "state")
+      EntityStateCache.state(entry, StringBuilderCodec) shouldBe "state"
+    }
+
+    "keep mutable states in their encoded form" in {
+      val state = new java.lang.StringBuilder("item-1")
+      val entry = EntityStateCache.entry(42, state, StringBuilderCodec).get
+      entry.state shouldBe an[EntityStateCache.Encoded]
+
+      // modified in place by a later command of the same activation
+      state.append(",item-2")
+
+      val cached = EntityStateCache.state(entry, StringBuilderCodec)
+      cached.toString shouldBe "item-1"
+      cached should not be theSameInstanceAs(state)
+    }
+
+    "not keep mutable states that can't be encoded" in {
+      EntityStateCache.entry(42, new Counter(1), StringBuilderCodec) shouldBe None
+    }
+  }
+}
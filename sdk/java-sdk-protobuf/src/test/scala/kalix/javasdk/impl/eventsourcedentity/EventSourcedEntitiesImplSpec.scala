@@ -33,9 +33,14 @@ class EventSourcedEntitiesImplSpec extends AnyWordSpec with Matchers with Before
   val service: TestEventSourcedService = ShoppingCart.testService
   val protocol: TestProtocol = TestProtocol(service.port)
 
+  val cachingService: TestEventSourcedService = ShoppingCart.testService(stateCache = true)
+  val cachingProtocol: TestProtocol = TestProtocol(cachingService.port)
+
   override def afterAll(): Unit = {
     protocol.terminate()
     service.terminate()
+    cachingProtocol.terminate()
+    cachingService.terminate()
   }
 
   "EventSourcedImpl" should {
@@ -198,6 +203,48 @@ class EventSourcedEntitiesImplSpec extends AnyWordSpec with Matchers with Before
       }
     }
   }
+
+  "EventSourcedImpl with a state cache" should {
+
+    def activateAndPassivate(entityId: String): Unit = {
+      val entity = cachingProtocol.eventSourced.connect()
+      entity.send(init(ShoppingCart.Name, entityId))
+      entity.send(event(1, itemAdded("abc", "apple", 1)))
+      entity.send(event(2, itemAdded("123", "banana", 4)))
+      entity.send(command(1, entityId, "AddItem", addItem("456", "pear", 2)))
+      entity.expect(reply(1, EmptyJavaMessage, persist(itemAdded("456", "pear", 2))))
+      // only the replayed state is confirmed by the proxy, not the one after the command
+      cachingService.expectLogDebug(s"Cached state of entity [$entityId] at sequence [2]") {
+        entity.passivate()
+      }
+    }
+
+    "recover from a cached state without replaying the journal" in {
+      activateAndPassivate("cached-cart")
+      val reactivated = cachingProtocol.eventSourced.connect()
+      reactivated.send(init(ShoppingCart.Name, "cached-cart"))
+      // would fail the entity if replayed
+      reactivated.send(event(1, itemAdded("123", "FAIL", 42)))
+      reactivated.send(event(2, itemAdded("123", "FAIL", 42)))
+      reactivated.send(event(3, itemAdded("456", "pear", 2)))
+      reactivated.send(command(1, "cached-cart", "GetCart", getShoppingCart("cached-cart")))
+      reactivated.expect(
+        reply(1, cart(Item("abc", "apple", 1), Item("123", "banana", 4), Item("456", "pear", 2))))
+      reactivated.passivate()
+    }
+
+    "recover from the journal when it doesn't reach the sequence number of the cached state" in {
+      activateAndPassivate("stale-cart")
+      val reactivated = cachingProtocol.eventSourced.connect()
+      cachingService.expectLogDebug("Cached state of entity [stale-cart] at sequence [2] not reached by the journal") {
+        reactivated.send(init(ShoppingCart.Name, "stale-cart"))
+        reactivated.send(event(1, itemAdded("abc", "apple", 1)))
+        reactivated.send(command(1, "stale-cart", "GetCart", getShoppingCart("stale-cart")))
+        reactivated.expect(reply(1, cart(Item("abc", "apple", 1))))
+      }
+      reactivated.passivate()
+    }
+  }
 }
 
 object EventSourcedEntitiesImplSpec {
@@ -207,11 +254,14 @@ object EventSourcedEntitiesImplSpec {
 
     val Name: String = ShoppingCartApi.getDescriptor.findServiceByName("ShoppingCartService").getFullName
 
-    def testService: TestEventSourcedService =
+    def testService: TestEventSourcedService = testService(stateCache = false)
+
+    def testService(stateCache: Boolean): TestEventSourcedService =
       TestEventSourced.service(
         CartEntityProvider
           .of(new CartEntity(_))
-          .withOptions(EventSourcedEntityOptions.defaults().withSnapshotEvery(2)))
+          .withOptions(EventSourcedEntityOptions.defaults().withSnapshotEvery(2)),
+        s"kalix.event-sourced-entity.state-cache.max-entries = ${if (stateCache) 100 else 0}")
 
     case class Item(id: String, name: String, quantity: Int)
 
@@ -26,12 +26,16 @@ import kalix.javasdk.eventsourcedentity.EventSourcedEntityProvider
 object TestEventSourced {
   def service(entityProvider: EventSourcedEntityProvider[_, _, _]): TestEventSourcedService =
     new TestEventSourcedService(entityProvider)
+
+  def service(entityProvider: EventSourcedEntityProvider[_, _, _], config: String): TestEventSourcedService =
+    new TestEventSourcedService(entityProvider, config)
 }
 
-class TestEventSourcedService(entityProvider: EventSourcedEntityProvider[_, _, _]) {
+class TestEventSourcedService(entityProvider: EventSourcedEntityProvider[_, _, _], extraConfig: String = "") {
   val port: Int = SocketUtil.temporaryLocalPort()
 
-  val config: Config = ConfigFactory.load(ConfigFactory.parseString(s"""
+  val config: Config = ConfigFactory.load(ConfigFactory.parseString(extraConfig).withFallback(ConfigFactory.parseString(
+    s"""
     kalix {
       user-function-port = $port
       system.akka {
@@ -39,7 +43,7 @@ class TestEventSourcedService(entityProvider: EventSourcedEntityProvider[_, _, _
         coordinated-shutdown.exit-jvm = off
       }
     }
-  """))
+  """)))
 
   val runner: KalixRunner = new Kalix()
     .register(entityProvider)
@@ -50,5 +54,8 @@ class TestEventSourcedService(entityProvider: EventSourcedEntityProvider[_, _, _
   def expectLogError[T](message: String)(block: => T): T =
     LoggingTestKit.error(message).expect(block)(runner.system.toTyped)
 
+  def expectLogDebug[T](message: String)(block: => T): T =
+    LoggingTestKit.debug(message).expect(block)(runner.system.toTyped)
+
   def terminate(): Unit = runner.terminate()
 }
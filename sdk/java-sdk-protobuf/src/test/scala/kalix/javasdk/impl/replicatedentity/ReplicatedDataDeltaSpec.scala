@@ -0,0 +1,79 @@
+/*
+ * Copyright 2021 Lightbend Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package kalix.javasdk.impl.replicatedentity
+
+import kalix.javasdk.impl.AnySupport
+import kalix.protocol.replicated_entity.ReplicatedEntityDelta
+import kalix.protocol.replicated_entity.ReplicatedSetDelta
+import org.scalatest.matchers.should.Matchers
+import org.scalatest.wordspec.AnyWordSpec
+
+class ReplicatedDataDeltaSpec extends AnyWordSpec with Matchers {
+
+  private val anySupport = new AnySupport(Array.empty, getClass.getClassLoader)
+
+  private def setDelta(
+      cleared: Boolean = false,
+      removed: Seq[String] = Nil,
+      added: Seq[String] = Nil): ReplicatedEntityDelta.Delta =
+    ReplicatedEntityDelta.Delta.ReplicatedSet(
+      ReplicatedSetDelta(cleared, removed.map(anySupport.encodeScala), added.map(anySupport.encodeScala)))
+
+  private def set(elements: String*): ReplicatedSetImpl[String] =
+    new ReplicatedSetImpl[String](anySupport).applyDelta(setDelta(added = elements))
+
+  "A replicated set" should {
+
+    "apply a delta with removed and added elements" in {
+      set("a", "b", "c").applyDelta(setDelta(removed = Seq("a"), added = Seq("d"))).elementsSet shouldBe
+      Set("b", "c", "d")
+    }
+
+    "apply a cleared delta" in {
+      set("a", "b").applyDelta(setDelta(cleared = true, added = Seq("c"))).elementsSet shouldBe Set("c")
+    }
+
+    "keep itself for an empty delta" in {
+      val original = set("a", "b")
+      original.applyDelta(setDelta()) should be theSameInstanceAs original
+    }
+
+    "drop its own delta when applying a delta" in {
+      val updated = set("a").add("b").applyDelta(setDelta())
+      updated.hasDelta shouldBe false
+      updated.elementsSet shouldBe Set("a", "b")
+    }
+  }
+
+  "Resetting the deltas of a replicated map" should {
+
+    "only replace the entries with a delta" in {
+      val unchanged = new ReplicatedCounterImpl
+      val entries = Map("unchanged" -> unchanged, "changed" -> new ReplicatedCounterImpl().increment(2))
+
+      val reset = InternalReplicatedData.resetDeltas(entries)
+      reset("unchanged") should be theSameInstanceAs unchanged
+      reset("changed").hasDelta shouldBe false
+      reset("changed").getValue shouldBe 2
+    }
+
+    "keep the map when no entry has a delta" in {
+      val entries = Map("a" -> new ReplicatedCounterImpl, "b" -> new ReplicatedCounterImpl)
+      InternalReplicatedData.resetDeltas(entries) should be theSameInstanceAs entries
+    }
+  }
+}
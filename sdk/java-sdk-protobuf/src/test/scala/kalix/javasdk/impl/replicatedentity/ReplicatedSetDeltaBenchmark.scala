@@ -0,0 +1,74 @@
+/*
+ * Copyright 2021 Lightbend Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package kalix.javasdk.impl.replicatedentity
+
+import java.lang.management.ManagementFactory
+
+import kalix.javasdk.impl.AnySupport
+import kalix.protocol.replicated_entity.ReplicatedEntityDelta
+import kalix.protocol.replicated_entity.ReplicatedSetDelta
+
+/**
+ * Micro benchmark of applying small deltas to a large replicated set, as received from other nodes. Reports the time
+ * and the allocated bytes per applied delta.
+ *
+ * {{{
+ * sbt "javaSdkProtobuf/Test/runMain kalix.javasdk.impl.replicatedentity.ReplicatedSetDeltaBenchmark"
+ * }}}
+ */
+object ReplicatedSetDeltaBenchmark {
+
+  private val SetSize = 100000
+  private val DeltaCount = 1000
+  private val WarmupRounds = 20
+  private val MeasuredRounds = 20
+
+  def main(args: Array[String]): Unit = {
+    val anySupport = new AnySupport(Array.empty, getClass.getClassLoader)
+
+    val initial = new ReplicatedSetImpl[String](anySupport).applyDelta(
+      ReplicatedEntityDelta.Delta.ReplicatedSet(
+        ReplicatedSetDelta(added = (0 until SetSize).map(i => anySupport.encodeScala(s"element-$i")))))
+
+    // each delta removes one existing element and adds two new ones
+    val deltas = (0 until DeltaCount).map { i =>
+      ReplicatedEntityDelta.Delta.ReplicatedSet(
+        ReplicatedSetDelta(
+          removed = Seq(anySupport.encodeScala(s"element-$i")),
+          added = Seq(anySupport.encodeScala(s"added-$i-a"), anySupport.encodeScala(s"added-$i-b"))))
+    }
+
+    def round(): ReplicatedSetImpl[String] =
+      deltas.foldLeft(initial)((set, delta) => set.applyDelta(delta))
+
+    (1 to WarmupRounds).foreach(_ => round())
+
+    val threadBean = ManagementFactory.getThreadMXBean.asInstanceOf[com.sun.management.ThreadMXBean]
+    val threadId = Thread.currentThread().getId
+    val allocatedBefore = threadBean.getThreadAllocatedBytes(threadId)
+    val start = System.nanoTime()
+    var result: ReplicatedSetImpl[String] = initial
+    (1 to MeasuredRounds).foreach(_ => result = round())
+    val elapsed = System.nanoTime() - start
+    val allocated = threadBean.getThreadAllocatedBytes(threadId) - allocatedBefore
+
+    val operations = MeasuredRounds.toLong * DeltaCount
+    println(
+      f"Applied $operations%d deltas to a set of $SetSize%d elements (resulting size ${result.size}%d): " +
+      f"${elapsed.toDouble / operations / 1000}%.2f µs/delta, ${allocated / operations}%d bytes allocated/delta")
+  }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2021 Lightbend Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package kalix.javasdk.impl.valueentity
+
+import com.google.protobuf.Struct
+import com.google.protobuf.Value
+import com.google.protobuf.any.{ Any => ScalaPbAny }
+import com.typesafe.config.ConfigFactory
+import kalix.javasdk.JsonSupport
+import org.scalatest.matchers.should.Matchers
+import org.scalatest.wordspec.AnyWordSpec
+
+class StatePatchesSpec extends AnyWordSpec with Matchers {
+
+  private val patches =
+    StatePatches(ConfigFactory.parseString("""
+      kalix.value-entity.state-patches {
+        enabled = on
+        checkpoint-every = 3
+        proxy-support = on
+      }""").withFallback(ConfigFactory.load())).get
+
+  private def json(value: java.util.Map[String, Any]) =
+    ScalaPbAny.fromJavaProto(JsonSupport.encodeJson(value, "com.example.Cart"))
+
+  private def largeCart(items: Int, owner: String): java.util.Map[String, Any] =
+    java.util.Map.of(
+      "owner",
+      owner,
+      "items",
+      java.util.List.of((1 to items).map(n => s"product-$n"): _*),
+      "address",
+      java.util.Map.of("street", "Main Street", "city", "Lisbon"))
+
+  private def proto(fields: (String, String)*) = {
+    val struct = Struct.newBuilder()
+    fields.foreach { case (name, value) => struct.putFields(name, Value.newBuilder().setStringValue(value).build()) }
+    ScalaPbAny("type.googleapis.com/google.protobuf.Struct", struct.build().toByteString)
+  }
+
+  "The state patches" should {
+
+    "be disabled by default" in {
+      StatePatches(ConfigFactory.load()) shouldBe None
+    }
+
+    "fail when enabled without a proxy that reassembles patched states" in {
+      val error = intercept[IllegalStateException] {
+        StatePatches(
+          ConfigFactory
+            .parseString("kalix.value-entity.state-patches.enabled = on")
+            .withFallback(ConfigFactory.load()))
+      }
+      error.getMessage should include("only the in-process proxy of the testkit")
+    }
+
+    "patch JSON states and reassemble them" in {
+      val base = json(largeCart(100, "alice"))
+      val target = json(largeCart(100, "bob"))
+      val patch = StatePatches.diff(base, target).get
+      patch.typeUrl shouldBe StatePatches.TypeUrlPrefix + target.typeUrl
+      patch.value.size should be < target.value.size / 10
+
+      val reassembled = StatePatches.applyPatch(base, patch)
+      JsonSupport.decodeJson(classOf[java.util.Map[_, _]], ScalaPbAny.toJavaProto(reassembled)) shouldBe
+      JsonSupport.decodeJson(classOf[java.util.Map[_, _]], ScalaPbAny.toJavaProto(target))
+    }
+
+    "patch removed and nested JSON fields" in {
+      val base = json(java.util.Map.of("a", 1, "b", java.util.Map.of("c", 2, "d", 3)))
+      val target = json(java.util.Map.of("b", java.util.Map.of("c", 2, "d", 4)))
+      val reassembled = StatePatches.applyPatch(base, StatePatches.diff(base, target).get)
+      JsonSupport.decodeJson(classOf[java.util.Map[_, _]], ScalaPbAny.toJavaProto(reassembled)) shouldBe
+      JsonSupport.decodeJson(classOf[java.util.Map[_, _]], ScalaPbAny.toJavaProto(target))
+    }
+
+    "patch protobuf states and reassemble them" in {
+      val base = proto("a" -> "1", "b" -> "2")
+      val target = proto("a" -> "1", "b" -> "3")
+      val reassembled = StatePatches.applyPatch(base, StatePatches.diff(base, target).get)
+      Struct.parseFrom(reassembled.value) shouldBe Struct.parseFrom(target.value)
+    }
+
+    "refuse to apply a patch to another base state" in {
+      val patch = StatePatches.diff(json(largeCart(10, "alice")), json(largeCart(10, "bob"))).get
+      intercept[IllegalStateException](StatePatches.applyPatch(json(largeCart(10, "carol")), patch))
+    }
+
+    "send the full state on checkpoints" in {
+      val patcher = patches.newPatcher()
+      val states = Seq("a", "b", "c", "d").map(owner => json(largeCart(100, owner)))
+      patcher.patchOrFull(None, states(0)) shouldBe states(0)
+      StatePatches.isPatch(patcher.patchOrFull(Some(states(0)), states(1))) shouldBe true
+      StatePatches.isPatch(patcher.patchOrFull(Some(states(1)), states(2))) shouldBe true
+      patcher.patchOrFull(Some(states(2)), states(3)) shouldBe states(3)
+    }
+  }
+}
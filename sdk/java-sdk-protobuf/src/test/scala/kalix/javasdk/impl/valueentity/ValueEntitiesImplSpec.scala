@@ -16,9 +16,12 @@
 
 package kalix.javasdk.impl.valueentity
 
+import com.google.protobuf.ByteString
+import com.google.protobuf.any.{ Any => ScalaPbAny }
 import io.grpc.Status.Code.INVALID_ARGUMENT
 import kalix.javasdk.valueentity.CartEntity
 import kalix.javasdk.valueentity.CartEntityProvider
+import kalix.protocol.value_entity.ValueEntityInitState
 import kalix.testkit.TestProtocol
 import kalix.testkit.valueentity.ValueEntityMessages
 import org.scalatest.BeforeAndAfterAll
@@ -70,6 +73,16 @@ class ValueEntitiesImplSpec extends AnyWordSpec with Matchers with BeforeAndAfte
       }
     }
 
+    "fail when the initial state is a patch" in {
+      service.expectLogError("Terminating entity [cart] due to unexpected failure") {
+        val entity = protocol.valueEntity.connect()
+        val patch = ScalaPbAny(StatePatches.TypeUrlPrefix + "type.googleapis.com/Cart", ByteString.EMPTY)
+        entity.send(init(ShoppingCart.Name, "cart", ValueEntityInitState(Some(patch))))
+        entity.expectFailure("Unexpected error")
+        entity.expectClosed()
+      }
+    }
+
     "fail when command entity id is incorrect" in {
       service.expectLogError("Terminating entity [cart2] due to unexpected failure for command [foo]") {
         val entity = protocol.valueEntity.connect()
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2021 Lightbend Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package kalix.javasdk.impl.workflow
+
+import java.time.Duration
+import java.util.Optional
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CompletionStage
+
+import scala.concurrent.Await
+import scala.concurrent.duration._
+import scala.jdk.CollectionConverters._
+import scala.jdk.OptionConverters._
+
+import kalix.javasdk.impl.AnySupport
+import kalix.javasdk.impl.workflow.ParallelBranches.ParallelStepFailed
+import kalix.javasdk.workflow.Workflow.ParallelStep
+import kalix.javasdk.workflow.Workflow.ParallelStep.Completion
+import org.scalatest.matchers.should.Matchers
+import org.scalatest.wordspec.AnyWordSpec
+
+class ParallelBranchesSpec extends AnyWordSpec with Matchers {
+
+  private val anySupport = new AnySupport(Array.empty, getClass.getClassLoader)
+
+  private def step(
+      completion: Completion,
+      quorum: Int = 0,
+      branchTimeout: Option[Duration] = None): ParallelStep[Void, Any, _] =
+    new ParallelStep[Void, Any, Any](
+      "parallel",
+      classOf[Void],
+      (_: Void) => java.util.List.of[CompletionStage[Any]](),
+      completion,
+      quorum,
+      branchTimeout.toJava,
+      classOf[Any],
+      _ => null)
+
+  private def collect(
+      step: ParallelStep[_, _, _],
+      branches: CompletableFuture[Any]*): scala.concurrent.Future[Seq[Option[Any]]] =
+    ParallelBranches.collect(step, branches)
+
+  "Parallel branches" should {
+
+    "complete once all branches succeeded" in {
+      val first = new CompletableFuture[Any]()
+      val second = new CompletableFuture[Any]()
+      val result = collect(step(Completion.ALL_OF), first, second)
+
+      second.complete("b")
+      result.isCompleted shouldBe false
+      first.complete("a")
+      Await.result(result, 3.seconds) shouldBe Seq(Some("a"), Some("b"))
+    }
+
+    "fail an all-of step as soon as one branch failed" in {
+      val first = new CompletableFuture[Any]()
+      val result = collect(step(Completion.ALL_OF), first, new CompletableFuture[Any]())
+
+      first.completeExceptionally(new RuntimeException("boom"))
+      intercept[ParallelStepFailed](Await.result(result, 3.seconds)).failures shouldBe 1
+    }
+
+    "complete an any-of step with the first success, despite failures" in {
+      val first = new CompletableFuture[Any]()
+      val second = new CompletableFuture[Any]()
+      val result = collect(step(Completion.ANY_OF), first, second, new CompletableFuture[Any]())
+
+      first.completeExceptionally(new RuntimeException("boom"))
+      second.complete("b")
+      Await.result(result, 3.seconds) shouldBe Seq(None, Some("b"), None)
+    }
+
+    "complete a quorum step once enough branches succeeded" in {
+      val branches = Seq.fill(3)(new CompletableFuture[Any]())
+      val result = collect(step(Completion.QUORUM, quorum = 2), branches: _*)
+
+      branches(0).complete("a")
+      result.isCompleted shouldBe false
+      branches(2).complete("c")
+      Await.result(result, 3.seconds) shouldBe Seq(Some("a"), None, Some("c"))
+    }
+
+    "reject a quorum larger than the number of branches" in {
+      intercept[IllegalArgumentException](collect(step(Completion.QUORUM, quorum = 3), new CompletableFuture[Any]()))
+    }
+
+    "count a branch exceeding its timeout as failed" in {
+      val result =
+        collect(step(Completion.ALL_OF, branchTimeout = Some(Duration.ofMillis(50))), new CompletableFuture[Any]())
+      intercept[ParallelStepFailed](Await.result(result, 3.seconds))
+    }
+
+    "carry the branch results to the transition" in {
+      val encoded = ParallelBranches.encode(Seq(Some("a"), None, Some(42)), anySupport)
+      encoded.typeUrl shouldBe ParallelBranches.TypeUrl
+
+      val decoded = ParallelBranches.decode(encoded, anySupport)
+      decoded.branchCount() shouldBe 3
+      decoded.successCount() shouldBe 2
+      decoded.results().asScala shouldBe Seq("a", 42)
+      decoded.result(1) shouldBe Optional.empty()
+    }
+  }
+}
@@ -39,6 +39,7 @@ import com.example.wiring.views.UserCountersView;
 import com.example.wiring.views.UserWithVersion;
 import com.example.wiring.views.UserWithVersionView;
 import com.example.wiring.views.UsersByEmail;
+import com.example.wiring.views.UsersByNameSortedByEmail;
 import com.google.protobuf.any.Any;
 import kalix.javasdk.DeferredCall;
 import kalix.javasdk.Metadata;
@@ -58,7 +59,9 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.Signal;
 
 import java.time.Duration;
 import java.time.Instant;
@@ -496,6 +499,40 @@ public class SpringSdkIntegrationTest {
         new IsEqual(2));
   }
 
+  @Test
+  public void verifyStreamedViewQueryThroughComponentClient() {
+
+    TestUser carol = new TestUser("streamed-user3", "carol@example.com", "streamed");
+    TestUser alice = new TestUser("streamed-user1", "alice@example.com", "streamed");
+    TestUser bob = new TestUser("streamed-user2", "bob@example.com", "streamed");
+    createUser(carol);
+    createUser(alice);
+    createUser(bob);
+
+    // the view is eventually updated
+    await()
+      .ignoreExceptions()
+      .atMost(20, TimeUnit.SECONDS)
+      .untilAsserted(() -> {
+        Flux<User> users = execute(componentClient.forView()
+          .call(UsersByNameSortedByEmail::getUsers)
+          .params("streamed"));
+
+        List<Signal<User>> signals = users.materialize().collectList().block(timeout);
+        assertThat(signals).hasSize(4);
+        assertThat(signals.subList(0, 3)).extracting(signal -> signal.get().email)
+          .containsExactly(alice.email, bob.email, carol.email);
+        assertThat(signals.get(3).isOnComplete()).isTrue();
+      });
+
+    // the stream is cancelled once enough elements are taken
+    Flux<User> users = execute(componentClient.forView()
+      .call(UsersByNameSortedByEmail::getUsers)
+      .params("streamed"));
+    List<String> firstTwo = users.take(2).map(user -> user.email).collectList().block(timeout);
+    assertThat(firstTwo).containsExactly(alice.email, bob.email);
+  }
+
   @Test
   public void verifyMultiTableViewForUserCounters() {
 
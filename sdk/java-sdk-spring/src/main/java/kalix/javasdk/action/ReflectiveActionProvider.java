@@ -24,7 +24,10 @@ import kalix.javasdk.impl.ComponentDescriptor;
 import kalix.javasdk.impl.ComponentDescriptorFactory;
 import kalix.javasdk.impl.JsonMessageCodec;
 import kalix.javasdk.impl.action.ReflectiveActionRouter;
+import kalix.javasdk.impl.action.SubscriptionBatcher;
+import scala.collection.immutable.Map;
 
+import java.lang.reflect.Method;
 import java.util.Optional;
 import java.util.function.Function;
 
@@ -37,6 +40,8 @@ public class ReflectiveActionProvider<A extends Action> implements ActionProvide
   private final Descriptors.ServiceDescriptor serviceDescriptor;
   private final ComponentDescriptor componentDescriptor;
   private final JsonMessageCodec messageCodec;
+  // shared by the per call action instances, for the messages to be batched across them
+  private final Map<Method, SubscriptionBatcher> batchers;
 
   public static <A extends Action> ReflectiveActionProvider<A> of(
       Class<A> cls,
@@ -56,6 +61,7 @@ public class ReflectiveActionProvider<A extends Action> implements ActionProvide
     this.messageCodec = messageCodec;
 
     this.componentDescriptor = ComponentDescriptor.descriptorFor(cls, messageCodec);
+    this.batchers = SubscriptionBatcher.batchersFor(cls);
 
     this.fileDescriptor = componentDescriptor.fileDescriptor();
     this.serviceDescriptor = componentDescriptor.serviceDescriptor();
@@ -74,7 +80,7 @@ public class ReflectiveActionProvider<A extends Action> implements ActionProvide
   @Override
   public ActionRouter<A> newRouter(ActionCreationContext context) {
     A action = factory.apply(context);
-    return new ReflectiveActionRouter<>(action, componentDescriptor.commandHandlers(), ComponentDescriptorFactory.findIgnore(action.getClass()));
+    return new ReflectiveActionRouter<>(action, componentDescriptor.commandHandlers(), ComponentDescriptorFactory.findIgnore(action.getClass()), batchers, context);
   }
 
   @Override
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2021 Lightbend Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package kalix.javasdk.annotations;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Annotation to tune how messages are grouped for a batch handler of an Action.
+ *
+ * A method subscribed to a topic or to a stream from another service with {@link Subscribe.Topic} or
+ * {@link Subscribe.Stream}, and receiving a {@code java.util.List} of messages instead of a single message, is a batch
+ * handler:
+ * <pre>{@code
+ * @Subscribe.Topic("orders")
+ * @Batch(maxSize = 200, maxWaitMillis = 10)
+ * public Effect<Done> onOrders(List<OrderPlaced> orders) {
+ *   return effects().asyncReply(repository.insertAll(orders));
+ * }
+ * }</pre>
+ *
+ * The messages arriving while a batch is being handled are grouped in the next batch, so that the handler is
+ * called once for up to {@link #maxSize()} messages. Each message is acknowledged when the effect of its batch
+ * completes, and if the effect fails, all messages of the batch are redelivered. Messages are passed in the order in
+ * which they arrived.
+ *
+ * A batch handler must not publish its result with {@link Publish.Topic}, and since a batch groups messages with
+ * different metadata, the action context is not available from it.
+ *
+ * Without this annotation, a batch handler uses the default values.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Batch {
+
+  /** The maximum number of messages in a batch. */
+  int maxSize() default 100;
+
+  /**
+   * How long to wait for more messages before handling a batch smaller than {@link #maxSize()}, when no other
+   * batch is being handled. The default of zero handles the available messages right away, adding no latency.
+   */
+  long maxWaitMillis() default 0;
+}
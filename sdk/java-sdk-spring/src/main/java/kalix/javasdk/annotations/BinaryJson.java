@@ -0,0 +1,40 @@
+/*
+ * Copyright 2021 Lightbend Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package kalix.javasdk.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Annotation to encode a type as Smile, the binary JSON format, instead of JSON text.
+ *
+ * Smile is more compact and faster to parse than JSON text, which benefits large entity states and high volume events.
+ * The annotation applies to the annotated class and to all its subtypes, so annotating the common interface of the
+ * events of an entity covers all of them.
+ *
+ * Values of the annotated type can only be read by the service itself. Therefore, it must not be used for the state of
+ * views, or for messages published to topics or exchanged with other services.
+ *
+ * Values are decoded from both JSON and Smile, so the annotation can be added to, or removed from, a type with
+ * already persisted values.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface BinaryJson {
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2021 Lightbend Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package kalix.javasdk.client;
+
+import kalix.javasdk.DeferredCall;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Function;
+
+/**
+ * A batch of calls to other Kalix components, one per id, executed with bounded parallelism.
+ * <p>
+ * Created through {@link ComponentClient#callAll(Collection, Function)}, for example:
+ * <pre>{@code
+ * CompletionStage<List<Cart>> carts =
+ *   componentClient.callAll(cartIds, id -> componentClient.forEventSourcedEntity(id).call(CartEntity::getCart))
+ *     .withParallelism(20)
+ *     .execute();
+ * }</pre>
+ * <p>
+ * The component method and its REST mapping are resolved once for the method reference and reused for all ids,
+ * so building the calls is cheap even for large batches.
+ * <p>
+ * Not for user extension, instances are immutable.
+ *
+ * @param <R> The type of the result of each call
+ */
+public final class BatchCall<R> {
+
+  /** The default number of calls in flight at the same time. */
+  public static final int DEFAULT_PARALLELISM = 16;
+
+  /** The outcome of one call in the batch. */
+  public static final class Result<R> {
+    private final String id;
+    private final Optional<R> value;
+    private final Optional<Throwable> error;
+
+    private Result(String id, Optional<R> value, Optional<Throwable> error) {
+      this.id = id;
+      this.value = value;
+      this.error = error;
+    }
+
+    /** @return the id the call was made for */
+    public String id() {
+      return id;
+    }
+
+    /** @return true if the call completed successfully */
+    public boolean isSuccess() {
+      return error.isEmpty();
+    }
+
+    /** @return the reply of the call, empty if the call failed */
+    public Optional<R> value() {
+      return value;
+    }
+
+    /** @return the failure of the call, empty if the call succeeded */
+    public Optional<Throwable> error() {
+      return error;
+    }
+
+    @Override
+    public String toString() {
+      return error.map(e -> "Result(" + id + ", failed: " + e + ")")
+          .orElseGet(() -> "Result(" + id + ", " + value.orElse(null) + ")");
+    }
+  }
+
+  private final List<String> ids;
+  private final Function<String, ? extends DeferredCall<?, R>> callFactory;
+  private final int parallelism;
+  private final Optional<Duration> callTimeout;
+
+  BatchCall(Collection<String> ids, Function<String, ? extends DeferredCall<?, R>> callFactory) {
+    this(List.copyOf(ids), callFactory, DEFAULT_PARALLELISM, Optional.empty());
+  }
+
+  private BatchCall(
+      List<String> ids,
+      Function<String, ? extends DeferredCall<?, R>> callFactory,
+      int parallelism,
+      Optional<Duration> callTimeout) {
+    this.ids = ids;
+    this.callFactory = callFactory;
+    this.parallelism = parallelism;
+    this.callTimeout = callTimeout;
+  }
+
+  /**
+   * @param parallelism the max number of calls in flight at the same time, must be at least 1
+   * @return a copy of this batch with the given parallelism
+   */
+  public BatchCall<R> withParallelism(int parallelism) {
+    if (parallelism < 1)
+      throw new IllegalArgumentException("Parallelism must be at least 1, was " + parallelism);
+    return new BatchCall<>(ids, callFactory, parallelism, callTimeout);
+  }
+
+  /**
+   * @param timeout the time each individual call may take before it is failed with a {@link
+   *     java.util.concurrent.TimeoutException}
+   * @return a copy of this batch with the given per call timeout
+   */
+  public BatchCall<R> withCallTimeout(Duration timeout) {
+    return new BatchCall<>(ids, callFactory, parallelism, Optional.of(timeout));
+  }
+
+  /**
+   * Execute all calls.
+   *
+   * @return the replies in the same order as the ids, or the first failure if any of the calls failed
+   */
+  public CompletionStage<List<R>> execute() {
+    return Flux.fromIterable(ids)
+        .flatMapSequential(this::callFor, parallelism)
+        .collectList()
+        .toFuture();
+  }
+
+  /**
+   * Execute all calls, collecting failures instead of failing the whole batch.
+   *
+   * @return the outcome of each call, in the same order as the ids
+   */
+  public CompletionStage<List<Result<R>>> executeAll() {
+    return Flux.fromIterable(ids)
+        .flatMapSequential(this::resultFor, parallelism)
+        .collectList()
+        .toFuture();
+  }
+
+  /**
+   * Execute the calls lazily, as the returned stream is consumed. No more than the configured parallelism of calls
+   * are in flight at the same time, and a slow consumer slows down the calls.
+   *
+   * @return the outcome of each call, in the order the calls completed
+   */
+  public Flux<Result<R>> stream() {
+    return Flux.fromIterable(ids).flatMap(this::resultFor, parallelism);
+  }
+
+  private Mono<R> callFor(String id) {
+    Mono<R> reply = Mono.fromCompletionStage(() -> callFactory.apply(id).execute());
+    return callTimeout.map(reply::timeout).orElse(reply);
+  }
+
+  private Mono<Result<R>> resultFor(String id) {
+    return callFor(id)
+        .map(value -> new Result<>(id, Optional.of(value), Optional.<Throwable>empty()))
+        .onErrorResume(error -> Mono.just(new Result<>(id, Optional.<R>empty(), Optional.of(error))));
+  }
+}
@@ -16,8 +16,12 @@
 
 package kalix.javasdk.client;
 
+import kalix.javasdk.DeferredCall;
 import kalix.spring.KalixClient;
 
+import java.util.Collection;
+import java.util.function.Function;
+
 /**
  * Utility to send requests to other Kalix components by composing a DeferredCall. To compose a call:
  * 1. select component type (and pass id if necessary)
@@ -110,4 +114,21 @@ public class ComponentClient {
     return new ViewCallBuilder(kalixClient);
   }
 
+  /**
+   * Create a batch of calls, one for each of the given ids, to execute with bounded parallelism.
+   * <p>
+   * Example of use:
+   * <pre>{@code
+   * componentClient.callAll(userIds, id -> componentClient.forValueEntity(id).call(UserEntity::getUser))
+   *   .withParallelism(10)
+   *   .execute();
+   * }</pre>
+   *
+   * @param ids  - the ids to create a call for
+   * @param call - creates the call for one id
+   */
+  public <R> BatchCall<R> callAll(Collection<String> ids, Function<String, ? extends DeferredCall<?, R>> call) {
+    return new BatchCall<>(ids, call);
+  }
+
 }
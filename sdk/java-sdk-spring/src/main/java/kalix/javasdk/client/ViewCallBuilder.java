@@ -47,6 +47,13 @@ import kalix.spring.KalixClient;
 import java.lang.reflect.Method;
 import java.util.Optional;
 
+/**
+ * Builds calls to View query methods.
+ * <p>
+ * Calls to query methods returning a {@code Flux<T>} produce a {@code DeferredCall<Any, Flux<T>>}. The returned
+ * {@code Flux} is lazy and decodes the query results one by one as they arrive, honouring the demand of its
+ * subscriber, so that large result sets do not have to be held in memory as a whole.
+ */
 public class ViewCallBuilder {
 
   private final KalixClient kalixClient;
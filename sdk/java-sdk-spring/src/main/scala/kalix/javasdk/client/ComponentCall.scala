@@ -20,6 +20,7 @@ import java.lang.reflect.Method
 import java.lang.reflect.ParameterizedType
 import java.util
 import java.util.Optional
+import java.util.concurrent.ConcurrentHashMap
 
 import scala.jdk.OptionConverters._
 
@@ -36,7 +37,6 @@ import kalix.javasdk.impl.reflection.RestServiceIntrospector
 import kalix.javasdk.impl.reflection.RestServiceIntrospector.BodyParameter
 import kalix.javasdk.impl.reflection.RestServiceIntrospector.PathParameter
 import kalix.javasdk.impl.reflection.RestServiceIntrospector.QueryParamParameter
-import kalix.javasdk.impl.reflection.RestServiceIntrospector.RestService
 import kalix.javasdk.impl.reflection.SyntheticRequestServiceMethod
 import kalix.javasdk.valueentity.ValueEntity
 import kalix.javasdk.workflow.Workflow
@@ -78,53 +78,125 @@ object ComponentCall {
       params: Seq[scala.Any],
       kalixClient: KalixClient,
       method: Method,
-      id: Option[String]): DeferredCall[Any, R] = {
+      id: Option[String]): DeferredCall[Any, R] =
+    callPlan(method).invoke(params, kalixClient.asInstanceOf[RestKalixClientImpl], id)
+
+  // everything that only depends on the method is resolved once per method and reused for all calls to it, kept per
+  // declaring class so that the plans don't keep the classes of a discarded class loader, such as on a devtools restart
+  private val callPlans = new ClassValue[ConcurrentHashMap[Method, CallPlan]] {
+    override def computeValue(declaringClass: Class[_]): ConcurrentHashMap[Method, CallPlan] =
+      new ConcurrentHashMap[Method, CallPlan]()
+  }
+
+  private def callPlan(method: Method): CallPlan =
+    callPlans.get(method.getDeclaringClass).computeIfAbsent(method, new CallPlan(_))
+
+  private final class CallPlan(method: Method) {
+
+    private val declaringClass = method.getDeclaringClass
 
-    val declaringClass = method.getDeclaringClass
+    private val returnType: Class[_] = getReturnType(declaringClass, method)
 
-    val returnType: Class[R] = getReturnType(declaringClass, method)
+    // view queries returning a Flux are streamed element by element rather than decoded as a single body
+    private val streamedElementType: Option[Class[_]] =
+      if (classOf[Flux[_]].isAssignableFrom(returnType)) Some(getFluxElementType(method)) else None
 
-    val restService: RestService = RestServiceIntrospector.inspectService(declaringClass)
-    val restMethod: SyntheticRequestServiceMethod =
-      restService.methods.find(_.javaMethod.getName == method.getName) match {
+    private val restMethod: SyntheticRequestServiceMethod =
+      RestServiceIntrospector.inspectService(declaringClass).methods.find(_.javaMethod.getName == method.getName) match {
         case Some(method) => method
         case None => throw new IllegalStateException(s"Method [${method.getName}] is not annotated as a REST endpoint.")
       }
 
-    val requestMethod: RequestMethod = restMethod.requestMethod
-
-    val queryParams: Map[String, util.List[scala.Any]] = restMethod.params
-      .collect { case p: QueryParamParameter => p }
-      .map(p => (p.name, getQueryParam(params, p.param.getParameterIndex)))
-      .toMap
-
-    val pathVariables: Map[String, ?] = restMethod.params
-      .collect { case p: PathParameter => p }
-      .map(p => (p.name, getPathParam(params, p.param.getParameterIndex, p.name)))
-      .toMap ++ idVariables(id, method)
-
-    val bodyIndex = restMethod.params.collect { case p: BodyParameter => p }.map(_.param.getParameterIndex).headOption
-    val body = bodyIndex.map(params(_))
-
-    val kalixClientImpl = kalixClient.asInstanceOf[RestKalixClientImpl]
-
-    val pathTemplate = restMethod.parsedPath.path
-
-    requestMethod match {
-      case RequestMethod.GET =>
-        kalixClientImpl.runWithoutBody(HttpMethods.GET, pathTemplate, pathVariables, queryParams, returnType)
-      case RequestMethod.HEAD => notSupported(requestMethod, pathTemplate)
-      case RequestMethod.POST =>
-        kalixClientImpl.runWithBody(HttpMethods.POST, pathTemplate, pathVariables, queryParams, body, returnType)
-      case RequestMethod.PUT =>
-        kalixClientImpl.runWithBody(HttpMethods.PUT, pathTemplate, pathVariables, queryParams, body, returnType)
-      case RequestMethod.PATCH =>
-        kalixClientImpl.runWithBody(HttpMethods.PATCH, pathTemplate, pathVariables, queryParams, body, returnType)
-      case RequestMethod.DELETE =>
-        kalixClientImpl.runWithoutBody(HttpMethods.DELETE, pathTemplate, pathVariables, queryParams, returnType)
-      case RequestMethod.OPTIONS => notSupported(requestMethod, pathTemplate)
-      case RequestMethod.TRACE   => notSupported(requestMethod, pathTemplate)
+    private val requestMethod: RequestMethod = restMethod.requestMethod
+
+    private val queryParamParameters = restMethod.params.collect { case p: QueryParamParameter => p }
+
+    private val pathParameters = restMethod.params.collect { case p: PathParameter => p }
+
+    private val bodyIndex: Option[Int] =
+      restMethod.params.collect { case p: BodyParameter => p }.map(_.param.getParameterIndex).headOption
+
+    private val pathTemplate = restMethod.parsedPath.path
+
+    private val idName: Option[String] =
+      if (declaringClass.getAnnotation(classOf[EntityType]) == null &&
+        declaringClass.getAnnotation(classOf[TypeId]) == null) {
+        //not an entity or workflows
+        None
+      } else if (IdExtractor.shouldGenerateId(method)) {
+        None
+      } else {
+        Some(IdExtractor.extractIds(declaringClass, method).head) //TODO handle compound keys
+      }
+
+    def invoke[R](params: Seq[scala.Any], kalixClientImpl: RestKalixClientImpl, id: Option[String]): DeferredCall[Any, R] = {
+
+      val queryParams: Map[String, util.List[scala.Any]] = queryParamParameters
+        .map(p => (p.name, getQueryParam(params, p.param.getParameterIndex)))
+        .toMap
+
+      val pathVariables: Map[String, ?] = pathParameters
+        .map(p => (p.name, getPathParam(params, p.param.getParameterIndex, p.name)))
+        .toMap ++ idVariables(id)
+
+      val body = bodyIndex.map(params(_))
+
+      streamedElementType match {
+        case Some(elementType) => stream(kalixClientImpl, pathVariables, queryParams, body, elementType)
+        case None => call(kalixClientImpl, pathVariables, queryParams, body, returnType.asInstanceOf[Class[R]])
+      }
     }
+
+    private def stream[R](
+        kalixClientImpl: RestKalixClientImpl,
+        pathVariables: Map[String, ?],
+        queryParams: Map[String, util.List[scala.Any]],
+        body: Option[scala.Any],
+        elementType: Class[_]): DeferredCall[Any, R] = {
+      val httpMethod = requestMethod match {
+        case RequestMethod.GET    => HttpMethods.GET
+        case RequestMethod.POST   => HttpMethods.POST
+        case RequestMethod.PUT    => HttpMethods.PUT
+        case RequestMethod.PATCH  => HttpMethods.PATCH
+        case RequestMethod.DELETE => HttpMethods.DELETE
+        case _                    => notSupported(requestMethod, pathTemplate)
+      }
+      kalixClientImpl
+        .runStreamed(httpMethod, pathTemplate, pathVariables, queryParams, body, elementType)
+        .asInstanceOf[DeferredCall[Any, R]]
+    }
+
+    private def call[R](
+        kalixClientImpl: RestKalixClientImpl,
+        pathVariables: Map[String, ?],
+        queryParams: Map[String, util.List[scala.Any]],
+        body: Option[scala.Any],
+        typedReturnType: Class[R]): DeferredCall[Any, R] =
+      requestMethod match {
+        case RequestMethod.GET =>
+          kalixClientImpl.runWithoutBody(HttpMethods.GET, pathTemplate, pathVariables, queryParams, typedReturnType)
+        case RequestMethod.HEAD => notSupported(requestMethod, pathTemplate)
+        case RequestMethod.POST =>
+          kalixClientImpl.runWithBody(HttpMethods.POST, pathTemplate, pathVariables, queryParams, body, typedReturnType)
+        case RequestMethod.PUT =>
+          kalixClientImpl.runWithBody(HttpMethods.PUT, pathTemplate, pathVariables, queryParams, body, typedReturnType)
+        case RequestMethod.PATCH =>
+          kalixClientImpl.runWithBody(HttpMethods.PATCH, pathTemplate, pathVariables, queryParams, body, typedReturnType)
+        case RequestMethod.DELETE =>
+          kalixClientImpl.runWithoutBody(HttpMethods.DELETE, pathTemplate, pathVariables, queryParams, typedReturnType)
+        case RequestMethod.OPTIONS => notSupported(requestMethod, pathTemplate)
+        case RequestMethod.TRACE   => notSupported(requestMethod, pathTemplate)
+      }
+
+    private def idVariables(id: Option[String]): Map[String, String] =
+      idName match {
+        case None => Map.empty
+        case Some(name) =>
+          id match {
+            case Some(value) => Map(name -> value)
+            case None        => throw new IllegalStateException(s"Id is missing while calling ${method.getName}")
+          }
+      }
   }
 
   private def getReturnType[R](declaringClass: Class[_], method: Method): Class[R] = {
@@ -136,15 +208,24 @@ object ComponentCall {
       method.getGenericReturnType.asInstanceOf[ParameterizedType].getActualTypeArguments.head.asInstanceOf[Class[R]]
     } else {
       // in other cases we expect a View query method, but declaring class may not extend View[_] class for join views
-      val viewReturnType = method.getReturnType
-      if (classOf[Flux[_]].isAssignableFrom(viewReturnType)) {
-        throw new IllegalStateException("Deferred call with a Flux<?> response type are currently not supported.")
-      } else {
-        viewReturnType.asInstanceOf[Class[R]]
-      }
+      method.getReturnType.asInstanceOf[Class[R]]
     }
   }
 
+  private def getFluxElementType(method: Method): Class[_] =
+    method.getGenericReturnType match {
+      case fluxType: ParameterizedType =>
+        fluxType.getActualTypeArguments.head match {
+          case elementType: Class[_] => elementType
+          case other =>
+            throw new IllegalStateException(
+              s"Streamed View query method [${method.getName}] must return a Flux of a concrete type, was [$other].")
+        }
+      case _ =>
+        throw new IllegalStateException(
+          s"Streamed View query method [${method.getName}] must declare the element type of the returned Flux.")
+    }
+
   private def getQueryParam(params: Seq[scala.Any], parameterIndex: Int): util.List[scala.Any] = {
     val value = params(parameterIndex)
     if (value == null) {
@@ -167,24 +248,6 @@ object ComponentCall {
   private def notSupported(requestMethod: RequestMethod, pathTemplate: String) = {
     throw new IllegalStateException(s"HTTP $requestMethod not supported when calling $pathTemplate")
   }
-
-  private def idVariables(id: Option[String], method: Method): Map[String, String] = {
-
-    val declaringClass = method.getDeclaringClass
-    if (declaringClass.getAnnotation(classOf[EntityType]) == null &&
-      declaringClass.getAnnotation(classOf[TypeId]) == null) {
-      //not an entity or workflows
-      Map.empty
-    } else if (IdExtractor.shouldGenerateId(method)) {
-      Map.empty
-    } else {
-      val idNames = IdExtractor.extractIds(declaringClass, method)
-      id match {
-        case Some(value) => Map(idNames.head -> value) //TODO handle compound keys
-        case None        => throw new IllegalStateException(s"Id is missing while calling ${method.getName}")
-      }
-    }
-  }
 }
 
 // format: off
@@ -20,6 +20,8 @@ import java.lang.reflect.Method
 
 import com.fasterxml.jackson.annotation.JsonSubTypes
 import com.google.protobuf.Descriptors
+import kalix.javasdk.JsonSupport
+import kalix.javasdk.impl.action.SubscriptionBatcher
 import kalix.javasdk.impl.reflection.ParameterExtractor
 import org.slf4j.LoggerFactory
 
@@ -40,7 +42,7 @@ case class CommandHandler(
    */
   private def lookupMethodAcceptingSubType(inputTypeUrl: String): Option[MethodInvoker] = {
     methodInvokers.values.find { javaMethod =>
-      val lastParam = javaMethod.method.getParameterTypes.last
+      val lastParam = SubscriptionBatcher.messageType(javaMethod.method)
       if (lastParam.getAnnotation(classOf[JsonSubTypes]) != null) {
         lastParam.getAnnotation(classOf[JsonSubTypes]).value().exists { subType =>
           inputTypeUrl == messageCodec.typeUrlFor(subType.value())
@@ -49,10 +51,13 @@ case class CommandHandler(
     }
   }
 
-  def lookupInvoker(inputTypeUrl: String): Option[MethodInvoker] =
+  def lookupInvoker(inputTypeUrl: String): Option[MethodInvoker] = {
+    // invokers are registered by JSON type url, but the payload may be Smile encoded
+    val jsonTypeUrl = JsonSupport.toJsonTypeUrl(inputTypeUrl)
     methodInvokers
-      .get(inputTypeUrl)
-      .orElse(lookupMethodAcceptingSubType(inputTypeUrl))
+      .get(jsonTypeUrl)
+      .orElse(lookupMethodAcceptingSubType(jsonTypeUrl))
+  }
 
   def getInvoker(inputTypeUrl: String): MethodInvoker =
     lookupInvoker(inputTypeUrl).getOrElse {
@@ -39,6 +39,7 @@ import com.google.protobuf.Descriptors.FileDescriptor
 import com.google.protobuf.Empty
 import com.google.protobuf.{ Any => JavaPbAny }
 import kalix.javasdk.impl.AnySupport.ProtobufEmptyTypeUrl
+import kalix.javasdk.impl.action.SubscriptionBatcher
 import kalix.javasdk.impl.reflection.AnyJsonRequestServiceMethod
 import kalix.javasdk.impl.reflection.CombinedSubscriptionServiceMethod
 import kalix.javasdk.impl.reflection.DeleteServiceMethod
@@ -181,7 +182,8 @@ private[kalix] object ComponentDescriptor {
     val methodOptions = MethodOptions.newBuilder()
 
     kalixMethod.serviceMethod match {
-      case syntheticRequestServiceMethod: SyntheticRequestServiceMethod =>
+      // stream in calls can't be transcoded from HTTP, they are only exposed over gRPC
+      case syntheticRequestServiceMethod: SyntheticRequestServiceMethod if !syntheticRequestServiceMethod.streamIn =>
         val httpRuleBuilder = buildHttpRule(syntheticRequestServiceMethod)
         syntheticRequestServiceMethod.params.collectFirst { case BodyParameter(_, _) =>
           httpRuleBuilder.setBody("json_body")
@@ -250,7 +252,10 @@ private[kalix] object ComponentDescriptor {
           val methodInvokers =
             method.methodsMap.map { case (typeUrl, meth) =>
               val parameterExtractors: ParameterExtractorsArray =
-                meth.getParameterTypes.map(param => ParameterExtractors.AnyBodyExtractor[AnyRef](param))
+                if (SubscriptionBatcher.isBatchHandler(meth))
+                  Array(ParameterExtractors.AnyBodyExtractor[AnyRef](SubscriptionBatcher.messageType(meth)))
+                else
+                  meth.getParameterTypes.map(param => ParameterExtractors.AnyBodyExtractor[AnyRef](param))
 
               (typeUrl, MethodInvoker(meth, parameterExtractors))
             }
@@ -330,6 +335,9 @@ private[kalix] object ComponentDescriptor {
               // note: we only take RequestBody that are Collections
               if classOf[util.Collection[_]].isAssignableFrom(paramType.getRawType.asInstanceOf[Class[_]]) =>
             Some(idx -> collectionBodyFieldExtractors(paramType))
+          case _ if serviceMethod.streamIn =>
+            // each element of the stream is a synthetic request, the Flux itself is built by the router
+            Some(idx -> streamInBodyFieldExtractor(ServiceMethod.streamInElementType(serviceMethod.javaMethod)))
           case _ =>
             bodyFieldExtractors(indexedParams)
         }
@@ -518,6 +526,12 @@ private[kalix] object ComponentDescriptor {
     }
   }
 
+  private def streamInBodyFieldExtractor(elementType: Class[_]): ExtractorCreator =
+    new ExtractorCreator {
+      override def apply(descriptor: Descriptors.Descriptor): ParameterExtractor[DynamicMessageContext, AnyRef] =
+        new ParameterExtractors.BodyExtractor(descriptor.findFieldByNumber(1), elementType)
+    }
+
   private def collectionBodyFieldExtractors[T](paramType: ParameterizedType): ExtractorCreator =
     new ExtractorCreator {
       override def apply(descriptor: Descriptors.Descriptor): ParameterExtractor[DynamicMessageContext, AnyRef] = {
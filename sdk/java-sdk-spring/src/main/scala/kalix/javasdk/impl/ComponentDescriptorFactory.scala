@@ -44,6 +44,7 @@ import kalix.javasdk.annotations.Table
 import kalix.javasdk.annotations.TypeId
 import kalix.javasdk.annotations.ViewId
 import kalix.javasdk.eventsourcedentity.EventSourcedEntity
+import kalix.javasdk.impl.action.SubscriptionBatcher
 import kalix.javasdk.impl.reflection.CombinedSubscriptionServiceMethod
 import kalix.javasdk.impl.reflection.KalixMethod
 import kalix.javasdk.impl.reflection.NameGenerator
@@ -473,9 +474,9 @@ private[impl] object ComponentDescriptorFactory {
       case (source, kMethods) if kMethods.size > 1 =>
         val methodsMap =
           kMethods.map { k =>
-            val methodParameterTypes = k.serviceMethod.javaMethodOpt.get.getParameterTypes
             // it is safe to pick the last parameter. An action has one and View has two. In the View always the last is the event
-            val eventParameter = methodParameterTypes.last
+            // and for an action batch handler it is the element type of the list
+            val eventParameter = SubscriptionBatcher.messageType(k.serviceMethod.javaMethodOpt.get)
 
             val typeUrl = messageCodec.typeUrlFor(eventParameter)
             (typeUrl, k.serviceMethod.javaMethodOpt.get)
@@ -24,6 +24,7 @@ import java.util.concurrent.ConcurrentMap
 import com.google.protobuf.any.{ Any => ScalaPbAny }
 import com.google.protobuf.{ Any => JavaPbAny }
 import kalix.javasdk.JsonSupport
+import kalix.javasdk.annotations.BinaryJson
 import kalix.javasdk.annotations.TypeName
 import kalix.javasdk.impl.AnySupport.BytesPrimitive
 import org.slf4j.LoggerFactory
@@ -33,6 +34,7 @@ private[kalix] class JsonMessageCodec extends MessageCodec {
   private val log = LoggerFactory.getLogger(getClass)
 
   private val cache: ConcurrentMap[Class[_], String] = new ConcurrentHashMap()
+  private val binaryCache: ConcurrentMap[Class[_], java.lang.Boolean] = new ConcurrentHashMap()
   private[kalix] val reversedCache: ConcurrentMap[String, Class[_]] = new ConcurrentHashMap()
 
   /**
@@ -44,7 +46,7 @@ private[kalix] class JsonMessageCodec extends MessageCodec {
       case javaPbAny: JavaPbAny   => ScalaPbAny.fromJavaProto(javaPbAny)
       case scalaPbAny: ScalaPbAny => scalaPbAny
       case bytes: Array[Byte]     => ScalaPbAny.fromJavaProto(JavaPbAny.pack(BytesValue.of(ByteString.copyFrom(bytes))))
-      case other                  => ScalaPbAny.fromJavaProto(JsonSupport.encodeJson(other, lookupTypeHint(other)))
+      case other                  => ScalaPbAny.fromJavaProto(encodeObject(other))
     }
   }
 
@@ -53,10 +55,17 @@ private[kalix] class JsonMessageCodec extends MessageCodec {
     value match {
       case javaPbAny: JavaPbAny   => javaPbAny
       case scalaPbAny: ScalaPbAny => ScalaPbAny.toJavaProto(scalaPbAny)
-      case other                  => JsonSupport.encodeJson(other, lookupTypeHint(other))
+      case other                  => encodeObject(other)
     }
   }
 
+  private def encodeObject(value: Any): JavaPbAny =
+    if (isBinary(value.getClass)) JsonSupport.encodeSmile(value, lookupTypeHint(value))
+    else JsonSupport.encodeJson(value, lookupTypeHint(value))
+
+  private def isBinary(clz: Class[_]): Boolean =
+    binaryCache.computeIfAbsent(clz, cls => JsonMessageCodec.isBinaryJson(cls))
+
   private def lookupTypeHint(value: Any): String =
     lookupTypeHint(value.getClass)
 
@@ -82,6 +91,10 @@ private[kalix] class JsonMessageCodec extends MessageCodec {
     typeName
   }
 
+  /**
+   * The type url used to route a type to its handlers, which is the JSON type url even for Smile encoded types, see
+   * [[JsonSupport.toJsonTypeUrl]].
+   */
   def typeUrlFor(clz: Class[_]) = {
     if (clz == classOf[Array[Byte]]) {
       BytesPrimitive.fullName
@@ -95,6 +108,16 @@ private[kalix] class JsonMessageCodec extends MessageCodec {
   }
 }
 
+private[kalix] object JsonMessageCodec {
+
+  /**
+   * Types annotated with BinaryJson, or with a supertype annotated with it, are encoded as Smile.
+   */
+  def isBinaryJson(clz: Class[_]): Boolean =
+    (clz ne null) && ((clz.getAnnotation(classOf[BinaryJson]) ne null) ||
+    isBinaryJson(clz.getSuperclass) || clz.getInterfaces.exists(isBinaryJson))
+}
+
 /**
  * Used in workflows where it is necessary to decode message directly to Java class for calls and transitions. This
  * behavior is not correct for other components (Action, Views) where e.g. subscription can't decode the payload to Java
@@ -103,9 +126,9 @@ private[kalix] class JsonMessageCodec extends MessageCodec {
 private[kalix] class StrictJsonMessageCodec(delegate: JsonMessageCodec) extends MessageCodec {
 
   override def decodeMessage(value: ScalaPbAny): Any =
-    if (value.typeUrl.startsWith(JsonSupport.KALIX_JSON)) {
+    if (JsonSupport.isJson(value.typeUrl)) {
       val any = ScalaPbAny.toJavaProto(value)
-      val typeName = value.typeUrl.replace(JsonSupport.KALIX_JSON, "")
+      val typeName = JsonSupport.toJsonTypeUrl(value.typeUrl).stripPrefix(JsonSupport.KALIX_JSON)
       val typeClass = delegate.reversedCache.get(typeName)
       if (typeClass == null) {
         throw new IllegalStateException(s"Cannot decode ${value.typeUrl} message type. Class mapping not found.")
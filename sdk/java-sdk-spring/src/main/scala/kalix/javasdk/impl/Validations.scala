@@ -23,6 +23,7 @@ import java.lang.reflect.ParameterizedType
 import scala.reflect.ClassTag
 
 import kalix.javasdk.action.Action
+import kalix.javasdk.annotations.Batch
 import kalix.javasdk.annotations.Publish
 import kalix.javasdk.annotations.Query
 import kalix.javasdk.annotations.Subscribe
@@ -49,6 +50,7 @@ import kalix.javasdk.impl.ComponentDescriptorFactory.hasUpdateEffectOutput
 import kalix.javasdk.impl.ComponentDescriptorFactory.hasValueEntitySubscription
 import kalix.javasdk.impl.ComponentDescriptorFactory.streamSubscription
 import kalix.javasdk.impl.ComponentDescriptorFactory.topicSubscription
+import kalix.javasdk.impl.action.SubscriptionBatcher
 import kalix.javasdk.impl.reflection.ReflectionUtils
 import kalix.javasdk.impl.reflection.ServiceMethod
 import kalix.javasdk.view.View
@@ -57,6 +59,7 @@ import kalix.spring.impl.KalixSpringApplication
 // TODO: abstract away spring and reactor dependencies
 import org.springframework.web.bind.annotation.RequestBody
 import reactor.core.publisher.Flux
+import reactor.core.publisher.Mono
 
 object Validations {
 
@@ -117,7 +120,7 @@ object Validations {
     implicitly[ClassTag[T]].runtimeClass.asInstanceOf[Class[T]].isAssignableFrom(component)
 
   private def commonValidation(component: Class[_]): Validation = {
-    noRestStreamIn(component)
+    streamInValidations(component)
   }
 
   private def commonSubscriptionValidation(
@@ -144,7 +147,8 @@ object Validations {
     when[Action](component) {
       commonValidation(component) ++
       commonSubscriptionValidation(component, hasActionOutput) ++
-      actionValidation(component)
+      actionValidation(component) ++
+      batchHandlerValidations(component)
     }
   }
 
@@ -159,6 +163,41 @@ object Validations {
     }
   }
 
+  private def batchHandlerValidations(component: Class[_]): Validation = {
+    val batchMethods = component.getMethods.toIndexedSeq.filter { method =>
+      SubscriptionBatcher.isBatchHandler(method) || method.getAnnotation(classOf[Batch]) != null
+    }
+    val messages =
+      batchMethods.sorted.flatMap { method =>
+        val subscription =
+          when(!SubscriptionBatcher.isBatchHandler(method)) {
+            Invalid(
+              errorMessage(
+                method,
+                "@Batch can only annotate a batch handler, receiving a list of messages from a topic or a stream. " +
+                "Annotate it, or its class, with @Subscribe.Topic, or its class with @Subscribe.Stream."))
+          }
+        val elementType =
+          when(SubscriptionBatcher.isBatchHandler(method) && SubscriptionBatcher.batchElementType(method).isEmpty) {
+            Invalid(
+              errorMessage(method, "The list of messages of a batch handler must declare a concrete element type."))
+          }
+        val publication =
+          when(hasTopicPublication(method)) {
+            Invalid(errorMessage(method, "A batch handler can't publish its result with @Publish.Topic."))
+          }
+        val invalidBatch = Option(method.getAnnotation(classOf[Batch])).exists { batch =>
+          batch.maxSize() < 1 || batch.maxWaitMillis() < 0
+        }
+        val size =
+          when(invalidBatch) {
+            Invalid(errorMessage(method, "@Batch maxSize must be positive and maxWaitMillis can't be negative."))
+          }
+        Seq(subscription, elementType, publication, size)
+      }
+    messages.fold(Valid)(_ ++ _)
+  }
+
   private def validateView(component: Class[_]): Validation = {
     when[View[_]](component) {
       validateSingleView(component)
@@ -178,8 +217,24 @@ object Validations {
     commonSubscriptionValidation(component, hasUpdateEffectOutput) ++
     viewMustHaveTableName(component) ++
     viewMustHaveMethodLevelSubscriptionWhenTransformingUpdates(component) ++
-    streamUpdatesQueryMustReturnFlux(component)
-  }
+    streamUpdatesQueryMustReturnFlux(component) ++
+    viewStateMustNotBeBinaryJson(component)
+  }
+
+  private def viewStateMustNotBeBinaryJson(component: Class[_]): Validation =
+    component.getGenericSuperclass match {
+      case parameterized: ParameterizedType =>
+        parameterized.getActualTypeArguments.head match {
+          case stateType: Class[_] if JsonMessageCodec.isBinaryJson(stateType) =>
+            Validation(
+              errorMessage(
+                component,
+                s"View state type [${stateType.getName}] must not be annotated with @BinaryJson, " +
+                "view state is stored as JSON."))
+          case _ => Valid
+        }
+      case _ => Valid
+    }
 
   private def errorMessage(element: AnnotatedElement, message: String): String = {
     val elementStr =
@@ -232,7 +287,7 @@ object Validations {
     if (hasSubscription(component)) {
       val effectMethodsByInputParams: Map[Option[Class[_]], IndexedSeq[Method]] = methods
         .filter(updateMethodPredicate)
-        .groupBy(_.getParameterTypes.lastOption)
+        .groupBy(handledMessageType)
 
       Validation(ambiguousHandlersErrors(effectMethodsByInputParams, component))
 
@@ -245,7 +300,7 @@ object Validations {
       effectOutputMethodsGrouped
         .map { case (_, methods) =>
           val effectMethodsByInputParams: Map[Option[Class[_]], IndexedSeq[Method]] =
-            methods.groupBy(_.getParameterTypes.lastOption)
+            methods.groupBy(handledMessageType)
           Validation(ambiguousHandlersErrors(effectMethodsByInputParams, component))
         }
         .fold(Valid)(_ ++ _)
@@ -253,6 +308,10 @@ object Validations {
 
   }
 
+  // the type of the handled messages, none for delete handlers
+  private def handledMessageType(method: Method): Option[Class[_]] =
+    Option.when(method.getParameterCount > 0)(SubscriptionBatcher.messageType(method))
+
   private def ambiguousHandlersErrors(
       effectMethodsInputParams: Map[Option[Class[_]], IndexedSeq[Method]],
       component: Class[_]) = {
@@ -281,7 +340,7 @@ object Validations {
         if (!classLevel.ignoreUnknown() && eventType.isSealed) {
           val effectMethodsInputParams: Seq[Class[_]] = methods
             .filter(updateMethodPredicate)
-            .map(_.getParameterTypes.last) //last because it could be a view update methods with 2 params
+            .map(SubscriptionBatcher.messageType) //last because it could be a view update methods with 2 params
           Validation(missingErrors(effectMethodsInputParams, eventType, component))
         } else {
           Valid
@@ -296,7 +355,7 @@ object Validations {
         val errors = effectOutputMethodsGrouped.flatMap { case (entityClass, methods) =>
           val eventType = getEventType(entityClass)
           if (eventType.isSealed) {
-            missingErrors(methods.map(_.getParameterTypes.last), eventType, component)
+            missingErrors(methods.map(SubscriptionBatcher.messageType), eventType, component)
           } else {
             List.empty
           }
@@ -463,26 +522,37 @@ object Validations {
     Validation(messages)
   }
 
-  private def noRestStreamIn(component: Class[_]): Validation = {
-
-    // this is more for early validation. We don't support stream-in over http,
-    // we block it before deploying anything
-    def isStreamIn(method: Method): Boolean = {
-      val paramWithRequestBody =
-        method.getParameters.collect {
-          case param if param.getAnnotation(classOf[RequestBody]) != null => param
-        }
-      paramWithRequestBody.exists(_.getType == classOf[Flux[_]])
-    }
-
-    val hasRestWithStreamIn = (method: Method) => hasRestAnnotation(method) && isStreamIn(method)
+  private def streamInValidations(component: Class[_]): Validation = {
+    val streamInMethods =
+      component.getMethods.filter(method => hasRestAnnotation(method) && ServiceMethod.isStreamIn(method))
 
-    val messages =
-      component.getMethods.filter(hasRestWithStreamIn).map { method =>
-        errorMessage(method, "Stream in calls are not supported.")
+    if (!assignable[Action](component)) {
+      Validation(streamInMethods.map(errorMessage(_, "Stream in calls are only supported in Actions.")))
+    } else {
+      val messages = streamInMethods.flatMap { method =>
+        val elementType =
+          method.getParameters.find(_.getAnnotation(classOf[RequestBody]) != null).map(_.getParameterizedType) match {
+            case Some(flux: ParameterizedType) => flux.getActualTypeArguments.head
+            case _                             => null
+          }
+        val returnType = method.getReturnType
+        val validReturnType =
+          returnType == classOf[Action.Effect[_]] || returnType == classOf[Mono[_]] || returnType == classOf[Flux[_]]
+
+        Seq(
+          if (method.getParameterCount != 1)
+            Some(errorMessage(method, "A stream in method must only have the Flux request body as parameter."))
+          else None,
+          if (!elementType.isInstanceOf[Class[_]])
+            Some(errorMessage(method, "The request body of a stream in method must be a Flux of a class."))
+          else None,
+          if (!validReturnType)
+            Some(
+              errorMessage(method, "A stream in method must return an Effect, a Mono of an Effect or a Flux of Effects."))
+          else None).flatten
       }
-
-    Validation(messages)
+      Validation(messages)
+    }
   }
 
   private def viewMustHaveTableName(component: Class[_]): Validation = {
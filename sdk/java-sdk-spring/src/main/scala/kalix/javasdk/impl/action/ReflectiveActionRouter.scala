@@ -16,21 +16,40 @@
 
 package kalix.javasdk.impl.action
 
+import java.lang.reflect.InvocationTargetException
+import java.lang.reflect.Method
+import java.util.concurrent.CompletionStage
+import java.util.concurrent.atomic.AtomicBoolean
+
+import scala.util.control.NonFatal
+
+import akka.Done
 import akka.NotUsed
+import akka.stream.KillSwitches
+import akka.stream.UniqueKillSwitch
+import akka.stream.javadsl.AsPublisher
+import akka.stream.javadsl.Keep
+import akka.stream.javadsl.Sink
 import akka.stream.javadsl.Source
 import com.google.protobuf.any.{ Any => ScalaPbAny }
 import kalix.javasdk.action.Action
+import kalix.javasdk.action.ActionCreationContext
 import kalix.javasdk.action.MessageEnvelope
 import kalix.javasdk.impl.AnySupport.ProtobufEmptyTypeUrl
 import kalix.javasdk.impl.CommandHandler
 import kalix.javasdk.impl.InvocationContext
+import kalix.javasdk.impl.MethodInvoker
+import org.reactivestreams.Publisher
 // TODO: abstract away reactor dependency
 import reactor.core.publisher.Flux
+import reactor.core.publisher.Mono
 
 class ReflectiveActionRouter[A <: Action](
     action: A,
     commandHandlers: Map[String, CommandHandler],
-    ignoreUnknown: Boolean)
+    ignoreUnknown: Boolean,
+    batchers: Map[Method, SubscriptionBatcher],
+    creationContext: ActionCreationContext)
     extends ActionRouter[A](action) {
 
   private def commandHandlerLookup(commandName: String) =
@@ -50,15 +69,16 @@ class ReflectiveActionRouter[A <: Action](
     val methodInvoker = commandHandler.lookupInvoker(inputTypeUrl)
 
     methodInvoker match {
+      case Some(invoker) if batchers.contains(invoker.method) =>
+        val message = invoker.parameterExtractors.head.extract(invocationContext)
+        batchers(invoker.method).submit(action, message)
       case Some(invoker) =>
         inputTypeUrl match {
           case ProtobufEmptyTypeUrl =>
-            invoker
-              .invoke(action)
+            unwrapped(invoker.invoke(action))
               .asInstanceOf[Action.Effect[_]]
           case _ =>
-            invoker
-              .invoke(action, invocationContext)
+            unwrapped(invoker.invoke(action, invocationContext))
               .asInstanceOf[Action.Effect[_]]
         }
       case None if ignoreUnknown => ActionEffectImpl.Builder.ignore()
@@ -84,7 +104,7 @@ class ReflectiveActionRouter[A <: Action](
 
     componentMethod.lookupInvoker(inputTypeUrl) match {
       case Some(methodInvoker) =>
-        val response = methodInvoker.invoke(action, context).asInstanceOf[Flux[Action.Effect[_]]]
+        val response = unwrapped(methodInvoker.invoke(action, context)).asInstanceOf[Flux[Action.Effect[_]]]
         Source.fromPublisher(response)
       case None if ignoreUnknown => Source.empty()
       case None =>
@@ -93,12 +113,108 @@ class ReflectiveActionRouter[A <: Action](
     }
   }
 
-  override def handleStreamedIn(commandName: String, stream: Source[MessageEnvelope[Any], NotUsed]): Action.Effect[_] =
-    throw new IllegalArgumentException("Stream in calls are not supported")
+  override def handleStreamedIn(
+      commandName: String,
+      stream: Source[MessageEnvelope[Any], NotUsed]): Action.Effect[_] = {
+
+    val commandHandler = commandHandlerLookup(commandName)
+    val methodInvoker = streamInInvoker(commandHandler)
+    val input = elements(commandHandler, methodInvoker, stream)
+
+    try {
+      unwrapped(methodInvoker.method.invoke(action, input.flux)) match {
+        case mono: Mono[Action.Effect[Any]] @unchecked =>
+          val reply = mono.switchIfEmpty(Mono.error[Action.Effect[Any]](() => noEffect(commandName))).toFuture
+          reply.whenComplete((_: Any, _: Throwable) => input.cancelIfUnused())
+          ActionEffectImpl.Builder.asyncEffect(reply)
+        case effect: Action.Effect[_] =>
+          input.cancelIfUnused()
+          effect
+      }
+    } catch {
+      case NonFatal(e) =>
+        input.cancelIfUnused()
+        throw e
+    }
+  }
+
+  private def noEffect(commandName: String): IllegalStateException =
+    new IllegalStateException(
+      s"Stream in command [$commandName] of Action [${action.getClass.getName}] returned a Mono that completed " +
+      "without an effect")
 
-  // TODO: to implement
   override def handleStreamed(
       commandName: String,
-      stream: Source[MessageEnvelope[Any], NotUsed]): Source[Action.Effect[_], NotUsed] =
-    throw new IllegalArgumentException("Stream in calls are not supported")
+      stream: Source[MessageEnvelope[Any], NotUsed]): Source[Action.Effect[_], NotUsed] = {
+
+    val commandHandler = commandHandlerLookup(commandName)
+    val methodInvoker = streamInInvoker(commandHandler)
+    val input = elements(commandHandler, methodInvoker, stream)
+
+    try {
+      val response = unwrapped(methodInvoker.method.invoke(action, input.flux)).asInstanceOf[Flux[Action.Effect[_]]]
+      Source
+        .fromPublisher(response)
+        .watchTermination { (_: NotUsed, done: CompletionStage[Done]) =>
+          done.whenComplete((_: Done, _: Throwable) => input.cancelIfUnused())
+          NotUsed
+        }
+    } catch {
+      case NonFatal(e) =>
+        input.cancelIfUnused()
+        throw e
+    }
+  }
+
+  // a stream in method has a single invoker, since the stream elements are all of the same synthetic request type
+  private def streamInInvoker(commandHandler: CommandHandler): MethodInvoker =
+    commandHandler.methodInvokers.values.headOption.getOrElse(
+      throw new NoSuchElementException(
+        s"Couldn't find any method for [${commandHandler.grpcMethodName}] in Action [$action]."))
+
+  /** The exception thrown by the component method itself rather than the reflection wrapper */
+  private def unwrapped[T](invocation: => T): T =
+    try invocation
+    catch {
+      case e: InvocationTargetException if e.getCause ne null => throw e.getCause
+    }
+
+  /**
+   * The incoming stream as a Flux of the decoded elements. The elements are only pulled from the incoming stream when
+   * requested by the subscriber of the Flux, so that backpressure is propagated back to the proxy.
+   */
+  private def elements(
+      commandHandler: CommandHandler,
+      methodInvoker: MethodInvoker,
+      stream: Source[MessageEnvelope[Any], NotUsed]): StreamInput = {
+    val bodyExtractor = methodInvoker.parameterExtractors.head
+    val materialized =
+      stream
+        .viaMat(KillSwitches.single[MessageEnvelope[Any]], Keep.right[NotUsed, UniqueKillSwitch])
+        .map { message =>
+          bodyExtractor.extract(
+            InvocationContext(
+              message.payload().asInstanceOf[ScalaPbAny],
+              commandHandler.requestMessageDescriptor,
+              message.metadata()))
+        }
+        .toMat(Sink.asPublisher[AnyRef](AsPublisher.WITHOUT_FANOUT), Keep.both[UniqueKillSwitch, Publisher[AnyRef]])
+        .run(creationContext.materializer())
+    new StreamInput(materialized.first, materialized.second)
+  }
+}
+
+/**
+ * INTERNAL API
+ *
+ * The incoming stream of a streamed in call. A component method may reply without subscribing to the stream, which
+ * would otherwise never be pulled, keeping the call open, so it is cancelled once the reply is known.
+ */
+private[kalix] final class StreamInput(killSwitch: UniqueKillSwitch, publisher: Publisher[AnyRef]) {
+  private val subscribed = new AtomicBoolean(false)
+
+  val flux: Flux[AnyRef] = Flux.from(publisher).doOnSubscribe(_ => subscribed.set(true))
+
+  def cancelIfUnused(): Unit =
+    if (!subscribed.get()) killSwitch.shutdown()
 }
@@ -0,0 +1,200 @@
+/*
+ * Copyright 2021 Lightbend Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package kalix.javasdk.impl.action
+
+import java.lang.reflect.InvocationTargetException
+import java.lang.reflect.Method
+import java.lang.reflect.ParameterizedType
+import java.util
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.TimeUnit
+
+import scala.concurrent.ExecutionContext
+import scala.concurrent.Future
+import scala.concurrent.Promise
+import scala.jdk.CollectionConverters._
+import scala.util.control.NonFatal
+
+import kalix.javasdk.action.Action
+import kalix.javasdk.annotations.Batch
+import kalix.javasdk.impl.ComponentDescriptorFactory.hasActionOutput
+import kalix.javasdk.impl.ComponentDescriptorFactory.hasRestAnnotation
+import kalix.javasdk.impl.ComponentDescriptorFactory.hasStreamSubscription
+import kalix.javasdk.impl.ComponentDescriptorFactory.hasTopicSubscription
+import kalix.javasdk.impl.action.ActionEffectImpl.AsyncEffect
+import kalix.javasdk.impl.action.ActionEffectImpl.ErrorEffect
+
+/**
+ * INTERNAL API
+ *
+ * Groups the messages for a batch handler of an Action, a subscription method receiving a list of messages.
+ *
+ * The proxy delivers the messages of a subscription one by one, with several of them in flight. A message arriving
+ * while no batch is being handled is handled right away, or after lingering for up to `maxWait` for more messages.
+ * The messages arriving while a batch is being handled are queued and handled together as the next batch, once the
+ * effect of the current one completes. Under load, batches therefore grow up to `maxSize`, while a single message is
+ * not delayed.
+ *
+ * The last message of a batch gets the effect returned by the handler, and the other ones an effect completing with
+ * it, so that each message is only acknowledged once its batch is done.
+ *
+ * Shared by all instances of the action, which are created per message.
+ */
+private[kalix] final class SubscriptionBatcher(method: Method, maxSize: Int, maxWaitMillis: Long) {
+  import SubscriptionBatcher._
+
+  // guarded by pending
+  private val pending = new util.ArrayDeque[Pending]()
+  private var running = false
+  private var flushScheduled = false
+
+  def submit(action: Action, message: AnyRef): Action.Effect[_] = {
+    val promise = Promise[Action.Effect[Any]]()
+    val batch = pending.synchronized {
+      pending.add(Pending(action, message, promise))
+      nextBatch(linger = maxWaitMillis > 0)
+    }
+    batch.foreach(run)
+    AsyncEffect(promise.future, Nil)
+  }
+
+  // must be called holding the lock on pending
+  private def nextBatch(linger: Boolean): Option[Vector[Pending]] =
+    if (running || pending.isEmpty) None
+    else if (linger && pending.size < maxSize) {
+      if (!flushScheduled) {
+        flushScheduled = true
+        CompletableFuture.delayedExecutor(maxWaitMillis, TimeUnit.MILLISECONDS).execute(() => flush())
+      }
+      None
+    } else {
+      running = true
+      Some(Vector.fill(math.min(maxSize, pending.size))(pending.poll()))
+    }
+
+  private def flush(): Unit = {
+    val batch = pending.synchronized {
+      flushScheduled = false
+      nextBatch(linger = false)
+    }
+    batch.foreach(run)
+  }
+
+  private def completed(): Option[Vector[Pending]] =
+    pending.synchronized {
+      running = false
+      // the messages queued meanwhile have waited long enough
+      nextBatch(linger = false)
+    }
+
+  private def run(first: Vector[Pending]): Unit = {
+    var batch = Option(first)
+    while (batch.isDefined) {
+      batch = handle(batch.get) match {
+        case None => completed()
+        case Some(completion) =>
+          completion.onComplete(_ => completed().foreach(run))(ExecutionContext.global)
+          None
+      }
+    }
+  }
+
+  /** Invokes the handler and completes the messages of the batch, returning the completion of an async effect */
+  private def handle(batch: Vector[Pending]): Option[Future[Any]] =
+    try {
+      val effect = method.invoke(batch.last.action, batch.map(_.message).asJava).asInstanceOf[Action.Effect[Any]]
+      batch.init.foreach(_.promise.success(acknowledgement(effect)))
+      batch.last.promise.success(effect)
+      completion(effect)
+    } catch {
+      case e: InvocationTargetException =>
+        batch.foreach(_.promise.failure(e.getCause))
+        None
+      case NonFatal(e) =>
+        batch.foreach(_.promise.failure(e))
+        None
+    }
+}
+
+/**
+ * INTERNAL API
+ */
+private[kalix] object SubscriptionBatcher {
+
+  private final case class Pending(action: Action, message: AnyRef, promise: Promise[Action.Effect[Any]])
+
+  private val DefaultMaxSize = 100
+
+  def apply(method: Method): SubscriptionBatcher =
+    Option(method.getAnnotation(classOf[Batch])) match {
+      case Some(batch) => new SubscriptionBatcher(method, batch.maxSize(), batch.maxWaitMillis())
+      case None        => new SubscriptionBatcher(method, DefaultMaxSize, 0)
+    }
+
+  /** A batcher for each batch handler of the given action */
+  def batchersFor(component: Class[_]): Map[Method, SubscriptionBatcher] =
+    component.getMethods.filter(isBatchHandler).map(method => method -> SubscriptionBatcher(method)).toMap
+
+  /**
+   * Whether the method is an action handler receiving a list of messages from a topic or stream subscription. A REST
+   * endpoint receiving a list as request body is a regular command handler.
+   */
+  def isBatchHandler(method: Method): Boolean =
+    hasActionOutput(method) &&
+    !hasRestAnnotation(method) &&
+    (hasTopicSubscription(method) ||
+    hasTopicSubscription(method.getDeclaringClass) ||
+    hasStreamSubscription(method.getDeclaringClass)) &&
+    method.getParameterCount == 1 &&
+    method.getParameterTypes()(0) == classOf[util.List[_]]
+
+  /**
+   * The type of the messages handled by a subscription method, which is the element type of the list for a batch
+   * handler and the type of the last parameter otherwise.
+   */
+  def messageType(method: Method): Class[_] =
+    batchElementType(method).getOrElse(method.getParameterTypes.last)
+
+  /** The element type of the list of a batch handler, if it is a concrete class */
+  def batchElementType(method: Method): Option[Class[_]] =
+    if (!isBatchHandler(method)) None
+    else
+      method.getGenericParameterTypes()(0) match {
+        case list: ParameterizedType =>
+          list.getActualTypeArguments()(0) match {
+            case cls: Class[_] => Some(cls)
+            case _             => None
+          }
+        case _ => None
+      }
+
+  /** The effect for the messages of a batch but the last, completing with the effect of the batch */
+  private def acknowledgement(effect: Action.Effect[Any]): Action.Effect[Any] =
+    effect match {
+      // side effects are only run once, for the last message
+      case ErrorEffect(description, statusCode, _) => ErrorEffect(description, statusCode, Nil)
+      case AsyncEffect(future, _) => AsyncEffect(future.map(acknowledgement)(ExecutionContext.parasitic), Nil)
+      case _                      => ActionEffectImpl.IgnoreEffect()
+    }
+
+  private def completion(effect: Action.Effect[Any]): Option[Future[Any]] =
+    effect match {
+      case AsyncEffect(future, _) =>
+        Some(future.flatMap(next => completion(next).getOrElse(Future.unit))(ExecutionContext.parasitic))
+      case _ => None
+    }
+}
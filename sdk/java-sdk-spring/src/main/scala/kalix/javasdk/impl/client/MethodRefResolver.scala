@@ -18,23 +18,30 @@ package kalix.javasdk.impl.client
 
 import java.lang.invoke.SerializedLambda
 import java.lang.reflect.Method
+import java.util.concurrent.ConcurrentHashMap
 
 private[kalix] object MethodRefResolver {
 
+  // the method a lambda refers to is fixed per lambda class, so it is only resolved once per method reference
+  private val resolvedMethods = new ConcurrentHashMap[Class[_], Method]()
+
   /**
    * Resolve the method ref for a lambda.
    */
   def resolveMethodRef(lambda: Any): Method = {
-    val lambdaType = lambda.getClass
-
     if (!classOf[java.io.Serializable].isInstance(lambda)) {
       throw new IllegalArgumentException(
-        "Can only resolve method references from serializable SAMs, class was: " + lambdaType)
+        "Can only resolve method references from serializable SAMs, class was: " + lambda.getClass)
     }
+    resolvedMethods.computeIfAbsent(lambda.getClass, _ => resolve(lambda))
+  }
+
+  private def resolve(lambda: Any): Method = {
+    val lambdaType = lambda.getClass
 
     val writeReplace =
       try {
-        lambda.getClass.getDeclaredMethod("writeReplace")
+        lambdaType.getDeclaredMethod("writeReplace")
       } catch {
         case e: NoSuchMethodError =>
           throw new IllegalArgumentException(
@@ -43,7 +43,7 @@ class ReflectiveEventSourcedEntityRouter[S, E, ES <: EventSourcedEntity[S, E]](
 
   private def eventHandlerLookup(eventName: String) =
     eventHandlerMethods.getOrElse(
-      eventName,
+      JsonSupport.toJsonTypeUrl(eventName),
       throw new HandlerNotFoundException("event", eventName, commandHandlers.keySet))
 
   override def handleEvent(state: S, event: E): S = {
@@ -113,6 +113,7 @@ class ReflectiveEventSourcedEntityRouter[S, E, ES <: EventSourcedEntity[S, E]](
   }
 }
 
+// keeps its stack trace, it is also thrown for a missing event handler which fails the entity
 final class HandlerNotFoundException(handlerType: String, name: String, availableHandlers: Set[String])
     extends RuntimeException(
       s"no matching $handlerType handler for '$name'. " +
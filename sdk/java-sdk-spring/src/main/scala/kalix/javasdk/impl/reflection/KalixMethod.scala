@@ -17,10 +17,13 @@
 package kalix.javasdk.impl.reflection
 
 import java.lang.reflect.Method
+import java.lang.reflect.ParameterizedType
 import scala.annotation.tailrec
 import com.google.protobuf.Descriptors
 import com.google.protobuf.any.{ Any => ScalaPbAny }
+import kalix.javasdk.action.Action
 import kalix.javasdk.impl.AclDescriptorFactory
+import kalix.javasdk.impl.action.SubscriptionBatcher
 import kalix.javasdk.impl.path.PathPattern
 import kalix.javasdk.impl.path.PathPatternParser
 import kalix.javasdk.impl.reflection.RestServiceIntrospector.PathParameter
@@ -39,21 +42,25 @@ object ServiceMethod {
   def isStreamOut(method: Method): Boolean =
     method.getReturnType == classOf[Flux[_]]
 
-  // this is more for early validation. We don't support stream-in over http,
-  // we block it before deploying anything
-  def isStreamIn(method: Method): Boolean = {
-    // TODO: remove this once is validations completely moved to Validations object
-    val paramWithRequestBody =
-      method.getParameters.collect {
-        case param if param.getAnnotation(classOf[RequestBody]) != null => param
-      }
+  /**
+   * A method is streamed in when its request body is a Flux. Streamed in calls are only served over gRPC, since they
+   * can't be transcoded from HTTP.
+   */
+  def isStreamIn(method: Method): Boolean =
+    method.getParameters.exists { param =>
+      param.getAnnotation(classOf[RequestBody]) != null && param.getType == classOf[Flux[_]]
+    }
 
-    if (paramWithRequestBody.exists(_.getType == classOf[Flux[_]]))
-      throw new IllegalArgumentException("Stream in calls are not supported")
-    else
-      false
-  }
+  /** The type of the elements of a streamed in request body */
+  def streamInElementType(method: Method): Class[_] =
+    method.getParameters
+      .find(param => param.getAnnotation(classOf[RequestBody]) != null)
+      .map(_.getParameterizedType)
+      .collect { case flux: ParameterizedType => flux.getActualTypeArguments.head }
+      .collect { case cls: Class[_] => cls }
+      .getOrElse(throw ServiceIntrospectionException(method, "A streamed in request body must be a Flux of a class."))
 }
+
 sealed trait ServiceMethod {
   def methodName: String
   def javaMethodOpt: Option[Method]
@@ -103,7 +110,7 @@ case class CombinedSubscriptionServiceMethod(
 case class SubscriptionServiceMethod(javaMethod: Method) extends AnyJsonRequestServiceMethod {
 
   val methodName: String = javaMethod.getName
-  val inputType: Class[_] = javaMethod.getParameterTypes()(0)
+  val inputType: Class[_] = SubscriptionBatcher.messageType(javaMethod)
 
   override def javaMethodOpt: Option[Method] = Some(javaMethod)
 
@@ -162,6 +169,10 @@ case class SyntheticRequestServiceMethod(
   val streamIn: Boolean = ServiceMethod.isStreamIn(javaMethod)
   val streamOut: Boolean = ServiceMethod.isStreamOut(javaMethod)
 
+  if (streamIn && !classOf[Action].isAssignableFrom(javaMethod.getDeclaringClass)) {
+    throw ServiceIntrospectionException(javaMethod, "Stream in calls are only supported in Actions.")
+  }
+
   // First fail on unsupported mapping values. Should all default to empty arrays, but let's not trust that
   validateRequestMapping(javaMethod, mapping)
   if (!isEmpty(mapping.method()) && classMapping.exists(cm => !isEmpty(cm.method()))) {
@@ -16,6 +16,8 @@
 
 package kalix.javasdk.impl.workflow
 
+import scala.util.control.NoStackTrace
+
 import com.google.protobuf.any.{ Any => ScalaPbAny }
 import kalix.javasdk.impl.CommandHandler
 import kalix.javasdk.impl.InvocationContext
@@ -61,3 +63,4 @@ final class HandlerNotFoundException(handlerType: String, name: String, availabl
     extends RuntimeException(
       s"no matching $handlerType handler for '$name'. " +
       s"Available handlers are: [${availableHandlers.mkString(", ")}]")
+    with NoStackTrace
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2021 Lightbend Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package kalix.spring.aot
+
+import java.nio.file.Paths
+
+import kalix.javasdk.action.Action
+import kalix.javasdk.eventsourcedentity.EventSourcedEntity
+import kalix.javasdk.impl.AclDescriptorFactory
+import kalix.javasdk.impl.ComponentDescriptor
+import kalix.javasdk.impl.JsonMessageCodec
+import kalix.javasdk.impl.Validations
+import kalix.javasdk.impl.Validations.Valid
+import kalix.javasdk.impl.Validations.Validation
+import kalix.javasdk.valueentity.ValueEntity
+import kalix.javasdk.view.View
+import kalix.javasdk.workflow.Workflow
+import kalix.spring.impl.ComponentIndex
+import kalix.spring.impl.KalixSpringApplication
+import kalix.spring.impl.KalixSpringApplication.KalixComponentProvider
+
+/**
+ * Build time generator of the Kalix component index of a Spring service.
+ *
+ * Scans the classpath for the Kalix components of the service, validates them and builds their descriptors, so that an
+ * invalid component fails the build instead of the deployment. The resulting index is written as a resource to the
+ * output directory, from where it is picked up by the Kalix Spring application on start, skipping the classpath
+ * scanning and validation.
+ *
+ * It must be run after compilation, with the compiled classes and the runtime dependencies on the classpath, for
+ * instance with the `exec-maven-plugin` in the `process-classes` phase:
+ *
+ * {{{
+ * <execution>
+ *   <id>kalix-component-index</id>
+ *   <phase>process-classes</phase>
+ *   <goals><goal>java</goal></goals>
+ *   <configuration>
+ *     <mainClass>kalix.spring.aot.ComponentIndexGenerator</mainClass>
+ *     <arguments>
+ *       <argument>com.example.Main</argument>
+ *       <argument>${project.build.outputDirectory}</argument>
+ *     </arguments>
+ *   </configuration>
+ * </execution>
+ * }}}
+ *
+ * The index records a fingerprint of the classes it was generated from. If the classes of the service differ when it
+ * starts, the index is ignored and the classpath is scanned and validated as without an index, so a stale index only
+ * costs the start up time it would otherwise save. Regenerating it on every build, as above, avoids that.
+ *
+ * The component descriptors are still built on start, since routing the calls to a component needs the reflective
+ * handles of its methods.
+ */
+object ComponentIndexGenerator {
+
+  def main(args: Array[String]): Unit = {
+    if (args.length != 2)
+      throw new IllegalArgumentException(
+        "Usage: ComponentIndexGenerator <fully qualified name of the main class> <output directory>")
+
+    val mainClass = Thread.currentThread().getContextClassLoader.loadClass(args(0))
+    val file = generate(mainClass).writeTo(Paths.get(args(1)))
+    println(s"Kalix component index written to [$file]")
+  }
+
+  /**
+   * Find, validate and index the Kalix components in the package of the given main class, throwing if any component
+   * is invalid.
+   */
+  private[kalix] def generate(mainClass: Class[_]): ComponentIndex = {
+    val components =
+      new KalixComponentProvider(mainClass).findKalixComponents
+        .map(bean => mainClass.getClassLoader.loadClass(bean.getBeanClassName))
+        .sortBy(_.getName)
+
+    components
+      .foldLeft(Valid: Validation) { case (validations, cls) =>
+        validations ++ Validations.validate(cls)
+      }
+      .failIfInvalid
+
+    // building the descriptors runs the same checks as registering the components does when the service starts
+    val messageCodec = new JsonMessageCodec
+    components.filter(isRegistered).foreach(ComponentDescriptor.descriptorFor(_, messageCodec))
+    val defaultAcl = AclDescriptorFactory.defaultAclFileDescriptor(mainClass)
+
+    ComponentIndex(
+      mainClass.getName,
+      components.map(_.getName),
+      ComponentIndex.fingerprint(mainClass.getPackageName, mainClass.getClassLoader),
+      defaultAcl)
+  }
+
+  private def isRegistered(cls: Class[_]): Boolean =
+    classOf[Action].isAssignableFrom(cls) ||
+    classOf[EventSourcedEntity[_, _]].isAssignableFrom(cls) ||
+    classOf[Workflow[_]].isAssignableFrom(cls) ||
+    classOf[ValueEntity[_]].isAssignableFrom(cls) ||
+    (classOf[View[_]].isAssignableFrom(cls) && !KalixSpringApplication.isNestedViewTable(cls)) ||
+    KalixSpringApplication.isMultiTableView(cls)
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2021 Lightbend Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package kalix.spring.aot
+
+import java.lang.reflect.Type
+
+import kalix.spring.impl.ComponentIndex
+import org.slf4j.LoggerFactory
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar
+import org.springframework.aot.hint.MemberCategory
+import org.springframework.aot.hint.RuntimeHints
+import org.springframework.aot.hint.RuntimeHintsRegistrar
+import org.springframework.lang.Nullable
+
+/**
+ * GraalVM native image reachability metadata for the Kalix components of a Spring service, contributed to the Spring
+ * AOT processing of the application.
+ *
+ * The components are taken from the index generated by [[ComponentIndexGenerator]], which is required in a native
+ * image since there is no classpath to scan. For each component, all its members are registered for reflection, since
+ * its descriptor and routing are built reflectively on start, and the types of its state and of the parameters and
+ * return types of its methods are registered for JSON (de)serialization.
+ */
+class KalixRuntimeHints extends RuntimeHintsRegistrar {
+
+  private val logger = LoggerFactory.getLogger(classOf[KalixRuntimeHints])
+
+  private val bindingHints = new BindingReflectionHintsRegistrar
+
+  override def registerHints(hints: RuntimeHints, @Nullable hintsClassLoader: ClassLoader): Unit = {
+    val classLoader = Option(hintsClassLoader).getOrElse(getClass.getClassLoader)
+    hints.resources().registerPattern(ComponentIndex.ResourcePath)
+    hints.resources().registerPattern("reference.conf")
+    hints.resources().registerPattern("application.conf")
+
+    ComponentIndex.load(classLoader) match {
+      case Some(index) if !index.isCurrent(classLoader) =>
+        // the image couldn't fall back to scanning the classpath on start
+        throw new IllegalStateException(
+          s"Kalix component index [${ComponentIndex.ResourcePath}] was not generated from the current classes of the " +
+          "service. Regenerate it with kalix.spring.aot.ComponentIndexGenerator before the AOT processing.")
+      case Some(index) =>
+        index.components.foreach(component => registerComponent(hints, classLoader.loadClass(component)))
+      case None =>
+        logger.warn(
+          s"No Kalix component index [${ComponentIndex.ResourcePath}] found, the native image won't be able to " +
+          "start. Generate it with kalix.spring.aot.ComponentIndexGenerator before the AOT processing.")
+    }
+  }
+
+  private def registerComponent(hints: RuntimeHints, component: Class[_]): Unit = {
+    hints.reflection().registerType(component, MemberCategory.values(): _*)
+    // the view tables of a multi-table view are nested classes
+    component.getDeclaredClasses.foreach(nested => hints.reflection().registerType(nested, MemberCategory.values(): _*))
+
+    val methodTypes: Seq[Type] =
+      (component +: component.getDeclaredClasses.toSeq).flatMap { cls =>
+        cls.getDeclaredMethods.toSeq.flatMap(method => method.getGenericReturnType +: method.getGenericParameterTypes)
+      }
+    // the state type of entities and views is a type argument of the component super class
+    val types = Option(component.getGenericSuperclass).toSeq ++ methodTypes
+    bindingHints.registerReflectionHints(hints.reflection(), types.distinct: _*)
+  }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2021 Lightbend Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package kalix.spring.impl
+
+import java.nio.charset.StandardCharsets
+import java.nio.file.Files
+import java.nio.file.Path
+import java.util.Base64
+import java.util.zip.CRC32
+
+import scala.io.Source
+import scala.util.Using
+
+import com.google.protobuf.DescriptorProtos.FileDescriptorProto
+import com.google.protobuf.ExtensionRegistry
+import org.slf4j.LoggerFactory
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver
+
+/**
+ * INTERNAL API
+ *
+ * The Kalix components of a service, resolved and validated at build time by
+ * [[kalix.spring.aot.ComponentIndexGenerator]]. When present on the classpath, and generated from the same classes as
+ * the ones on the classpath, [[KalixSpringApplication]] loads it instead of scanning the classpath and validating the
+ * components on every start.
+ *
+ * @param classesFingerprint
+ *   fingerprint of the class files in the package of the main class and below, see [[ComponentIndex.fingerprint]]
+ * @param defaultAcl
+ *   the default ACL of the service, derived from the annotation of the main class
+ */
+private[kalix] final case class ComponentIndex(
+    mainClass: String,
+    components: Seq[String],
+    classesFingerprint: String,
+    defaultAcl: Option[FileDescriptorProto]) {
+  import ComponentIndex._
+
+  def render: String = {
+    val lines =
+      "# Generated by kalix.spring.aot.ComponentIndexGenerator, do not edit" ::
+      s"$MainClassKey=$mainClass" ::
+      s"$FingerprintKey=$classesFingerprint" ::
+      defaultAcl.map(acl => s"$DefaultAclKey=${Base64.getEncoder.encodeToString(acl.toByteArray)}").toList :::
+      components.map(component => s"$ComponentKey=$component").toList
+    lines.mkString("", "\n", "\n")
+  }
+
+  def writeTo(outputDirectory: Path): Path = {
+    val file = outputDirectory.resolve(ResourcePath)
+    Files.createDirectories(file.getParent)
+    Files.write(file, render.getBytes(StandardCharsets.UTF_8))
+  }
+
+  /** Whether the index was generated from the classes found with the given class loader */
+  def isCurrent(classLoader: ClassLoader): Boolean =
+    fingerprint(packageOf(mainClass), classLoader) == classesFingerprint
+}
+
+/**
+ * INTERNAL API
+ */
+private[kalix] object ComponentIndex {
+
+  val ResourcePath = "META-INF/kalix/components.idx"
+
+  private val MainClassKey = "main-class"
+  private val FingerprintKey = "classes-fingerprint"
+  private val DefaultAclKey = "default-acl"
+  private val ComponentKey = "component"
+
+  private val log = LoggerFactory.getLogger(classOf[ComponentIndex])
+
+  def load(classLoader: ClassLoader): Option[ComponentIndex] =
+    Option(classLoader.getResource(ResourcePath)).map { url =>
+      Using.resource(Source.fromURL(url, StandardCharsets.UTF_8.name()))(source => parse(source.getLines().toSeq))
+    }
+
+  /**
+   * The index, if there is one and it matches the classes of the service. An index generated before components were
+   * added, changed or removed would skip their validation or registration, so the classes need to be scanned instead.
+   *
+   * @param verify
+   *   whether to check that the index matches the classes, not possible in a native image where class files can't be
+   *   listed, but the index is generated from the same classes as the image there
+   */
+  def loadCurrent(classLoader: ClassLoader, verify: Boolean): Option[ComponentIndex] =
+    load(classLoader).filter { index =>
+      val current = !verify || index.isCurrent(classLoader)
+      if (!current)
+        log.warn(
+          s"Kalix component index [$ResourcePath] was not generated from the current classes of the service, " +
+          "scanning the classpath for components instead. Regenerate it with " +
+          "kalix.spring.aot.ComponentIndexGenerator to speed up the start of the service.")
+      current
+    }
+
+  def parse(lines: Seq[String]): ComponentIndex = {
+    val entries =
+      lines.map(_.trim).filterNot(line => line.isEmpty || line.startsWith("#")).map { line =>
+        line.indexOf('=') match {
+          case -1  => throw new IllegalArgumentException(s"Invalid line [$line] in component index [$ResourcePath]")
+          case idx => line.substring(0, idx).trim -> line.substring(idx + 1).trim
+        }
+      }
+
+    def single(key: String): Option[String] =
+      entries.collect { case (`key`, value) => value } match {
+        case Seq()      => None
+        case Seq(value) => Some(value)
+        case _ =>
+          throw new IllegalArgumentException(s"Component index [$ResourcePath] declares [$key] more than once")
+      }
+
+    def required(key: String): String =
+      single(key).getOrElse(
+        throw new IllegalArgumentException(
+          s"Component index [$ResourcePath] must declare [$key], regenerate it with the current version of Kalix"))
+
+    entries.collect { case (key, _) if !KnownKeys.contains(key) => key }.headOption.foreach { key =>
+      throw new IllegalArgumentException(s"Unknown key [$key] in component index [$ResourcePath]")
+    }
+
+    ComponentIndex(
+      required(MainClassKey),
+      entries.collect { case (ComponentKey, value) => value },
+      required(FingerprintKey),
+      single(DefaultAclKey).map(acl => FileDescriptorProto.parseFrom(Base64.getDecoder.decode(acl), extensions)))
+  }
+
+  private val KnownKeys = Set(MainClassKey, FingerprintKey, DefaultAclKey, ComponentKey)
+
+  // keeps the Kalix options of the ACL file descriptor typed
+  private lazy val extensions = {
+    val registry = ExtensionRegistry.newInstance()
+    kalix.Annotations.registerAllExtensions(registry)
+    registry
+  }
+
+  /**
+   * Fingerprint of the class files in the given package and its sub packages, as found with the given class loader.
+   * Order independent, since the class files are listed in the order of the file system or jar.
+   */
+  def fingerprint(packageName: String, classLoader: ClassLoader): String = {
+    val pattern = s"classpath*:${packageName.replace('.', '/')}/**/*.class"
+    val classFiles = new PathMatchingResourcePatternResolver(classLoader).getResources(pattern)
+    val sum = classFiles.foldLeft(0L) { (sum, classFile) =>
+      val crc = new CRC32
+      Using.resource(classFile.getInputStream)(in => crc.update(in.readAllBytes()))
+      sum + crc.getValue
+    }
+    s"${classFiles.length}-${java.lang.Long.toHexString(sum)}"
+  }
+
+  private def packageOf(className: String): String =
+    className.lastIndexOf('.') match {
+      case -1  => ""
+      case idx => className.substring(0, idx)
+    }
+}
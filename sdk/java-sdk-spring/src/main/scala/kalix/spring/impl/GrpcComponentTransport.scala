@@ -0,0 +1,150 @@
+/*
+ * Copyright 2021 Lightbend Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package kalix.spring.impl
+
+import java.io.InputStream
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CompletionStage
+import java.util.concurrent.ConcurrentHashMap
+
+import scala.util.control.NonFatal
+
+import com.google.protobuf.ByteString
+import com.google.protobuf.BytesValue
+import com.google.protobuf.Descriptors
+import com.google.protobuf.DynamicMessage
+import com.google.protobuf.{ Any => JavaPbAny }
+import io.grpc.CallOptions
+import io.grpc.Channel
+import io.grpc.ClientCall
+import io.grpc.MethodDescriptor
+import io.grpc.Status
+import kalix.javasdk.DeferredCallResponseException
+import kalix.javasdk.JsonSupport
+import kalix.javasdk.Metadata
+import kalix.javasdk.impl.StatusCodeConverter
+
+/**
+ * INTERNAL API
+ *
+ * Sends component calls as gRPC over the HTTP/2 connection to the proxy, instead of as JSON requests with the
+ * `WebClient`. The request is the message generated for the component method, with the body already encoded as JSON
+ * in it, so that it is serialized only once, and the calls of all components are multiplexed over a single
+ * connection.
+ */
+private[kalix] final class GrpcComponentTransport(channel: () => Channel) {
+  import GrpcComponentTransport._
+
+  private val grpcMethods = new ConcurrentHashMap[Descriptors.MethodDescriptor, GrpcMethod]()
+
+  def call[R](
+      method: Descriptors.MethodDescriptor,
+      request: DynamicMessage,
+      metadata: Metadata,
+      returnType: Class[R]): CompletionStage[R] = {
+    val result = new CompletableFuture[R]()
+    val call = channel().newCall(grpcMethods.computeIfAbsent(method, m => grpcMethod(m)), CallOptions.DEFAULT)
+    try {
+      call.start(new ResponseListener(method, returnType, result), toGrpcMetadata(metadata))
+      // one more than the expected single response, to detect misbehaving servers like the grpc-java stubs do
+      call.request(2)
+      call.sendMessage(request)
+      call.halfClose()
+    } catch {
+      case NonFatal(e) =>
+        call.cancel("Failed to send component call", e)
+        result.completeExceptionally(e)
+    }
+    result
+  }
+}
+
+/**
+ * INTERNAL API
+ */
+private[kalix] object GrpcComponentTransport {
+
+  private type GrpcMethod = MethodDescriptor[DynamicMessage, ByteString]
+
+  // requests are only parsed by in-process channels and interceptors that copy messages, such as binary logging
+  private final class RequestMarshaller(requestType: Descriptors.Descriptor)
+      extends MethodDescriptor.Marshaller[DynamicMessage] {
+    override def stream(value: DynamicMessage): InputStream = value.toByteString.newInput()
+    override def parse(stream: InputStream): DynamicMessage = DynamicMessage.parseFrom(requestType, stream)
+  }
+
+  // responses are decoded once the call completes, into the type expected by the caller
+  private object ResponseMarshaller extends MethodDescriptor.Marshaller[ByteString] {
+    override def stream(value: ByteString): InputStream = value.newInput()
+    override def parse(stream: InputStream): ByteString = ByteString.readFrom(stream)
+  }
+
+  private def grpcMethod(method: Descriptors.MethodDescriptor): GrpcMethod =
+    MethodDescriptor
+      .newBuilder(new RequestMarshaller(method.getInputType), ResponseMarshaller)
+      .setType(MethodDescriptor.MethodType.UNARY)
+      .setFullMethodName(MethodDescriptor.generateFullMethodName(method.getService.getFullName, method.getName))
+      .build()
+
+  private def toGrpcMetadata(metadata: Metadata): io.grpc.Metadata = {
+    val grpcMetadata = new io.grpc.Metadata()
+    metadata.forEach { entry =>
+      if (entry.isText) {
+        val key = io.grpc.Metadata.Key.of(entry.getKey, io.grpc.Metadata.ASCII_STRING_MARSHALLER)
+        grpcMetadata.put(key, entry.getValue)
+      }
+    }
+    grpcMetadata
+  }
+
+  private[impl] def decode[R](method: Descriptors.MethodDescriptor, response: ByteString, returnType: Class[R]): R =
+    if (method.getOutputType.getFullName == BytesValue.getDescriptor.getFullName)
+      BytesValue.parseFrom(response).getValue.toByteArray.asInstanceOf[R]
+    else
+      JsonSupport.decodeJson(returnType, JavaPbAny.parseFrom(response))
+
+  private final class ResponseListener[R](
+      method: Descriptors.MethodDescriptor,
+      returnType: Class[R],
+      result: CompletableFuture[R])
+      extends ClientCall.Listener[ByteString] {
+
+    // only accessed from the serialized listener callbacks
+    private var response: Option[ByteString] = None
+
+    override def onMessage(message: ByteString): Unit =
+      response = Some(message)
+
+    override def onClose(status: Status, trailers: io.grpc.Metadata): Unit =
+      if (!status.isOk) {
+        val error = status.asRuntimeException(trailers)
+        result.completeExceptionally(
+          DeferredCallResponseException(
+            Option(status.getDescription).getOrElse(status.getCode.name()),
+            StatusCodeConverter.fromGrpcCode(status.getCode),
+            error))
+      } else
+        response match {
+          case Some(bytes) =>
+            try result.complete(decode(method, bytes, returnType))
+            catch { case NonFatal(e) => result.completeExceptionally(e) }
+          case None =>
+            result.completeExceptionally(
+              Status.INTERNAL.withDescription(s"No response for component call [${method.getFullName}]").asException())
+        }
+  }
+}
@@ -80,9 +80,11 @@ import org.springframework.beans.factory.config.BeanDefinition
 import org.springframework.beans.factory.config.ConfigurableBeanFactory
 import org.springframework.beans.factory.support.AbstractBeanDefinition
 import org.springframework.beans.factory.support.DefaultListableBeanFactory
+import org.springframework.beans.factory.support.GenericBeanDefinition
 import org.springframework.boot.autoconfigure.SpringBootApplication
 import org.springframework.context.ApplicationContext
 import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider
+import org.springframework.core.NativeDetector
 import org.springframework.core.`type`.classreading.MetadataReader
 import org.springframework.core.`type`.classreading.MetadataReaderFactory
 import org.springframework.core.`type`.filter.TypeFilter
@@ -184,16 +186,21 @@ object KalixSpringApplication {
     // scan package declared there. So later, packageToScan will be a List of packages
     def findKalixComponents: Seq[BeanDefinition] = {
       findCandidateComponents(cglibMain.getPackageName).asScala.map { bean =>
-        // by default, the provider set them all as singletons,
-        // we need to make them all a prototype
-        bean.setScope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
+        KalixComponentProvider.asKalixComponent(bean.asInstanceOf[AbstractBeanDefinition])
+      }.toSeq
+    }
+  }
 
-        // making it only wireable by constructor will simplify our lives
-        // we can review it later, if needed
-        bean.asInstanceOf[AbstractBeanDefinition].setAutowireMode(AbstractBeanDefinition.AUTOWIRE_CONSTRUCTOR)
-        bean
+  object KalixComponentProvider {
+    def asKalixComponent(bean: AbstractBeanDefinition): BeanDefinition = {
+      // by default, the provider set them all as singletons,
+      // we need to make them all a prototype
+      bean.setScope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
 
-      }.toSeq
+      // making it only wireable by constructor will simplify our lives
+      // we can review it later, if needed
+      bean.setAutowireMode(AbstractBeanDefinition.AUTOWIRE_CONSTRUCTOR)
+      bean
     }
   }
 
@@ -279,31 +286,57 @@ case class KalixSpringApplication(applicationContext: ApplicationContext, config
   private val cglibEnhanceMainClass =
     applicationContext.getBeansWithAnnotation(classOf[SpringBootApplication]).values().asScala.head
 
+  // components resolved and validated at build time, see kalix.spring.aot.ComponentIndexGenerator
+  private val componentIndex =
+    ComponentIndex.loadCurrent(cglibEnhanceMainClass.getClass.getClassLoader, verify = !NativeDetector.inNativeImage())
+
+  if (componentIndex.isEmpty && NativeDetector.inNativeImage())
+    throw new IllegalStateException(
+      s"Kalix component index [${ComponentIndex.ResourcePath}] is required in a native image, " +
+      "generate it with kalix.spring.aot.ComponentIndexGenerator when building the image.")
+
   // lookup for the original main class, not the one enhanced by CGLIB
-  private val mainClass = new MainClassProvider(cglibEnhanceMainClass.getClass).findOriginalMainClass
+  private val mainClass =
+    componentIndex match {
+      case Some(index) => cglibEnhanceMainClass.getClass.getClassLoader.loadClass(index.mainClass)
+      case None        => new MainClassProvider(cglibEnhanceMainClass.getClass).findOriginalMainClass
+    }
 
   val kalix: Kalix = (new Kalix)
     .withSdkName(BuildInfo.name)
-    .withDefaultAclFileDescriptor(AclDescriptorFactory.defaultAclFileDescriptor(mainClass).toJava)
-
-  private val provider = new KalixComponentProvider(cglibEnhanceMainClass.getClass)
-  provider.setEnvironment(applicationContext.getEnvironment) //use the same environment to get access to properties
+    .withDefaultAclFileDescriptor(
+      componentIndex.map(_.defaultAcl).getOrElse(AclDescriptorFactory.defaultAclFileDescriptor(mainClass)).toJava)
 
-  // load all Kalix components found in the classpath
+  // load all Kalix components from the index or found in the classpath
   val classBeanMap =
-    provider.findKalixComponents.map { bean =>
-      // here we need to load the components using the same loader as the Main class
-      // this is needed to have it loaded in the RestartClassLoader when using auto-reload
-      // see MainClassProvider.findOriginalMainClass where we load Main using same CL as cglibEnhanceMainClass
-      mainClass.getClassLoader.loadClass(bean.getBeanClassName) -> bean
-    }.toMap
-
-  // each loaded class needs to be validated before registration
+    componentIndex match {
+      case Some(index) =>
+        logger.debug(s"Loading Kalix components from [${ComponentIndex.ResourcePath}]")
+        index.components.map { className =>
+          val bean = new GenericBeanDefinition
+          bean.setBeanClassName(className)
+          mainClass.getClassLoader.loadClass(className) -> KalixComponentProvider.asKalixComponent(bean)
+        }.toMap
+
+      case None =>
+        val provider = new KalixComponentProvider(cglibEnhanceMainClass.getClass)
+        provider.setEnvironment(applicationContext.getEnvironment) //use the same environment to get access to properties
+        provider.findKalixComponents.map { bean =>
+          // here we need to load the components using the same loader as the Main class
+          // this is needed to have it loaded in the RestartClassLoader when using auto-reload
+          // see MainClassProvider.findOriginalMainClass where we load Main using same CL as cglibEnhanceMainClass
+          mainClass.getClassLoader.loadClass(bean.getBeanClassName) -> bean
+        }.toMap
+    }
+
+  // each loaded class needs to be validated before registration, unless that was already done when building the index
   val validation =
-    classBeanMap.keySet
-      .foldLeft(Valid: Validation) { case (validations, cls) =>
-        validations ++ Validations.validate(cls)
-      }
+    if (componentIndex.isDefined) Valid
+    else
+      classBeanMap.keySet
+        .foldLeft(Valid: Validation) { case (validations, cls) =>
+          validations ++ Validations.validate(cls)
+        }
 
   validation match { // if any invalid component, log and throw
     case Valid => ()
@@ -406,6 +439,7 @@ case class KalixSpringApplication(applicationContext: ApplicationContext, config
   private def setKalixClient[T](clz: Class[T], webClientProviderHolder: WebClientProviderHolder): Unit = {
     if (hasContextConstructor(clz, classOf[KalixClient])) {
       kalixClient.setWebClient(webClientProviderHolder.webClientProvider.localWebClient)
+      kalixClient.setCallPolicies(webClientProviderHolder.callPolicies)
       // we only have one KalixClient, but we only set it to the ThreadLocalFactoryBean
       // when building actions, because it's only allowed to inject it in Actions and Workflow Entities
       KalixClientFactoryBean.set(kalixClient)
@@ -415,6 +449,8 @@ case class KalixSpringApplication(applicationContext: ApplicationContext, config
   private def setComponentClient[T](clz: Class[T], webClientProviderHolder: WebClientProviderHolder): Unit = {
     if (hasContextConstructor(clz, classOf[ComponentClient])) {
       kalixClient.setWebClient(webClientProviderHolder.webClientProvider.localWebClient)
+      kalixClient.setCallPolicies(webClientProviderHolder.callPolicies)
+      kalixClient.setGrpcTransport(webClientProviderHolder.grpcComponentTransport)
       ComponentClientFactoryBean.set(componentClient)
     }
   }
@@ -464,6 +500,9 @@ case class KalixSpringApplication(applicationContext: ApplicationContext, config
             case callStep: Workflow.CallStep[_, _, _, _] =>
               messageCodec.lookupTypeHint(callStep.callInputClass)
               messageCodec.lookupTypeHint(callStep.transitionInputClass)
+            case parallelStep: Workflow.ParallelStep[_, _, _] =>
+              messageCodec.lookupTypeHint(parallelStep.callInputClass)
+              messageCodec.lookupTypeHint(parallelStep.branchOutputClass)
           }
 
         workflowEntity
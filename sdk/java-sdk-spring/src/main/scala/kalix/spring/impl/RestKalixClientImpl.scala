@@ -18,7 +18,9 @@ package kalix.spring.impl
 
 import java.net.URI
 import java.util
+import java.util.concurrent.CompletableFuture
 import java.util.concurrent.CompletionStage
+import java.util.concurrent.ConcurrentHashMap
 import java.util.function.Function
 
 import scala.concurrent.ExecutionContext.Implicits.global
@@ -38,6 +40,8 @@ import kalix.javasdk.DeferredCallResponseException
 import kalix.javasdk.Metadata
 import kalix.javasdk.StatusCode.ErrorCode
 import kalix.javasdk.impl.AnySupport
+import kalix.javasdk.impl.CallPolicies
+import kalix.javasdk.impl.CallPolicy
 import kalix.javasdk.impl.JsonMessageCodec
 import kalix.javasdk.impl.MetadataImpl
 import kalix.javasdk.impl.RestDeferredCall
@@ -46,11 +50,14 @@ import kalix.javasdk.impl.http.HttpEndpointMethodDefinition.ANY_METHOD
 import kalix.spring.KalixClient
 import org.slf4j.Logger
 import org.slf4j.LoggerFactory
+import org.springframework.http.MediaType
 import org.springframework.web.reactive.function.client.WebClient
 import org.springframework.web.reactive.function.client.WebClient.RequestHeadersSpec
 import org.springframework.web.reactive.function.client.WebClient.RequestHeadersUriSpec
 import org.springframework.web.reactive.function.client.WebClientResponseException
 import org.springframework.web.util.UriBuilder
+import reactor.core.publisher.Flux
+import reactor.core.publisher.Mono
 
 /**
  * INTERNAL API
@@ -71,14 +78,35 @@ final class RestKalixClientImpl(messageCodec: JsonMessageCodec) extends KalixCli
 
   private val webClient: Future[WebClient] = promisedWebClient.future
 
+  // tail latency controls (retries, hedging, latency budget) per target component, configured through
+  // kalix.cross-service, only known once the actor system is available
+  @volatile private var callPolicies: Option[CallPolicies] = None
+
+  def setCallPolicies(policies: CallPolicies): Unit = {
+    if (callPolicies.isEmpty) callPolicies = Some(policies)
+  }
+
+  private def callPolicyFor(httpDef: HttpEndpointMethodDefinition): CallPolicy =
+    callPolicies match {
+      case Some(policies) => policies.policyFor(httpDef.methodDescriptor.getService.getFullName)
+      case None           => CallPolicy.Direct
+    }
+
+  // component calls are sent as gRPC instead of with the WebClient when kalix.component-client.transport = grpc
+  @volatile private var grpcTransport: Option[GrpcComponentTransport] = None
+
+  def setGrpcTransport(transport: Option[GrpcComponentTransport]): Unit = {
+    if (grpcTransport.isEmpty) grpcTransport = transport
+  }
+
   def registerComponent(descriptor: Descriptors.ServiceDescriptor): Unit = {
     services ++= HttpEndpointMethodDefinition.extractForService(descriptor)
   }
 
-  private def buildWrappedBody[P](
+  private def buildRequest[P](
       httpDef: HttpEndpointMethodDefinition,
       inputBuilder: DynamicMessage.Builder,
-      body: Option[P] = None): Any = {
+      body: Option[P]): DynamicMessage = {
     if (body.isDefined && httpDef.rule.body.nonEmpty) {
       val bodyField = httpDef.methodDescriptor.getInputType.getFields.asScala
         .find(_.getName == httpDef.rule.body)
@@ -87,11 +115,12 @@ final class RestKalixClientImpl(messageCodec: JsonMessageCodec) extends KalixCli
 
       inputBuilder.setField(bodyField, messageCodec.encodeJava(body.get))
     }
-    Any(
-      AnySupport.DefaultTypeUrlPrefix + "/" + inputBuilder.getDescriptorForType.getFullName,
-      inputBuilder.build().toByteString)
+    inputBuilder.build()
   }
 
+  private def wrap(request: DynamicMessage): Any =
+    Any(AnySupport.DefaultTypeUrlPrefix + "/" + request.getDescriptorForType.getFullName, request.toByteString)
+
   override def get[R](uriStr: String, returnType: Class[R]): DeferredCall[Any, R] = {
     runGet(uriStr, returnType)
   }
@@ -281,12 +310,13 @@ final class RestKalixClientImpl(messageCodec: JsonMessageCodec) extends KalixCli
       queryParams: Map[String, util.List[scala.Any]],
       returnType: Class[R]): RestDeferredCall[Any, R] = {
 
-    matchMethodOrThrow(httpMethod, pathTemplate) { httpDef =>
+    matchTemplateOrThrow(httpMethod, pathTemplate) { httpDef =>
       typedRequestToRestDefCall(
         pathVariables,
         queryParams,
         None,
         httpDef,
+        Some(returnType),
         (metadata: Metadata) =>
           webClient.flatMap { client =>
 
@@ -313,12 +343,13 @@ final class RestKalixClientImpl(messageCodec: JsonMessageCodec) extends KalixCli
       body: Option[P],
       returnType: Class[R]): RestDeferredCall[Any, R] = {
 
-    matchMethodOrThrow(httpMethod, pathTemplate) { httpDef =>
+    matchTemplateOrThrow(httpMethod, pathTemplate) { httpDef =>
       typedRequestToRestDefCall(
         pathVariables,
         queryParams,
         body,
         httpDef,
+        Some(returnType),
         (metadata: Metadata) =>
           webClient.flatMap { client =>
             val requestBodySpec = requestBodyUriSpec(client, httpMethod)
@@ -337,6 +368,67 @@ final class RestKalixClientImpl(messageCodec: JsonMessageCodec) extends KalixCli
     }
   }
 
+  /**
+   * A call to a streamed view query. The returned Flux is lazy, the request is only sent when it is subscribed to, and
+   * the response body is decoded element by element as it arrives (newline delimited JSON or a JSON array), with the
+   * demand of the subscriber propagated to the connection, so that large result sets are never held in memory as a
+   * whole.
+   *
+   * Streams are never retried or hedged, since elements may already have been emitted when a failure happens.
+   */
+  private[kalix] def runStreamed[T, P](
+      httpMethod: HttpMethod,
+      pathTemplate: String,
+      pathVariables: Map[String, scala.Any],
+      queryParams: Map[String, util.List[scala.Any]],
+      body: Option[P],
+      elementType: Class[T]): RestDeferredCall[Any, Flux[T]] = {
+
+    matchTemplateOrThrow(httpMethod, pathTemplate) { httpDef =>
+      typedRequestToRestDefCall(
+        pathVariables,
+        queryParams,
+        body,
+        httpDef,
+        // streamed query results are decoded element by element from the HTTP response, so they stay on HTTP
+        None,
+        (metadata: Metadata) =>
+          CompletableFuture.completedFuture(
+            Mono
+              .fromFuture(webClient.asJava.toCompletableFuture)
+              .flatMapMany[T] { client =>
+                val spec: RequestHeadersSpec[_] =
+                  if (httpMethod == HttpMethods.GET || httpMethod == HttpMethods.DELETE)
+                    requestHeadersUriSpec(client, httpMethod)
+                      .uri(buildUri(pathTemplate, pathVariables, queryParams))
+                      .asInstanceOf[RequestHeadersUriSpec[_]]
+                  else {
+                    val requestBodySpec = requestBodyUriSpec(client, httpMethod)
+                      .uri(buildUri(pathTemplate, pathVariables, queryParams))
+                    body.foreach(requestBodySpec.bodyValue)
+                    requestBodySpec
+                  }
+
+                addHeaders(metadata, spec)
+                spec.accept(MediaType.APPLICATION_NDJSON, MediaType.APPLICATION_JSON)
+
+                spec
+                  .retrieve()
+                  .bodyToFlux(elementType)
+              }
+              .onErrorMap((error: Throwable) =>
+                error match {
+                  case responseException: WebClientResponseException =>
+                    DeferredCallResponseException(
+                      responseException.getMessage,
+                      fromWebClientResponse(responseException),
+                      responseException)
+                  case other => other
+                })))
+        .withCallPolicy(CallPolicy.Direct)
+    }
+  }
+
   private def requestBodyUriSpec(client: WebClient, httpMethod: HttpMethod): WebClient.RequestBodyUriSpec = {
     httpMethod match {
       case HttpMethods.PUT   => client.put()
@@ -359,17 +451,25 @@ final class RestKalixClientImpl(messageCodec: JsonMessageCodec) extends KalixCli
       queryParams: Map[String, util.List[scala.Any]],
       body: Option[P],
       httpDef: HttpEndpointMethodDefinition,
-      asyncCall: Metadata => CompletionStage[R]): RestDeferredCall[Any, R] = {
+      returnType: Option[Class[R]],
+      httpCall: Metadata => CompletionStage[R]): RestDeferredCall[Any, R] = {
 
     val inputBuilder = DynamicMessage.newBuilder(httpDef.methodDescriptor.getInputType)
 
     httpDef.parseTypedPathParametersInto(pathVariables, inputBuilder)
     httpDef.parseTypedRequestParametersInto(queryParams, inputBuilder)
 
-    val wrappedBody = buildWrappedBody(httpDef, inputBuilder, body)
+    val request = buildRequest(httpDef, inputBuilder, body)
+
+    val asyncCall: Metadata => CompletionStage[R] =
+      (grpcTransport, returnType) match {
+        case (Some(transport), Some(responseType)) =>
+          metadata => transport.call(httpDef.methodDescriptor, request, metadata, responseType)
+        case _ => httpCall
+      }
 
     RestDeferredCall[Any, R](
-      message = wrappedBody,
+      message = wrap(request),
       metadata = MetadataImpl.Empty,
       fullServiceName = httpDef.methodDescriptor.getService.getFullName,
       methodName = httpDef.methodDescriptor.getName,
@@ -381,7 +481,8 @@ final class RestKalixClientImpl(messageCodec: JsonMessageCodec) extends KalixCli
               fromWebClientResponse(responseException),
               responseException)
           case other: Throwable => throw other
-        })
+        },
+      callPolicy = callPolicyFor(httpDef))
   }
 
   private def matchMethodOrThrow[R](httpMethod: HttpMethod, path: String)(
@@ -394,6 +495,20 @@ final class RestKalixClientImpl(messageCodec: JsonMessageCodec) extends KalixCli
       .getOrElse(throw HttpMethodNotFoundException(httpMethod, path))
   }
 
+  // path templates come from a bounded set of component methods, so their matching definitions can be kept
+  private val templateDefinitions = new ConcurrentHashMap[(HttpMethod, String), HttpEndpointMethodDefinition]()
+
+  private def matchTemplateOrThrow[R](httpMethod: HttpMethod, pathTemplate: String)(
+      createDefCall: => HttpEndpointMethodDefinition => RestDeferredCall[Any, R]) = {
+    val httpDef = templateDefinitions.computeIfAbsent(
+      (httpMethod, pathTemplate),
+      _ =>
+        services
+          .find(d => (d.methodPattern == ANY_METHOD || httpMethod == d.methodPattern) && d.matches(pathTemplate))
+          .getOrElse(throw HttpMethodNotFoundException(httpMethod, pathTemplate)))
+    createDefCall(httpDef)
+  }
+
   private def requestToRestDefCall[P, R](
       uri: Uri,
       body: Option[P],
@@ -405,10 +520,8 @@ final class RestKalixClientImpl(messageCodec: JsonMessageCodec) extends KalixCli
     httpDef.parsePathParametersInto(uri.path.toString(), inputBuilder)
     httpDef.parseRequestParametersInto(uri.query().toMultiMap, inputBuilder)
 
-    val wrappedBody = buildWrappedBody(httpDef, inputBuilder, body)
-
     RestDeferredCall[Any, R](
-      message = wrappedBody,
+      message = wrap(buildRequest(httpDef, inputBuilder, body)),
       metadata = MetadataImpl.Empty,
       fullServiceName = httpDef.methodDescriptor.getService.getFullName,
       methodName = httpDef.methodDescriptor.getName,
@@ -420,7 +533,8 @@ final class RestKalixClientImpl(messageCodec: JsonMessageCodec) extends KalixCli
               fromWebClientResponse(responseException),
               responseException)
           case other: Throwable => throw other
-        })
+        },
+      callPolicy = callPolicyFor(httpDef))
   }
 
   private def fromWebClientResponse(webClientResponseException: WebClientResponseException): ErrorCode = {
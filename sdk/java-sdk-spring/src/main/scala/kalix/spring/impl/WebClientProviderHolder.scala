@@ -33,10 +33,13 @@ import com.typesafe.config.Config
 import kalix.devtools.impl.DevModeSettings
 import kalix.devtools.impl.HostAndPort
 import kalix.javasdk.JsonSupport
+import kalix.javasdk.impl.CallPolicies
+import kalix.javasdk.impl.GrpcClients
 import kalix.javasdk.impl.ProxyInfoHolder
 import kalix.spring.WebClientProvider
 import org.springframework.http.HttpHeaders
 import org.springframework.http.MediaType
+import org.springframework.http.client.reactive.ReactorClientHttpConnector
 import org.springframework.http.codec.json.Jackson2JsonEncoder
 import org.springframework.web.reactive.function.client.ExchangeFilterFunctions
 import org.springframework.web.reactive.function.client.WebClient
@@ -58,6 +61,15 @@ private[kalix] object WebClientProviderHolder extends ExtensionId[WebClientProvi
 
 class WebClientProviderHolder(system: ExtendedActorSystem) extends Extension {
   val webClientProvider = new WebClientProviderImpl(system)
+  val callPolicies: CallPolicies = CallPolicies(system)
+  val grpcComponentTransport: Option[GrpcComponentTransport] =
+    system.settings.config.getString("kalix.component-client.transport") match {
+      case "grpc" => Some(new GrpcComponentTransport(() => GrpcClients(system).proxyChannel))
+      case "http" => None
+      case other =>
+        throw new IllegalArgumentException(
+          s"Unknown kalix.component-client.transport [$other], must be either [http] or [grpc]")
+    }
 }
 
 /**
@@ -74,6 +86,12 @@ private[kalix] class WebClientProviderImpl(system: ExtendedActorSystem) extends
   private val MaxCrossServiceResponseContentLength =
     system.settings.config.getBytes("kalix.cross-service.max-content-length").toInt
 
+  // one pool for the local and all the per host clients, keeping connections per remote address
+  private val webClientSettings = WebClientSettings(system.settings.config)
+  private val connectionProvider = webClientSettings.connectionProvider()
+  system.registerOnTermination(connectionProvider.dispose())
+  private val httpClient = webClientSettings.httpClient(connectionProvider)
+
   override def webClientFor(host: String): WebClient = {
 
     // differently from the gRPC client, we don't need to create an extra config on the fly
@@ -111,6 +129,7 @@ private[kalix] class WebClientProviderImpl(system: ExtendedActorSystem) extends
     val builder =
       WebClient.builder
         .baseUrl(s"http://$host:$port")
+        .clientConnector(new ReactorClientHttpConnector(httpClient))
         .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
         .codecs(configurer => {
           configurer.defaultCodecs.jackson2JsonEncoder(
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2021 Lightbend Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package kalix.spring.impl
+
+import java.time.Duration
+
+import com.typesafe.config.Config
+import io.netty.channel.ChannelOption
+import reactor.netty.http.HttpProtocol
+import reactor.netty.http.client.HttpClient
+import reactor.netty.resources.ConnectionProvider
+
+/**
+ * INTERNAL API
+ *
+ * Settings of the HTTP client behind the WebClients to the proxy and to other services, from `kalix.spring.web-client`.
+ */
+private[kalix] final case class WebClientSettings(
+    h2c: Boolean,
+    connectTimeout: Duration,
+    responseTimeout: Option[Duration],
+    maxConnections: Int,
+    pendingAcquireTimeout: Duration,
+    maxIdleTime: Option[Duration],
+    maxLifeTime: Option[Duration],
+    evictInBackground: Option[Duration],
+    metrics: Boolean) {
+
+  /** The connection pool shared by all clients, which keeps a separate pool per remote address */
+  def connectionProvider(): ConnectionProvider = {
+    val builder = ConnectionProvider
+      .builder("kalix-web-client")
+      .maxConnections(maxConnections)
+      .pendingAcquireTimeout(pendingAcquireTimeout)
+      .metrics(metrics)
+    maxIdleTime.foreach(builder.maxIdleTime)
+    maxLifeTime.foreach(builder.maxLifeTime)
+    evictInBackground.foreach(builder.evictInBackground)
+    builder.build()
+  }
+
+  def httpClient(connectionProvider: ConnectionProvider): HttpClient = {
+    val client = HttpClient
+      .create(connectionProvider)
+      // h2c with prior knowledge, the proxy accepts HTTP/2 on its plain text port
+      .protocol(if (h2c) HttpProtocol.H2C else HttpProtocol.HTTP11)
+      .option[Integer](ChannelOption.CONNECT_TIMEOUT_MILLIS, Integer.valueOf(connectTimeout.toMillis.toInt))
+      .metrics(metrics, (uri: String) => WebClientSettings.uriTag(uri))
+    responseTimeout.fold(client)(client.responseTimeout)
+  }
+}
+
+/**
+ * INTERNAL API
+ */
+private[kalix] object WebClientSettings {
+
+  /**
+   * The URI tag of the client metrics. Request paths contain entity ids and other path variables, only the first path
+   * segment is kept so that the number of tags stays bounded by the component paths rather than grow with the ids.
+   */
+  def uriTag(uri: String): String = {
+    val path = uri.takeWhile(c => c != '?' && c != '#')
+    path.indexOf('/', 1) match {
+      case -1  => path
+      case end => path.substring(0, end) + "/**"
+    }
+  }
+
+  def apply(config: Config): WebClientSettings = {
+    val clientConfig = config.getConfig("kalix.spring.web-client")
+    val poolConfig = clientConfig.getConfig("connection-pool")
+
+    def optionalDuration(config: Config, path: String): Option[Duration] =
+      if (config.getString(path) == "off") None else Some(config.getDuration(path))
+
+    val settings = WebClientSettings(
+      h2c = clientConfig.getString("protocol") match {
+        case "h2c"   => true
+        case "http1" => false
+        case other =>
+          throw new IllegalArgumentException(
+            s"Unknown kalix.spring.web-client.protocol [$other], must be either [http1] or [h2c]")
+      },
+      connectTimeout = clientConfig.getDuration("connect-timeout"),
+      responseTimeout = optionalDuration(clientConfig, "response-timeout"),
+      maxConnections = poolConfig.getInt("max-connections"),
+      pendingAcquireTimeout = poolConfig.getDuration("pending-acquire-timeout"),
+      maxIdleTime = optionalDuration(poolConfig, "max-idle-time"),
+      maxLifeTime = optionalDuration(poolConfig, "max-life-time"),
+      evictInBackground = optionalDuration(poolConfig, "evict-in-background"),
+      metrics = clientConfig.getBoolean("metrics"))
+    require(settings.maxConnections > 0, "kalix.spring.web-client.connection-pool.max-connections must be positive")
+    settings
+  }
+}
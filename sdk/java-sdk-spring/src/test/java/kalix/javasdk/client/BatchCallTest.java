@@ -0,0 +1,154 @@
+/*
+ * Copyright 2021 Lightbend Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package kalix.javasdk.client;
+
+import kalix.javasdk.DeferredCall;
+import kalix.javasdk.Metadata;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BatchCallTest {
+
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final AtomicInteger maxInFlight = new AtomicInteger();
+
+  /** Replies with the id in upper case after the given delay, or fails for ids starting with "fail". */
+  private DeferredCall<String, String> callFor(String id, long delayMillis) {
+    return new DeferredCall<>() {
+      @Override
+      public String message() {
+        return id;
+      }
+
+      @Override
+      public Metadata metadata() {
+        return Metadata.EMPTY;
+      }
+
+      @Override
+      public CompletionStage<String> execute() {
+        maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        return CompletableFuture.supplyAsync(() -> {
+          inFlight.decrementAndGet();
+          if (id.startsWith("fail")) throw new IllegalStateException("Call for [" + id + "] failed");
+          return id.toUpperCase();
+        }, CompletableFuture.delayedExecutor(delayMillis, TimeUnit.MILLISECONDS));
+      }
+
+      @Override
+      public DeferredCall<String, String> withMetadata(Metadata metadata) {
+        return this;
+      }
+    };
+  }
+
+  private BatchCall<String> batchOf(List<String> ids) {
+    // later ids complete first
+    return new BatchCall<>(ids, id -> callFor(id, 50L * (ids.size() - ids.indexOf(id))));
+  }
+
+  @Test
+  public void shouldReturnRepliesInTheOrderOfTheIds() throws Exception {
+    var ids = List.of("a", "b", "c", "d", "e");
+
+    var replies = batchOf(ids).execute().toCompletableFuture().get(5, TimeUnit.SECONDS);
+
+    assertThat(replies).containsExactly("A", "B", "C", "D", "E");
+  }
+
+  @Test
+  public void shouldFailExecuteWhenAnyCallFails() {
+    var ids = List.of("a", "fail-b", "c");
+
+    assertThatThrownBy(() -> batchOf(ids).execute().toCompletableFuture().get(5, TimeUnit.SECONDS))
+        .isInstanceOf(ExecutionException.class)
+        .hasCauseInstanceOf(IllegalStateException.class)
+        .hasRootCauseMessage("Call for [fail-b] failed");
+  }
+
+  @Test
+  public void shouldCollectFailuresPerCall() throws Exception {
+    var ids = List.of("a", "fail-b", "c");
+
+    var results = batchOf(ids).executeAll().toCompletableFuture().get(5, TimeUnit.SECONDS);
+
+    assertThat(results).extracting(BatchCall.Result::id).containsExactly("a", "fail-b", "c");
+    assertThat(results).extracting(BatchCall.Result::isSuccess).containsExactly(true, false, true);
+    assertThat(results.get(0).value()).contains("A");
+    assertThat(results.get(1).value()).isEmpty();
+    assertThat(results.get(1).error().get()).hasMessage("Call for [fail-b] failed");
+    assertThat(results.get(2).value()).contains("C");
+  }
+
+  @Test
+  public void shouldStreamResultsAsTheyComplete() {
+    var ids = List.of("a", "b", "c");
+
+    var results = batchOf(ids).stream().collectList().block(Duration.ofSeconds(5));
+
+    assertThat(results).extracting(BatchCall.Result::id).containsExactly("c", "b", "a");
+  }
+
+  @Test
+  public void shouldLimitTheCallsInFlight() throws Exception {
+    var ids = List.of("a", "b", "c", "d", "e", "f", "g", "h", "i", "j");
+    var batch = new BatchCall<>(ids, id -> callFor(id, 20)).withParallelism(3);
+
+    var replies = batch.execute().toCompletableFuture().get(5, TimeUnit.SECONDS);
+
+    assertThat(replies).hasSize(10);
+    assertThat(maxInFlight.get()).isEqualTo(3);
+  }
+
+  @Test
+  public void shouldRejectParallelismBelowOne() {
+    assertThatThrownBy(() -> batchOf(List.of("a")).withParallelism(0))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessage("Parallelism must be at least 1, was 0");
+  }
+
+  @Test
+  public void shouldFailCallsTakingLongerThanTheCallTimeout() throws Exception {
+    var batch = new BatchCall<>(List.of("a", "slow"), id -> callFor(id, id.equals("slow") ? 2000 : 0))
+        .withCallTimeout(Duration.ofMillis(100));
+
+    var results = batch.executeAll().toCompletableFuture().get(5, TimeUnit.SECONDS);
+
+    assertThat(results.get(0).isSuccess()).isTrue();
+    assertThat(results.get(1).error().get()).isInstanceOf(java.util.concurrent.TimeoutException.class);
+  }
+
+  @Test
+  public void shouldCompleteAnEmptyBatch() throws Exception {
+    BatchCall<String> batch = batchOf(List.of());
+
+    assertThat(batch.execute().toCompletableFuture().get(5, TimeUnit.SECONDS)).isEmpty();
+    assertThat(batch.executeAll().toCompletableFuture().get(5, TimeUnit.SECONDS)).isEmpty();
+    assertThat(batch.stream().collectList().block(Duration.ofSeconds(5))).isEmpty();
+    assertThat(maxInFlight.get()).isZero();
+  }
+}
@@ -40,8 +40,10 @@ import kalix.spring.testmodels.valueentity.Counter;
 import kalix.spring.testmodels.valueentity.User;
 import kalix.spring.testmodels.view.ViewTestModels.UserByEmailWithGet;
 import kalix.spring.testmodels.view.ViewTestModels.UserByEmailWithGetWithoutAnnotation;
+import kalix.spring.testmodels.view.ViewTestModels.UserByNameStreamed;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
 
 import java.util.List;
 
@@ -301,6 +303,27 @@ class ComponentClientTest {
     assertMethodParamsMatch(targetMethod, call.message(), email);
   }
 
+  @Test
+  public void shouldReturnDeferredCallForStreamedViewRequest() throws Exception {
+    //given
+    var view = descriptorFor(UserByNameStreamed.class, messageCodec);
+    restKalixClient.registerComponent(view.serviceDescriptor());
+    var targetMethod = view.serviceDescriptor().findMethodByName("GetUser");
+    String name = "John";
+
+    //when
+    RestDeferredCall<Any, Flux<User>> call = (RestDeferredCall<Any, Flux<User>>) componentClient.forView()
+      .call(UserByNameStreamed::getUser)
+      .params(name);
+
+    //then
+    assertThat(call.fullServiceName()).isEqualTo(targetMethod.getService().getFullName());
+    assertThat(call.methodName()).isEqualTo(targetMethod.getName());
+    assertMethodParamsMatch(targetMethod, call.message(), name);
+    // the stream is lazy, no request is made before it is subscribed to
+    assertThat(call.execute().toCompletableFuture().get()).isInstanceOf(Flux.class);
+  }
+
   private ComponentDescriptor descriptorFor(Class<?> clazz, JsonMessageCodec messageCodec) {
     Validations.validate(clazz).failIfInvalid();
     return ComponentDescriptor.descriptorFor(clazz, messageCodec);
@@ -21,8 +21,10 @@ import kalix.javasdk.annotations.JWT;
 import kalix.spring.testmodels.Message;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.util.List;
+import java.util.stream.Collectors;
 
 public class ActionsTestModels {
 
@@ -199,4 +201,42 @@ public class ActionsTestModels {
       return messages.map(msg -> effects().reply(msg));
     }
   }
+
+  public static class StreamInCollectingAction extends Action {
+    @PostMapping("/message")
+    public Mono<Action.Effect<Message>> message(@RequestBody Flux<Message> messages) {
+      return messages
+          .map(Message::value)
+          .collect(Collectors.joining(","))
+          .map(joined -> effects().reply(new Message(joined)));
+    }
+  }
+
+  public static class StreamInEmptyAction extends Action {
+    @PostMapping("/message")
+    public Mono<Action.Effect<Message>> message(@RequestBody Flux<Message> messages) {
+      return messages.then(Mono.empty());
+    }
+  }
+
+  public static class StreamInFailingAction extends Action {
+    @PostMapping("/message")
+    public Action.Effect<Message> message(@RequestBody Flux<Message> messages) {
+      throw new IllegalArgumentException("Invalid stream");
+    }
+  }
+
+  public static class StreamInWithPathVariableAction extends Action {
+    @PostMapping("/message/{id}")
+    public Action.Effect<Message> message(@PathVariable String id, @RequestBody Flux<Message> messages) {
+      return effects().reply(new Message("hello"));
+    }
+  }
+
+  public static class PostWithListBody extends Action {
+    @PostMapping("/messages")
+    public Action.Effect<Message> messages(@RequestBody List<Message> messages) {
+      return effects().reply(new Message(messages.stream().map(Message::value).collect(Collectors.joining(","))));
+    }
+  }
 }
@@ -16,6 +16,7 @@
 
 package kalix.javasdk.impl
 
+import com.google.api.AnnotationsProto
 import com.google.protobuf.BytesValue
 import com.google.protobuf.Descriptors.FieldDescriptor.JavaType
 import com.google.protobuf.empty.Empty
@@ -42,6 +43,7 @@ import kalix.spring.testmodels.action.ActionsTestModels.PutWithOneParam
 import kalix.spring.testmodels.action.ActionsTestModels.PutWithoutParam
 import kalix.spring.testmodels.action.ActionsTestModels.StreamInAction
 import kalix.spring.testmodels.action.ActionsTestModels.StreamInOutAction
+import kalix.spring.testmodels.action.ActionsTestModels.StreamInWithPathVariableAction
 import kalix.spring.testmodels.action.ActionsTestModels.StreamOutAction
 import kalix.spring.testmodels.subscriptions.PubSubTestModels.ActionWithMethodLevelAcl
 import kalix.spring.testmodels.subscriptions.PubSubTestModels.ActionWithMethodLevelAclAndSubscription
@@ -425,19 +427,30 @@ class ActionDescriptorFactorySpec extends AnyWordSpec with ComponentDescriptorSu
     }
 
     "generate stream in methods" in {
-      intercept[InvalidComponentException] {
-        Validations
-          .validate(classOf[StreamInAction])
-          .failIfInvalid
-      }.getMessage should include("Stream in calls are not supported.")
+      assertDescriptor[StreamInAction] { desc =>
+        val methodDescriptor = desc.serviceDescriptor.findMethodByName("Message")
+        methodDescriptor.isServerStreaming shouldBe false
+        methodDescriptor.isClientStreaming shouldBe true
+        // stream in calls are only exposed over gRPC
+        methodDescriptor.getOptions.hasExtension(AnnotationsProto.http) shouldBe false
+      }
     }
 
     "generate stream in/out methods" in {
+      assertDescriptor[StreamInOutAction] { desc =>
+        val methodDescriptor = desc.serviceDescriptor.findMethodByName("Message")
+        methodDescriptor.isServerStreaming shouldBe true
+        methodDescriptor.isClientStreaming shouldBe true
+        methodDescriptor.getOptions.hasExtension(AnnotationsProto.http) shouldBe false
+      }
+    }
+
+    "not allow stream in methods with other parameters than the request body" in {
       intercept[InvalidComponentException] {
         Validations
-          .validate(classOf[StreamInOutAction])
+          .validate(classOf[StreamInWithPathVariableAction])
           .failIfInvalid
-      }.getMessage should include("Stream in calls are not supported.")
+      }.getMessage should include("A stream in method must only have the Flux request body as parameter.")
     }
 
     "generate mapping for an Action with a subscription to a topic" in {
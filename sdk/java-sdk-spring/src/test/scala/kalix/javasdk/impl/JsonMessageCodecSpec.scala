@@ -20,6 +20,7 @@ import com.fasterxml.jackson.annotation.JsonCreator
 import com.google.protobuf.any.{ Any => ScalaPbAny }
 import com.google.protobuf.{ Any => JavaPbAny }
 import kalix.javasdk.JsonSupport
+import kalix.javasdk.annotations.BinaryJson
 import kalix.javasdk.annotations.TypeName
 import kalix.javasdk.impl.JsonMessageCodecSpec.Cat
 import kalix.javasdk.impl.JsonMessageCodecSpec.Dog
@@ -51,6 +52,15 @@ object JsonMessageCodecSpec {
     final case class Elephant(name: String, age: Int) extends Animal
   }
 
+  object AnnotatedWithBinaryJson {
+
+    @BinaryJson
+    sealed trait Event
+
+    @TypeName("item-added")
+    final case class ItemAdded(name: String, quantity: Int) extends Event
+  }
+
   object AnnotatedWithEmptyTypeName {
 
     sealed trait Animal
@@ -176,6 +186,26 @@ class JsonMessageCodecSpec extends AnyWordSpec with Matchers {
       }
     }
 
+    {
+      import JsonMessageCodecSpec.AnnotatedWithBinaryJson.ItemAdded
+
+      "encode types annotated with BinaryJson as Smile" in {
+        val encoded = messageCodec.encodeScala(ItemAdded("shoe", 2))
+        encoded.typeUrl shouldBe JsonSupport.KALIX_SMILE + "item-added"
+        new StrictJsonMessageCodec(messageCodec).decodeMessage(encoded) shouldBe ItemAdded("shoe", 2)
+      }
+
+      "route types annotated with BinaryJson by their JSON type url" in {
+        messageCodec.typeUrlFor(classOf[ItemAdded]) shouldBe jsonTypeUrlWith("item-added")
+      }
+
+      "decode JSON encoded values of types annotated with BinaryJson" in {
+        val encoded = ScalaPbAny.fromJavaProto(JsonSupport.encodeJson(ItemAdded("shoe", 2), "item-added"))
+        messageCodec.typeUrlFor(classOf[ItemAdded]) // fill the cache
+        new StrictJsonMessageCodec(messageCodec).decodeMessage(encoded) shouldBe ItemAdded("shoe", 2)
+      }
+    }
+
     "throw if receiving null (scala)" in {
       val failed = intercept[RuntimeException] {
         messageCodec.encodeScala(null)
@@ -18,16 +18,25 @@ package kalix.javasdk.impl
 
 import java.net.URLEncoder
 import java.nio.charset.StandardCharsets
+import java.util.concurrent.TimeUnit
 
 import scala.jdk.CollectionConverters.CollectionHasAsScala
 
+import akka.http.scaladsl.model.HttpMethods
 import com.google.protobuf.ByteString
 import com.google.protobuf.Descriptors
 import com.google.protobuf.DynamicMessage
 import com.google.protobuf.any.{ Any => ScalaPbAny }
 import com.google.protobuf.{ Any => JavaPbAny }
 import kalix.javasdk.DeferredCall
+import io.grpc.CallOptions
+import io.grpc.Channel
+import io.grpc.ClientCall
+import io.grpc.Metadata
+import io.grpc.MethodDescriptor
+import io.grpc.Status
 import kalix.javasdk.JsonSupport
+import kalix.spring.impl.GrpcComponentTransport
 import kalix.spring.impl.RestKalixClientImpl
 import kalix.spring.testmodels.Message
 import kalix.spring.testmodels.action.ActionsTestModels.GetClassLevel
@@ -168,6 +177,57 @@ class RestKalixClientImplSpec extends AnyWordSpec with Matchers with BeforeAndAf
         }
       }
     }
+
+    "send component calls over gRPC when the gRPC transport is set" in {
+      val actionPost = ComponentDescriptor.descriptorFor(classOf[PostWithoutParam], messageCodec)
+      restKalixClient.registerComponent(actionPost.serviceDescriptor)
+      val channel = new ReplyingChannel(JsonSupport.encodeJson(new Message("reply")))
+      restKalixClient.setGrpcTransport(Some(new GrpcComponentTransport(() => channel)))
+
+      val msgSent = new Message("hello world")
+      val defCall =
+        restKalixClient.runWithBody(HttpMethods.POST, "/message", Map.empty, Map.empty, Some(msgSent), classOf[Message])
+      defCall.execute().toCompletableFuture.get(3, TimeUnit.SECONDS) shouldBe new Message("reply")
+
+      val targetMethod = actionPost.serviceDescriptor.findMethodByName("Message")
+      channel.methodName shouldBe targetMethod.getService.getFullName + "/Message"
+      // the request sent is the one of the deferred call, encoded once
+      channel.request shouldBe defCall.message.value
+      // and can be parsed back, as done by in-process channels
+      channel.parsedRequest shouldBe DynamicMessage.parseFrom(targetMethod.getInputType, defCall.message.value)
+      assertMethodBodyMatch(targetMethod, defCall.message) { body =>
+        decodeJson(body, classOf[Message]).value shouldBe msgSent.value
+      }
+    }
+  }
+
+  private class ReplyingChannel(reply: JavaPbAny) extends Channel {
+    @volatile var methodName: String = _
+    @volatile var request: ByteString = _
+    @volatile var parsedRequest: Any = _
+
+    override def authority(): String = "localhost"
+
+    override def newCall[Req, Res](
+        method: MethodDescriptor[Req, Res],
+        callOptions: CallOptions): ClientCall[Req, Res] = {
+      methodName = method.getFullMethodName
+      new ClientCall[Req, Res] {
+        private var listener: ClientCall.Listener[Res] = _
+        override def start(responseListener: ClientCall.Listener[Res], headers: Metadata): Unit =
+          listener = responseListener
+        override def request(numMessages: Int): Unit = ()
+        override def cancel(message: String, cause: Throwable): Unit = ()
+        override def sendMessage(message: Req): Unit = {
+          request = ByteString.readFrom(method.streamRequest(message))
+          parsedRequest = method.parseRequest(request.newInput())
+        }
+        override def halfClose(): Unit = {
+          listener.onMessage(method.parseResponse(reply.toByteString.newInput()))
+          listener.onClose(Status.OK, new Metadata())
+        }
+      }
+    }
   }
 
   private def assertRestDeferredCall[M, R](defCall: DeferredCall[M, R])(
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2021 Lightbend Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package kalix.javasdk.impl.action
+
+import scala.concurrent.Await
+import scala.concurrent.Future
+import scala.concurrent.Promise
+import scala.concurrent.duration._
+import scala.reflect.ClassTag
+
+import akka.Done
+import akka.NotUsed
+import akka.actor.ActorSystem
+import akka.stream.Materializer
+import akka.stream.scaladsl.Sink
+import akka.stream.scaladsl.Source
+import akka.testkit.TestKit
+import com.google.protobuf.DynamicMessage
+import com.google.protobuf.any.{ Any => ScalaPbAny }
+import kalix.javasdk.JsonSupport
+import kalix.javasdk.action.Action
+import kalix.javasdk.action.ActionCreationContext
+import kalix.javasdk.action.MessageEnvelope
+import kalix.javasdk.impl.AbstractContext
+import kalix.javasdk.impl.AnySupport
+import kalix.javasdk.impl.ComponentDescriptor
+import kalix.javasdk.impl.JsonMessageCodec
+import kalix.javasdk.impl.Validations
+import kalix.javasdk.impl.action.ActionEffectImpl.AsyncEffect
+import kalix.javasdk.impl.action.ActionEffectImpl.ReplyEffect
+import kalix.spring.testmodels.Message
+import kalix.spring.testmodels.action.ActionsTestModels.PostWithListBody
+import kalix.spring.testmodels.action.ActionsTestModels.StreamInAction
+import kalix.spring.testmodels.action.ActionsTestModels.StreamInCollectingAction
+import kalix.spring.testmodels.action.ActionsTestModels.StreamInEmptyAction
+import kalix.spring.testmodels.action.ActionsTestModels.StreamInFailingAction
+import kalix.spring.testmodels.action.ActionsTestModels.StreamInOutAction
+import org.scalatest.BeforeAndAfterAll
+import org.scalatest.matchers.should.Matchers
+import org.scalatest.wordspec.AnyWordSpec
+
+class ReflectiveActionRouterSpec extends AnyWordSpec with Matchers with BeforeAndAfterAll {
+
+  private val system = ActorSystem("ReflectiveActionRouterSpec")
+
+  // only needed to materialize streamed in calls
+  private val creationContext: ActionCreationContext = new AbstractContext(system) with ActionCreationContext {
+    override def getGrpcClient[T](clientClass: Class[T], service: String): T =
+      throw new UnsupportedOperationException("Not available in this test")
+  }
+
+  override def afterAll(): Unit =
+    TestKit.shutdownActorSystem(system)
+
+  private def await[T](future: Future[T]): T = Await.result(future, 5.seconds)
+
+  private def routerFor[A <: Action](action: A)(implicit
+      ev: ClassTag[A]): (ReflectiveActionRouter[A], ComponentDescriptor) = {
+    val descriptor = ComponentDescriptor.descriptorFor(ev.runtimeClass, new JsonMessageCodec)
+    val router =
+      new ReflectiveActionRouter[A](
+        action,
+        descriptor.commandHandlers,
+        ignoreUnknown = false,
+        SubscriptionBatcher.batchersFor(ev.runtimeClass),
+        creationContext)
+    (router, descriptor)
+  }
+
+  private def syntheticRequest(descriptor: ComponentDescriptor, commandName: String, body: AnyRef): ScalaPbAny = {
+    val requestDescriptor = descriptor.commandHandlers(commandName).requestMessageDescriptor
+    val message = DynamicMessage
+      .newBuilder(requestDescriptor)
+      .setField(requestDescriptor.findFieldByNumber(1), JsonSupport.encodeJson(body))
+      .build()
+    ScalaPbAny(AnySupport.DefaultTypeUrlPrefix + "/" + requestDescriptor.getFullName, message.toByteString)
+  }
+
+  "The reflective action router" should {
+
+    "route a REST call with a list request body as a regular command" in {
+      val method = classOf[PostWithListBody].getMethod("messages", classOf[java.util.List[_]])
+      SubscriptionBatcher.isBatchHandler(method) shouldBe false
+      SubscriptionBatcher.batchersFor(classOf[PostWithListBody]) shouldBe empty
+      Validations.validate(classOf[PostWithListBody]).isValid shouldBe true
+
+      val (router, descriptor) = routerFor(new PostWithListBody)
+      val body = java.util.List.of(new Message("a"), new Message("b"))
+      val effect =
+        router.handleUnary("Messages", MessageEnvelope.of[Any](syntheticRequest(descriptor, "Messages", body)))
+
+      effect shouldBe ReplyEffect(new Message("a,b"), None, Nil)
+    }
+
+    def messages(descriptor: ComponentDescriptor, values: String*): Seq[MessageEnvelope[Any]] =
+      values.map(value => MessageEnvelope.of[Any](syntheticRequest(descriptor, "Message", new Message(value))))
+
+    "pass a streamed in call to the component as a Flux" in {
+      val (router, descriptor) = routerFor(new StreamInCollectingAction)
+      val effect = router.handleStreamedIn("Message", Source(messages(descriptor, "a", "b", "c")).asJava)
+
+      effect shouldBe a[AsyncEffect[_]]
+      await(effect.asInstanceOf[AsyncEffect[Message]].effect) shouldBe ReplyEffect(new Message("a,b,c"), None, Nil)
+    }
+
+    "fail a streamed in call when the component's Mono completes without an effect" in {
+      val (router, descriptor) = routerFor(new StreamInEmptyAction)
+      val effect = router.handleStreamedIn("Message", Source(messages(descriptor, "a", "b")).asJava)
+
+      effect shouldBe a[AsyncEffect[_]]
+      val error = intercept[IllegalStateException] {
+        await(effect.asInstanceOf[AsyncEffect[Message]].effect)
+      }
+      error.getMessage should include("completed without an effect")
+      error.getMessage should include(classOf[StreamInEmptyAction].getName)
+    }
+
+    "cancel the incoming stream when the component replies without consuming it" in {
+      val (router, descriptor) = routerFor(new StreamInAction)
+      val terminated = Promise[Done]()
+      val endless = Source.repeat(messages(descriptor, "a").head).watchTermination() { (_, done) =>
+        terminated.completeWith(done)
+        NotUsed
+      }
+
+      router.handleStreamedIn("Message", endless.asJava) shouldBe ReplyEffect(new Message("hello"), None, Nil)
+      await(terminated.future) shouldBe Done
+    }
+
+    "pass a bidirectional streamed call to the component as a Flux" in {
+      val (router, descriptor) = routerFor(new StreamInOutAction)
+      val effects = router.handleStreamed("Message", Source(messages(descriptor, "a", "b")).asJava)
+
+      await(effects.asScala.runWith(Sink.seq)(Materializer(system))) shouldBe
+      Seq(ReplyEffect(new Message("a"), None, Nil), ReplyEffect(new Message("b"), None, Nil))
+    }
+
+    "fail a streamed in call with the exception thrown by the component" in {
+      val (router, descriptor) = routerFor(new StreamInFailingAction)
+      val terminated = Promise[Done]()
+      val endless = Source.repeat(messages(descriptor, "a").head).watchTermination() { (_, done) =>
+        terminated.completeWith(done)
+        NotUsed
+      }
+
+      val error = intercept[IllegalArgumentException] {
+        router.handleStreamedIn("Message", endless.asJava)
+      }
+      error.getMessage shouldBe "Invalid stream"
+      await(terminated.future) shouldBe Done
+    }
+  }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2021 Lightbend Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package kalix.javasdk.impl.action
+
+import java.util
+import java.util.concurrent.ConcurrentLinkedQueue
+
+import scala.concurrent.Await
+import scala.concurrent.Promise
+import scala.concurrent.duration._
+import scala.jdk.CollectionConverters._
+import scala.jdk.FutureConverters._
+
+import kalix.javasdk.action.Action
+import kalix.javasdk.annotations.Subscribe
+import kalix.javasdk.impl.action.ActionEffectImpl.AsyncEffect
+import kalix.javasdk.impl.action.ActionEffectImpl.ReplyEffect
+import kalix.javasdk.impl.action.SubscriptionBatcherSpec.BatchingAction
+import org.scalatest.matchers.should.Matchers
+import org.scalatest.wordspec.AnyWordSpec
+
+object SubscriptionBatcherSpec {
+
+  @Subscribe.Topic("messages")
+  class BatchingAction extends Action {
+    val batches = new ConcurrentLinkedQueue[(util.List[String], Promise[String])]()
+
+    def onMessages(messages: util.List[String]): Action.Effect[String] = {
+      if (messages.contains("boom")) throw new IllegalStateException("boom")
+      val done = Promise[String]()
+      batches.add((messages, done))
+      ActionEffectImpl.Builder.asyncReply(done.future.asJava)
+    }
+
+    def onMessage(message: String): Action.Effect[String] =
+      ActionEffectImpl.Builder.reply(message)
+  }
+
+  private val onMessages = classOf[BatchingAction].getMethod("onMessages", classOf[util.List[_]])
+}
+
+class SubscriptionBatcherSpec extends AnyWordSpec with Matchers {
+  import SubscriptionBatcherSpec.onMessages
+
+  private def result(effect: Action.Effect[_]): Action.Effect[_] =
+    effect match {
+      case AsyncEffect(future, _) => result(Await.result(future, 3.seconds))
+      case other                  => other
+    }
+
+  private def pendingBatches(action: BatchingAction): Seq[(Seq[String], Promise[String])] =
+    action.batches.asScala.toSeq.map { case (messages, done) => (messages.asScala.toSeq, done) }
+
+  "The subscription batcher" should {
+
+    "recognize batch handlers and their message type" in {
+      SubscriptionBatcher.isBatchHandler(onMessages) shouldBe true
+      SubscriptionBatcher.messageType(onMessages) shouldBe classOf[String]
+
+      val onMessage = classOf[BatchingAction].getMethod("onMessage", classOf[String])
+      SubscriptionBatcher.isBatchHandler(onMessage) shouldBe false
+      SubscriptionBatcher.messageType(onMessage) shouldBe classOf[String]
+
+      SubscriptionBatcher.batchersFor(classOf[BatchingAction]).keySet shouldBe Set(onMessages)
+    }
+
+    "handle a single message right away" in {
+      val action = new BatchingAction
+      val batcher = SubscriptionBatcher(onMessages)
+
+      val effect = batcher.submit(action, "a")
+      val Seq((messages, done)) = pendingBatches(action)
+      messages shouldBe Seq("a")
+
+      done.success("handled")
+      result(effect) shouldBe ReplyEffect("handled", None, Nil)
+    }
+
+    "group the messages arriving while a batch is handled" in {
+      val action = new BatchingAction
+      val batcher = new SubscriptionBatcher(onMessages, maxSize = 2, maxWaitMillis = 0)
+
+      val first = batcher.submit(action, "a")
+      val queued = Seq("b", "c", "d").map(batcher.submit(action, _))
+      pendingBatches(action).map(_._1) shouldBe Seq(Seq("a"))
+
+      pendingBatches(action).head._2.success("first")
+      result(first) shouldBe ReplyEffect("first", None, Nil)
+      awaitBatches(action, 2)
+      pendingBatches(action).map(_._1) shouldBe Seq(Seq("a"), Seq("b", "c"))
+
+      pendingBatches(action)(1)._2.success("second")
+      result(queued(0)) shouldBe ActionEffectImpl.IgnoreEffect()
+      result(queued(1)) shouldBe ReplyEffect("second", None, Nil)
+      awaitBatches(action, 3)
+      pendingBatches(action).map(_._1).last shouldBe Seq("d")
+
+      pendingBatches(action)(2)._2.success("third")
+      result(queued(2)) shouldBe ReplyEffect("third", None, Nil)
+    }
+
+    "linger for more messages when configured to" in {
+      val action = new BatchingAction
+      val batcher = new SubscriptionBatcher(onMessages, maxSize = 10, maxWaitMillis = 100)
+
+      val effects = Seq("a", "b").map(batcher.submit(action, _))
+      pendingBatches(action) shouldBe empty
+
+      awaitBatches(action, 1)
+      pendingBatches(action).head._1 shouldBe Seq("a", "b")
+      pendingBatches(action).head._2.success("done")
+      effects.map(result) shouldBe Seq(ActionEffectImpl.IgnoreEffect(), ReplyEffect("done", None, Nil))
+    }
+
+    "fail all messages of a batch when the handler throws" in {
+      val action = new BatchingAction
+      val batcher = new SubscriptionBatcher(onMessages, maxSize = 10, maxWaitMillis = 0)
+
+      val running = batcher.submit(action, "a")
+      val failing = Seq("b", "boom").map(batcher.submit(action, _))
+      pendingBatches(action).head._2.success("done")
+      result(running) shouldBe ReplyEffect("done", None, Nil)
+
+      failing.foreach { effect =>
+        intercept[IllegalStateException](result(effect)).getMessage shouldBe "boom"
+      }
+    }
+  }
+
+  private def awaitBatches(action: BatchingAction, count: Int): Unit = {
+    val deadline = 3.seconds.fromNow
+    while (action.batches.size < count && deadline.hasTimeLeft()) Thread.sleep(10)
+    action.batches.size shouldBe count
+  }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2021 Lightbend Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package kalix.spring.aot
+
+import java.net.URLClassLoader
+import java.nio.file.Files
+
+import kalix.spring.impl.ComponentIndex
+import kalix.spring.indexed.IndexedAction
+import kalix.spring.indexed.Main
+import org.scalatest.matchers.should.Matchers
+import org.scalatest.wordspec.AnyWordSpec
+import org.springframework.aot.hint.RuntimeHints
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates
+
+class KalixRuntimeHintsSpec extends AnyWordSpec with Matchers {
+
+  private def classLoaderWith(index: ComponentIndex): ClassLoader = {
+    val directory = Files.createTempDirectory("component-index")
+    index.writeTo(directory)
+    new URLClassLoader(Array(directory.toUri.toURL), getClass.getClassLoader)
+  }
+
+  "The Kalix runtime hints" should {
+
+    "register the components of the index for reflection" in {
+      val hints = new RuntimeHints
+      new KalixRuntimeHints().registerHints(hints, classLoaderWith(ComponentIndexGenerator.generate(classOf[Main])))
+      RuntimeHintsPredicates.reflection().onType(classOf[IndexedAction]).test(hints) shouldBe true
+      RuntimeHintsPredicates.resource().forResource(ComponentIndex.ResourcePath).test(hints) shouldBe true
+    }
+
+    "fall back to their own class loader when none is given" in {
+      val hints = new RuntimeHints
+      new KalixRuntimeHints().registerHints(hints, null)
+      RuntimeHintsPredicates.resource().forResource(ComponentIndex.ResourcePath).test(hints) shouldBe true
+    }
+
+    "reject an index generated from other classes" in {
+      val stale = ComponentIndexGenerator.generate(classOf[Main]).copy(classesFingerprint = "1-cafe")
+      intercept[IllegalStateException] {
+        new KalixRuntimeHints().registerHints(new RuntimeHints, classLoaderWith(stale))
+      }
+    }
+  }
+}
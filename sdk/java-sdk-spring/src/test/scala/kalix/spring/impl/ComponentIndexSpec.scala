@@ -0,0 +1,90 @@
+/*
+ * Copyright 2021 Lightbend Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package kalix.spring.impl
+
+import java.net.URLClassLoader
+import java.nio.file.Files
+
+import kalix.spring.aot.ComponentIndexGenerator
+import kalix.spring.indexed.IndexedAction
+import kalix.spring.indexed.Main
+import org.scalatest.matchers.should.Matchers
+import org.scalatest.wordspec.AnyWordSpec
+
+class ComponentIndexSpec extends AnyWordSpec with Matchers {
+
+  private def classLoaderWith(index: ComponentIndex): ClassLoader = {
+    val directory = Files.createTempDirectory("component-index")
+    index.writeTo(directory)
+    new URLClassLoader(Array(directory.toUri.toURL), getClass.getClassLoader)
+  }
+
+  "The component index" should {
+
+    "be generated from the components and the ACL of a service" in {
+      val index = ComponentIndexGenerator.generate(classOf[Main])
+      index.mainClass shouldBe classOf[Main].getName
+      index.components shouldBe Seq(classOf[IndexedAction].getName)
+      index.defaultAcl.map(_.getName) shouldBe Some("kalix_policy.proto")
+      index.isCurrent(getClass.getClassLoader) shouldBe true
+    }
+
+    "round trip through its resource" in {
+      val index = ComponentIndexGenerator.generate(classOf[Main])
+      ComponentIndex.load(classLoaderWith(index)) shouldBe Some(index)
+
+      val withoutAcl = ComponentIndex("com.example.Main", Seq("com.example.CounterEntity"), "1-cafe", None)
+      ComponentIndex.parse(withoutAcl.render.split("\n").toSeq) shouldBe withoutAcl
+    }
+
+    "be absent when not generated" in {
+      ComponentIndex.load(new URLClassLoader(Array.empty, null)) shouldBe None
+    }
+
+    "not be used when generated from other classes than the ones of the service" in {
+      val stale = ComponentIndexGenerator.generate(classOf[Main]).copy(classesFingerprint = "1-cafe")
+      stale.isCurrent(getClass.getClassLoader) shouldBe false
+
+      ComponentIndex.loadCurrent(classLoaderWith(stale), verify = true) shouldBe None
+      // in a native image
+      ComponentIndex.loadCurrent(classLoaderWith(stale), verify = false) shouldBe Some(stale)
+    }
+
+    "change its fingerprint with the classes of the service" in {
+      val classLoader = getClass.getClassLoader
+      ComponentIndex.fingerprint("kalix.spring.indexed", classLoader) shouldBe
+      ComponentIndex.fingerprint("kalix.spring.indexed", classLoader)
+      ComponentIndex.fingerprint("kalix.spring.indexed", classLoader) should not be
+      ComponentIndex.fingerprint("kalix.spring.badwiring", classLoader)
+    }
+
+    "ignore comments and blank lines" in {
+      val lines =
+        Seq("# comment", "", "main-class = com.example.Main", "classes-fingerprint=1-cafe", "component=com.example.A")
+      ComponentIndex.parse(lines) shouldBe ComponentIndex("com.example.Main", Seq("com.example.A"), "1-cafe", None)
+    }
+
+    "reject an index without a main class or fingerprint, or with unknown entries" in {
+      intercept[IllegalArgumentException](ComponentIndex.parse(Seq("classes-fingerprint=1-cafe")))
+      intercept[IllegalArgumentException](ComponentIndex.parse(Seq("main-class=com.example.Main")))
+      intercept[IllegalArgumentException](
+        ComponentIndex.parse(Seq("main-class=com.example.Main", "classes-fingerprint=1-cafe", "routes=foo")))
+      intercept[IllegalArgumentException](
+        ComponentIndex.parse(Seq("main-class=com.example.Main", "classes-fingerprint=1-cafe", "garbage")))
+    }
+  }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2021 Lightbend Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package kalix.spring.impl
+
+import java.time.Duration
+
+import com.typesafe.config.ConfigFactory
+import org.scalatest.matchers.should.Matchers
+import org.scalatest.wordspec.AnyWordSpec
+
+class WebClientSettingsSpec extends AnyWordSpec with Matchers {
+
+  "The web client settings" should {
+
+    "default to pooled HTTP/1.1 connections" in {
+      val settings = WebClientSettings(ConfigFactory.load())
+      settings.h2c shouldBe false
+      settings.responseTimeout shouldBe None
+      settings.maxIdleTime shouldBe Some(Duration.ofSeconds(30))
+      settings.metrics shouldBe false
+    }
+
+    "be configurable for h2c with timeouts" in {
+      val config = ConfigFactory
+        .parseString("""
+          kalix.spring.web-client {
+            protocol = h2c
+            response-timeout = 2s
+            connection-pool {
+              max-connections = 8
+              max-life-time = off
+            }
+          }
+          """)
+        .withFallback(ConfigFactory.load())
+      val settings = WebClientSettings(config)
+      settings.h2c shouldBe true
+      settings.responseTimeout shouldBe Some(Duration.ofSeconds(2))
+      settings.maxConnections shouldBe 8
+      settings.maxLifeTime shouldBe None
+
+      val provider = settings.connectionProvider()
+      try settings.httpClient(provider) should not be null
+      finally provider.dispose()
+    }
+
+    "keep only the first path segment in the metrics URI tag" in {
+      WebClientSettings.uriTag("/cart/123/add") shouldBe "/cart/**"
+      WebClientSettings.uriTag("/cart/456/add?quantity=2") shouldBe "/cart/**"
+      WebClientSettings.uriTag("/cart") shouldBe "/cart"
+      WebClientSettings.uriTag("/cart?id=1") shouldBe "/cart"
+      WebClientSettings.uriTag("/") shouldBe "/"
+    }
+
+    "reject an unknown protocol" in {
+      val config = ConfigFactory
+        .parseString("kalix.spring.web-client.protocol = h3")
+        .withFallback(ConfigFactory.load())
+      intercept[IllegalArgumentException](WebClientSettings(config))
+    }
+  }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2021 Lightbend Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package kalix.javasdk.loadtest
+
+import java.util.function.{ Function => JFunction }
+
+import com.google.protobuf.any.{ Any => ScalaPbAny }
+import com.google.protobuf.{ Message => JavaMessage }
+import kalix.protocol.action.Actions
+import kalix.protocol.event_sourced_entity.EventSourcedEntities
+import kalix.protocol.value_entity.ValueEntities
+import scalapb.GeneratedMessage
+
+object LoadCommand {
+
+  /**
+   * A command to an event sourced entity.
+   *
+   * @param serviceName
+   *   the full name of the gRPC service of the entity, for example `com.example.ShoppingCartService`
+   * @param commandName
+   *   the name of the gRPC method
+   * @param payload
+   *   creates the command message, a Java protobuf or ScalaPB message, for the given entity id
+   */
+  def eventSourcedEntity(serviceName: String, commandName: String, payload: JFunction[String, Any]): LoadCommand =
+    new LoadCommand(EventSourcedEntities.name, serviceName, commandName, payload, 1, None, 0, None)
+
+  /**
+   * A command to a value entity.
+   *
+   * @param serviceName
+   *   the full name of the gRPC service of the entity
+   * @param commandName
+   *   the name of the gRPC method
+   * @param payload
+   *   creates the command message, a Java protobuf or ScalaPB message, for the given entity id
+   */
+  def valueEntity(serviceName: String, commandName: String, payload: JFunction[String, Any]): LoadCommand =
+    new LoadCommand(ValueEntities.name, serviceName, commandName, payload, 1, None, 0, None)
+
+  /**
+   * A command to an action.
+   *
+   * @param serviceName
+   *   the full name of the gRPC service of the action
+   * @param commandName
+   *   the name of the gRPC method
+   * @param payload
+   *   creates the command message, a Java protobuf or ScalaPB message, for a random id out of the configured entity id
+   *   cardinality
+   */
+  def action(serviceName: String, commandName: String, payload: JFunction[String, Any]): LoadCommand =
+    new LoadCommand(Actions.name, serviceName, commandName, payload, 1, None, 0, None)
+
+  private[loadtest] def toAny(message: Any): ScalaPbAny = message match {
+    case any: ScalaPbAny                => any
+    case javaMessage: JavaMessage       => ScalaPbAny.fromJavaProto(com.google.protobuf.Any.pack(javaMessage))
+    case scalaMessage: GeneratedMessage => ScalaPbAny.pack(scalaMessage)
+    case other =>
+      throw new IllegalArgumentException(
+        s"Load test messages must be Java protobuf or ScalaPB messages, was [${other.getClass.getName}]")
+  }
+}
+
+/**
+ * One kind of command in the mix of a [[LoadTest]], picked at random according to its weight relative to the other
+ * commands.
+ *
+ * Not for user extension, instances are immutable.
+ */
+final class LoadCommand private (
+    private[loadtest] val componentType: String,
+    val serviceName: String,
+    val commandName: String,
+    private[loadtest] val payload: JFunction[String, Any],
+    val weight: Int,
+    private[loadtest] val initialState: Option[Any],
+    val replayedEvents: Int,
+    private[loadtest] val replayedEvent: Option[Any]) {
+
+  /** The key the latencies of this command are reported under */
+  def key: String = s"$serviceName/$commandName"
+
+  /**
+   * @param weight
+   *   how often this command is picked relative to the other commands, must be at least 1
+   */
+  def withWeight(weight: Int): LoadCommand = {
+    require(weight >= 1, s"Weight must be at least 1, was $weight")
+    copy(weight = weight)
+  }
+
+  /**
+   * The state that entities activated by this command start from, the snapshot for event sourced entities. Use it to
+   * load test with realistic state sizes.
+   */
+  def withInitialState(state: Any): LoadCommand = {
+    require(componentType != Actions.name, "Actions don't have state")
+    copy(initialState = Some(state))
+  }
+
+  /**
+   * The number of events replayed into event sourced entities activated by this command, on top of the initial state.
+   * Use it to load test the cost of recovering entities with long journals.
+   */
+  def withReplayedEvents(count: Int, event: Any): LoadCommand = {
+    require(componentType == EventSourcedEntities.name, "Only event sourced entities replay events")
+    require(count >= 0, s"Replayed events must not be negative, was $count")
+    copy(replayedEvents = count, replayedEvent = Some(event))
+  }
+
+  private def copy(
+      weight: Int = weight,
+      initialState: Option[Any] = initialState,
+      replayedEvents: Int = replayedEvents,
+      replayedEvent: Option[Any] = replayedEvent): LoadCommand =
+    new LoadCommand(
+      componentType,
+      serviceName,
+      commandName,
+      payload,
+      weight,
+      initialState,
+      replayedEvents,
+      replayedEvent)
+
+  override def toString: String =
+    s"LoadCommand($key, weight=$weight, initialState=${initialState.isDefined}, replayedEvents=$replayedEvents)"
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2021 Lightbend Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package kalix.javasdk.loadtest
+
+import java.net.ServerSocket
+
+import scala.annotation.varargs
+import scala.concurrent.Await
+import scala.concurrent.duration._
+import scala.jdk.DurationConverters._
+
+import akka.actor.ActorSystem
+import com.typesafe.config.Config
+import com.typesafe.config.ConfigFactory
+import kalix.javasdk.Kalix
+import kalix.javasdk.loadtest.impl.LoadDriver
+
+/**
+ * Load test the components of a Kalix service without a Kalix proxy or a cluster.
+ *
+ * Starts the service in-process with a `KalixRunner` and drives its components through the same protocol the Kalix
+ * proxy uses, so that the measurements cover the real SDK runtime path: protobuf serialization, the entity and action
+ * routers and the user code. The journal and state store are not part of the measurement, entities are recovered
+ * from the initial state and replayed events configured on the commands.
+ *
+ * {{{
+ * LoadTestReport report = LoadTest.run(
+ *   Main.createKalix(),
+ *   LoadTestSettings.DEFAULT.withTargetRate(5000).withEntityIds(10000),
+ *   LoadCommand.eventSourcedEntity("com.example.ShoppingCartService", "AddItem", id -> addItem(id)).withWeight(9),
+ *   LoadCommand.eventSourcedEntity("com.example.ShoppingCartService", "GetCart", id -> getCart(id)));
+ * System.out.println(report);
+ * }}}
+ */
+object LoadTest {
+
+  /**
+   * Run a load test with the default configuration (loaded from `application.conf`), blocking until it completes.
+   */
+  @varargs
+  def run(kalix: Kalix, settings: LoadTestSettings, commands: LoadCommand*): LoadTestReport =
+    run(kalix, ConfigFactory.load(), settings, commands: _*)
+
+  /**
+   * Run a load test with custom configuration for the service, blocking until it completes.
+   */
+  @varargs
+  def run(kalix: Kalix, config: Config, settings: LoadTestSettings, commands: LoadCommand*): LoadTestReport = {
+    require(commands.nonEmpty, "At least one command is needed for a load test")
+    require(
+      settings.totalCommands > settings.warmupCommands,
+      s"No commands left to measure after the warmup at the target rate, with $settings")
+
+    val port = availableLocalPort()
+    val runnerConfig = ConfigFactory
+      .parseString(s"""
+        kalix.user-function-port = $port
+        kalix.system.akka.coordinated-shutdown.exit-jvm = off
+        kalix.dev-mode.docker-compose-file = none
+        """)
+      .withFallback(config)
+    val runner = kalix.createRunner(runnerConfig)
+    runner.run()
+
+    // the load is generated in a separate actor system, to not compete with the service for its dispatcher
+    val system = ActorSystem("KalixLoadTest", ConfigFactory.parseString("akka.loglevel = WARNING"))
+    val driver = new LoadDriver(system, port, settings, commands.toVector)
+    try {
+      val timeout = (settings.warmup.toScala + settings.duration.toScala) * 2 + 1.minute
+      Await.result(driver.run(), timeout)
+    } finally {
+      Await.ready(driver.close(), 10.seconds)
+      Await.ready(system.terminate(), 10.seconds)
+      runner.terminate().toCompletableFuture.get()
+    }
+  }
+
+  private def availableLocalPort(): Int = {
+    val socket = new ServerSocket(0)
+    try socket.getLocalPort
+    finally socket.close()
+  }
+}
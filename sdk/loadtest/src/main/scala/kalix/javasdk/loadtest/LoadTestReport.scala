@@ -0,0 +1,103 @@
+/*
+ * Copyright 2021 Lightbend Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package kalix.javasdk.loadtest
+
+import java.time.Duration
+
+import scala.jdk.CollectionConverters._
+
+import org.HdrHistogram.Histogram
+
+/**
+ * The outcome of a [[LoadTest]], covering the measured period after the warmup.
+ *
+ * Latencies are in microseconds, measured from the time a command was scheduled to be sent at the target rate rather
+ * than when it was actually sent, so that time spent waiting behind slow commands is not hidden (coordinated omission).
+ * Commands are sent open loop at the target rate, those that would exceed the max in flight are not sent at all and
+ * only counted as dropped, a service that can't keep up shows as dropped commands rather than as a lower rate.
+ *
+ * @param dropped
+ *   the commands not sent because the max in flight was reached
+ * @param latencies
+ *   latency histograms per [[LoadCommand.key]]
+ * @param activations
+ *   latency histograms per service of the first command to each entity, which includes activating and recovering the
+ *   entity
+ * @param gcCollections
+ *   the number of garbage collections, all collectors combined
+ * @param gcTime
+ *   the accumulated garbage collection time, all collectors combined
+ * @param allocatedBytes
+ *   the bytes allocated by the threads alive at the end of the test, or -1 if the JVM does not support measuring it
+ */
+final class LoadTestReport private[loadtest] (
+    val settings: LoadTestSettings,
+    val elapsed: Duration,
+    val completed: Long,
+    val failed: Long,
+    val dropped: Long,
+    latencies: Map[String, Histogram],
+    activations: Map[String, Histogram],
+    val gcCollections: Long,
+    val gcTime: Duration,
+    val allocatedBytes: Long) {
+
+  /** Completed commands per second */
+  def throughput: Double =
+    if (elapsed.isZero) 0.0 else completed * 1000000000.0 / elapsed.toNanos
+
+  /** The latencies of all commands */
+  def totalLatency: Histogram = {
+    val all = new Histogram(3)
+    latencies.values.foreach(all.add)
+    all
+  }
+
+  /** The latencies of the commands with the given [[LoadCommand.key]] */
+  def latency(commandKey: String): Histogram =
+    latencies.getOrElse(commandKey, throw new IllegalArgumentException(s"No latencies for [$commandKey]"))
+
+  def getLatencies: java.util.Map[String, Histogram] = latencies.asJava
+
+  def getActivations: java.util.Map[String, Histogram] = activations.asJava
+
+  /** A human readable summary, one line per command */
+  def render: String = {
+    def line(name: String, histogram: Histogram): String =
+      f"  $name%-50s count ${histogram.getTotalCount}%9d  p50 ${valueAt(histogram, 50)}%9d  " +
+      f"p99 ${valueAt(histogram, 99)}%9d  p99.9 ${valueAt(histogram, 99.9)}%9d  max ${histogram.getMaxValue}%9d µs"
+
+    val lines =
+      Seq(
+        s"Load test with $settings",
+        f"  completed $completed, failed $failed, dropped $dropped in ${elapsed.toMillis} ms, " +
+        f"$throughput%.1f commands/s",
+        f"  gc: $gcCollections collections, ${gcTime.toMillis} ms, allocated ${allocatedBytes / (1024 * 1024)} MiB",
+        "Latencies:",
+        line("all", totalLatency)) ++
+      latencies.toSeq.sortBy(_._1).map { case (key, histogram) => line(key, histogram) } ++
+      (if (activations.isEmpty) Nil
+       else "Activations:" +: activations.toSeq.sortBy(_._1).map { case (key, histogram) => line(key, histogram) })
+
+    lines.mkString("\n")
+  }
+
+  private def valueAt(histogram: Histogram, percentile: Double): Long =
+    histogram.getValueAtPercentile(percentile)
+
+  override def toString: String = render
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2021 Lightbend Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package kalix.javasdk.loadtest
+
+import java.time.Duration
+
+object LoadTestSettings {
+
+  /** 1000 commands per second for 30 seconds after 10 seconds of warmup, spread over 1000 entities */
+  val DEFAULT: LoadTestSettings =
+    new LoadTestSettings(
+      targetRate = 1000,
+      duration = Duration.ofSeconds(30),
+      warmup = Duration.ofSeconds(10),
+      entityIds = 1000,
+      maxInFlight = 1000,
+      passivateAfter = 0)
+}
+
+/**
+ * Settings for a [[LoadTest]].
+ *
+ * Not for user extension, instances are immutable.
+ */
+final class LoadTestSettings private (
+    val targetRate: Int,
+    val duration: Duration,
+    val warmup: Duration,
+    val entityIds: Int,
+    val maxInFlight: Int,
+    val passivateAfter: Int) {
+
+  /**
+   * @param commandsPerSecond
+   *   the rate commands are sent at, regardless of how fast they complete
+   */
+  def withTargetRate(commandsPerSecond: Int): LoadTestSettings = {
+    require(commandsPerSecond >= 1, s"Target rate must be at least 1, was $commandsPerSecond")
+    copy(targetRate = commandsPerSecond)
+  }
+
+  /** How long to measure for, after the warmup */
+  def withDuration(duration: Duration): LoadTestSettings = {
+    require(!duration.isNegative && !duration.isZero, s"Duration must be positive, was $duration")
+    copy(duration = duration)
+  }
+
+  /** How long to send commands for before measuring, to let the JIT compiler and caches settle */
+  def withWarmup(warmup: Duration): LoadTestSettings = {
+    require(!warmup.isNegative, s"Warmup must not be negative, was $warmup")
+    copy(warmup = warmup)
+  }
+
+  /**
+   * @param cardinality
+   *   the number of distinct entity ids commands are spread over, each of them is an entity kept active
+   */
+  def withEntityIds(cardinality: Int): LoadTestSettings = {
+    require(cardinality >= 1, s"Entity id cardinality must be at least 1, was $cardinality")
+    copy(entityIds = cardinality)
+  }
+
+  /**
+   * @param max
+   *   the max number of commands waiting for a reply, commands are still scheduled at the target rate when reached
+   *   but are dropped instead of sent, and counted in [[LoadTestReport.dropped]]
+   */
+  def withMaxInFlight(max: Int): LoadTestSettings = {
+    require(max >= 1, s"Max in flight must be at least 1, was $max")
+    copy(maxInFlight = max)
+  }
+
+  /**
+   * @param commands
+   *   passivate entities after this many commands, so that they are activated and recovered again, 0 to never
+   *   passivate
+   */
+  def withPassivateAfter(commands: Int): LoadTestSettings = copy(passivateAfter = commands)
+
+  private[loadtest] def totalCommands: Long =
+    (targetRate.toLong * (warmup.toMillis + duration.toMillis)) / 1000
+
+  private[loadtest] def warmupCommands: Long =
+    (targetRate.toLong * warmup.toMillis) / 1000
+
+  private def copy(
+      targetRate: Int = targetRate,
+      duration: Duration = duration,
+      warmup: Duration = warmup,
+      entityIds: Int = entityIds,
+      maxInFlight: Int = maxInFlight,
+      passivateAfter: Int = passivateAfter): LoadTestSettings =
+    new LoadTestSettings(targetRate, duration, warmup, entityIds, maxInFlight, passivateAfter)
+
+  override def toString: String =
+    s"LoadTestSettings(targetRate=$targetRate/s, duration=$duration, warmup=$warmup, entityIds=$entityIds, " +
+    s"maxInFlight=$maxInFlight, passivateAfter=$passivateAfter)"
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2021 Lightbend Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package kalix.javasdk.loadtest.impl
+
+import java.lang.management.ManagementFactory
+
+import scala.jdk.CollectionConverters._
+
+/**
+ * INTERNAL API
+ */
+private[loadtest] object JvmStats {
+
+  def snapshot(): JvmStats = {
+    val collectors = ManagementFactory.getGarbageCollectorMXBeans.asScala
+    // -1 means undefined for a collector
+    val collections = collectors.map(_.getCollectionCount.max(0L)).sum
+    val collectionTime = collectors.map(_.getCollectionTime.max(0L)).sum
+    JvmStats(collections, collectionTime, allocatedBytes())
+  }
+
+  private def allocatedBytes(): Long =
+    ManagementFactory.getThreadMXBean match {
+      case threads: com.sun.management.ThreadMXBean
+          if threads.isThreadAllocatedMemorySupported && threads.isThreadAllocatedMemoryEnabled =>
+        // threads that terminate during the test take their allocations with them, so this is a lower bound
+        threads.getThreadAllocatedBytes(threads.getAllThreadIds).filter(_ > 0).sum
+      case _ => -1L
+    }
+}
+
+/**
+ * INTERNAL API
+ */
+private[loadtest] final case class JvmStats(gcCollections: Long, gcTimeMillis: Long, allocatedBytes: Long) {
+  def -(earlier: JvmStats): JvmStats =
+    JvmStats(
+      gcCollections - earlier.gcCollections,
+      gcTimeMillis - earlier.gcTimeMillis,
+      if (allocatedBytes < 0 || earlier.allocatedBytes < 0) -1L
+      else (allocatedBytes - earlier.allocatedBytes).max(0L))
+}
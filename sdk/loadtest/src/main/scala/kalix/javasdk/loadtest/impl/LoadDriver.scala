@@ -0,0 +1,365 @@
+/*
+ * Copyright 2021 Lightbend Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package kalix.javasdk.loadtest.impl
+
+import java.time.Duration
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ThreadLocalRandom
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicLong
+
+import scala.concurrent.ExecutionContext
+import scala.concurrent.Future
+import scala.concurrent.Promise
+import scala.concurrent.duration._
+import scala.jdk.CollectionConverters._
+import scala.util.Failure
+import scala.util.Success
+import scala.util.Try
+import scala.util.control.NonFatal
+
+import akka.Done
+import akka.actor.ActorSystem
+import akka.grpc.GrpcClientSettings
+import akka.stream.BoundedSourceQueue
+import akka.stream.QueueOfferResult
+import akka.stream.scaladsl.Sink
+import akka.stream.scaladsl.Source
+import kalix.javasdk.BuildInfo
+import kalix.javasdk.loadtest.LoadCommand
+import kalix.javasdk.loadtest.LoadTestReport
+import kalix.javasdk.loadtest.LoadTestSettings
+import kalix.protocol.action.ActionCommand
+import kalix.protocol.action.Actions
+import kalix.protocol.action.ActionsClient
+import kalix.protocol.component.ClientAction
+import kalix.protocol.discovery.DiscoveryClient
+import kalix.protocol.discovery.ProxyInfo
+import kalix.protocol.entity.Command
+import kalix.protocol.event_sourced_entity._
+import kalix.protocol.value_entity._
+import org.HdrHistogram.ConcurrentHistogram
+import org.HdrHistogram.Histogram
+
+/**
+ * INTERNAL API
+ */
+private[loadtest] object LoadDriver {
+
+  /**
+   * The command stream of one active entity, replies are matched to commands by command id. A command completes with
+   * `true` if it was handled successfully and `false` if the entity replied with an error.
+   */
+  final class EntityConnection[In](queue: BoundedSourceQueue[In]) {
+    private val pending = new ConcurrentHashMap[Long, Promise[Boolean]]()
+    val sent = new AtomicInteger()
+
+    def send(commandId: Long, in: In): Future[Boolean] = {
+      val reply = Promise[Boolean]()
+      pending.put(commandId, reply)
+      queue.offer(in) match {
+        case QueueOfferResult.Enqueued => // sent
+        case other =>
+          pending.remove(commandId)
+          reply.failure(new IllegalStateException(s"Could not send command to entity: $other"))
+      }
+      reply.future
+    }
+
+    def replied(commandId: Long, clientAction: Option[ClientAction]): Unit =
+      Option(pending.remove(commandId)).foreach(_.success(!clientAction.exists(_.action.isFailure)))
+
+    def failed(error: Throwable): Unit = {
+      pending.values.asScala.foreach(_.tryFailure(error))
+      pending.clear()
+    }
+
+    def close(): Unit = queue.complete()
+  }
+
+  final class CommandFailedException(message: String) extends RuntimeException(message)
+}
+
+/**
+ * INTERNAL API
+ *
+ * Drives the user function protocol endpoints of a running `KalixRunner` the way the proxy does, open loop at the
+ * target rate of the settings.
+ */
+private[loadtest] final class LoadDriver(
+    system: ActorSystem,
+    userFunctionPort: Int,
+    settings: LoadTestSettings,
+    commands: Seq[LoadCommand]) {
+  import LoadDriver._
+
+  private implicit val sys: ActorSystem = system
+  private implicit val ec: ExecutionContext = system.dispatcher
+
+  private val clientSettings = GrpcClientSettings.connectToServiceAt("localhost", userFunctionPort).withTls(false)
+  private val discoveryClient = DiscoveryClient(clientSettings)
+  private val actionsClient = ActionsClient(clientSettings)
+  private val eventSourcedClient = EventSourcedEntitiesClient(clientSettings)
+  private val valueEntitiesClient = ValueEntitiesClient(clientSettings)
+
+  private val cumulativeWeights = commands.scanLeft(0)(_ + _.weight).tail.toArray
+  private val totalWeight = cumulativeWeights.last
+
+  private val commandIds = new AtomicLong()
+  private val eventSourcedConnections =
+    new ConcurrentHashMap[(String, String), EntityConnection[EventSourcedStreamIn]]()
+  private val valueEntityConnections =
+    new ConcurrentHashMap[(String, String), EntityConnection[ValueEntityStreamIn]]()
+
+  private val latencies = new ConcurrentHashMap[String, Histogram]()
+  private val activations = new ConcurrentHashMap[String, Histogram]()
+  private val completed = new AtomicLong()
+  private val failed = new AtomicLong()
+  private val dropped = new AtomicLong()
+  private val inFlight = new AtomicInteger()
+
+  @volatile private var measureStartNanos = 0L
+  @volatile private var statsAtStart = JvmStats(0, 0, 0)
+
+  def run(): Future[LoadTestReport] = {
+    val intervalNanos = 1000000000.0 / settings.targetRate
+    // the user function is started concurrently, so it may not accept connections yet
+    val discovered = akka.pattern.retry(() => discoveryClient.discover(proxyInfo), 50, 100.millis)(ec, system.scheduler)
+
+    discovered.flatMap { _ =>
+      val startNanos = System.nanoTime()
+      // open loop: commands are sent at the target rate without waiting for replies, so that a slow service can't
+      // slow down the load and hide its latency (coordinated omission), commands over max in flight are dropped
+      Source(0L until settings.totalCommands)
+        .throttle(settings.targetRate, 1.second)
+        .runForeach { index =>
+          if (index == settings.warmupCommands) startMeasuring()
+          val measured = index >= settings.warmupCommands
+          if (inFlight.incrementAndGet() > settings.maxInFlight) {
+            inFlight.decrementAndGet()
+            if (measured) dropped.incrementAndGet()
+          } else {
+            val scheduledNanos = startNanos + (index * intervalNanos).toLong
+            send(measured, scheduledNanos).onComplete(_ => inFlight.decrementAndGet())
+          }
+        }
+        .flatMap(_ => allReplied())
+        .map(_ => report())
+    }
+  }
+
+  private def allReplied(): Future[Done] =
+    if (inFlight.get() == 0) Future.successful(Done)
+    else akka.pattern.after(10.millis)(allReplied())
+
+  private val proxyInfo =
+    ProxyInfo(
+      protocolMajorVersion = BuildInfo.protocolMajorVersion,
+      protocolMinorVersion = BuildInfo.protocolMinorVersion,
+      proxyName = "kalix-loadtest",
+      proxyVersion = BuildInfo.version,
+      supportedEntityTypes = Seq(Actions.name, EventSourcedEntities.name, ValueEntities.name),
+      devMode = true,
+      proxyHostname = "localhost",
+      internalProxyHostname = "localhost")
+
+  private def startMeasuring(): Unit = {
+    statsAtStart = JvmStats.snapshot()
+    measureStartNanos = System.nanoTime()
+  }
+
+  private def pickCommand(): LoadCommand = {
+    val n = ThreadLocalRandom.current().nextInt(totalWeight)
+    commands(cumulativeWeights.indexWhere(n < _))
+  }
+
+  private def send(measured: Boolean, scheduledNanos: Long): Future[Done] = {
+    val command = pickCommand()
+    val entityId = s"entity-${ThreadLocalRandom.current().nextInt(settings.entityIds)}"
+    // sending ahead of schedule happens when the throttle catches up in bursts, never count that as negative latency
+    val startNanos = math.min(scheduledNanos, System.nanoTime())
+    val (reply, activated) =
+      try dispatch(command, entityId)
+      catch {
+        case NonFatal(error) => (Future.failed[Boolean](error), false)
+      }
+
+    reply.transform { result =>
+      if (measured) {
+        val latencyMicros = (System.nanoTime() - startNanos) / 1000
+        result match {
+          case Success(true) =>
+            completed.incrementAndGet()
+            histogram(latencies, command.key).recordValue(latencyMicros)
+            if (activated) histogram(activations, command.serviceName).recordValue(latencyMicros)
+          case Success(false) =>
+            // the entity replied with an error, the command was still handled end to end
+            completed.incrementAndGet()
+            failed.incrementAndGet()
+            histogram(latencies, command.key).recordValue(latencyMicros)
+          case Failure(_) =>
+            failed.incrementAndGet()
+        }
+      }
+      Success(Done)
+    }
+  }
+
+  private def histogram(histograms: ConcurrentHashMap[String, Histogram], key: String): Histogram =
+    histograms.computeIfAbsent(key, _ => new ConcurrentHistogram(3))
+
+  /** @return the reply and whether the command activated an entity */
+  private def dispatch(command: LoadCommand, entityId: String): (Future[Boolean], Boolean) = {
+    val payload = LoadCommand.toAny(command.payload.apply(entityId))
+    command.componentType match {
+      case Actions.name =>
+        val actionCommand =
+          ActionCommand(serviceName = command.serviceName, name = command.commandName, payload = Some(payload))
+        val reply = actionsClient.handleUnary(actionCommand).map(response => !response.response.isFailure)
+        (reply, false)
+
+      case EventSourcedEntities.name =>
+        val commandId = commandIds.incrementAndGet()
+        var activated = false
+        val key = (command.serviceName, entityId)
+        val connection = eventSourcedConnections.computeIfAbsent(
+          key,
+          _ => {
+            activated = true
+            eventSourcedConnection(command, key)
+          })
+        val in = EventSourcedStreamIn(
+          EventSourcedStreamIn.Message.Command(Command(entityId, commandId, command.commandName, Some(payload))))
+        val reply = connection.send(commandId, in)
+        passivateIfDone(eventSourcedConnections, key, connection)
+        (reply, activated)
+
+      case ValueEntities.name =>
+        val commandId = commandIds.incrementAndGet()
+        var activated = false
+        val key = (command.serviceName, entityId)
+        val connection = valueEntityConnections.computeIfAbsent(
+          key,
+          _ => {
+            activated = true
+            valueEntityConnection(command, key)
+          })
+        val in = ValueEntityStreamIn(
+          ValueEntityStreamIn.Message.Command(Command(entityId, commandId, command.commandName, Some(payload))))
+        val reply = connection.send(commandId, in)
+        passivateIfDone(valueEntityConnections, key, connection)
+        (reply, activated)
+    }
+  }
+
+  private def passivateIfDone[In](
+      connections: ConcurrentHashMap[(String, String), EntityConnection[In]],
+      key: (String, String),
+      connection: EntityConnection[In]): Unit =
+    if (connection.sent.incrementAndGet() == settings.passivateAfter && connections.remove(key, connection))
+      connection.close() // commands already sent are still handled before the entity stops
+
+  private def eventSourcedConnection(
+      command: LoadCommand,
+      key: (String, String)): EntityConnection[EventSourcedStreamIn] = {
+    val entityId = key._2
+    val snapshot = command.initialState.map(state => EventSourcedSnapshot(0, Some(LoadCommand.toAny(state))))
+    val init = EventSourcedStreamIn(
+      EventSourcedStreamIn.Message.Init(EventSourcedInit(command.serviceName, entityId, snapshot)))
+    val replayedEvent = command.replayedEvent.map(LoadCommand.toAny)
+    val replay = Source
+      .fromIterator(() => Iterator.range(1, command.replayedEvents + 1))
+      .map(sequence =>
+        EventSourcedStreamIn(EventSourcedStreamIn.Message.Event(EventSourcedEvent(sequence, replayedEvent))))
+
+    val (queue, commands) = Source.queue[EventSourcedStreamIn](settings.maxInFlight).preMaterialize()
+    val connection = new EntityConnection(queue)
+    eventSourcedClient
+      .handle(Source.single(init).concat(replay).concat(commands))
+      .runWith(Sink.foreach { out =>
+        out.message match {
+          case EventSourcedStreamOut.Message.Reply(reply) =>
+            connection.replied(reply.commandId, reply.clientAction)
+          case EventSourcedStreamOut.Message.Failure(failure) =>
+            connection.failed(new CommandFailedException(failure.description))
+          case _ =>
+        }
+      })
+      .onComplete { result =>
+        eventSourcedConnections.remove(key, connection)
+        connection.failed(closedError(result))
+      }
+    connection
+  }
+
+  private def valueEntityConnection(
+      command: LoadCommand,
+      key: (String, String)): EntityConnection[ValueEntityStreamIn] = {
+    val entityId = key._2
+    val state = command.initialState.map(LoadCommand.toAny)
+    val init = ValueEntityStreamIn(
+      ValueEntityStreamIn.Message.Init(
+        ValueEntityInit(command.serviceName, entityId, Some(ValueEntityInitState(state)))))
+
+    val (queue, commands) = Source.queue[ValueEntityStreamIn](settings.maxInFlight).preMaterialize()
+    val connection = new EntityConnection(queue)
+    valueEntitiesClient
+      .handle(Source.single(init).concat(commands))
+      .runWith(Sink.foreach { out =>
+        out.message match {
+          case ValueEntityStreamOut.Message.Reply(reply) =>
+            connection.replied(reply.commandId, reply.clientAction)
+          case ValueEntityStreamOut.Message.Failure(failure) =>
+            connection.failed(new CommandFailedException(failure.description))
+          case _ =>
+        }
+      })
+      .onComplete { result =>
+        valueEntityConnections.remove(key, connection)
+        connection.failed(closedError(result))
+      }
+    connection
+  }
+
+  private def closedError(result: Try[Done]): Throwable =
+    result.fold(identity, _ => new IllegalStateException("Entity stream completed before replying"))
+
+  private def report(): LoadTestReport = {
+    val elapsedNanos = System.nanoTime() - measureStartNanos
+    val stats = JvmStats.snapshot() - statsAtStart
+    new LoadTestReport(
+      settings,
+      Duration.ofNanos(elapsedNanos),
+      completed.get(),
+      failed.get(),
+      dropped.get(),
+      latencies.asScala.toMap,
+      activations.asScala.toMap,
+      stats.gcCollections,
+      Duration.ofMillis(stats.gcTimeMillis),
+      stats.allocatedBytes)
+  }
+
+  def close(): Future[Done] = {
+    eventSourcedConnections.values.asScala.foreach(_.close())
+    valueEntityConnections.values.asScala.foreach(_.close())
+    Future
+      .sequence(
+        List(discoveryClient.close(), actionsClient.close(), eventSourcedClient.close(), valueEntitiesClient.close()))
+      .map(_ => Done)
+  }
+}
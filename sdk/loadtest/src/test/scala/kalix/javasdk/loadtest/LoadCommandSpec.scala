@@ -0,0 +1,67 @@
+/*
+ * Copyright 2021 Lightbend Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package kalix.javasdk.loadtest
+
+import java.time.Duration
+
+import org.scalatest.matchers.should.Matchers
+import org.scalatest.wordspec.AnyWordSpec
+
+class LoadCommandSpec extends AnyWordSpec with Matchers {
+
+  "A load command" should {
+
+    "pack Java and ScalaPB messages" in {
+      LoadCommand.toAny(com.google.protobuf.Empty.getDefaultInstance).typeUrl shouldBe
+      "type.googleapis.com/google.protobuf.Empty"
+      LoadCommand.toAny(com.google.protobuf.empty.Empty()).typeUrl shouldBe
+      "type.googleapis.com/google.protobuf.Empty"
+      intercept[IllegalArgumentException](LoadCommand.toAny("not a message"))
+    }
+
+    "only allow replaying events into event sourced entities" in {
+      val event = com.google.protobuf.Empty.getDefaultInstance
+      LoadCommand
+        .eventSourcedEntity("com.example.Service", "Command", _ => event)
+        .withReplayedEvents(100, event)
+        .replayedEvents shouldBe 100
+      intercept[IllegalArgumentException] {
+        LoadCommand.valueEntity("com.example.Service", "Command", _ => event).withReplayedEvents(100, event)
+      }
+      intercept[IllegalArgumentException] {
+        LoadCommand.action("com.example.Service", "Command", _ => event).withInitialState(event)
+      }
+    }
+  }
+
+  "The load test settings" should {
+    "derive the number of commands to send from the rate and durations" in {
+      val settings = LoadTestSettings.DEFAULT
+        .withTargetRate(200)
+        .withWarmup(Duration.ofMillis(1500))
+        .withDuration(Duration.ofSeconds(10))
+      settings.warmupCommands shouldBe 300L
+      settings.totalCommands shouldBe 2300L
+    }
+
+    "reject durations that leave nothing to measure" in {
+      intercept[IllegalArgumentException](LoadTestSettings.DEFAULT.withDuration(Duration.ZERO))
+      intercept[IllegalArgumentException](LoadTestSettings.DEFAULT.withWarmup(Duration.ofSeconds(-1)))
+      LoadTestSettings.DEFAULT.withWarmup(Duration.ZERO).warmupCommands shouldBe 0L
+    }
+  }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2021 Lightbend Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package kalix.javasdk.loadtest
+
+import java.time.Duration
+
+import com.example.shoppingcart.domain.shoppingcart_domain.ItemAdded
+import com.example.shoppingcart.domain.shoppingcart_domain.LineItem
+import com.example.shoppingcart.shoppingcart_api.AddLineItem
+import com.example.shoppingcart.shoppingcart_api.GetShoppingCart
+import kalix.javasdk.Kalix
+import kalix.javasdk.eventsourcedentity.CartEntity
+import kalix.javasdk.eventsourcedentity.CartEntityProvider
+import org.scalatest.matchers.should.Matchers
+import org.scalatest.wordspec.AnyWordSpec
+
+class LoadTestSpec extends AnyWordSpec with Matchers {
+
+  private val ShoppingCartService = "com.example.shoppingcart.ShoppingCartService"
+
+  private def kalix = new Kalix().register(CartEntityProvider.of(new CartEntity(_)))
+
+  private val addItem =
+    LoadCommand
+      .eventSourcedEntity(ShoppingCartService, "AddItem", id => AddLineItem(id, "abc", "apple", 1))
+      .withWeight(3)
+
+  private val getCart =
+    LoadCommand.eventSourcedEntity(ShoppingCartService, "GetCart", id => GetShoppingCart(id))
+
+  "A load test" should {
+
+    "measure the commands sent after the warmup" in {
+      val settings = LoadTestSettings.DEFAULT
+        .withTargetRate(200)
+        .withWarmup(Duration.ofMillis(500))
+        .withDuration(Duration.ofSeconds(1))
+        .withEntityIds(10)
+      val report = LoadTest.run(kalix, settings, addItem, getCart)
+
+      (report.completed + report.dropped) shouldBe settings.totalCommands - settings.warmupCommands
+      report.failed shouldBe 0
+      report.totalLatency.getTotalCount shouldBe report.completed
+      report.latency(addItem.key).getTotalCount should be > 0L
+      report.latency(getCart.key).getTotalCount should be > 0L
+      report.render should include("dropped")
+    }
+
+    "measure from the start without a warmup" in {
+      val settings = LoadTestSettings.DEFAULT
+        .withTargetRate(100)
+        .withWarmup(Duration.ZERO)
+        .withDuration(Duration.ofMillis(500))
+        .withEntityIds(5)
+      val report = LoadTest.run(kalix, settings, getCart)
+
+      (report.completed + report.dropped) shouldBe settings.totalCommands
+      report.elapsed.toMillis should be > 0L
+    }
+
+    "drop the commands over the max in flight instead of slowing down" in {
+      val settings = LoadTestSettings.DEFAULT
+        .withTargetRate(2000)
+        .withWarmup(Duration.ZERO)
+        .withDuration(Duration.ofMillis(500))
+        .withEntityIds(1)
+        .withMaxInFlight(1)
+        // every command activates and recovers the entity again, so that commands overlap
+        .withPassivateAfter(1)
+      val itemAdded = ItemAdded(Some(LineItem("abc", "apple", 1)))
+      val report = LoadTest.run(kalix, settings, addItem.withReplayedEvents(1000, itemAdded))
+
+      report.dropped should be > 0L
+      (report.completed + report.dropped) shouldBe settings.totalCommands
+    }
+
+    "reject settings without any commands to measure" in {
+      val settings = LoadTestSettings.DEFAULT.withTargetRate(1).withDuration(Duration.ofMillis(500))
+      intercept[IllegalArgumentException](LoadTest.run(kalix, settings, getCart))
+    }
+  }
+}
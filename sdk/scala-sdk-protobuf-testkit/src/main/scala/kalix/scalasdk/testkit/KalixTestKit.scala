@@ -23,8 +23,12 @@ import akka.stream.Materializer
 import kalix.scalasdk.{ Kalix, Principal }
 import kalix.javasdk.testkit.{ KalixTestKit => JTestKit }
 import kalix.javasdk.testkit.KalixTestKit.Settings.{ EventingSupport => JEventingSupport }
+import kalix.javasdk.testkit.KalixTestKit.Settings.{ ProxyMode => JProxyMode }
 import kalix.scalasdk.testkit.KalixTestKit.Settings.EventingSupport
 import kalix.scalasdk.testkit.KalixTestKit.Settings.GooglePubSub
+import kalix.scalasdk.testkit.KalixTestKit.Settings.InProcessProxy
+import kalix.scalasdk.testkit.KalixTestKit.Settings.ProxyContainer
+import kalix.scalasdk.testkit.KalixTestKit.Settings.ProxyMode
 import kalix.scalasdk.testkit.KalixTestKit.Settings.TestBroker
 
 import scala.concurrent.duration.FiniteDuration
@@ -63,6 +67,13 @@ object KalixTestKit {
       }
       new Settings(jSettings.withEventingSupport(jEventingSupport))
     }
+    def withProxyMode(proxyMode: ProxyMode): Settings = {
+      val jProxyMode = proxyMode match {
+        case ProxyContainer => JProxyMode.CONTAINER
+        case InProcessProxy => JProxyMode.IN_PROCESS
+      }
+      new Settings(jSettings.withProxyMode(jProxyMode))
+    }
   }
 
   object Settings {
@@ -84,6 +95,26 @@ object KalixTestKit {
      * Note: the Google PubSub Emulator need to be started independently.
      */
     object GooglePubSub extends EventingSupport
+
+    /**
+     * Defines how the Kalix proxy is run for the tests.
+     */
+    sealed trait ProxyMode
+
+    /**
+     * This is the default and runs the Kalix proxy in a Docker container, supporting all Kalix features.
+     */
+    object ProxyContainer extends ProxyMode
+
+    /**
+     * Runs a lightweight stand-in for the Kalix proxy inside the test JVM, keeping entity state in memory. Starts in
+     * milliseconds instead of seconds, but only supports gRPC calls to event sourced entities, value entities and
+     * actions.
+     *
+     * Note: views, workflows, replicated entities, timers, eventing, ACLs and HTTP endpoints are not supported, tests
+     * using those need the [[ProxyContainer]] mode.
+     */
+    object InProcessProxy extends ProxyMode
   }
 
   val DefaultSettings: Settings = new Settings(JTestKit.Settings.DEFAULT)
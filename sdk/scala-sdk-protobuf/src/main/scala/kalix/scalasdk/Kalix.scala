@@ -19,6 +19,7 @@ package kalix.scalasdk
 import scala.concurrent.Future
 import akka.Done
 import kalix.javasdk
+import kalix.javasdk.impl.ProtobufTypeRegistry
 import kalix.replicatedentity.ReplicatedData
 import kalix.scalasdk.action.Action
 import kalix.scalasdk.action.ActionProvider
@@ -92,6 +93,18 @@ class Kalix private (private[kalix] val delegate: javasdk.Kalix) {
   def preferScalaProtobufs: Kalix =
     Kalix(delegate.preferScalaProtobufs)
 
+  /**
+   * INTERNAL API, used by the generated `KalixFactory`
+   *
+   * Sets the protobuf message types of this service, as registered by the generated `TypeRegistry`, so that they are
+   * resolved without reflection. Only applies to components registered after it is set.
+   *
+   * @return
+   *   This Kalix instance.
+   */
+  def withTypeRegistry(typeRegistry: ProtobufTypeRegistry): Kalix =
+    Kalix(delegate.withTypeRegistry(typeRegistry))
+
   /**
    * Register a replicated entity using a [[ReplicatedEntityProvider]]. The concrete `ReplicatedEntityProvider` is
    * generated for the specific entities defined in Protobuf, for example `CustomerEntityProvider`.